@@ -38,6 +38,8 @@ abstract class BaseRowSet implements Comparable<IRowSet>, IRowSet {
   protected volatile String remoteHopServerName;
   private ReadWriteLock lock;
 
+  private volatile WakeupSignal consumerSignal;
+
   public BaseRowSet() {
     // not done putting data into this IRowSet
     done = new AtomicBoolean(false);
@@ -132,6 +134,20 @@ abstract class BaseRowSet implements Comparable<IRowSet>, IRowSet {
   @Override
   public void setDone() {
     done.set(true);
+    signalConsumer();
+  }
+
+  @Override
+  public void setConsumerSignal(WakeupSignal signal) {
+    this.consumerSignal = signal;
+  }
+
+  /** Let the transform reading from this row set know that there is something to read. */
+  protected void signalConsumer() {
+    WakeupSignal signal = consumerSignal;
+    if (signal != null) {
+      signal.signal();
+    }
   }
 
   /*
@@ -98,6 +98,7 @@ public class BlockingBatchingRowSet extends BaseRowSet implements Comparable<IRo
       try {
         getArray.offer(inputBuffer, time, tu);
         inputBuffer = null;
+        signalConsumer();
       } catch (InterruptedException e) {
         return false;
       }
@@ -169,6 +170,7 @@ public class BlockingBatchingRowSet extends BaseRowSet implements Comparable<IRo
         inputBuffer[i] = null;
       }
       getArray.offer(inputBuffer);
+      signalConsumer();
     }
     putArray.clear();
   }
@@ -19,6 +19,8 @@ package org.apache.hop.core;
 
 import org.apache.hop.core.row.IRowMeta;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.TimeUnit;
@@ -70,8 +72,11 @@ public class BlockingRowSet extends BaseRowSet implements Comparable<IRowSet>, I
   public boolean putRowWait(IRowMeta rowMeta, Object[] rowData, long time, TimeUnit tu) {
     this.rowMeta = rowMeta;
     try {
-
-      return queArray.offer(rowData, time, tu);
+      if (queArray.offer(rowData, time, tu)) {
+        signalConsumer();
+        return true;
+      }
+      return false;
     } catch (InterruptedException | NullPointerException e) {
       return false;
     }
@@ -115,6 +120,25 @@ public class BlockingRowSet extends BaseRowSet implements Comparable<IRowSet>, I
     }
   }
 
+  /**
+   * Takes all the available rows out of the queue in one go, holding the queue lock only once.
+   *
+   * @see org.apache.hop.core.IRowSet#getRows(int)
+   */
+  @Override
+  public Object[][] getRows(int max) {
+    Object[] first = getRow();
+    if (first == null) {
+      return null;
+    }
+    List<Object[]> rows = new ArrayList<>(Math.min(max, queArray.size() + 1));
+    rows.add(first);
+    if (max > 1) {
+      queArray.drainTo(rows, max - 1);
+    }
+    return rows.toArray(new Object[0][]);
+  }
+
   @Override
   public int size() {
     return queArray.size();
@@ -0,0 +1,551 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.core;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.hop.core.Condition.Function;
+import org.apache.hop.core.Condition.Operator;
+import org.apache.hop.core.exception.HopValueException;
+import org.apache.hop.core.row.IRowMeta;
+import org.apache.hop.core.row.IValueMeta;
+import org.apache.hop.core.row.value.ValueMetaDate;
+import org.apache.hop.core.row.value.ValueMetaInteger;
+import org.apache.hop.core.row.value.ValueMetaNumber;
+import org.apache.hop.core.util.Utils;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * A {@link Condition} bound to the layout of the rows it evaluates. The field indexes are looked
+ * up, the constants are converted to the data type of the field they're compared with, and the
+ * regular expressions and IN lists are prepared once instead of for every row.
+ *
+ * <p>A compiled condition is immutable and can be shared between threads. It has to be compiled
+ * again when the condition or the layout of the rows changes.
+ */
+public final class CompiledCondition {
+
+  private static final INode TRUE_NODE = row -> true;
+  private static final INode FALSE_NODE = row -> false;
+
+  private final IRowMeta rowMeta;
+  private final long version;
+  private final INode root;
+
+  CompiledCondition(Condition condition, IRowMeta rowMeta, long version) {
+    this.rowMeta = rowMeta;
+    this.version = version;
+    this.root = compile(condition, rowMeta);
+  }
+
+  /**
+   * Evaluate the condition for a row.
+   *
+   * @param row the row data, laid out as described by {@link #getRowMeta()}
+   * @return true if the condition evaluates to true.
+   */
+  public boolean evaluate(Object[] row) {
+    return root.evaluate(row);
+  }
+
+  /** @return The layout of the rows this condition was compiled for */
+  public IRowMeta getRowMeta() {
+    return rowMeta;
+  }
+
+  boolean isCompiledFor(IRowMeta rowMeta, long version) {
+    return this.rowMeta == rowMeta && this.version == version;
+  }
+
+  private static INode compile(Condition condition, IRowMeta rowMeta) {
+    boolean negated = condition.isNegated();
+
+    if (condition.isComposite()) {
+      List<Condition> children = condition.getChildren();
+      INode[] nodes = new INode[children.size()];
+      Operator[] operators = new Operator[children.size()];
+      for (int i = 0; i < nodes.length; i++) {
+        nodes[i] = compile(children.get(i), rowMeta);
+        operators[i] = children.get(i).getOperator();
+      }
+      return new CompositeNode(nodes, operators, negated);
+    }
+
+    Function function = condition.getFunction();
+    if (function == Function.TRUE) {
+      return negated ? FALSE_NODE : TRUE_NODE;
+    }
+
+    // Without a left field there is nothing to evaluate, negated or not
+    //
+    String leftValueName = condition.getLeftValueName();
+    int leftIndex = StringUtils.isEmpty(leftValueName) ? -1 : rowMeta.indexOfValue(leftValueName);
+    if (leftIndex < 0) {
+      return FALSE_NODE;
+    }
+    IValueMeta leftMeta = rowMeta.getValueMeta(leftIndex);
+
+    // The right side is either another field or a constant
+    //
+    int rightIndex = -1;
+    IValueMeta rightMeta = null;
+    Object rightData = null;
+    boolean constant = false;
+    if (StringUtils.isNotEmpty(condition.getRightValueName())) {
+      rightIndex = rowMeta.indexOfValue(condition.getRightValueName());
+      if (rightIndex >= 0) {
+        rightMeta = rowMeta.getValueMeta(rightIndex);
+      }
+    } else if (condition.getRightValue() != null) {
+      try {
+        rightMeta = condition.getRightValue().createValueMeta();
+        rightData = condition.getRightValue().createValueData();
+        constant = true;
+      } catch (Exception e) {
+        return new FailingNode(condition, e);
+      }
+    }
+
+    INode node = null;
+    if (constant && function != null) {
+      try {
+        node =
+            compileConstant(
+                condition, function, leftIndex, leftMeta, rightMeta, rightData, negated);
+      } catch (Exception e) {
+        // Leave it to the row by row evaluation to report the problem
+        node = null;
+      }
+    }
+    if (node == null) {
+      node =
+          new GenericNode(
+              condition, leftIndex, leftMeta, rightIndex, rightMeta, rightData, function, negated);
+    }
+    return node;
+  }
+
+  /** @return A node specialized for a comparison with a constant or null if there is none */
+  private static INode compileConstant(
+      Condition condition,
+      Function function,
+      int leftIndex,
+      IValueMeta leftMeta,
+      IValueMeta rightMeta,
+      Object rightData,
+      boolean negated)
+      throws Exception {
+    switch (function) {
+      case EQUAL:
+      case NOT_EQUAL:
+      case SMALLER:
+      case SMALLER_EQUAL:
+      case LARGER:
+      case LARGER_EQUAL:
+        IComparison comparison = bindConstant(leftMeta, rightMeta, rightData);
+        if (comparison == null) {
+          return null;
+        }
+        return new CompareNode(condition, leftIndex, leftMeta, function, negated, comparison);
+      case NULL:
+      case NOT_NULL:
+        return new NullNode(
+            condition, leftIndex, leftMeta, function == Function.NOT_NULL, negated);
+      case REGEXP:
+      case LIKE:
+        if (rightData == null) {
+          return negated ? TRUE_NODE : FALSE_NODE;
+        }
+        String regex = rightMeta.getCompatibleString(rightData);
+        if (function == Function.LIKE) {
+          regex = regex.replace("%", ".*").replace("?", ".");
+        }
+        return new PatternNode(condition, leftIndex, leftMeta, Pattern.compile(regex), negated);
+      case IN_LIST:
+        String[] inList = Const.splitString(rightMeta.getString(rightData), ';', true);
+        Set<String> values = new HashSet<>();
+        for (String value : inList) {
+          values.add(value == null ? null : value.replace("\\", ""));
+        }
+        return new InListNode(condition, leftIndex, leftMeta, values, negated);
+      case CONTAINS:
+      case STARTS_WITH:
+      case ENDS_WITH:
+        String string = rightMeta.getCompatibleString(rightData);
+        if (string == null) {
+          return function == Function.ENDS_WITH ? (negated ? TRUE_NODE : FALSE_NODE) : null;
+        }
+        return new StringNode(condition, leftIndex, leftMeta, function, string, negated);
+      default:
+        return null;
+    }
+  }
+
+  /**
+   * Convert a constant once to the data type and storage of the field it's compared with, the way
+   * {@link IValueMeta#compare(Object, IValueMeta, Object)} does it for every row.
+   *
+   * @return the comparison with the converted constant or null if it can't be converted upfront
+   */
+  private static IComparison bindConstant(
+      IValueMeta leftMeta, IValueMeta rightMeta, Object rightData) throws HopValueException {
+    Object value;
+    if (leftMeta.getType() == rightMeta.getType()) {
+      if (leftMeta.getStorageType() == rightMeta.getStorageType()) {
+        value = rightData;
+      } else if (leftMeta.isStorageNormal()) {
+        value = rightMeta.convertToNormalStorageType(rightData);
+      } else {
+        return null;
+      }
+    } else if (leftMeta.getType() == IValueMeta.TYPE_INTEGER
+        && rightMeta.getType() == IValueMeta.TYPE_NUMBER) {
+      // The integer field is converted to a number for every row
+      return null;
+    } else {
+      value = leftMeta.convertData(rightMeta, rightData);
+    }
+
+    // Plain integers, numbers and dates can be compared without going through the value metadata
+    //
+    if (value != null && leftMeta.isStorageNormal() && !leftMeta.isSortedDescending()) {
+      Class<?> metaClass = leftMeta.getClass();
+      if (metaClass == ValueMetaInteger.class && value instanceof Long) {
+        long constant = (Long) value;
+        return data -> data == null ? -1 : Long.compare((Long) data, constant);
+      }
+      if (metaClass == ValueMetaNumber.class && value instanceof Double) {
+        double constant = (Double) value;
+        return data -> data == null ? -1 : Double.compare((Double) data, constant);
+      }
+      if (metaClass == ValueMetaDate.class && value instanceof Date) {
+        long constant = ((Date) value).getTime();
+        return data -> data == null ? -1 : Long.compare(((Date) data).getTime(), constant);
+      }
+    }
+    return data -> leftMeta.compare(data, value);
+  }
+
+  /** A node of the compiled condition tree. */
+  private interface INode {
+    boolean evaluate(Object[] row);
+  }
+
+  /** Compares the value of a field with a constant. */
+  private interface IComparison {
+    int compareTo(Object data) throws HopValueException;
+  }
+
+  private static final class CompositeNode implements INode {
+    private final INode[] nodes;
+    private final Operator[] operators;
+    private final boolean negated;
+
+    private CompositeNode(INode[] nodes, Operator[] operators, boolean negated) {
+      this.nodes = nodes;
+      this.operators = operators;
+      this.negated = negated;
+    }
+
+    @Override
+    public boolean evaluate(Object[] row) {
+      boolean evaluation = nodes[0].evaluate(row);
+
+      // The right hand side is only evaluated when the left hand side doesn't decide already
+      //
+      for (int i = 1; i < nodes.length; i++) {
+        switch (operators[i]) {
+          case OR:
+            evaluation = evaluation || nodes[i].evaluate(row);
+            break;
+          case AND:
+            evaluation = evaluation && nodes[i].evaluate(row);
+            break;
+          case OR_NOT:
+            evaluation = evaluation || (!nodes[i].evaluate(row));
+            break;
+          case AND_NOT:
+            evaluation = evaluation && (!nodes[i].evaluate(row));
+            break;
+          case XOR:
+            evaluation = evaluation ^ nodes[i].evaluate(row);
+            break;
+          default:
+            break;
+        }
+      }
+      return negated != evaluation;
+    }
+  }
+
+  /** An atomic condition on a field, errors are reported with the condition that failed. */
+  private abstract static class AtomicNode implements INode {
+    protected final int leftIndex;
+    protected final IValueMeta leftMeta;
+    protected final boolean negated;
+    private final Condition condition;
+
+    private AtomicNode(Condition condition, int leftIndex, IValueMeta leftMeta, boolean negated) {
+      this.condition = condition;
+      this.leftIndex = leftIndex;
+      this.leftMeta = leftMeta;
+      this.negated = negated;
+    }
+
+    @Override
+    public boolean evaluate(Object[] row) {
+      try {
+        return negated != test(row[leftIndex], row);
+      } catch (Exception e) {
+        throw new RuntimeException("Unexpected error evaluation condition [" + condition + "]", e);
+      }
+    }
+
+    protected abstract boolean test(Object data, Object[] row) throws Exception;
+  }
+
+  private static final class CompareNode extends AtomicNode {
+    private final Function function;
+    private final IComparison comparison;
+
+    private CompareNode(
+        Condition condition,
+        int leftIndex,
+        IValueMeta leftMeta,
+        Function function,
+        boolean negated,
+        IComparison comparison) {
+      super(condition, leftIndex, leftMeta, negated);
+      this.function = function;
+      this.comparison = comparison;
+    }
+
+    @Override
+    protected boolean test(Object data, Object[] row) throws Exception {
+      switch (function) {
+        case EQUAL:
+          return comparison.compareTo(data) == 0;
+        case NOT_EQUAL:
+          return comparison.compareTo(data) != 0;
+        case SMALLER:
+          return !leftMeta.isNull(data) && comparison.compareTo(data) < 0;
+        case SMALLER_EQUAL:
+          return !leftMeta.isNull(data) && comparison.compareTo(data) <= 0;
+        case LARGER:
+          return comparison.compareTo(data) > 0;
+        default:
+          return comparison.compareTo(data) >= 0;
+      }
+    }
+  }
+
+  private static final class NullNode extends AtomicNode {
+    private final boolean notNull;
+
+    private NullNode(
+        Condition condition,
+        int leftIndex,
+        IValueMeta leftMeta,
+        boolean notNull,
+        boolean negated) {
+      super(condition, leftIndex, leftMeta, negated);
+      this.notNull = notNull;
+    }
+
+    @Override
+    protected boolean test(Object data, Object[] row) throws Exception {
+      return notNull != leftMeta.isNull(data);
+    }
+  }
+
+  private static final class PatternNode extends AtomicNode {
+    private final Pattern pattern;
+
+    private PatternNode(
+        Condition condition,
+        int leftIndex,
+        IValueMeta leftMeta,
+        Pattern pattern,
+        boolean negated) {
+      super(condition, leftIndex, leftMeta, negated);
+      this.pattern = pattern;
+    }
+
+    @Override
+    protected boolean test(Object data, Object[] row) throws Exception {
+      return !leftMeta.isNull(data)
+          && pattern.matcher(leftMeta.getCompatibleString(data)).matches();
+    }
+  }
+
+  private static final class InListNode extends AtomicNode {
+    private final Set<String> values;
+
+    private InListNode(
+        Condition condition,
+        int leftIndex,
+        IValueMeta leftMeta,
+        Set<String> values,
+        boolean negated) {
+      super(condition, leftIndex, leftMeta, negated);
+      this.values = values;
+    }
+
+    @Override
+    protected boolean test(Object data, Object[] row) throws Exception {
+      String string = leftMeta.getCompatibleString(data);
+      return string != null && values.contains(string);
+    }
+  }
+
+  private static final class StringNode extends AtomicNode {
+    private final Function function;
+    private final String string;
+
+    private StringNode(
+        Condition condition,
+        int leftIndex,
+        IValueMeta leftMeta,
+        Function function,
+        String string,
+        boolean negated) {
+      super(condition, leftIndex, leftMeta, negated);
+      this.function = function;
+      this.string = string;
+    }
+
+    @Override
+    protected boolean test(Object data, Object[] row) throws Exception {
+      String value = leftMeta.getCompatibleString(data);
+      switch (function) {
+        case CONTAINS:
+          return value != null && value.contains(string);
+        case STARTS_WITH:
+          return value != null && value.startsWith(string);
+        default:
+          return !Utils.isEmpty(value) && value.endsWith(string);
+      }
+    }
+  }
+
+  /** Evaluates any atomic condition, including comparisons of two fields, row by row. */
+  private static final class GenericNode extends AtomicNode {
+    private final int rightIndex;
+    private final IValueMeta rightMeta;
+    private final Object rightData;
+    private final Function function;
+
+    private GenericNode(
+        Condition condition,
+        int leftIndex,
+        IValueMeta leftMeta,
+        int rightIndex,
+        IValueMeta rightMeta,
+        Object rightData,
+        Function function,
+        boolean negated) {
+      super(condition, leftIndex, leftMeta, negated);
+      this.rightIndex = rightIndex;
+      this.rightMeta = rightMeta;
+      this.rightData = rightData;
+      this.function = function;
+    }
+
+    @Override
+    protected boolean test(Object field, Object[] row) throws Exception {
+      IValueMeta fieldMeta = leftMeta;
+      IValueMeta fieldMeta2 = rightMeta;
+      Object field2 = rightIndex >= 0 ? row[rightIndex] : rightData;
+
+      switch (function) {
+        case EQUAL:
+          return fieldMeta.compare(field, fieldMeta2, field2) == 0;
+        case NOT_EQUAL:
+          return fieldMeta.compare(field, fieldMeta2, field2) != 0;
+        case SMALLER:
+          return !fieldMeta.isNull(field) && fieldMeta.compare(field, fieldMeta2, field2) < 0;
+        case SMALLER_EQUAL:
+          return !fieldMeta.isNull(field) && fieldMeta.compare(field, fieldMeta2, field2) <= 0;
+        case LARGER:
+          return fieldMeta.compare(field, fieldMeta2, field2) > 0;
+        case LARGER_EQUAL:
+          return fieldMeta.compare(field, fieldMeta2, field2) >= 0;
+        case REGEXP:
+          return !fieldMeta.isNull(field)
+              && field2 != null
+              && Pattern.matches(
+                  fieldMeta2.getCompatibleString(field2), fieldMeta.getCompatibleString(field));
+        case NULL:
+          return fieldMeta.isNull(field);
+        case NOT_NULL:
+          return !fieldMeta.isNull(field);
+        case IN_LIST:
+          String[] inList = Const.splitString(fieldMeta2.getString(field2), ';', true);
+          for (int i = 0; i < inList.length; i++) {
+            inList[i] = inList[i] == null ? null : inList[i].replace("\\", "");
+          }
+          Arrays.sort(inList);
+          String searchString = fieldMeta.getCompatibleString(field);
+          return searchString != null && Arrays.binarySearch(inList, searchString) >= 0;
+        case CONTAINS:
+          String contains = fieldMeta.getCompatibleString(field);
+          return contains != null && contains.contains(fieldMeta2.getCompatibleString(field2));
+        case STARTS_WITH:
+          String startsWith = fieldMeta.getCompatibleString(field);
+          return startsWith != null
+              && startsWith.startsWith(fieldMeta2.getCompatibleString(field2));
+        case ENDS_WITH:
+          String endsWith = fieldMeta.getCompatibleString(field);
+          return !Utils.isEmpty(endsWith)
+              && field2 != null
+              && endsWith.endsWith(fieldMeta2.getCompatibleString(field2));
+        case LIKE:
+          if (fieldMeta.isNull(field) || field2 == null) {
+            return false;
+          }
+          String regex = fieldMeta2.getCompatibleString(field2);
+          regex = regex.replace("%", ".*").replace("?", ".");
+          return Pattern.matches(regex, fieldMeta.getCompatibleString(field));
+        default:
+          return false;
+      }
+    }
+  }
+
+  /** The right hand side constant of the condition can't be created: fail for every row. */
+  private static final class FailingNode implements INode {
+    private final Condition condition;
+    private final Exception exception;
+
+    private FailingNode(Condition condition, Exception exception) {
+      this.condition = condition;
+      this.exception = exception;
+    }
+
+    @Override
+    public boolean evaluate(Object[] row) {
+      throw new RuntimeException(
+          "Unexpected error evaluation condition [" + condition + "]", exception);
+    }
+  }
+}
@@ -17,7 +17,7 @@
 
 package org.apache.hop.core;
 
-import org.apache.commons.lang.StringUtils;
+import com.google.common.annotations.VisibleForTesting;
 import org.apache.hop.core.exception.HopException;
 import org.apache.hop.core.exception.HopPluginException;
 import org.apache.hop.core.exception.HopValueException;
@@ -27,7 +27,6 @@ import org.apache.hop.core.row.IValueMeta;
 import org.apache.hop.core.row.ValueMetaAndData;
 import org.apache.hop.core.row.value.ValueMetaFactory;
 import org.apache.hop.core.row.value.ValueMetaString;
-import org.apache.hop.core.util.Utils;
 import org.apache.hop.core.xml.XmlHandler;
 import org.apache.hop.metadata.api.HopMetadataProperty;
 import org.apache.hop.metadata.api.IEnumHasCode;
@@ -36,7 +35,7 @@ import org.apache.hop.metadata.serializer.xml.XmlMetadataUtil;
 import org.w3c.dom.Node;
 
 import java.util.*;
-import java.util.regex.Pattern;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static org.apache.hop.core.Condition.Function.*;
 import static org.apache.hop.core.Condition.Operator.AND;
@@ -141,16 +140,17 @@ public class Condition implements Cloneable {
   @HopMetadataProperty(groupKey = "conditions", key = "condition")
   private List<Condition> children;
 
-  // Cached values for performance:
-  private int leftFieldIndex;
-  private int rightFieldIndex;
-  private String rightString;
-
   /**
-   * Temporary variable, no need to persist this one. Contains the sorted array of strings in an IN
-   * LIST condition
+   * Changes whenever this condition or one of its sub-conditions changes. It tells {@link
+   * #evaluate(IRowMeta, Object[])} to compile the condition again.
    */
-  private String[] inList;
+  private final AtomicLong version = new AtomicLong();
+
+  /** The condition this one is a sub-condition of, notified of every change */
+  private Condition parent;
+
+  /** The condition compiled for the row layout it was last evaluated with */
+  private volatile CompiledCondition compiled;
 
   public Condition() {
     this.children = new ArrayList<>();
@@ -158,9 +158,6 @@ public class Condition implements Cloneable {
     this.negated = false;
     this.rightValue = null;
     this.function = EQUAL;
-
-    leftFieldIndex = -2;
-    rightFieldIndex = -2;
   }
 
   public Condition(String valueName, Function function, String valueName2, ValueMetaAndData exact)
@@ -169,7 +166,7 @@ public class Condition implements Cloneable {
     this.leftValueName = valueName;
     this.function = function;
     this.rightValueName = valueName2;
-    this.rightValue = exact == null ? null : new CValue(exact);
+    this.rightValue = exact == null ? null : new CValue(exact).withOwner(this);
 
     clearFieldPositions();
   }
@@ -186,7 +183,7 @@ public class Condition implements Cloneable {
     this.leftValueName = valueName;
     this.function = function;
     this.rightValueName = valueName2;
-    this.rightValue = exact == null ? null : new CValue(exact);
+    this.rightValue = exact == null ? null : new CValue(exact).withOwner(this);
 
     clearFieldPositions();
   }
@@ -209,8 +206,8 @@ public class Condition implements Cloneable {
     this.function = c.function;
     this.leftValueName = c.leftValueName;
     this.rightValueName = c.rightValueName;
-    this.rightValue = c.rightValue == null ? null : new CValue(c.rightValue);
-    c.children.forEach(child -> this.children.add(new Condition(child)));
+    this.rightValue = c.rightValue == null ? null : new CValue(c.rightValue).withOwner(this);
+    c.children.forEach(child -> this.children.add(adopt(new Condition(child))));
   }
 
   @Override
@@ -220,6 +217,7 @@ public class Condition implements Cloneable {
 
   public void setOperator(Operator operator) {
     this.operator = operator;
+    changed();
   }
 
   public Operator getOperator() {
@@ -257,6 +255,7 @@ public class Condition implements Cloneable {
 
   public void setLeftValueName(String leftValueName) {
     this.leftValueName = leftValueName;
+    changed();
   }
 
   public String getLeftValueName() {
@@ -269,6 +268,7 @@ public class Condition implements Cloneable {
 
   public void setFunction(Function function) {
     this.function = function;
+    changed();
   }
 
   public String getFunctionDesc() {
@@ -286,6 +286,7 @@ public class Condition implements Cloneable {
 
   public void setRightValueName(String rightValueName) {
     this.rightValueName = rightValueName;
+    changed();
   }
 
   public String getRightValueName() {
@@ -293,7 +294,8 @@ public class Condition implements Cloneable {
   }
 
   public void setRightValue(CValue rightValue) {
-    this.rightValue = rightValue;
+    this.rightValue = rightValue == null ? null : rightValue.withOwner(this);
+    changed();
   }
 
   public CValue getRightValue() {
@@ -321,6 +323,7 @@ public class Condition implements Cloneable {
 
   public void setNegated(boolean negate) {
     this.negated = negate;
+    changed();
   }
 
   public void negate() {
@@ -333,12 +336,43 @@ public class Condition implements Cloneable {
   }
 
   /**
-   * We cache the position of a value in a row. If ever we want to change the rowtype, we need to
-   * clear these cached field positions...
+   * We cache the compiled condition, with the position of the values in a row. If ever we change
+   * the condition without going through its setters, we need to clear it...
    */
   public void clearFieldPositions() {
-    leftFieldIndex = -2;
-    rightFieldIndex = -2;
+    changed();
+  }
+
+  /** Tell this condition and the conditions it's part of that they have to be compiled again. */
+  private void changed() {
+    for (Condition condition = this; condition != null; condition = condition.parent) {
+      condition.version.incrementAndGet();
+    }
+  }
+
+  @VisibleForTesting
+  long getVersion() {
+    return version.get();
+  }
+
+  private Condition adopt(Condition child) {
+    if (child != null) {
+      child.parent = this;
+    }
+    return child;
+  }
+
+  /**
+   * Link the sub-conditions and values to the condition they're part of, also when they were set
+   * without going through the setters, for example while loading the condition.
+   */
+  private void linkChildren() {
+    if (rightValue != null) {
+      rightValue.withOwner(this);
+    }
+    for (Condition child : children) {
+      adopt(child).linkChildren();
+    }
   }
 
   /**
@@ -349,216 +383,25 @@ public class Condition implements Cloneable {
    * @return true if the condition evaluates to true.
    */
   public boolean evaluate(IRowMeta rowMeta, Object[] r) {
-    boolean evaluation = false;
-
-    // If we have 0 items in the list, evaluate the current condition
-    // Otherwise, evaluate all sub-conditions
-    //
-    try {
-      if (isAtomic()) {
-
-        if (function == TRUE) {
-          return !negated;
-        }
-
-        // Get field index: left value name
-        //
-        // Check out the field index if we don't have them...
-        if (StringUtils.isNotEmpty(leftValueName)) {
-          leftFieldIndex = rowMeta.indexOfValue(leftValueName);
-        }
-
-        // Get field index: right value name
-        //
-        if (StringUtils.isNotEmpty(rightValueName)) {
-          rightFieldIndex = rowMeta.indexOfValue(rightValueName);
-
-          // We can't have a right value in this case
-          rightValue = null;
-        }
-
-        // Get field index: left field
-        //
-        IValueMeta fieldMeta;
-        Object field;
-        if (leftFieldIndex >= 0) {
-          fieldMeta = rowMeta.getValueMeta(leftFieldIndex);
-          field = r[leftFieldIndex];
-        } else {
-          return false; // no fields to evaluate
-        }
-
-        // Get field index: right value
-        //
-        IValueMeta fieldMeta2 = rightValue != null ? rightValue.createValueMeta() : null;
-        // Old metadata contains a right value block without name, type and so on.  This means: no
-        // value
-        // Removed the name check, old fixed values do not contain a name element causing regression
-        Object field2 = rightValue != null && rightFieldIndex == -2 ? rightValue.createValueData() : null;
-        if (field2 == null && rightFieldIndex >= 0) {
-          fieldMeta2 = rowMeta.getValueMeta(rightFieldIndex);
-          field2 = r[rightFieldIndex];
-        }
-
-        // Evaluate
-        switch (function) {
-          case EQUAL:
-            evaluation = (fieldMeta.compare(field, fieldMeta2, field2) == 0);
-            break;
-          case NOT_EQUAL:
-            evaluation = (fieldMeta.compare(field, fieldMeta2, field2) != 0);
-            break;
-          case SMALLER:
-            if (fieldMeta.isNull(field)) {
-              evaluation = false;
-            } else {
-              evaluation = (fieldMeta.compare(field, fieldMeta2, field2) < 0);
-            }
-            break;
-          case SMALLER_EQUAL:
-            if (fieldMeta.isNull(field)) {
-              evaluation = false;
-            } else {
-              evaluation = (fieldMeta.compare(field, fieldMeta2, field2) <= 0);
-            }
-            break;
-          case LARGER:
-            evaluation = (fieldMeta.compare(field, fieldMeta2, field2) > 0);
-            break;
-          case LARGER_EQUAL:
-            evaluation = (fieldMeta.compare(field, fieldMeta2, field2) >= 0);
-            break;
-          case REGEXP:
-            if (fieldMeta.isNull(field) || field2 == null) {
-              evaluation = false;
-            } else {
-              evaluation =
-                  Pattern.matches(
-                      fieldMeta2.getCompatibleString(field2), fieldMeta.getCompatibleString(field));
-            }
-            break;
-          case NULL:
-            evaluation = (fieldMeta.isNull(field));
-            break;
-          case NOT_NULL:
-            evaluation = (!fieldMeta.isNull(field));
-            break;
-          case IN_LIST:
-            // performance reason: create the array first or again when it is against a field and
-            // not a constant
-            //
-            if (inList == null || rightFieldIndex >= 0) {
-              inList = Const.splitString(fieldMeta2.getString(field2), ';', true);
-              for (int i = 0; i < inList.length; i++) {
-                inList[i] = inList[i] == null ? null : inList[i].replace("\\", "");
-              }
-              Arrays.sort(inList);
-            }
-            String searchString = fieldMeta.getCompatibleString(field);
-            int inIndex = -1;
-            if (searchString != null) {
-              inIndex = Arrays.binarySearch(inList, searchString);
-            }
-            evaluation = inIndex >= 0;
-            break;
-          case CONTAINS:
-            evaluation =
-                fieldMeta.getCompatibleString(field) != null
-                    && fieldMeta
-                        .getCompatibleString(field)
-                        .contains(fieldMeta2.getCompatibleString(field2));
-            break;
-          case STARTS_WITH:
-            evaluation =
-                fieldMeta.getCompatibleString(field) != null
-                    && fieldMeta
-                        .getCompatibleString(field)
-                        .startsWith(fieldMeta2.getCompatibleString(field2));
-            break;
-          case ENDS_WITH:
-            String string = fieldMeta.getCompatibleString(field);
-            if (!Utils.isEmpty(string)) {
-              if (rightString == null && field2 != null) {
-                rightString = fieldMeta2.getCompatibleString(field2);
-              }
-              if (rightString != null) {
-                evaluation = string.endsWith(fieldMeta2.getCompatibleString(field2));
-              } else {
-                evaluation = false;
-              }
-            } else {
-              evaluation = false;
-            }
-            break;
-          case LIKE:
-            // Converts to a regular expression
-            //
-            if (fieldMeta.isNull(field) || field2 == null) {
-              evaluation = false;
-            } else {
-              String regex = fieldMeta2.getCompatibleString(field2);
-              regex = regex.replace("%", ".*");
-              regex = regex.replace("?", ".");
-              evaluation = Pattern.matches(regex, fieldMeta.getCompatibleString(field));
-            }
-            break;
-          default:
-            break;
-        }
-
-        // Only NOT makes sense, the rest doesn't, so ignore!!!!
-        // Optionally negate
-        //
-        if (isNegated()) {
-          evaluation = !evaluation;
-        }
-      } else {
-        // Composite : get first
-        Condition cb0 = children.get(0);
-        evaluation = cb0.evaluate(rowMeta, r);
-
-        // Loop over the conditions listed below.
-        //
-        for (int i = 1; i < children.size(); i++) {
-          // Composite : #i
-          // Get right hand condition
-          Condition cb = children.get(i);
-
-          // Evaluate the right hand side of the condition cb.evaluate() within
-          // the switch statement
-          // because the condition may be short-circuited due to the left hand
-          // side (evaluation)
-          switch (cb.getOperator()) {
-            case OR:
-              evaluation = evaluation || cb.evaluate(rowMeta, r);
-              break;
-            case AND:
-              evaluation = evaluation && cb.evaluate(rowMeta, r);
-              break;
-            case OR_NOT:
-              evaluation = evaluation || (!cb.evaluate(rowMeta, r));
-              break;
-            case AND_NOT:
-              evaluation = evaluation && (!cb.evaluate(rowMeta, r));
-              break;
-            case XOR:
-              evaluation = evaluation ^ cb.evaluate(rowMeta, r);
-              break;
-            default:
-              break;
-          }
-        }
-
-        // Composite: optionally negate
-        if (isNegated()) {
-          evaluation = !evaluation;
-        }
-      }
-    } catch (Exception e) {
-      throw new RuntimeException("Unexpected error evaluation condition [" + this + "]", e);
+    CompiledCondition compiledCondition = compiled;
+    if (compiledCondition == null || !compiledCondition.isCompiledFor(rowMeta, version.get())) {
+      compiledCondition = compile(rowMeta);
+      compiled = compiledCondition;
     }
+    return compiledCondition.evaluate(r);
+  }
 
-    return evaluation;
+  /**
+   * Compile this condition for rows with the given layout. Transforms evaluating the condition for
+   * every row should compile it once and keep the result, particularly when several copies of the
+   * transform evaluate the same condition.
+   *
+   * @param rowMeta the layout of the rows to evaluate
+   * @return The compiled condition
+   */
+  public CompiledCondition compile(IRowMeta rowMeta) {
+    linkChildren();
+    return new CompiledCondition(this, rowMeta, version.get());
   }
 
   public void addCondition(Condition cb) throws HopValueException {
@@ -569,14 +412,15 @@ public class Condition implements Cloneable {
       Condition current = new Condition(this);
       current.setNegated(isNegated());
       setNegated(false);
-      children.add(current);
+      children.add(adopt(current));
     } else {
       // Set default operator if not on first position...
       if (isComposite() && (cb.getOperator() == NONE)) {
         cb.setOperator(AND);
       }
     }
-    children.add(cb);
+    children.add(adopt(cb));
+    changed();
   }
 
   public void addCondition(int idx, Condition cb) throws HopValueException {
@@ -587,20 +431,22 @@ public class Condition implements Cloneable {
       Condition current = new Condition(this);
       current.setNegated(isNegated());
       setNegated(false);
-      children.add(current);
+      children.add(adopt(current));
     } else {
       // Set default operator if not on first position...
       if (isComposite() && idx > 0 && cb.getOperator() == NONE) {
         cb.setOperator(AND);
       }
     }
-    children.add(idx, cb);
+    children.add(idx, adopt(cb));
+    changed();
   }
 
   public void removeCondition(int nr) {
     if (isComposite()) {
-      Condition c = children.get(nr);
-      children.remove(nr);
+      Condition c = children.remove(nr);
+      c.parent = null;
+      changed();
 
       // Nothing left or only one condition left: move it to the parent: make it atomic.
 
@@ -656,6 +502,7 @@ public class Condition implements Cloneable {
       parent.setRightValue(condition.getRightValue());
       parent.setNegated(condition.isNegated() ^ parent.isNegated());
       parent.children.clear();
+      changed();
       return true;
     }
     return false;
@@ -670,7 +517,11 @@ public class Condition implements Cloneable {
   }
 
   public void setCondition(int i, Condition subCondition) {
-    children.set(i, subCondition);
+    Condition previous = children.set(i, adopt(subCondition));
+    if (previous != null && previous != subCondition) {
+      previous.parent = null;
+    }
+    changed();
   }
 
   @Override
@@ -819,6 +670,8 @@ public class Condition implements Cloneable {
    */
   public void setChildren(List<Condition> children) {
     this.children = children;
+    children.forEach(this::adopt);
+    changed();
   }
 
   public static final class CValue {
@@ -843,6 +696,9 @@ public class Condition implements Cloneable {
     @HopMetadataProperty(key = "mask")
     private String mask;
 
+    /** The condition this is the right hand side value of, notified of every change */
+    private Condition owner;
+
     public CValue() {}
 
     public CValue(CValue c) {
@@ -870,6 +726,17 @@ public class Condition implements Cloneable {
       mask = valueMeta.getConversionMask();
     }
 
+    private CValue withOwner(Condition owner) {
+      this.owner = owner;
+      return this;
+    }
+
+    private void changed() {
+      if (owner != null) {
+        owner.changed();
+      }
+    }
+
     public int getHopType() {
       return ValueMetaFactory.getIdForValueMeta(type);
     }
@@ -919,6 +786,7 @@ public class Condition implements Cloneable {
      */
     public void setName(String name) {
       this.name = name;
+      changed();
     }
 
     /**
@@ -937,6 +805,7 @@ public class Condition implements Cloneable {
      */
     public void setType(String type) {
       this.type = type;
+      changed();
     }
 
     /**
@@ -955,6 +824,7 @@ public class Condition implements Cloneable {
      */
     public void setText(String text) {
       this.text = text;
+      changed();
     }
 
     /**
@@ -973,6 +843,7 @@ public class Condition implements Cloneable {
      */
     public void setLength(int length) {
       this.length = length;
+      changed();
     }
 
     /**
@@ -991,6 +862,7 @@ public class Condition implements Cloneable {
      */
     public void setPrecision(int precision) {
       this.precision = precision;
+      changed();
     }
 
     /**
@@ -1009,6 +881,7 @@ public class Condition implements Cloneable {
      */
     public void setNullValue(boolean nullValue) {
       this.nullValue = nullValue;
+      changed();
     }
 
     /**
@@ -1027,6 +900,7 @@ public class Condition implements Cloneable {
      */
     public void setMask(String mask) {
       this.mask = mask;
+      changed();
     }
   }
 
@@ -166,6 +166,18 @@ public class Const {
       description = "The variable which points to the alternative location for the Hop metadata.")
   public static final String HOP_METADATA_FOLDER = "HOP_METADATA_FOLDER";
 
+  /**
+   * The name of the variable which configures whether or not the metadata objects which are loaded
+   * from the metadata folders are kept in memory.
+   */
+  @Variable(
+      scope = VariableScope.SYSTEM,
+      value = "N",
+      description =
+          "Set this variable to 'Y' to keep the objects loaded from the metadata folders in memory."
+              + " Objects are loaded again when their file changes.")
+  public static final String HOP_METADATA_CACHE = "HOP_METADATA_CACHE";
+
   /** The variable which points to a shared folder with JDBC drivers in them. */
   @Variable(
       scope = VariableScope.SYSTEM,
@@ -599,6 +611,18 @@ public class Const {
       description = "The variable which points to the alternative location for plugins.")
   public static final String HOP_PLUGIN_BASE_FOLDERS = "HOP_PLUGIN_BASE_FOLDERS";
 
+  /**
+   * Name of the variable which points to the file in which the annotation indexes of the plugin jar
+   * files are kept between starts.
+   */
+  @Variable(
+      scope = VariableScope.SYSTEM,
+      description =
+          "The file in which the annotation indexes of the plugin jar files are kept to speed up"
+              + " the next start. Only the jar files which changed are opened again. Leave empty to"
+              + " scan all the plugin jar files at every start.")
+  public static final String HOP_PLUGIN_INDEX_SNAPSHOT = "HOP_PLUGIN_INDEX_SNAPSHOT";
+
   /**
    * Name of the environment variable that contains the size of the pipeline rowset size. This
    * overwrites values that you set pipeline settings.
@@ -784,6 +808,22 @@ public class Const {
       description = "A variable to configure refresh for Hop server workflow/pipeline status page")
   public static final String HOP_SERVER_REFRESH_STATUS = "HOP_SERVER_REFRESH_STATUS";
 
+  /** The size in bytes of the buffer used to write the output of a web service */
+  @Variable(
+      value = "8192",
+      description =
+          "The size in bytes of the buffer used to write the output of a Hop server web service. The output is sent to the client every time the buffer is full.")
+  public static final String HOP_SERVER_WEB_SERVICE_BUFFER_SIZE =
+      "HOP_SERVER_WEB_SERVICE_BUFFER_SIZE";
+
+  /** The number of rows after which the output of a web service is flushed, 0 means never */
+  @Variable(
+      value = "0",
+      description =
+          "Flush the output of a Hop server web service to the client after this many rows. The default of 0 only sends the output when the buffer is full or when the pipeline is finished. Set it to 1 to send every row as soon as it's written.")
+  public static final String HOP_SERVER_WEB_SERVICE_FLUSH_ROWS =
+      "HOP_SERVER_WEB_SERVICE_FLUSH_ROWS";
+
   /** A variable to configure s3vfs to use a temporary file on upload data to S3 Amazon." */
   public static final String S3VFS_USE_TEMPORARY_FILE_ON_UPLOAD_DATA =
       "s3.vfs.useTempFileOnUploadData";
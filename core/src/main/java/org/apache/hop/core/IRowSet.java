@@ -19,10 +19,23 @@ package org.apache.hop.core;
 
 import org.apache.hop.core.row.IRowMeta;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 public interface IRowSet {
 
+  /**
+   * Set the signal to raise when rows are added to this row set or when it is done. The transform
+   * reading from several row sets waits on the signal instead of polling every row set in turn.
+   * Row sets that don't support this ignore the signal.
+   *
+   * @param signal The wake-up signal of the transform reading from this row set
+   */
+  default void setConsumerSignal(WakeupSignal signal) {
+    // Not supported
+  }
+
   /**
    * Offer a row of data to this rowset providing for the description (metadata) of the row. If the
    * buffer is full, wait (block) for a small period of time.
@@ -45,6 +58,47 @@ public interface IRowSet {
    */
   boolean putRowWait(IRowMeta rowMeta, Object[] rowData, long time, TimeUnit tu);
 
+  /**
+   * Offer a batch of rows to this rowset. If the buffer is full, wait (block) for a small period of
+   * time before giving up on the remaining rows. The default implementation hands over the rows one
+   * by one with {@link #putRow(IRowMeta, Object[])}.
+   *
+   * @param rowMeta The description of the row data
+   * @param rows the rows of data, only the first count entries are used
+   * @param count the number of rows to put
+   * @return the number of rows that were added to the rowset, the first rows of the batch are
+   *     always added first.
+   */
+  default int putRows(IRowMeta rowMeta, Object[][] rows, int count) {
+    int added = 0;
+    while (added < count && putRow(rowMeta, rows[added])) {
+      added++;
+    }
+    return added;
+  }
+
+  /**
+   * Get a batch of rows from the input buffer. It blocks for a short period until a first row
+   * becomes available and then takes whatever other rows are immediately available, up to the
+   * given maximum. The default implementation reads the rows one by one.
+   *
+   * @param max the maximum number of rows to return
+   * @return the rows of data or null if no row is available.
+   */
+  default Object[][] getRows(int max) {
+    Object[] first = getRow();
+    if (first == null) {
+      return null;
+    }
+    List<Object[]> rows = new ArrayList<>();
+    rows.add(first);
+    Object[] row;
+    while (rows.size() < max && (row = getRowImmediate()) != null) {
+      rows.add(row);
+    }
+    return rows.toArray(new Object[0][]);
+  }
+
   /**
    * Get a row from the input buffer, it blocks for a short period until a new row becomes
    * available. Otherwise, it returns null.
@@ -0,0 +1,336 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.core;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import org.apache.hop.core.row.IRowMeta;
+
+/**
+ * A lock-free row set for exactly one producer thread and one consumer thread. This is the shape of
+ * every hop in a local pipeline: each row set connects one copy of the source transform with one
+ * copy of the target transform.
+ *
+ * <p>Rows are kept in a ring buffer with a power-of-two capacity. The read and write sequences are
+ * padded to avoid false sharing between the producer and consumer cores. A thread that finds the
+ * buffer full (producer) or empty (consumer) spins briefly and then parks until the other side
+ * wakes it up, or until the requested timeout expires.
+ *
+ * <p>Do not use this row set when more than one thread can write to it or read from it at the same
+ * time.
+ */
+public class SpscRowSet extends BaseRowSet implements Comparable<IRowSet>, IRowSet {
+
+  /** The number of busy-spin iterations before a waiting thread parks. */
+  private static final int SPIN_TRIES = 100;
+
+  private final Object[][] buffer;
+  private final int mask;
+  private final int maxSize;
+
+  /** The sequence of the next row to read, only written by the consumer. */
+  private final PaddedSequence head;
+
+  /** The sequence of the next row to write, only written by the producer. */
+  private final PaddedSequence tail;
+
+  /** Producer-local copy of the head sequence, refreshed only when the buffer looks full. */
+  private long cachedHead;
+
+  /** Consumer-local copy of the tail sequence, refreshed only when the buffer looks empty. */
+  private long cachedTail;
+
+  private volatile Thread waitingProducer;
+  private volatile Thread waitingConsumer;
+
+  private int timeoutPut;
+  private int timeoutGet;
+
+  /**
+   * Create a new single producer, single consumer row set.
+   *
+   * @param maxSize The maximum number of rows this row set can hold.
+   */
+  public SpscRowSet(int maxSize) {
+    super();
+
+    this.maxSize = Math.max(1, maxSize);
+    int capacity = Integer.highestOneBit(this.maxSize);
+    if (capacity < this.maxSize) {
+      capacity <<= 1;
+    }
+    buffer = new Object[capacity][];
+    mask = capacity - 1;
+
+    head = new PaddedSequence();
+    tail = new PaddedSequence();
+
+    timeoutGet =
+        Const.toInt(System.getProperty(Const.HOP_ROWSET_GET_TIMEOUT), Const.TIMEOUT_GET_MILLIS);
+    timeoutPut =
+        Const.toInt(System.getProperty(Const.HOP_ROWSET_PUT_TIMEOUT), Const.TIMEOUT_PUT_MILLIS);
+  }
+
+  @Override
+  public boolean putRow(IRowMeta rowMeta, Object[] rowData) {
+    return putRowWait(rowMeta, rowData, timeoutPut, TimeUnit.MILLISECONDS);
+  }
+
+  @Override
+  public boolean putRowWait(IRowMeta rowMeta, Object[] rowData, long time, TimeUnit tu) {
+    if (rowData == null) {
+      return false;
+    }
+    this.rowMeta = rowMeta;
+
+    if (offer(rowData)) {
+      return true;
+    }
+
+    long timeoutNanos = tu.toNanos(time);
+    long start = System.nanoTime();
+    for (int spin = 0; spin < SPIN_TRIES; spin++) {
+      Thread.onSpinWait();
+      if (offer(rowData)) {
+        return true;
+      }
+    }
+
+    waitingProducer = Thread.currentThread();
+    try {
+      while (true) {
+        // Re-check after announcing ourselves so that a consumer which just freed a slot can't miss
+        // us.
+        //
+        if (offer(rowData)) {
+          return true;
+        }
+        long remaining = timeoutNanos - (System.nanoTime() - start);
+        if (remaining <= 0) {
+          return false;
+        }
+        LockSupport.parkNanos(this, remaining);
+        if (Thread.currentThread().isInterrupted()) {
+          // Keep the interrupt flag set for the caller
+          return false;
+        }
+      }
+    } finally {
+      waitingProducer = null;
+    }
+  }
+
+  @Override
+  public Object[] getRow() {
+    return getRowWait(timeoutGet, TimeUnit.MILLISECONDS);
+  }
+
+  @Override
+  public Object[] getRowImmediate() {
+    return poll();
+  }
+
+  @Override
+  public Object[] getRowWait(long timeout, TimeUnit tu) {
+    Object[] row = poll();
+    if (row != null) {
+      return row;
+    }
+
+    long timeoutNanos = tu.toNanos(timeout);
+    long start = System.nanoTime();
+    for (int spin = 0; spin < SPIN_TRIES; spin++) {
+      Thread.onSpinWait();
+      row = poll();
+      if (row != null) {
+        return row;
+      }
+    }
+
+    waitingConsumer = Thread.currentThread();
+    try {
+      while (true) {
+        row = poll();
+        if (row != null || done.get()) {
+          return row == null ? poll() : row;
+        }
+        long remaining = timeoutNanos - (System.nanoTime() - start);
+        if (remaining <= 0) {
+          return null;
+        }
+        LockSupport.parkNanos(this, remaining);
+        if (Thread.currentThread().isInterrupted()) {
+          // Keep the interrupt flag set for the caller
+          return null;
+        }
+      }
+    } finally {
+      waitingConsumer = null;
+    }
+  }
+
+  /**
+   * Publishes as many rows of the batch as there is room for with a single sequence update, waiting
+   * like {@link #putRow(IRowMeta, Object[])} when the buffer is completely full.
+   */
+  @Override
+  public int putRows(IRowMeta rowMeta, Object[][] rows, int count) {
+    if (count <= 0) {
+      return 0;
+    }
+    this.rowMeta = rowMeta;
+
+    long t = tail.get();
+    long free = maxSize - (t - cachedHead);
+    if (free < count) {
+      cachedHead = head.get();
+      free = maxSize - (t - cachedHead);
+    }
+    if (free <= 0) {
+      // Nothing fits: block for the first row, the caller will offer the rest again.
+      //
+      return putRow(rowMeta, rows[0]) ? 1 : 0;
+    }
+    int added = (int) Math.min(free, count);
+    for (int i = 0; i < added; i++) {
+      buffer[(int) (t + i) & mask] = rows[i];
+    }
+    tail.set(t + added);
+
+    Thread consumer = waitingConsumer;
+    if (consumer != null) {
+      LockSupport.unpark(consumer);
+    }
+    signalConsumer();
+    return added;
+  }
+
+  /**
+   * Takes all the available rows, up to the given maximum, with a single sequence update. Waits like
+   * {@link #getRow()} when the buffer is empty.
+   */
+  @Override
+  public Object[][] getRows(int max) {
+    long h = head.get();
+    cachedTail = tail.get();
+    int available = (int) Math.min(cachedTail - h, max);
+    if (available <= 0) {
+      Object[] row = getRow();
+      return row == null ? null : new Object[][] {row};
+    }
+    Object[][] rows = new Object[available][];
+    for (int i = 0; i < available; i++) {
+      int index = (int) (h + i) & mask;
+      rows[i] = buffer[index];
+      buffer[index] = null;
+    }
+    head.set(h + available);
+
+    Thread producer = waitingProducer;
+    if (producer != null) {
+      LockSupport.unpark(producer);
+    }
+    return rows;
+  }
+
+  /** Only called by the producer thread. */
+  private boolean offer(Object[] rowData) {
+    long t = tail.get();
+    if (t - cachedHead >= maxSize) {
+      cachedHead = head.get();
+      if (t - cachedHead >= maxSize) {
+        return false;
+      }
+    }
+    buffer[(int) t & mask] = rowData;
+    tail.set(t + 1);
+
+    Thread consumer = waitingConsumer;
+    if (consumer != null) {
+      LockSupport.unpark(consumer);
+    }
+    signalConsumer();
+    return true;
+  }
+
+  /** Only called by the consumer thread. */
+  private Object[] poll() {
+    long h = head.get();
+    if (h >= cachedTail) {
+      cachedTail = tail.get();
+      if (h >= cachedTail) {
+        return null;
+      }
+    }
+    int index = (int) h & mask;
+    Object[] row = buffer[index];
+    buffer[index] = null;
+    head.set(h + 1);
+
+    Thread producer = waitingProducer;
+    if (producer != null) {
+      LockSupport.unpark(producer);
+    }
+    return row;
+  }
+
+  @Override
+  public void setDone() {
+    super.setDone();
+
+    // Wake up a consumer that is waiting for rows that will never come.
+    //
+    Thread consumer = waitingConsumer;
+    if (consumer != null) {
+      LockSupport.unpark(consumer);
+    }
+  }
+
+  @Override
+  public int size() {
+    return (int) (tail.get() - head.get());
+  }
+
+  @Override
+  public void clear() {
+    for (int i = 0; i < buffer.length; i++) {
+      buffer[i] = null;
+    }
+    head.set(0L);
+    tail.set(0L);
+    cachedHead = 0L;
+    cachedTail = 0L;
+    done.set(false);
+  }
+
+  /**
+   * An atomic sequence followed by a cache line of padding so that the producer and consumer
+   * sequences don't end up on the same line.
+   */
+  @SuppressWarnings("unused")
+  private static final class PaddedSequence extends AtomicLong {
+    private long p1;
+    private long p2;
+    private long p3;
+    private long p4;
+    private long p5;
+    private long p6;
+    private long p7;
+  }
+}
@@ -0,0 +1,77 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.core;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+
+/**
+ * A wake-up signal for a thread waiting on a condition that other threads change, for example a
+ * transform waiting for rows on any of its input row sets. The waiting thread parks instead of
+ * polling and is woken up as soon as another thread raises the signal.
+ *
+ * <p>Raising the signal is cheap when nobody is waiting, a single volatile read. The signal only
+ * tracks one waiting thread: that is the thread running a transform copy.
+ */
+public class WakeupSignal {
+
+  private volatile Thread waiter;
+
+  /** Wake up the waiting thread, if any, so that it can check its condition again. */
+  public void signal() {
+    Thread thread = waiter;
+    if (thread != null) {
+      LockSupport.unpark(thread);
+    }
+  }
+
+  /**
+   * Wait until the condition is met or until the timeout expires. The condition is checked again
+   * after announcing the waiting thread so that a signal raised in between isn't lost.
+   *
+   * @param condition The condition to wait for
+   * @param timeout The maximum time to wait
+   * @param unit The unit of the timeout
+   * @return true if the condition was met, false if the timeout expired
+   * @throws InterruptedException in case the waiting thread was interrupted
+   */
+  public boolean await(BooleanSupplier condition, long timeout, TimeUnit unit)
+      throws InterruptedException {
+    if (condition.getAsBoolean()) {
+      return true;
+    }
+    long deadline = System.nanoTime() + unit.toNanos(timeout);
+    waiter = Thread.currentThread();
+    try {
+      while (!condition.getAsBoolean()) {
+        long remaining = deadline - System.nanoTime();
+        if (remaining <= 0) {
+          return false;
+        }
+        LockSupport.parkNanos(this, remaining);
+        if (Thread.interrupted()) {
+          throw new InterruptedException();
+        }
+      }
+      return true;
+    } finally {
+      waiter = null;
+    }
+  }
+}
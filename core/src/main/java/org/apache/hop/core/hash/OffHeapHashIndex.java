@@ -0,0 +1,458 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.core.hash;
+
+import org.apache.hop.core.exception.HopException;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A hash index which keeps its keys and values outside of the Java heap. Keys are either longs,
+ * stored as they are in the hash slots, or serialized rows compared byte by byte.
+ *
+ * <p>Keys and values are appended to direct memory chunks. The first chunk is small and every next
+ * chunk is twice as large as the previous one, up to the maximum chunk size, so that a small index
+ * only takes a little memory. Once the memory budget is used up, new chunks are memory-mapped from
+ * a temporary file so that the operating system can page them out. The hash slots themselves always
+ * stay in direct memory.
+ *
+ * <p>Writes are synchronized. Once all entries are added the index can be read from any number of
+ * threads at the same time, provided the readers were handed the index in a thread-safe way.
+ */
+public class OffHeapHashIndex implements Closeable {
+
+  /** The default maximum size of a memory chunk holding keys and values */
+  public static final int DEFAULT_MAX_CHUNK_SIZE = 64 * 1024 * 1024;
+
+  /** The size of the first memory chunk, unless the maximum chunk size is smaller */
+  private static final int FIRST_CHUNK_SIZE = 64 * 1024;
+
+  private static final int STANDARD_INDEX_SIZE = 1024;
+  private static final float STANDARD_LOAD_FACTOR = 0.6f;
+
+  /** The number of longs in one buffer of the hash slots */
+  private static final int SLOT_BUFFER_LONGS = 1 << 24;
+
+  private final boolean longKeys;
+  private final int maxChunkSize;
+  private final long memoryBudget;
+  private final String spillDirectory;
+
+  private final List<ByteBuffer> chunks;
+  private long directBytes;
+  private long spilledBytes;
+  private Path spillFile;
+  private FileChannel spillChannel;
+
+  /** The offset of the next record in the last chunk */
+  private int writeOffset;
+
+  /** Two longs per slot: the key (or its hash) and the address of the record */
+  private ByteBuffer[] slots;
+
+  private long capacity;
+  private long size;
+  private long resizeThreshold;
+
+  /**
+   * Create a new off-heap hash index.
+   *
+   * @param longKeys true if the keys are longs, false for byte array keys
+   * @param maxChunkSize The maximum size of the memory chunks holding keys and values, also the
+   *     maximum size of one key and value together
+   * @param memoryBudget The number of bytes of keys and values to keep in direct memory before
+   *     spilling to a memory-mapped file, 0 or less to never spill
+   * @param spillDirectory The directory of the spill file, the system temporary directory if empty
+   */
+  public OffHeapHashIndex(
+      boolean longKeys, int maxChunkSize, long memoryBudget, String spillDirectory) {
+    this.longKeys = longKeys;
+    this.maxChunkSize = maxChunkSize;
+    this.memoryBudget = memoryBudget;
+    this.spillDirectory = spillDirectory;
+    this.chunks = new ArrayList<>();
+
+    allocateSlots(STANDARD_INDEX_SIZE);
+  }
+
+  /**
+   * Create a new off-heap hash index which never spills to disk.
+   *
+   * @param longKeys true if the keys are longs, false for byte array keys
+   */
+  public OffHeapHashIndex(boolean longKeys) {
+    this(longKeys, DEFAULT_MAX_CHUNK_SIZE, 0L, null);
+  }
+
+  /** @return true if the keys of this index are longs */
+  public boolean isLongKeys() {
+    return longKeys;
+  }
+
+  /** @return The number of keys in the index */
+  public long getSize() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  /** @return The number of bytes of keys and values held in direct memory */
+  public long getDirectBytes() {
+    return directBytes;
+  }
+
+  /** @return The number of bytes of keys and values held in the memory-mapped spill file */
+  public long getSpilledBytes() {
+    return spilledBytes;
+  }
+
+  /**
+   * Add a value for a long key, replacing the value of an existing key.
+   *
+   * @param key The key
+   * @param value The serialized value
+   * @throws HopException In case the value is too large or the spill file can't be written
+   */
+  public synchronized void put(long key, byte[] value) throws HopException {
+    checkKeyType(true);
+    long address = append(null, value);
+    long slot = findSlot(key);
+    if (getSlotAddress(slot) == 0L) {
+      setSlot(slot, key, address);
+      size++;
+      resize();
+    } else {
+      setSlot(slot, key, address);
+    }
+  }
+
+  /**
+   * @param key The key
+   * @return The serialized value or null if the key isn't in the index
+   */
+  public byte[] get(long key) {
+    checkKeyType(true);
+    long address = getSlotAddress(findSlot(key));
+    if (address == 0L) {
+      return null;
+    }
+    ByteBuffer chunk = getChunk(address);
+    int offset = getOffset(address);
+    return readBytes(chunk, offset + 4, chunk.getInt(offset));
+  }
+
+  /**
+   * Add a value for a serialized key, replacing the value of an existing key.
+   *
+   * @param key The serialized key
+   * @param value The serialized value
+   * @throws HopException In case the key and value are too large or the spill file can't be
+   *     written
+   */
+  public synchronized void put(byte[] key, byte[] value) throws HopException {
+    checkKeyType(false);
+    long hash = hash(key);
+    long slot = findSlot(hash, key);
+    long address = append(key, value);
+    if (getSlotAddress(slot) == 0L) {
+      setSlot(slot, hash, address);
+      size++;
+      resize();
+    } else {
+      setSlot(slot, hash, address);
+    }
+  }
+
+  /**
+   * @param key The serialized key
+   * @return The serialized value or null if the key isn't in the index
+   */
+  public byte[] get(byte[] key) {
+    checkKeyType(false);
+    long address = getSlotAddress(findSlot(hash(key), key));
+    if (address == 0L) {
+      return null;
+    }
+    ByteBuffer chunk = getChunk(address);
+    int offset = getOffset(address);
+    int keyLength = chunk.getInt(offset);
+    int valueLength = chunk.getInt(offset + 4);
+    return readBytes(chunk, offset + 8 + keyLength, valueLength);
+  }
+
+  /** Release the memory chunks and remove the spill file, if any. */
+  @Override
+  public synchronized void close() throws IOException {
+    chunks.clear();
+    slots = new ByteBuffer[0];
+    capacity = 0;
+    size = 0;
+    if (spillChannel != null) {
+      try {
+        spillChannel.close();
+      } finally {
+        spillChannel = null;
+        // A mapped file can't be removed on some platforms until the mapping is garbage collected
+        //
+        if (!Files.deleteIfExists(spillFile)) {
+          spillFile.toFile().deleteOnExit();
+        }
+      }
+    }
+  }
+
+  private void checkKeyType(boolean longKey) {
+    if (longKey != longKeys) {
+      throw new IllegalStateException(
+          "This index holds " + (longKeys ? "long" : "byte array") + " keys");
+    }
+  }
+
+  /** Finds the slot of a long key, or the empty slot where it belongs. */
+  private long findSlot(long key) {
+    long mask = capacity - 1;
+    long slot = mix(key) & mask;
+    while (getSlotAddress(slot) != 0L && getSlotKey(slot) != key) {
+      slot = (slot + 1) & mask;
+    }
+    return slot;
+  }
+
+  /** Finds the slot of a serialized key, or the empty slot where it belongs. */
+  private long findSlot(long hash, byte[] key) {
+    long mask = capacity - 1;
+    long slot = hash & mask;
+    long address = getSlotAddress(slot);
+    while (address != 0L) {
+      if (getSlotKey(slot) == hash && equalsKey(address, key)) {
+        return slot;
+      }
+      slot = (slot + 1) & mask;
+      address = getSlotAddress(slot);
+    }
+    return slot;
+  }
+
+  private boolean equalsKey(long address, byte[] key) {
+    ByteBuffer chunk = getChunk(address);
+    int offset = getOffset(address);
+    if (chunk.getInt(offset) != key.length) {
+      return false;
+    }
+    int keyOffset = offset + 8;
+    for (int i = 0; i < key.length; i++) {
+      if (chunk.get(keyOffset + i) != key[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Appends a record: the key and value lengths followed by the key and value bytes. Long keys are
+   * kept in the slots so only the value is stored.
+   *
+   * @return The address of the record: the chunk number plus one in the high 32 bits and the offset
+   *     in the chunk in the low 32 bits. Address 0 is never used, it marks an empty slot.
+   */
+  private long append(byte[] key, byte[] value) throws HopException {
+    int headerSize = key == null ? 4 : 8;
+    int keyLength = key == null ? 0 : key.length;
+    long recordSize = (long) headerSize + keyLength + value.length;
+    if (recordSize > maxChunkSize) {
+      throw new HopException(
+          "A key and value of "
+              + recordSize
+              + " bytes don't fit in a memory chunk of "
+              + maxChunkSize
+              + " bytes");
+    }
+
+    // Records don't cross chunk boundaries
+    //
+    ByteBuffer chunk = chunks.isEmpty() ? null : chunks.get(chunks.size() - 1);
+    if (chunk == null || writeOffset + recordSize > chunk.capacity()) {
+      chunk = allocateChunk((int) recordSize);
+      chunks.add(chunk);
+      writeOffset = 0;
+    }
+
+    long address = ((long) chunks.size() << 32) | writeOffset;
+    if (key == null) {
+      chunk.putInt(writeOffset, value.length);
+    } else {
+      chunk.putInt(writeOffset, key.length);
+      chunk.putInt(writeOffset + 4, value.length);
+    }
+    ByteBuffer target = chunk.duplicate();
+    target.position(writeOffset + headerSize);
+    if (key != null) {
+      target.put(key);
+    }
+    target.put(value);
+
+    writeOffset += (int) recordSize;
+    return address;
+  }
+
+  /**
+   * Allocates the next chunk, twice the size of the previous one up to the maximum chunk size.
+   *
+   * @param minimumSize The size of the record which needs to fit in the chunk
+   */
+  private ByteBuffer allocateChunk(int minimumSize) throws HopException {
+    int size =
+        chunks.isEmpty()
+            ? Math.min(FIRST_CHUNK_SIZE, maxChunkSize)
+            : (int) Math.min(2L * chunks.get(chunks.size() - 1).capacity(), maxChunkSize);
+    size = Math.max(size, minimumSize);
+
+    if (memoryBudget > 0) {
+      long remainingBudget = memoryBudget - directBytes;
+      if (size > remainingBudget && remainingBudget >= minimumSize) {
+        // Use up the rest of the memory budget before spilling
+        //
+        size = (int) remainingBudget;
+      }
+    }
+
+    if (memoryBudget <= 0 || directBytes + size <= memoryBudget) {
+      directBytes += size;
+      return ByteBuffer.allocateDirect(size);
+    }
+    try {
+      if (spillChannel == null) {
+        Path directory =
+            spillDirectory == null || spillDirectory.isEmpty()
+                ? Paths.get(System.getProperty("java.io.tmpdir"))
+                : Paths.get(spillDirectory);
+        spillFile = Files.createTempFile(directory, "hop-hash-index-", ".bin");
+        spillChannel =
+            FileChannel.open(spillFile, StandardOpenOption.READ, StandardOpenOption.WRITE);
+      }
+      ByteBuffer chunk = spillChannel.map(FileChannel.MapMode.READ_WRITE, spilledBytes, size);
+      spilledBytes += size;
+      return chunk;
+    } catch (IOException e) {
+      throw new HopException("Unable to map a memory chunk of the hash index to disk", e);
+    }
+  }
+
+  private ByteBuffer getChunk(long address) {
+    return chunks.get((int) (address >>> 32) - 1);
+  }
+
+  private static int getOffset(long address) {
+    return (int) address;
+  }
+
+  private static byte[] readBytes(ByteBuffer chunk, int offset, int length) {
+    byte[] bytes = new byte[length];
+    ByteBuffer source = chunk.duplicate();
+    source.position(offset);
+    source.get(bytes);
+    return bytes;
+  }
+
+  private void allocateSlots(long newCapacity) {
+    long longs = newCapacity * 2;
+    int nrBuffers = (int) ((longs + SLOT_BUFFER_LONGS - 1) / SLOT_BUFFER_LONGS);
+    slots = new ByteBuffer[nrBuffers];
+    for (int i = 0; i < nrBuffers; i++) {
+      long bufferLongs = Math.min(SLOT_BUFFER_LONGS, longs - (long) i * SLOT_BUFFER_LONGS);
+      slots[i] = ByteBuffer.allocateDirect((int) bufferLongs * 8);
+    }
+    capacity = newCapacity;
+    resizeThreshold = (long) (newCapacity * STANDARD_LOAD_FACTOR);
+  }
+
+  private long getSlotKey(long slot) {
+    long index = slot * 2;
+    return slots[(int) (index / SLOT_BUFFER_LONGS)].getLong((int) (index % SLOT_BUFFER_LONGS) * 8);
+  }
+
+  private long getSlotAddress(long slot) {
+    long index = slot * 2 + 1;
+    return slots[(int) (index / SLOT_BUFFER_LONGS)].getLong((int) (index % SLOT_BUFFER_LONGS) * 8);
+  }
+
+  private void setSlot(long slot, long key, long address) {
+    long index = slot * 2;
+    ByteBuffer buffer = slots[(int) (index / SLOT_BUFFER_LONGS)];
+    int offset = (int) (index % SLOT_BUFFER_LONGS) * 8;
+    buffer.putLong(offset, key);
+    buffer.putLong(offset + 8, address);
+  }
+
+  private void resize() {
+    if (size < resizeThreshold) {
+      return;
+    }
+    ByteBuffer[] oldSlots = slots;
+    long oldCapacity = capacity;
+    allocateSlots(oldCapacity * 2);
+    long mask = capacity - 1;
+
+    for (long oldSlot = 0; oldSlot < oldCapacity; oldSlot++) {
+      long index = oldSlot * 2;
+      ByteBuffer buffer = oldSlots[(int) (index / SLOT_BUFFER_LONGS)];
+      int offset = (int) (index % SLOT_BUFFER_LONGS) * 8;
+      long address = buffer.getLong(offset + 8);
+      if (address == 0L) {
+        continue;
+      }
+      long key = buffer.getLong(offset);
+      long slot = (longKeys ? mix(key) : key) & mask;
+      while (getSlotAddress(slot) != 0L) {
+        slot = (slot + 1) & mask;
+      }
+      setSlot(slot, key, address);
+    }
+  }
+
+  /** Spreads the bits of a long key or hash over the slot number. */
+  private static long mix(long value) {
+    value ^= value >>> 33;
+    value *= 0xff51afd7ed558ccdL;
+    value ^= value >>> 33;
+    value *= 0xc4ceb9fe1a85ec53L;
+    value ^= value >>> 33;
+    return value;
+  }
+
+  /** A 64-bit FNV-1a hash of the serialized key. */
+  private static long hash(byte[] key) {
+    long hash = 0xcbf29ce484222325L;
+    for (byte b : key) {
+      hash ^= b & 0xff;
+      hash *= 0x100000001b3L;
+    }
+    return mix(hash);
+  }
+}
@@ -30,6 +30,17 @@ public class BufferLine {
     this.nr = sequence.incrementAndGet();
   }
 
+  /**
+   * Create a buffer line with a number handed out by the buffer holding it.
+   *
+   * @param event The logging event
+   * @param nr The sequence number of the line in its buffer
+   */
+  BufferLine(HopLoggingEvent event, int nr) {
+    this.event = event;
+    this.nr = nr;
+  }
+
   public int getNr() {
     return nr;
   }
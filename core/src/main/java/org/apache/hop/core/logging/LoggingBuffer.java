@@ -20,23 +20,57 @@ package org.apache.hop.core.logging;
 import org.apache.hop.core.Const;
 
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.CopyOnWriteArrayList;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
-/** This class keeps the last N lines in a buffer */
+/**
+ * This class keeps the last N lines in a buffer.
+ *
+ * <p>The lines are stored in a ring buffer: every line gets the next sequence number of the buffer
+ * and is stored in the slot for that number, replacing the line which is N numbers older. Appending
+ * a line doesn't take a lock. Next to the ring, the lines are indexed per log channel so that the
+ * lines of a single pipeline or workflow can be found without going over the whole buffer.
+ *
+ * <p>Maintenance operations like removing the lines of a channel, clearing the buffer or changing
+ * its size are serialized among themselves but don't block the threads which are logging. A buffer
+ * without a limit grows without a lock as well: a logging thread which finds the ring full starts
+ * moving the lines to a ring twice the size, other threads only move the slot they need themselves.
+ */
 public class LoggingBuffer {
+  /** The initial capacity of a buffer without a limit, it grows when it fills up */
+  private static final int INITIAL_UNLIMITED_CAPACITY = 1024;
+
+  /** Marks the slots of a ring which were moved to a new ring while resizing */
+  private static final BufferLine MOVED = new BufferLine(null, 0);
+
   private String name;
 
-  private List<BufferLine> buffer;
-  private ReadWriteLock lock = new ReentrantReadWriteLock();
+  private final AtomicReference<Ring> ring;
+
+  /** The number of the last line handed out */
+  private final AtomicInteger sequence = new AtomicInteger(0);
+
+  /** All the lines up to and including this number are stored */
+  private final AtomicInteger published = new AtomicInteger(0);
+
+  /** Lines with a lower number have been removed */
+  private volatile int first = 1;
 
-  private int bufferSize;
+  private final AtomicInteger nrLines = new AtomicInteger(0);
+
+  private final Map<String, ChannelLines> channels = new ConcurrentHashMap<>();
+
+  private volatile int bufferSize;
 
   private HopLogLayout layout;
 
@@ -46,10 +80,8 @@ public class LoggingBuffer {
 
   public LoggingBuffer(int bufferSize) {
     this.bufferSize = bufferSize;
-    // The buffer overflow protection allows it to be overflowed for 1 item within a single thread.
-    // Considering a possible high contention, let's set it's max overflow size to be 10%.
-    // Anyway, even an overflow goes higher than 10%, it wouldn't cost us too much.
-    buffer = new ArrayList<>((int) (bufferSize * 1.1));
+    int capacity = bufferSize > 0 ? bufferSize : INITIAL_UNLIMITED_CAPACITY;
+    ring = new AtomicReference<>(new Ring(capacity));
     layout = new HopLogLayout(true);
     eventListeners = new CopyOnWriteArrayList<>();
   }
@@ -59,16 +91,24 @@ public class LoggingBuffer {
    *     buffer, 0 is returned.
    */
   public int getLastBufferLineNr() {
-    lock.readLock().lock();
-    try {
-      if (buffer.size() > 0) {
-        return buffer.get(buffer.size() - 1).getNr();
+    int last = published.get();
+    int claimed = sequence.get();
+    Ring current = ring.get();
+    while (last < claimed) {
+      int next = last + 1;
+      BufferLine line = lineAt(current, next);
+      if (line != null && line.getNr() >= next) {
+        // Stored, or already replaced by a newer line
+        last = next;
+      } else if (next < first || bufferSize > 0 && next <= claimed - current.capacity) {
+        // Removed, or too old to ever show up in the ring
+        last = next;
       } else {
-        return 0;
+        // Still being stored by the thread which logged it
+        break;
       }
-    } finally {
-      lock.readLock().unlock();
     }
+    return published.accumulateAndGet(last, Math::max);
   }
 
   /**
@@ -80,24 +120,56 @@ public class LoggingBuffer {
    */
   public List<HopLoggingEvent> getLogBufferFromTo(
       List<String> channelId, boolean includeGeneral, int from, int to) {
-    lock.readLock().lock();
-    try {
-      Stream<BufferLine> bufferStream =
-          buffer.stream().filter(line -> line.getNr() > from && line.getNr() <= to);
-      if (channelId != null) {
-        bufferStream =
-            bufferStream.filter(
-                line -> {
-                  String logChannelId = getLogChId(line);
-                  return includeGeneral
-                      ? isGeneral(logChannelId) || channelId.contains(logChannelId)
-                      : channelId.contains(logChannelId);
-                });
+    Ring current = ring.get();
+    int last = Math.min(to, sequence.get());
+    int start = getFirstNr(current, last, from);
+
+    if (channelId == null) {
+      return getEvents(current, start, last, null);
+    }
+
+    Set<String> ids = new HashSet<>(channelId);
+    if (includeGeneral) {
+      for (String id : channels.keySet()) {
+        if (isGeneral(id)) {
+          ids.add(id);
+        }
       }
-      return bufferStream.map(BufferLine::getEvent).collect(Collectors.toList());
-    } finally {
-      lock.readLock().unlock();
     }
+
+    // Look the lines up in the channel index when that means looking at fewer lines than scanning
+    // the requested range of the ring.
+    //
+    long indexed = 0;
+    for (String id : ids) {
+      ChannelLines lines = id == null ? null : channels.get(id);
+      if (lines != null) {
+        indexed += lines.count.get();
+      }
+    }
+    if (ids.contains(null) || indexed >= (long) last - start + 1) {
+      return getEvents(current, start, last, ids);
+    }
+
+    List<BufferLine> found = new ArrayList<>();
+    for (String id : ids) {
+      ChannelLines lines = channels.get(id);
+      if (lines == null) {
+        continue;
+      }
+      trim(id, lines);
+      for (BufferLine line : lines.lines) {
+        if (line.getNr() >= start && line.getNr() <= last && isStored(line)) {
+          found.add(line);
+        }
+      }
+    }
+    found.sort(Comparator.comparingInt(BufferLine::getNr));
+    List<HopLoggingEvent> events = new ArrayList<>(found.size());
+    for (BufferLine line : found) {
+      events.add(line.getEvent());
+    }
+    return events;
   }
 
   /**
@@ -149,14 +221,20 @@ public class LoggingBuffer {
 
   public void doAppend(HopLoggingEvent event) {
     if (event.getMessage() instanceof LogMessage) {
-      lock.writeLock().lock();
-      try {
-        buffer.add(new BufferLine(event));
-        while (bufferSize > 0 && buffer.size() > bufferSize) {
-          buffer.remove(0);
-        }
-      } finally {
-        lock.writeLock().unlock();
+      BufferLine line = new BufferLine(event, sequence.incrementAndGet());
+      BufferLine dropped = store(ring.get(), line);
+      if (dropped == line) {
+        // Overtaken by newer lines while it was being stored
+        return;
+      }
+      if (dropped == null) {
+        nrLines.incrementAndGet();
+      } else {
+        removeFromIndex(dropped);
+      }
+      String logChannelId = getLogChId(line);
+      if (logChannelId != null) {
+        addToIndex(logChannelId, line);
       }
     }
   }
@@ -181,13 +259,14 @@ public class LoggingBuffer {
     return true;
   }
 
-  public void clear() {
-    lock.writeLock().lock();
-    try {
-      buffer.clear();
-    } finally {
-      lock.writeLock().unlock();
+  public synchronized void clear() {
+    int last = getLastBufferLineNr();
+    Ring current = ring.get();
+    for (int nr = getFirstNr(current, last, 0); nr <= last; nr++) {
+      remove(current, nr);
     }
+    first = last + 1;
+    channels.forEach(this::trim);
   }
 
   /** @return the maximum number of lines that this buffer contains, 0 or lower means: no limit */
@@ -199,13 +278,31 @@ public class LoggingBuffer {
    * @param maxNrLines the maximum number of lines that this buffer should contain, 0 or lower
    *     means: no limit
    */
-  public void setMaxNrLines(int maxNrLines) {
+  public synchronized void setMaxNrLines(int maxNrLines) {
     this.bufferSize = maxNrLines;
+    if (maxNrLines > 0) {
+      while (true) {
+        Ring current = ring.get();
+        if (current.next.get() != null) {
+          // A logging thread is still growing the ring, help it finish first
+          //
+          moveLines(current);
+        } else if (current.capacity == maxNrLines) {
+          break;
+        } else if (resize(current, maxNrLines)) {
+          forgetDroppedLines(current);
+          break;
+        }
+      }
+      channels.forEach(this::trim);
+    } else {
+      forgetDroppedLines(ring.get());
+    }
   }
 
   /** @return the nrLines */
   public int getNrLines() {
-    return buffer.size();
+    return nrLines.get();
   }
 
   /**
@@ -213,49 +310,50 @@ public class LoggingBuffer {
    *
    * @param id the id of the logging channel to remove
    */
-  public void removeChannelFromBuffer(String id) {
-    lock.writeLock().lock();
-    try {
-      buffer.removeIf(line -> id.equals(getLogChId(line)));
-    } finally {
-      lock.writeLock().unlock();
+  public synchronized void removeChannelFromBuffer(String id) {
+    ChannelLines lines = channels.remove(id);
+    if (lines == null) {
+      return;
+    }
+    // Lines which are still being stored are left alone
+    //
+    int last = getLastBufferLineNr();
+    Ring current = ring.get();
+    for (BufferLine line : lines.lines) {
+      int index = current.index(line.getNr());
+      if (line.getNr() <= last && current.slots.compareAndSet(index, line, null)) {
+        nrLines.decrementAndGet();
+      }
     }
   }
 
   public int size() {
-    return buffer.size();
+    return nrLines.get();
   }
 
-  public void removeGeneralMessages() {
-    lock.writeLock().lock();
-    try {
-      buffer.removeIf(line -> isGeneral(getLogChId(line)));
-    } finally {
-      lock.writeLock().unlock();
+  public synchronized void removeGeneralMessages() {
+    for (String id : channels.keySet()) {
+      if (isGeneral(id)) {
+        removeChannelFromBuffer(id);
+      }
     }
   }
 
-  public void removeBufferLinesBefore(long minTimeBoundary) {
-    // Using HashSet even though BufferLine does not implement hashcode and equals,
-    // we just need to remove the exact objects we have found and put in the set.
-    Set<BufferLine> linesToRemove = new HashSet<>();
-    lock.writeLock().lock();
-    try {
-      for (BufferLine bufferLine : buffer) {
-        if (bufferLine.getEvent().timeStamp < minTimeBoundary) {
-          linesToRemove.add(bufferLine);
-        } else {
-          break;
-        }
+  public synchronized void removeBufferLinesBefore(long minTimeBoundary) {
+    int last = getLastBufferLineNr();
+    Ring current = ring.get();
+    int nr = getFirstNr(current, last, 0);
+    for (; nr <= last; nr++) {
+      BufferLine line = current.slots.get(current.index(nr));
+      if (line == null || line.getNr() != nr) {
+        continue;
+      }
+      if (line.getEvent().timeStamp >= minTimeBoundary) {
+        break;
       }
-      // removeAll should run fast against a HashSet,
-      // since ArrayList.batchRemove check for each element of a collection given if it is in the
-      // ArrayList.
-      // Thus, removeAll should run in a linear time.
-      buffer.removeAll(linesToRemove);
-    } finally {
-      lock.writeLock().unlock();
+      remove(current, nr);
     }
+    first = nr;
   }
 
   public void addLogggingEvent(HopLoggingEvent loggingEvent) {
@@ -271,6 +369,172 @@ public class LoggingBuffer {
     eventListeners.remove(listener);
   }
 
+  /**
+   * Store a line in its slot of the ring, unless that slot already holds a newer line.
+   *
+   * @param target the ring to start from, a newer ring is used if it was resized
+   * @param line the line to store
+   * @return the line which was replaced, the given line if it was too old to be stored or null if
+   *     the slot was empty. Without a limit lines are never replaced or dropped.
+   */
+  private BufferLine store(Ring target, BufferLine line) {
+    Ring current = target;
+    int nr = line.getNr();
+    while (true) {
+      int index = current.index(nr);
+      BufferLine previous = current.slots.get(index);
+      if (previous == MOVED) {
+        current = current.next.get();
+        continue;
+      }
+      if (previous != null && bufferSize <= 0) {
+        // No limit: make room instead of replacing or dropping a line
+        //
+        grow(current, index);
+        continue;
+      }
+      if (previous != null && previous.getNr() >= nr) {
+        return line;
+      }
+      if (current.slots.compareAndSet(index, previous, line)) {
+        return previous;
+      }
+    }
+  }
+
+  /**
+   * Make room in a full ring. The first thread to get here resizes the ring, when a resize is
+   * already going on the slot is moved to the new ring right away so the caller never has to wait.
+   */
+  private void grow(Ring current, int index) {
+    if (!resize(current, current.capacity * 2)) {
+      moveSlot(current, index);
+    }
+  }
+
+  /**
+   * Move all the lines to a ring with a new capacity. Lines which don't fit are dropped, the newest
+   * lines are kept. Threads storing lines at the same time follow the moved slots to the new ring.
+   *
+   * @return false if the ring was already being resized by another thread
+   */
+  private boolean resize(Ring current, int capacity) {
+    if (!current.next.compareAndSet(null, new Ring(capacity))) {
+      return false;
+    }
+    moveLines(current);
+    return true;
+  }
+
+  /** Move all the slots of a ring which is being resized, then make its successor current. */
+  private void moveLines(Ring current) {
+    for (int index = 0; index < current.capacity; index++) {
+      moveSlot(current, index);
+    }
+    current.moved = true;
+
+    // Never go back to an older ring when rings are replaced in quick succession
+    //
+    Ring last;
+    while ((last = ring.get()).moved) {
+      ring.compareAndSet(last, last.next.get());
+    }
+  }
+
+  private void moveSlot(Ring current, int index) {
+    BufferLine line = current.slots.getAndSet(index, MOVED);
+    if (line != null && line != MOVED && store(current.next.get(), line) != null) {
+      // Only older lines get dropped
+      nrLines.decrementAndGet();
+    }
+  }
+
+  /**
+   * The lines which were too old for a limited ring never show up in a ring which replaces it or
+   * grows without a limit. Called once the lines were moved out of it or once the limit is gone.
+   */
+  private void forgetDroppedLines(Ring previous) {
+    first = Math.max(first, sequence.get() - previous.capacity + 1);
+  }
+
+  /** Remove the line with the given number, if it's still in the ring. */
+  private void remove(Ring current, int nr) {
+    int index = current.index(nr);
+    BufferLine line = current.slots.get(index);
+    if (line != null && line.getNr() == nr && current.slots.compareAndSet(index, line, null)) {
+      nrLines.decrementAndGet();
+      removeFromIndex(line);
+    }
+  }
+
+  private BufferLine lineAt(Ring current, int nr) {
+    BufferLine line = current.slots.get(current.index(nr));
+    while (line == MOVED) {
+      current = current.next.get();
+      line = current.slots.get(current.index(nr));
+    }
+    return line;
+  }
+
+  private boolean isStored(BufferLine line) {
+    return lineAt(ring.get(), line.getNr()) == line;
+  }
+
+  /** @return the number of the oldest line which can still be in the ring, after the given one */
+  private int getFirstNr(Ring current, int last, int from) {
+    int start = Math.max(from + 1, first);
+    if (bufferSize > 0) {
+      start = Math.max(start, last - current.capacity + 1);
+    }
+    return start;
+  }
+
+  /** Scan a range of the ring, optionally only keeping the lines of the given channels. */
+  private List<HopLoggingEvent> getEvents(Ring current, int start, int last, Set<String> ids) {
+    List<HopLoggingEvent> events = new ArrayList<>();
+    for (int nr = start; nr <= last; nr++) {
+      BufferLine line = lineAt(current, nr);
+      if (line != null && line.getNr() == nr && (ids == null || ids.contains(getLogChId(line)))) {
+        events.add(line.getEvent());
+      }
+    }
+    return events;
+  }
+
+  private void addToIndex(String logChannelId, BufferLine line) {
+    while (true) {
+      ChannelLines lines = channels.computeIfAbsent(logChannelId, id -> new ChannelLines());
+      lines.add(line);
+      if (channels.get(logChannelId) == lines) {
+        return;
+      }
+      // The index of the channel was removed while we were adding to it
+    }
+  }
+
+  private void removeFromIndex(BufferLine line) {
+    String logChannelId = getLogChId(line);
+    if (logChannelId != null) {
+      ChannelLines lines = channels.get(logChannelId);
+      if (lines != null) {
+        trim(logChannelId, lines);
+      }
+    }
+  }
+
+  /** Drop the lines at the head of a channel index which are no longer in the ring. */
+  private void trim(String logChannelId, ChannelLines lines) {
+    BufferLine head;
+    while ((head = lines.lines.peek()) != null && !isStored(head)) {
+      if (lines.lines.remove(head)) {
+        lines.count.decrementAndGet();
+      }
+    }
+    if (lines.lines.isEmpty()) {
+      channels.remove(logChannelId, lines);
+    }
+  }
+
   private boolean isGeneral(String logChannelId) {
     ILoggingObject loggingObject = loggingRegistry.getLoggingObject(logChannelId);
     return loggingObject != null && LoggingObjectType.GENERAL.equals(loggingObject.getObjectType());
@@ -279,4 +543,36 @@ public class LoggingBuffer {
   private static String getLogChId(BufferLine bufferLine) {
     return ((LogMessage) bufferLine.getEvent().getMessage()).getLogChannelId();
   }
+
+  /** The slots of the ring buffer, line number N is kept in slot N modulo the capacity. */
+  private static final class Ring {
+    private final AtomicReferenceArray<BufferLine> slots;
+    private final int capacity;
+
+    /** The ring which replaces this one, set before the slots are moved */
+    private final AtomicReference<Ring> next = new AtomicReference<>();
+
+    /** All the slots were moved to the next ring */
+    private volatile boolean moved;
+
+    private Ring(int capacity) {
+      this.capacity = capacity;
+      this.slots = new AtomicReferenceArray<>(capacity);
+    }
+
+    private int index(int nr) {
+      return Math.floorMod(nr, capacity);
+    }
+  }
+
+  /** The lines of a single log channel, roughly in the order of their numbers. */
+  private static final class ChannelLines {
+    private final Queue<BufferLine> lines = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger count = new AtomicInteger(0);
+
+    private void add(BufferLine line) {
+      lines.add(line);
+      count.incrementAndGet();
+    }
+  }
 }
@@ -25,6 +25,7 @@ import org.apache.hop.core.variables.Variables;
 import org.jboss.jandex.Index;
 import org.jboss.jandex.IndexReader;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
@@ -37,7 +38,9 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.jar.JarFile;
+import java.util.stream.Collectors;
 import java.util.zip.ZipEntry;
 
 public class JarCache {
@@ -55,7 +58,7 @@ public class JarCache {
     nativeFiles = new HashSet<>();
     pluginFiles = new HashSet<>();
     jarFiles = new HashMap<>();
-    indexCache = new HashMap<>();
+    indexCache = new ConcurrentHashMap<>();
   }
 
   public static JarCache getInstance() {
@@ -127,6 +130,21 @@ public class JarCache {
     return nativeFiles;
   }
 
+  /**
+   * @return The file with the snapshot of the plugin jar indexes, or null if no snapshot should be
+   *     kept
+   */
+  public File getIndexSnapshotFile() {
+    String fileName =
+        Const.NVL(
+            Variables.getADefaultVariableSpace().getVariable(Const.HOP_PLUGIN_INDEX_SNAPSHOT),
+            EnvUtil.getSystemProperty(Const.HOP_PLUGIN_INDEX_SNAPSHOT));
+    if (StringUtils.isBlank(fileName)) {
+      return null;
+    }
+    return new File(fileName.trim());
+  }
+
   /**
    * Get all the jar files with annotation index
    *
@@ -138,19 +156,78 @@ public class JarCache {
     //
     if (pluginFiles.isEmpty()) {
 
+      Set<File> jarFiles = new HashSet<>();
       for (String pluginFolder : getPluginFolders()) {
+        jarFiles.addAll(this.findJarFiles(new File(pluginFolder)));
+      }
 
-        for (File file : this.findJarFiles(new File(pluginFolder))) {
-          Index index = this.getIndex(file);
-          if (index != null) {
-            pluginFiles.add(file);
-          }
+      // The indexes of the jar files which didn't change since the last snapshot are taken from it.
+      // The other jar files are opened in parallel.
+      //
+      File snapshotFile = getIndexSnapshotFile();
+      JarIndexSnapshot snapshot = JarIndexSnapshot.read(snapshotFile);
+      boolean changed = snapshot.retain(jarFiles);
+
+      List<IndexResult> results =
+          jarFiles.parallelStream()
+              .map(jarFile -> readPluginIndex(jarFile, snapshot))
+              .collect(Collectors.toList());
+
+      for (IndexResult result : results) {
+        if (result.exception != null) {
+          throw result.exception;
+        }
+        if (result.index != null) {
+          indexCache.put(result.jarFile, result.index);
+          pluginFiles.add(result.jarFile);
+        }
+        changed |= !result.fromSnapshot;
+      }
+
+      if (changed && snapshotFile != null) {
+        try {
+          snapshot.write(snapshotFile);
+        } catch (IOException e) {
+          // The snapshot is only there to speed up the next start: scan the jar files again then.
         }
       }
     }
     return pluginFiles;
   }
 
+  private IndexResult readPluginIndex(File jarFile, JarIndexSnapshot snapshot) {
+    IndexResult result = new IndexResult(jarFile);
+    try {
+      byte[] data = snapshot.getIndex(jarFile);
+      result.fromSnapshot = data != null;
+      if (data == null) {
+        data = readIndexData(jarFile);
+        snapshot.putIndex(jarFile, data);
+      }
+      if (data != null && data.length > 0) {
+        result.index = new IndexReader(new ByteArrayInputStream(data)).read();
+      }
+    } catch (IOException e) {
+      result.exception =
+          new HopFileException(
+              MessageFormat.format("Error reading annotation index from file ''{0}''", jarFile), e);
+    }
+    return result;
+  }
+
+  /** @return The serialized annotation index of the jar file, or null if it doesn't have one */
+  private static byte[] readIndexData(File jarFile) throws IOException {
+    try (JarFile jar = new JarFile(jarFile)) {
+      ZipEntry entry = jar.getEntry(ANNOTATION_INDEX_LOCATION);
+      if (entry == null) {
+        return null;
+      }
+      try (InputStream stream = jar.getInputStream(entry)) {
+        return stream.readAllBytes();
+      }
+    }
+  }
+
   public Index getIndex(File jarFile) throws HopFileException {
 
     // Search annotation index from cache
@@ -165,7 +242,6 @@ public class JarCache {
           try (InputStream stream = jar.getInputStream(entry)) {
             IndexReader reader = new IndexReader(stream);
             index = reader.read();
-            indexCache.put(jarFile, index);
           }
         }
       } catch (IOException e) {
@@ -175,7 +251,9 @@ public class JarCache {
 
       // Cache annotation index of jars
       //
-      indexCache.put(jarFile, index);
+      if (index != null) {
+        indexCache.put(jarFile, index);
+      }
     }
 
     return index;
@@ -234,4 +312,16 @@ public class JarCache {
 
     return files;
   }
+
+  /** The outcome of reading the annotation index of a single plugin jar file. */
+  private static final class IndexResult {
+    private final File jarFile;
+    private Index index;
+    private boolean fromSnapshot;
+    private HopFileException exception;
+
+    private IndexResult(File jarFile) {
+      this.jarFile = jarFile;
+    }
+  }
 }
@@ -0,0 +1,194 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.core.plugins;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A snapshot of the annotation indexes found in the plugin jar files. It allows the plugin
+ * registry to be built without opening every jar file when the plugin folders didn't change.
+ *
+ * <p>A jar file is considered unchanged when its size and last modification time are the same as
+ * when the snapshot was taken.
+ */
+public class JarIndexSnapshot {
+
+  private static final int MAGIC = 0x484a4958; // HJIX
+  private static final int VERSION = 1;
+
+  private final Map<String, Entry> entries;
+
+  public JarIndexSnapshot() {
+    this.entries = new ConcurrentHashMap<>();
+  }
+
+  private JarIndexSnapshot(Map<String, Entry> entries) {
+    this.entries = entries;
+  }
+
+  /**
+   * Read a snapshot from a file. A missing, unreadable or outdated file results in an empty
+   * snapshot: the jar files are simply scanned again.
+   *
+   * @param file The snapshot file
+   * @return The snapshot
+   */
+  public static JarIndexSnapshot read(File file) {
+    if (file == null || !file.isFile()) {
+      return new JarIndexSnapshot();
+    }
+    try (DataInputStream in =
+        new DataInputStream(new BufferedInputStream(new FileInputStream(file), 65536))) {
+      if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+        return new JarIndexSnapshot();
+      }
+      int count = in.readInt();
+      Map<String, Entry> entries = new ConcurrentHashMap<>(count * 2);
+      for (int i = 0; i < count; i++) {
+        String path = in.readUTF();
+        long length = in.readLong();
+        long lastModified = in.readLong();
+        int indexLength = in.readInt();
+        byte[] index = null;
+        if (indexLength >= 0) {
+          index = new byte[indexLength];
+          in.readFully(index);
+        }
+        entries.put(path, new Entry(length, lastModified, index));
+      }
+      return new JarIndexSnapshot(entries);
+    } catch (IOException e) {
+      return new JarIndexSnapshot();
+    }
+  }
+
+  /**
+   * Write the snapshot to a file. The file is replaced in one move so that processes starting at
+   * the same time never read a partial snapshot.
+   *
+   * @param file The snapshot file
+   * @throws IOException In case the file can't be written
+   */
+  public void write(File file) throws IOException {
+    File folder = file.getAbsoluteFile().getParentFile();
+    if (folder != null && !folder.exists()) {
+      folder.mkdirs();
+    }
+    File tempFile = File.createTempFile(file.getName(), ".tmp", folder);
+    try {
+      try (DataOutputStream out =
+          new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile), 65536))) {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(entries.size());
+        for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+          Entry value = entry.getValue();
+          out.writeUTF(entry.getKey());
+          out.writeLong(value.length);
+          out.writeLong(value.lastModified);
+          if (value.index == null) {
+            out.writeInt(-1);
+          } else {
+            out.writeInt(value.index.length);
+            out.write(value.index);
+          }
+        }
+      }
+      Files.move(
+          tempFile.toPath(),
+          file.toPath(),
+          StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE);
+    } finally {
+      Files.deleteIfExists(tempFile.toPath());
+    }
+  }
+
+  /**
+   * Look up the annotation index of a jar file.
+   *
+   * @param jarFile The jar file
+   * @return The serialized annotation index of the jar file, an empty array if the jar file doesn't
+   *     have an index, or null if the jar file isn't in the snapshot or changed since it was taken
+   */
+  public byte[] getIndex(File jarFile) {
+    Entry entry = entries.get(jarFile.getAbsolutePath());
+    if (entry == null
+        || entry.length != jarFile.length()
+        || entry.lastModified != jarFile.lastModified()) {
+      return null;
+    }
+    return entry.index == null ? new byte[0] : entry.index;
+  }
+
+  /**
+   * Store the annotation index of a jar file in the snapshot.
+   *
+   * @param jarFile The jar file
+   * @param index The serialized annotation index, null if the jar file doesn't have one
+   */
+  public void putIndex(File jarFile, byte[] index) {
+    entries.put(
+        jarFile.getAbsolutePath(), new Entry(jarFile.length(), jarFile.lastModified(), index));
+  }
+
+  /**
+   * Remove the jar files which are no longer present from the snapshot.
+   *
+   * @param jarFiles The jar files which are present
+   * @return true if jar files were removed
+   */
+  public boolean retain(Set<File> jarFiles) {
+    Set<String> paths = new HashSet<>();
+    for (File jarFile : jarFiles) {
+      paths.add(jarFile.getAbsolutePath());
+    }
+    return entries.keySet().retainAll(paths);
+  }
+
+  /** @return The paths of the jar files in the snapshot */
+  public Set<String> getPaths() {
+    return Collections.unmodifiableSet(entries.keySet());
+  }
+
+  private static final class Entry {
+    private final long length;
+    private final long lastModified;
+    private final byte[] index;
+
+    private Entry(long length, long lastModified, byte[] index) {
+      this.length = length;
+      this.lastModified = lastModified;
+      this.index = index;
+    }
+  }
+}
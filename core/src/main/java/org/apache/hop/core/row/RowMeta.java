@@ -43,6 +43,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -53,11 +54,18 @@ public class RowMeta implements IRowMeta {
   public static final String XML_META_TAG = "row-meta";
   public static final String XML_DATA_TAG = "row-data";
 
-  private final ReentrantReadWriteLock lock;
+  @VisibleForTesting final ReentrantReadWriteLock lock;
   private final RowMetaCache cache;
   List<IValueMeta> valueMetaList;
   List<Integer> needRealClone;
 
+  /**
+   * The values as they were after the last change, read without locking. Every change clears it
+   * and the first read after the change takes it again. Row metadata that doesn't change anymore,
+   * like the one of the rows passed from one transform to the next, is read without any locking.
+   */
+  private volatile Snapshot snapshot;
+
   public RowMeta() {
     this(new ArrayList<>(), new RowMetaCache());
   }
@@ -161,16 +169,12 @@ public class RowMeta implements IRowMeta {
    */
   @Override
   public List<IValueMeta> getValueMetaList() {
-    List<IValueMeta> copy;
-
-    lock.readLock().lock();
-    try {
-      copy = new ArrayList<>(valueMetaList);
-    } finally {
-      lock.readLock().unlock();
+    Snapshot current = snapshot();
+    if (current != null) {
+      return Collections.unmodifiableList(Arrays.asList(current.values));
     }
     // kept for backward compatibility
-    return Collections.unmodifiableList(copy);
+    return Collections.unmodifiableList(new ArrayList<>(valueMetaList));
   }
 
   /**
@@ -187,6 +191,7 @@ public class RowMeta implements IRowMeta {
         cache.storeMapping(valueMeta.getName(), i);
       }
       this.needRealClone = null;
+      snapshot = null;
     } finally {
       lock.writeLock().unlock();
     }
@@ -197,12 +202,8 @@ public class RowMeta implements IRowMeta {
    */
   @Override
   public int size() {
-    lock.readLock().lock();
-    try {
-      return valueMetaList.size();
-    } finally {
-      lock.readLock().unlock();
-    }
+    Snapshot current = snapshot();
+    return current != null ? current.values.length : valueMetaList.size();
   }
 
   /**
@@ -211,12 +212,7 @@ public class RowMeta implements IRowMeta {
   @Override
   @JsonIgnore
   public boolean isEmpty() {
-    lock.readLock().lock();
-    try {
-      return valueMetaList.isEmpty();
-    } finally {
-      lock.readLock().unlock();
-    }
+    return size() == 0;
   }
 
   @Override
@@ -245,6 +241,7 @@ public class RowMeta implements IRowMeta {
         valueMetaList.add(newMeta);
         cache.storeMapping(newMeta.getName(), sz);
         needRealClone = null;
+        snapshot = null;
       } finally {
         lock.writeLock().unlock();
       }
@@ -273,6 +270,7 @@ public class RowMeta implements IRowMeta {
         valueMetaList.add(index, newMeta);
         cache.invalidate();
         needRealClone = null;
+        snapshot = null;
       } finally {
         lock.writeLock().unlock();
       }
@@ -287,15 +285,14 @@ public class RowMeta implements IRowMeta {
    */
   @Override
   public IValueMeta getValueMeta(int index) {
-    lock.readLock().lock();
-    try {
-      if ((index >= 0) && (index < valueMetaList.size())) {
-        return valueMetaList.get(index);
-      } else {
-        return null;
-      }
-    } finally {
-      lock.readLock().unlock();
+    Snapshot current = snapshot();
+    if (current != null) {
+      return (index >= 0) && (index < current.values.length) ? current.values[index] : null;
+    }
+    if ((index >= 0) && (index < valueMetaList.size())) {
+      return valueMetaList.get(index);
+    } else {
+      return null;
     }
   }
 
@@ -323,6 +320,7 @@ public class RowMeta implements IRowMeta {
         valueMetaList.set(index, newMeta);
         cache.replaceMapping(old.getName(), newMeta.getName(), index);
         needRealClone = null;
+        snapshot = null;
       } finally {
         lock.writeLock().unlock();
       }
@@ -482,17 +480,17 @@ public class RowMeta implements IRowMeta {
    */
   @Override
   public Object[] cloneRow(Object[] objects, Object[] newObjects) throws HopValueException {
-    List<Integer> list = getOrCreateValuesThatNeedRealClone(valueMetaList);
-    lock.readLock().lock();
-    try {
-      for (Integer i : list) {
-        IValueMeta valueMeta = valueMetaList.get(i);
-        newObjects[i] = valueMeta.cloneValueData(objects[i]);
+    Snapshot current = snapshot();
+    if (current != null) {
+      for (int i : current.realClone) {
+        newObjects[i] = current.values[i].cloneValueData(objects[i]);
       }
       return newObjects;
-    } finally {
-      lock.readLock().unlock();
     }
+    for (Integer i : getOrCreateValuesThatNeedRealClone(valueMetaList)) {
+      newObjects[i] = valueMetaList.get(i).cloneValueData(objects[i]);
+    }
+    return newObjects;
   }
 
   @VisibleForTesting
@@ -567,26 +565,45 @@ public class RowMeta implements IRowMeta {
       return -1;
     }
 
-    lock.readLock().lock();
-    try {
-      Integer index = cache.findAndCompare(valueName, valueMetaList);
-      for (int i = 0; (index == null) && (i < valueMetaList.size()); i++) {
-        if (valueName.equalsIgnoreCase(valueMetaList.get(i).getName())) {
-          index = i;
-          // it is possible, that several threads can call storing simultaneously
-          // but it makes no harm as they will put the same value,
-          // because valueMetaList is defended from modifications by read lock
-          cache.storeMapping(valueName, index);
-          needRealClone = null;
-        }
+    Snapshot current = snapshot();
+    if (current != null) {
+      return current.indexOf(valueName);
+    }
+
+    // This thread is changing the row metadata and holds the write lock
+    //
+    Integer index = cache.findAndCompare(valueName, valueMetaList);
+    for (int i = 0; (index == null) && (i < valueMetaList.size()); i++) {
+      if (valueName.equalsIgnoreCase(valueMetaList.get(i).getName())) {
+        index = i;
+        cache.storeMapping(valueName, index);
+        needRealClone = null;
       }
-      if (index == null) {
-        return -1;
+    }
+    if (index == null) {
+      return -1;
+    }
+    return index;
+  }
+
+  /**
+   * @return the values as they are now, or null if this thread holds the write lock and can read
+   *     the list of values itself
+   */
+  private Snapshot snapshot() {
+    Snapshot current = snapshot;
+    if (current == null && !lock.isWriteLockedByCurrentThread()) {
+      // Take it under the read lock so that no change can clear it before it's published
+      //
+      lock.readLock().lock();
+      try {
+        current = new Snapshot(valueMetaList);
+        snapshot = current;
+      } finally {
+        lock.readLock().unlock();
       }
-      return index;
-    } finally {
-      lock.readLock().unlock();
     }
+    return current;
   }
 
   /**
@@ -597,16 +614,16 @@ public class RowMeta implements IRowMeta {
    */
   @Override
   public IValueMeta searchValueMeta(String valueName) {
-    lock.readLock().lock();
-    try {
-      Integer index = indexOfValue(valueName);
-      if (index < 0) {
-        return null;
-      }
-      return valueMetaList.get(index);
-    } finally {
-      lock.readLock().unlock();
+    Snapshot current = snapshot();
+    if (current != null) {
+      int index = valueName == null ? -1 : current.indexOf(valueName);
+      return index < 0 ? null : current.values[index];
+    }
+    int index = indexOfValue(valueName);
+    if (index < 0) {
+      return null;
     }
+    return valueMetaList.get(index);
   }
 
   @Override
@@ -822,6 +839,7 @@ public class RowMeta implements IRowMeta {
       valueMetaList.clear();
       cache.invalidate();
       needRealClone = null;
+      snapshot = null;
     } finally {
       lock.writeLock().unlock();
     }
@@ -849,6 +867,7 @@ public class RowMeta implements IRowMeta {
       valueMetaList.remove(index);
       cache.invalidate();
       needRealClone = null;
+      snapshot = null;
     } finally {
       lock.writeLock().unlock();
     }
@@ -1263,6 +1282,44 @@ public class RowMeta implements IRowMeta {
     }
   }
 
+  /** The values of the row metadata at one point in time, with their index by name. */
+  private static final class Snapshot {
+    private final IValueMeta[] values;
+    private final Map<String, Integer> indexes;
+    private final int[] realClone;
+
+    private Snapshot(List<IValueMeta> valueMetaList) {
+      values = valueMetaList.toArray(new IValueMeta[0]);
+      indexes = new HashMap<>();
+      List<Integer> clones = new ArrayList<>();
+      for (int i = 0; i < values.length; i++) {
+        String name = values[i].getName();
+        if (!Utils.isEmpty(name)) {
+          indexes.putIfAbsent(name.toLowerCase(), i);
+        }
+        if (values[i].requiresRealClone()) {
+          clones.add(i);
+        }
+      }
+      realClone = clones.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private int indexOf(String valueName) {
+      Integer index = indexes.get(valueName.toLowerCase());
+      if (index != null && valueName.equalsIgnoreCase(values[index].getName())) {
+        return index;
+      }
+      // The value metadata could have been renamed since
+      //
+      for (int i = 0; i < values.length; i++) {
+        if (valueName.equalsIgnoreCase(values[i].getName())) {
+          return i;
+        }
+      }
+      return -1;
+    }
+  }
+
   @VisibleForTesting
   static class RowMetaCache {
     @VisibleForTesting final Map<String, Integer> mapping;
@@ -191,11 +191,18 @@ public class ValueMetaBase implements IValueMeta {
   protected boolean lenientStringToNumber;
   protected boolean emptyStringAndNullAreDifferent;
 
-  @JsonIgnore protected SimpleDateFormat dateFormat;
-  @JsonIgnore protected boolean dateFormatChanged;
+  @JsonIgnore protected volatile SimpleDateFormat dateFormat;
+  @JsonIgnore protected volatile boolean dateFormatChanged;
 
-  @JsonIgnore protected DecimalFormat decimalFormat;
-  @JsonIgnore protected boolean decimalFormatChanged;
+  @JsonIgnore protected volatile DecimalFormat decimalFormat;
+  @JsonIgnore protected volatile boolean decimalFormatChanged;
+
+  /**
+   * The copies of the compiled formats used by the conversions of the current thread. Every clone
+   * gets its own and it's replaced when the mask or locale changes, so the copies of old formats
+   * aren't kept around by the threads that used them.
+   */
+  @JsonIgnore private volatile ThreadLocal<ThreadFormats> threadFormats = newThreadFormats();
 
   @JsonIgnore protected IValueMeta storageMetadata;
   @JsonIgnore protected boolean identicalFormat;
@@ -598,6 +605,7 @@ public class ValueMetaBase implements IValueMeta {
       ValueMetaBase valueMeta = (ValueMetaBase) super.clone();
       valueMeta.dateFormat = null;
       valueMeta.decimalFormat = null;
+      valueMeta.threadFormats = newThreadFormats();
       if (dateFormatLocale != null) {
         valueMeta.dateFormatLocale = (Locale) dateFormatLocale.clone();
       }
@@ -798,6 +806,7 @@ public class ValueMetaBase implements IValueMeta {
     this.conversionMask = conversionMask;
     dateFormatChanged = true;
     decimalFormatChanged = true;
+    threadFormats = newThreadFormats();
     compareStorageAndActualFormat();
   }
 
@@ -834,6 +843,7 @@ public class ValueMetaBase implements IValueMeta {
   public void setDecimalSymbol(String decimalSymbol) {
     this.decimalSymbol = decimalSymbol;
     decimalFormatChanged = true;
+    threadFormats = newThreadFormats();
     compareStorageAndActualFormat();
   }
 
@@ -852,6 +862,7 @@ public class ValueMetaBase implements IValueMeta {
   public void setGroupingSymbol(String groupingSymbol) {
     this.groupingSymbol = groupingSymbol;
     decimalFormatChanged = true;
+    threadFormats = newThreadFormats();
     compareStorageAndActualFormat();
   }
 
@@ -870,6 +881,7 @@ public class ValueMetaBase implements IValueMeta {
   public void setCurrencySymbol(String currencySymbol) {
     this.currencySymbol = currencySymbol;
     decimalFormatChanged = true;
+    threadFormats = newThreadFormats();
   }
 
   /**
@@ -1009,6 +1021,7 @@ public class ValueMetaBase implements IValueMeta {
   public void setDateFormatLenient(boolean dateFormatLenient) {
     this.dateFormatLenient = dateFormatLenient;
     dateFormatChanged = true;
+    threadFormats = newThreadFormats();
   }
 
   /**
@@ -1026,29 +1039,33 @@ public class ValueMetaBase implements IValueMeta {
   public void setDateFormatLocale(Locale dateFormatLocale) {
     this.dateFormatLocale = dateFormatLocale;
     dateFormatChanged = true;
+    threadFormats = newThreadFormats();
   }
 
   // DATE + STRING
 
-  protected synchronized String convertDateToString(Date date) {
+  protected String convertDateToString(Date date) {
     if (date == null) {
       return null;
     }
 
-    return getDateFormat().format(date);
+    return getThreadDateFormat(false).format(date);
   }
 
   protected static SimpleDateFormat compatibleDateFormat =
       new SimpleDateFormat(COMPATIBLE_DATE_FORMAT_PATTERN);
 
-  protected synchronized String convertDateToCompatibleString(Date date) {
+  private static final ThreadLocal<SimpleDateFormat> threadCompatibleDateFormat =
+      ThreadLocal.withInitial(() -> (SimpleDateFormat) compatibleDateFormat.clone());
+
+  protected String convertDateToCompatibleString(Date date) {
     if (date == null) {
       return null;
     }
-    return compatibleDateFormat.format(date);
+    return threadCompatibleDateFormat.get().format(date);
   }
 
-  public synchronized Date convertStringToDate(String string) throws HopValueException {
+  public Date convertStringToDate(String string) throws HopValueException {
     string = Const.trimToType(string, getTrimType()); // see if trimming needs
     // to be performed before
     // conversion
@@ -1059,7 +1076,7 @@ public class ValueMetaBase implements IValueMeta {
 
     try {
       ParsePosition pp = new ParsePosition(0);
-      Date result = getDateFormat(TYPE_DATE).parse(string, pp);
+      Date result = getThreadDateFormat(true).parse(string, pp);
       if (pp.getErrorIndex() >= 0) {
         // error happen
         throw new ParseException(string, pp.getErrorIndex());
@@ -1114,7 +1131,7 @@ public class ValueMetaBase implements IValueMeta {
     return new Date(number.longValue());
   }
 
-  public synchronized String convertNumberToString(Double number) throws HopValueException {
+  public String convertNumberToString(Double number) throws HopValueException {
     if (number == null) {
       if (!outputPaddingEnabled || length < 1) {
         return null;
@@ -1133,7 +1150,7 @@ public class ValueMetaBase implements IValueMeta {
     }
 
     try {
-      DecimalFormat format = getDecimalFormat(false);
+      DecimalFormat format = getThreadDecimalFormat(false);
 
       // When conversion masks are different, we must ensure the number precision is not lost
       if (this.conversionMask != null
@@ -1147,7 +1164,7 @@ public class ValueMetaBase implements IValueMeta {
     }
   }
 
-  protected synchronized String convertNumberToCompatibleString(Double number)
+  protected String convertNumberToCompatibleString(Double number)
       throws HopValueException {
     if (number == null) {
       return null;
@@ -1155,7 +1172,7 @@ public class ValueMetaBase implements IValueMeta {
     return Double.toString(number);
   }
 
-  protected synchronized Double convertStringToNumber(String string) throws HopValueException {
+  protected Double convertStringToNumber(String string) throws HopValueException {
     string = Const.trimToType(string, getTrimType()); // see if trimming needs
     // to be performed before
     // conversion
@@ -1165,7 +1182,10 @@ public class ValueMetaBase implements IValueMeta {
     }
 
     try {
-      DecimalFormat format = getDecimalFormat(false);
+      DecimalFormat format = getThreadDecimalFormat(false);
+      if (threadFormats.get().plainParseFormat && isPlainDecimal(string)) {
+        return Double.valueOf(Double.parseDouble(string));
+      }
       Number number;
       if (lenientStringToNumber) {
         number = format.parse(string);
@@ -1210,7 +1230,9 @@ public class ValueMetaBase implements IValueMeta {
 
     if (dateFormat == null || dateFormatChanged) {
       // This may not become static as the class is not thread-safe!
-      dateFormat = new SimpleDateFormat();
+      // Every thread converts with its own copy, see getThreadDateFormat()
+      //
+      SimpleDateFormat format = new SimpleDateFormat();
 
       String mask = this.getMask(valueMetaType);
 
@@ -1218,25 +1240,28 @@ public class ValueMetaBase implements IValueMeta {
       //
       if (dateFormatLocale == null || dateFormatLocale.equals(Locale.getDefault())) {
         if (mask != null) {
-          dateFormat = new SimpleDateFormat(mask);
+          format = new SimpleDateFormat(mask);
         }
       } else {
         if (mask == null) {
-          mask = dateFormat.toPattern();
+          mask = format.toPattern();
         }
-        dateFormat = new SimpleDateFormat(mask, dateFormatLocale);
+        format = new SimpleDateFormat(mask, dateFormatLocale);
       }
 
       // Do we have a time zone?
       //
       if (dateFormatTimeZone != null) {
-        dateFormat.setTimeZone(dateFormatTimeZone);
+        format.setTimeZone(dateFormatTimeZone);
       }
 
       // Set the conversion leniency as well
       //
-      dateFormat.setLenient(dateFormatLenient);
+      format.setLenient(dateFormatLenient);
 
+      // Only publish the format once it's completely set up
+      //
+      dateFormat = format;
       dateFormatChanged = false;
     }
 
@@ -1266,9 +1291,9 @@ public class ValueMetaBase implements IValueMeta {
     // hungry.
     //
     if (decimalFormat == null || decimalFormatChanged) {
-      decimalFormat = (DecimalFormat) NumberFormat.getInstance();
-      decimalFormat.setParseBigDecimal(useBigDecimal);
-      DecimalFormatSymbols decimalFormatSymbols = decimalFormat.getDecimalFormatSymbols();
+      DecimalFormat format = (DecimalFormat) NumberFormat.getInstance();
+      format.setParseBigDecimal(useBigDecimal);
+      DecimalFormatSymbols decimalFormatSymbols = format.getDecimalFormatSymbols();
 
       if (!Utils.isEmpty(currencySymbol)) {
         decimalFormatSymbols.setCurrencySymbol(currencySymbol);
@@ -1279,19 +1304,166 @@ public class ValueMetaBase implements IValueMeta {
       if (!Utils.isEmpty(decimalSymbol)) {
         decimalFormatSymbols.setDecimalSeparator(decimalSymbol.charAt(0));
       }
-      decimalFormat.setDecimalFormatSymbols(decimalFormatSymbols);
+      format.setDecimalFormatSymbols(decimalFormatSymbols);
 
       String decimalPattern = getMask(getType());
       if (!Utils.isEmpty(decimalPattern)) {
-        decimalFormat.applyPattern(decimalPattern);
+        format.applyPattern(decimalPattern);
       }
 
+      // Only publish the format once it's completely set up
+      //
+      decimalFormat = format;
       decimalFormatChanged = false;
     }
 
     return decimalFormat;
   }
 
+  /**
+   * The date and decimal formats are compiled once and shared, but they can't be used by several
+   * threads at the same time. Conversions therefore use a copy of the shared format per thread.
+   * The copy is refreshed when the shared format is compiled again, after a change of mask,
+   * locale or symbols.
+   *
+   * @param parsing true to get the format to parse dates with, false to format dates
+   * @return the date format of the current thread
+   */
+  protected SimpleDateFormat getThreadDateFormat(boolean parsing) {
+    SimpleDateFormat compiled = getCompiledDateFormat();
+    if (compiled == null) {
+      compiled = parsing ? getDateFormat(TYPE_DATE) : getDateFormat();
+    }
+    ThreadFormats formats = threadFormats.get();
+    if (formats.compiledDateFormat != compiled) {
+      formats.dateFormat = (SimpleDateFormat) compiled.clone();
+      formats.compiledDateFormat = compiled;
+    }
+    return formats.dateFormat;
+  }
+
+  /**
+   * @return the shared date format if it is compiled and up to date, null if it needs to be
+   *     (re-)compiled by {@link #getDateFormat()}
+   */
+  protected SimpleDateFormat getCompiledDateFormat() {
+    if (conversionMetadata != null) {
+      if (conversionMetadata instanceof ValueMetaBase) {
+        return ((ValueMetaBase) conversionMetadata).getCompiledDateFormat();
+      }
+      return null;
+    }
+    return dateFormatChanged ? null : dateFormat;
+  }
+
+  /**
+   * @param useBigDecimal parse to BigDecimal, used when the shared format needs to be compiled
+   * @return the decimal format of the current thread
+   * @see #getThreadDateFormat(boolean)
+   */
+  protected DecimalFormat getThreadDecimalFormat(boolean useBigDecimal) {
+    DecimalFormat compiled = getCompiledDecimalFormat();
+    if (compiled == null) {
+      compiled = getDecimalFormat(useBigDecimal);
+    }
+    ThreadFormats formats = threadFormats.get();
+    if (formats.compiledDecimalFormat != compiled) {
+      formats.decimalFormat = (DecimalFormat) compiled.clone();
+      formats.compiledDecimalFormat = compiled;
+      formats.plainParseFormat = isPlainParseFormat(compiled);
+      formats.plainIntegerFormat = isPlainIntegerFormat(compiled);
+    }
+    return formats.decimalFormat;
+  }
+
+  private DecimalFormat getCompiledDecimalFormat() {
+    if (conversionMetadata != null) {
+      if (conversionMetadata instanceof ValueMetaBase) {
+        return ((ValueMetaBase) conversionMetadata).getCompiledDecimalFormat();
+      }
+      return null;
+    }
+    return decimalFormatChanged ? null : decimalFormat;
+  }
+
+  /**
+   * A plain format has no prefix or suffix other than a minus sign, no multiplier and ASCII digits
+   * with a '.' as decimal separator. Such a format parses integers exactly like {@link
+   * Long#parseLong(String)} and short decimal numbers exactly like {@link
+   * Double#parseDouble(String)}.
+   */
+  static boolean isPlainParseFormat(DecimalFormat format) {
+    DecimalFormatSymbols symbols = format.getDecimalFormatSymbols();
+    return hasPlainAffixes(format)
+        && !format.isParseIntegerOnly()
+        && !format.isParseBigDecimal()
+        && symbols.getDecimalSeparator() == '.'
+        && symbols.getGroupingSeparator() != '.';
+  }
+
+  /**
+   * A plain integer format also has no grouping and no minimum number of digits. It formats
+   * integers exactly like {@link Long#toString(long)}.
+   */
+  static boolean isPlainIntegerFormat(DecimalFormat format) {
+    return hasPlainAffixes(format)
+        && (!format.isGroupingUsed() || format.getGroupingSize() == 0)
+        && !format.isDecimalSeparatorAlwaysShown()
+        && format.getMinimumIntegerDigits() <= 1
+        && format.getMaximumIntegerDigits() >= 19
+        && format.getMinimumFractionDigits() == 0;
+  }
+
+  private static boolean hasPlainAffixes(DecimalFormat format) {
+    return format.getPositivePrefix().isEmpty()
+        && format.getPositiveSuffix().isEmpty()
+        && "-".equals(format.getNegativePrefix())
+        && format.getNegativeSuffix().isEmpty()
+        && format.getMultiplier() == 1
+        && format.getDecimalFormatSymbols().getZeroDigit() == '0';
+  }
+
+  /**
+   * @return true if the string is an optional minus sign followed by at most 18 digits, a value
+   *     that always fits in a long
+   */
+  static boolean isPlainInteger(String string) {
+    int start = string.charAt(0) == '-' ? 1 : 0;
+    int length = string.length();
+    if (length == start || length - start > 18) {
+      return false;
+    }
+    for (int i = start; i < length; i++) {
+      char c = string.charAt(i);
+      if (c < '0' || c > '9') {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * @return true if the string is an optional minus sign followed by digits with an optional '.'
+   *     between them, at most 15 digits in total so that every parser rounds it the same way
+   */
+  static boolean isPlainDecimal(String string) {
+    int start = string.charAt(0) == '-' ? 1 : 0;
+    int length = string.length();
+    int digits = 0;
+    int separator = -1;
+    for (int i = start; i < length; i++) {
+      char c = string.charAt(i);
+      if (c >= '0' && c <= '9') {
+        digits++;
+      } else if (c == '.' && separator < 0) {
+        separator = i;
+      } else {
+        return false;
+      }
+    }
+    return digits > 0 && digits <= 15 && separator != start && separator != length - 1;
+  }
+
   @Override
   @JsonIgnore
   public String getFormatMask() {
@@ -1439,7 +1611,7 @@ public class ValueMetaBase implements IValueMeta {
     return numberPattern.toString();
   }
 
-  protected synchronized String convertIntegerToString(Long integer) throws HopValueException {
+  protected String convertIntegerToString(Long integer) throws HopValueException {
     if (integer == null) {
       if (!outputPaddingEnabled || length < 1) {
         return null;
@@ -1458,13 +1630,17 @@ public class ValueMetaBase implements IValueMeta {
     }
 
     try {
-      return getDecimalFormat(false).format(integer);
+      DecimalFormat format = getThreadDecimalFormat(false);
+      if (threadFormats.get().plainIntegerFormat) {
+        return Long.toString(integer);
+      }
+      return format.format(integer);
     } catch (Exception e) {
       throw new HopValueException(toString() + " : couldn't convert Long to String ", e);
     }
   }
 
-  protected synchronized String convertIntegerToCompatibleString(Long integer)
+  protected String convertIntegerToCompatibleString(Long integer)
       throws HopValueException {
     if (integer == null) {
       return null;
@@ -1472,7 +1648,7 @@ public class ValueMetaBase implements IValueMeta {
     return Long.toString(integer);
   }
 
-  protected synchronized Long convertStringToInteger(String string) throws HopValueException {
+  protected Long convertStringToInteger(String string) throws HopValueException {
     string = Const.trimToType(string, getTrimType()); // see if trimming needs
     // to be performed before
     // conversion
@@ -1482,12 +1658,16 @@ public class ValueMetaBase implements IValueMeta {
     }
 
     try {
+      DecimalFormat format = getThreadDecimalFormat(false);
+      if (threadFormats.get().plainParseFormat && isPlainInteger(string)) {
+        return Long.valueOf(Long.parseLong(string));
+      }
       Number number;
       if (lenientStringToNumber) {
-        number = Long.valueOf(getDecimalFormat(false).parse(string).longValue());
+        number = Long.valueOf(format.parse(string).longValue());
       } else {
         ParsePosition parsePosition = new ParsePosition(0);
-        number = getDecimalFormat(false).parse(string, parsePosition);
+        number = format.parse(string, parsePosition);
 
         if (parsePosition.getIndex() < string.length()) {
           throw new HopValueException(
@@ -1505,20 +1685,20 @@ public class ValueMetaBase implements IValueMeta {
     }
   }
 
-  protected synchronized String convertBigNumberToString(BigDecimal number)
+  protected String convertBigNumberToString(BigDecimal number)
       throws HopValueException {
     if (number == null) {
       return null;
     }
 
     try {
-      return getDecimalFormat(bigNumberFormatting).format(number);
+      return getThreadDecimalFormat(bigNumberFormatting).format(number);
     } catch (Exception e) {
       throw new HopValueException(toString() + " : couldn't convert BigNumber to String ", e);
     }
   }
 
-  protected synchronized BigDecimal convertStringToBigNumber(String string)
+  protected BigDecimal convertStringToBigNumber(String string)
       throws HopValueException {
     string = Const.trimToType(string, getTrimType()); // see if trimming needs
     // to be performed before
@@ -1529,7 +1709,7 @@ public class ValueMetaBase implements IValueMeta {
     }
 
     try {
-      DecimalFormat format = getDecimalFormat(bigNumberFormatting);
+      DecimalFormat format = getThreadDecimalFormat(bigNumberFormatting);
       Number number;
       if (lenientStringToNumber) {
         number = format.parse(string);
@@ -4654,6 +4834,7 @@ public class ValueMetaBase implements IValueMeta {
   @Override
   public void setConversionMetadata(IValueMeta conversionMetadata) {
     this.conversionMetadata = conversionMetadata;
+    threadFormats = newThreadFormats();
   }
 
   /**
@@ -4897,6 +5078,7 @@ public class ValueMetaBase implements IValueMeta {
   public void setDateFormatTimeZone(TimeZone dateFormatTimeZone) {
     this.dateFormatTimeZone = dateFormatTimeZone;
     dateFormatChanged = true;
+    threadFormats = newThreadFormats();
   }
 
   @Override
@@ -5786,4 +5968,18 @@ public class ValueMetaBase implements IValueMeta {
       return ValueMetaFactory.getIdForValueMeta(code);
     }
   }
+
+  private static ThreadLocal<ThreadFormats> newThreadFormats() {
+    return ThreadLocal.withInitial(ThreadFormats::new);
+  }
+
+  /** The formats of one thread, copied from the shared compiled formats. */
+  private static final class ThreadFormats {
+    private SimpleDateFormat compiledDateFormat;
+    private SimpleDateFormat dateFormat;
+    private DecimalFormat compiledDecimalFormat;
+    private DecimalFormat decimalFormat;
+    private boolean plainParseFormat;
+    private boolean plainIntegerFormat;
+  }
 }
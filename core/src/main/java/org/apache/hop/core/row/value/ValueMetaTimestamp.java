@@ -254,7 +254,7 @@ public class ValueMetaTimestamp extends ValueMetaDate {
     return timestamp;
   }
 
-  protected synchronized Timestamp convertStringToTimestamp(String string)
+  protected Timestamp convertStringToTimestamp(String string)
       throws HopValueException {
     // See if trimming needs to be performed before conversion
     //
@@ -268,7 +268,7 @@ public class ValueMetaTimestamp extends ValueMetaDate {
       returnValue = Timestamp.valueOf(string);
     } catch (IllegalArgumentException e) {
       try {
-        returnValue = (Timestamp) getDateFormat().parse(string);
+        returnValue = (Timestamp) getThreadDateFormat(false).parse(string);
       } catch (ParseException ex) {
         throw new HopValueException(
             toString()
@@ -281,14 +281,14 @@ public class ValueMetaTimestamp extends ValueMetaDate {
     return returnValue;
   }
 
-  protected synchronized String convertTimestampToString(Timestamp timestamp)
+  protected String convertTimestampToString(Timestamp timestamp)
       throws HopValueException {
 
     if (timestamp == null) {
       return null;
     }
 
-    return getDateFormat().format(timestamp);
+    return getThreadDateFormat(false).format(timestamp);
   }
 
   @Override
@@ -691,6 +691,15 @@ public class ValueMetaTimestamp extends ValueMetaDate {
     return getDateFormat(getType());
   }
 
+  /**
+   * A new timestamp format is created on every call when there is conversion metadata, it can't
+   * be compiled once.
+   */
+  @Override
+  protected SimpleDateFormat getCompiledDateFormat() {
+    return conversionMetadata != null ? null : super.getCompiledDateFormat();
+  }
+
   private synchronized SimpleDateFormat getDateFormat(int valueMetaType) {
     if (conversionMetadata != null) {
       return new SimpleTimestampFormat(conversionMetadata.getDateFormat().toPattern());
@@ -698,28 +707,33 @@ public class ValueMetaTimestamp extends ValueMetaDate {
 
     if (dateFormat == null || dateFormatChanged) {
       // This may not become static as the class is not thread-safe!
-      dateFormat = new SimpleTimestampFormat(new SimpleDateFormat().toPattern());
+      // Every thread converts with its own copy, see getThreadDateFormat()
+      //
+      SimpleDateFormat format;
 
       String mask = getMask(valueMetaType);
 
       // Do we have a locale?
       //
       if (dateFormatLocale == null || dateFormatLocale.equals(Locale.getDefault())) {
-        dateFormat = new SimpleTimestampFormat(mask);
+        format = new SimpleTimestampFormat(mask);
       } else {
-        dateFormat = new SimpleTimestampFormat(mask, dateFormatLocale);
+        format = new SimpleTimestampFormat(mask, dateFormatLocale);
       }
 
       // Do we have a time zone?
       //
       if (dateFormatTimeZone != null) {
-        dateFormat.setTimeZone(dateFormatTimeZone);
+        format.setTimeZone(dateFormatTimeZone);
       }
 
       // Set the conversion leniency as well
       //
-      dateFormat.setLenient(dateFormatLenient);
+      format.setLenient(dateFormatLenient);
 
+      // Only publish the format once it's completely set up
+      //
+      dateFormat = format;
       dateFormatChanged = false;
     }
 
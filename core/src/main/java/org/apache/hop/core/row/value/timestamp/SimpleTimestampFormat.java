@@ -70,11 +70,14 @@ public class SimpleTimestampFormat extends SimpleDateFormat {
 
   private static final String DEFAULT_MILLISECOND_DATE_FORMAT = "SSS";
 
-  private static final SimpleDateFormat defaultTimestampFormat =
-      new SimpleDateFormat(DEFAULT_TIMESTAMP_FORMAT_FOR_TIMESTAMP, Locale.US);
+  /** The default formats are shared by all instances, so every thread needs its own copy. */
+  private static final ThreadLocal<SimpleDateFormat> defaultTimestampFormat =
+      ThreadLocal.withInitial(
+          () -> new SimpleDateFormat(DEFAULT_TIMESTAMP_FORMAT_FOR_TIMESTAMP, Locale.US));
 
-  private static final SimpleDateFormat defaultMillisecondDateFormat =
-      new SimpleDateFormat(DEFAULT_MILLISECOND_DATE_FORMAT, Locale.US);
+  private static final ThreadLocal<SimpleDateFormat> defaultMillisecondDateFormat =
+      ThreadLocal.withInitial(
+          () -> new SimpleDateFormat(DEFAULT_MILLISECOND_DATE_FORMAT, Locale.US));
 
   /**
    * Nanoseconds placeholder to specify unformatted nanoseconds position after formatting <code>Date
@@ -249,7 +252,7 @@ public class SimpleTimestampFormat extends SimpleDateFormat {
 
     } else {
       dateBuffer = super.format(timestamp, toAppendTo, pos);
-      String milliseconds = defaultMillisecondDateFormat.format(timestamp);
+      String milliseconds = defaultMillisecondDateFormat.get().format(timestamp);
       nan = formatNanoseconds(Integer.valueOf(milliseconds) * Math.pow(10, 6));
     }
 
@@ -367,7 +370,7 @@ public class SimpleTimestampFormat extends SimpleDateFormat {
       return null;
     }
 
-    timestampFormatDate = defaultTimestampFormat.format(tempDate);
+    timestampFormatDate = defaultTimestampFormat.get().format(tempDate);
     String result = timestampFormatDate + '.' + nanoseconds;
     Timestamp res = Timestamp.valueOf(timestampFormatDate + '.' + nanoseconds);
     pos.setIndex(pos.getIndex() + result.length());
@@ -471,4 +474,19 @@ public class SimpleTimestampFormat extends SimpleDateFormat {
   public Object parseObject(String source, ParsePosition pos) {
     return parse(source, pos);
   }
+
+  /**
+   * Creates a copy of this format which can be used by another thread. The nanoseconds format is
+   * copied as well.
+   *
+   * @return a copy of this format
+   */
+  @Override
+  public Object clone() {
+    SimpleTimestampFormat copy = (SimpleTimestampFormat) super.clone();
+    if (nanoseconds != null) {
+      copy.nanoseconds = (DecimalFormat) nanoseconds.clone();
+    }
+    return copy;
+  }
 }
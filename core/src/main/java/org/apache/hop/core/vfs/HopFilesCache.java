@@ -0,0 +1,162 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.core.vfs;
+
+import org.apache.commons.vfs2.FileName;
+import org.apache.commons.vfs2.FileObject;
+import org.apache.commons.vfs2.FileSystem;
+import org.apache.commons.vfs2.cache.SoftRefFilesCache;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The files cache of the Hop file system manager. Next to the soft references kept by VFS it
+ * remembers which file object a filename was resolved to, so that resolving the same filename again
+ * doesn't need to parse it, look up its provider and go through the synchronized VFS cache.
+ *
+ * <p>Resolved files are forgotten as soon as VFS closes their file system. At most {@link
+ * #MAX_RESOLVED_FILES} filenames are remembered, the least recently used one is forgotten first.
+ */
+class HopFilesCache extends SoftRefFilesCache {
+
+  /** The maximum number of filenames for which the resolved file object is kept. */
+  static final int MAX_RESOLVED_FILES = 10000;
+
+  private final Object resolvedLock = new Object();
+
+  private final LinkedHashMap<String, FileObject> resolvedFiles =
+      new LinkedHashMap<String, FileObject>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, FileObject> eldest) {
+          if (size() > MAX_RESOLVED_FILES) {
+            unindex(eldest.getKey(), eldest.getValue());
+            return true;
+          }
+          return false;
+        }
+      };
+
+  /** The filenames which were resolved to a file with the given name, to find them on removal. */
+  private final Map<FileName, List<String>> filenamesByName = new HashMap<>();
+
+  /**
+   * @param filename The filename as it was passed to {@link HopVfs#getFileObject(String)}
+   * @return The file object the filename was resolved to before or null if it's not known
+   */
+  FileObject getResolvedFile(String filename) {
+    if (filename == null) {
+      return null;
+    }
+    synchronized (resolvedLock) {
+      return resolvedFiles.get(filename);
+    }
+  }
+
+  /**
+   * Remember the file object a filename was resolved to. When another thread resolved the same
+   * filename first, its file object is kept so that everyone works with the same instance.
+   *
+   * @param filename The filename as it was passed to {@link HopVfs#getFileObject(String)}
+   * @param fileObject The resolved file object
+   * @return The file object to use for the filename
+   */
+  FileObject putResolvedFile(String filename, FileObject fileObject) {
+    synchronized (resolvedLock) {
+      FileObject existing = resolvedFiles.get(filename);
+      if (existing != null) {
+        return existing;
+      }
+      filenamesByName
+          .computeIfAbsent(fileObject.getName(), name -> new ArrayList<>(1))
+          .add(filename);
+      resolvedFiles.put(filename, fileObject);
+      return fileObject;
+    }
+  }
+
+  /** @return The number of filenames for which the resolved file object is kept */
+  int getNrResolvedFiles() {
+    synchronized (resolvedLock) {
+      return resolvedFiles.size();
+    }
+  }
+
+  /** Forget all resolved filenames, the file objects stay in the VFS cache. */
+  void clearResolvedFiles() {
+    synchronized (resolvedLock) {
+      resolvedFiles.clear();
+      filenamesByName.clear();
+    }
+  }
+
+  private void unindex(String filename, FileObject fileObject) {
+    List<String> filenames = filenamesByName.get(fileObject.getName());
+    if (filenames != null) {
+      filenames.remove(filename);
+      if (filenames.isEmpty()) {
+        filenamesByName.remove(fileObject.getName());
+      }
+    }
+  }
+
+  @Override
+  public void removeFile(FileSystem fileSystem, FileName name) {
+    synchronized (resolvedLock) {
+      List<String> filenames = filenamesByName.get(name);
+      if (filenames != null) {
+        for (Iterator<String> iterator = filenames.iterator(); iterator.hasNext(); ) {
+          String filename = iterator.next();
+          if (resolvedFiles.get(filename).getFileSystem() == fileSystem) {
+            resolvedFiles.remove(filename);
+            iterator.remove();
+          }
+        }
+        if (filenames.isEmpty()) {
+          filenamesByName.remove(name);
+        }
+      }
+    }
+    super.removeFile(fileSystem, name);
+  }
+
+  @Override
+  public void clear(FileSystem fileSystem) {
+    synchronized (resolvedLock) {
+      for (Iterator<Map.Entry<String, FileObject>> iterator = resolvedFiles.entrySet().iterator();
+          iterator.hasNext(); ) {
+        Map.Entry<String, FileObject> entry = iterator.next();
+        if (entry.getValue().getFileSystem() == fileSystem) {
+          unindex(entry.getKey(), entry.getValue());
+          iterator.remove();
+        }
+      }
+    }
+    super.clear(fileSystem);
+  }
+
+  @Override
+  public void close() {
+    clearResolvedFiles();
+    super.close();
+  }
+}
@@ -23,7 +23,6 @@ import org.apache.commons.vfs2.FileContent;
 import org.apache.commons.vfs2.FileName;
 import org.apache.commons.vfs2.FileObject;
 import org.apache.commons.vfs2.FileSystemException;
-import org.apache.commons.vfs2.cache.SoftRefFilesCache;
 import org.apache.commons.vfs2.impl.DefaultFileReplicator;
 import org.apache.commons.vfs2.impl.DefaultFileSystemManager;
 import org.apache.commons.vfs2.impl.FileContentInfoFilenameFactory;
@@ -48,31 +47,38 @@ import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
 import java.util.UUID;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 public class HopVfs {
   private static final Class<?> PKG = HopVfs.class; // For Translator
 
   public static final String TEMP_DIR = System.getProperty("java.io.tmpdir");
 
-  private static DefaultFileSystemManager fsm;
+  /** The file system manager in use, created when it's first needed. */
+  private static volatile VfsState state;
 
-  private static final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+  /** Only taken to create or reset the file system manager, never to resolve files. */
+  private static final Object stateLock = new Object();
 
   public static DefaultFileSystemManager getFileSystemManager() {
-    lock.readLock().lock();
-    try {
-      if (fsm == null) {
-        try {
-          fsm = createFileSystemManager();
-        } catch (Exception e) {
-          throw new RuntimeException("Error initializing file system manager : ", e);
+    return getState().manager;
+  }
+
+  private static VfsState getState() {
+    VfsState current = state;
+    if (current == null) {
+      synchronized (stateLock) {
+        current = state;
+        if (current == null) {
+          try {
+            current = new VfsState(createFileSystemManager());
+          } catch (Exception e) {
+            throw new RuntimeException("Error initializing file system manager : ", e);
+          }
+          state = current;
         }
       }
-      return fsm;
-    } finally {
-      lock.readLock().unlock();
     }
+    return current;
   }
 
   /**
@@ -121,7 +127,7 @@ public class HopVfs {
       fsm.setFileContentInfoFactory(new FileContentInfoFilenameFactory());
       fsm.setReplicator(new DefaultFileReplicator());
 
-      fsm.setFilesCache(new SoftRefFilesCache());
+      fsm.setFilesCache(new HopFilesCache());
       fsm.setCacheStrategy(CacheStrategy.ON_RESOLVE);
 
       // Here are extra VFS plugins to register
@@ -151,52 +157,62 @@ public class HopVfs {
     }
   }
 
-  public static synchronized FileObject getFileObject(String vfsFilename) throws HopFileException {
-    lock.readLock().lock();
+  public static FileObject getFileObject(String vfsFilename) throws HopFileException {
+    VfsState current = getState();
+
     try {
-      DefaultFileSystemManager fsManager = getFileSystemManager();
-
-      try {
-        // We have one problem with VFS: if the file is in a subdirectory of the current one:
-        // somedir/somefile
-        // In that case, VFS doesn't parse the file correctly.
-        // We need to put file: in front of it to make it work.
-        // However, how are we going to verify this?
-        //
-        // We are going to see if the filename starts with one of the known protocols like file:
-        // zip: ram: smb: jar: etc.
-        // If not, we are going to assume it's a file.
+      FileObject fileObject = current.filesCache.getResolvedFile(vfsFilename);
+      if (fileObject != null) {
+        // This is what VFS does with the ON_RESOLVE cache strategy for the files it resolves
         //
-        boolean relativeFilename = true;
-        String[] initialSchemes = fsManager.getSchemes();
-
-        relativeFilename = checkForScheme(initialSchemes, relativeFilename, vfsFilename);
+        fileObject.refresh();
+        return fileObject;
+      }
 
-        String filename;
-        if (vfsFilename.startsWith("\\\\")) {
-          File file = new File(vfsFilename);
-          filename = file.toURI().toString();
-        } else {
-          if (relativeFilename) {
-            File file = new File(vfsFilename);
-            filename = file.getAbsolutePath();
-          } else {
-            filename = vfsFilename;
-          }
-        }
+      fileObject = resolveFile(current, vfsFilename);
+      return current.filesCache.putResolvedFile(vfsFilename, fileObject);
+    } catch (Exception e) {
+      throw new HopFileException(
+          "Unable to get VFS File object for filename '"
+              + cleanseFilename(vfsFilename)
+              + "' : "
+              + e.getMessage(),
+          e);
+    }
+  }
 
-        return fsManager.resolveFile(filename);
-      } catch (Exception e) {
-        throw new HopFileException(
-            "Unable to get VFS File object for filename '"
-                + cleanseFilename(vfsFilename)
-                + "' : "
-                + e.getMessage(),
-            e);
+  /**
+   * Resolve a filename without remembering the result in the files cache. The file object is not
+   * shared with other callers of {@link #getFileObject(String)}.
+   */
+  private static FileObject resolveFile(VfsState current, String vfsFilename)
+      throws FileSystemException {
+    // We have one problem with VFS: if the file is in a subdirectory of the current one:
+    // somedir/somefile
+    // In that case, VFS doesn't parse the file correctly.
+    // We need to put file: in front of it to make it work.
+    // However, how are we going to verify this?
+    //
+    // We are going to see if the filename starts with one of the known protocols like file:
+    // zip: ram: smb: jar: etc.
+    // If not, we are going to assume it's a file.
+    //
+    boolean relativeFilename = vfsFilename != null && !current.hasScheme(vfsFilename);
+
+    String filename;
+    if (vfsFilename != null && vfsFilename.startsWith("\\\\")) {
+      File file = new File(vfsFilename);
+      filename = file.toURI().toString();
+    } else {
+      if (relativeFilename) {
+        File file = new File(vfsFilename);
+        filename = file.getAbsolutePath();
+      } else {
+        filename = vfsFilename;
       }
-    } finally {
-      lock.readLock().unlock();
     }
+
+    return current.manager.resolveFile(filename);
   }
 
   protected static boolean checkForScheme(
@@ -387,7 +403,7 @@ public class HopVfs {
    * @return FileObject
    * @throws HopFileException
    */
-  public static synchronized FileObject createTempFile(
+  public static FileObject createTempFile(
       String prefix, String suffix, String directory) throws HopFileException {
     try {
       FileObject fileObject;
@@ -411,7 +427,10 @@ public class HopVfs {
         //
         String filename = baseUrl + "/" + prefix + "_" + UUID.randomUUID() + suffix;
 
-        fileObject = getFileObject(filename);
+        // Every temporary file has a unique name, remembering it would only push other files out
+        // of the files cache.
+        //
+        fileObject = resolveFile(getState(), filename);
       } while (fileObject.exists());
       return fileObject;
     } catch (IOException e) {
@@ -435,24 +454,7 @@ public class HopVfs {
    * @return boolean
    */
   public static boolean startsWithScheme(String vfsFileName) {
-    lock.readLock().lock();
-    try {
-
-      DefaultFileSystemManager fsManager = getFileSystemManager();
-
-      boolean found = false;
-      String[] schemes = fsManager.getSchemes();
-      for (int i = 0; i < schemes.length; i++) {
-        if (vfsFileName.startsWith(schemes[i] + ":")) {
-          found = true;
-          break;
-        }
-      }
-
-      return found;
-    } finally {
-      lock.readLock().unlock();
-    }
+    return getState().hasScheme(vfsFileName);
   }
 
   /**
@@ -486,16 +488,51 @@ public class HopVfs {
    * @see StandardFileSystemManager#freeUnusedResources()
    */
   public static void freeUnusedResources() {
-    if (fsm != null) {
-      fsm.freeUnusedResources();
+    VfsState current = state;
+    if (current != null) {
+      current.filesCache.clearResolvedFiles();
+      current.manager.freeUnusedResources();
     }
   }
 
   public static void reset() {
-    if (fsm != null) {
-      fsm.freeUnusedResources();
-      fsm.close();
-      fsm = null;
+    synchronized (stateLock) {
+      VfsState current = state;
+      if (current != null) {
+        state = null;
+        current.manager.freeUnusedResources();
+        current.manager.close();
+      }
+    }
+  }
+
+  /**
+   * The file system manager together with what is derived from it once: its files cache and the
+   * prefixes of the URL schemes it supports. The manager doesn't change its providers after it's
+   * initialized so these are never stale.
+   */
+  private static final class VfsState {
+    private final DefaultFileSystemManager manager;
+    private final HopFilesCache filesCache;
+    private final String[] schemePrefixes;
+
+    private VfsState(DefaultFileSystemManager manager) {
+      this.manager = manager;
+      this.filesCache = (HopFilesCache) manager.getFilesCache();
+      String[] schemes = manager.getSchemes();
+      this.schemePrefixes = new String[schemes.length];
+      for (int i = 0; i < schemes.length; i++) {
+        schemePrefixes[i] = schemes[i] + ":";
+      }
+    }
+
+    private boolean hasScheme(String vfsFileName) {
+      for (String prefix : schemePrefixes) {
+        if (vfsFileName.startsWith(prefix)) {
+          return true;
+        }
+      }
+      return false;
     }
   }
 
@@ -91,4 +91,28 @@ public interface IHopMetadataSerializer<T extends IHopMetadata> {
    * @return A list of all available objects
    */
   List<T> loadAll() throws HopException;
+
+  /**
+   * Get the time the object with the given name was last changed in the store. Caching layers use
+   * this to see if the object they kept is still up to date.
+   *
+   * @param name The name of the object
+   * @return The last modification time in milliseconds or -1 if the object doesn't exist or if the
+   *     serializer can't tell.
+   * @throws HopException
+   */
+  default long getLastModified(String name) throws HopException {
+    return -1L;
+  }
+
+  /**
+   * Get the time an object was last added to or removed from the store. Caching layers use this to
+   * see if the list of object names they kept is still up to date.
+   *
+   * @return The last modification time in milliseconds or -1 if the serializer can't tell.
+   * @throws HopException
+   */
+  default long getNamesLastModified() throws HopException {
+    return -1L;
+  }
 }
@@ -0,0 +1,143 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.metadata.serializer.cache;
+
+import org.apache.hop.core.encryption.ITwoWayPasswordEncoder;
+import org.apache.hop.core.exception.HopException;
+import org.apache.hop.metadata.api.IHopMetadata;
+import org.apache.hop.metadata.api.IHopMetadataProvider;
+import org.apache.hop.metadata.api.IHopMetadataSerializer;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A metadata provider which keeps the objects loaded by another provider in memory. Before a cached
+ * object is handed out the wrapped serializer is asked when the object was last modified. The
+ * object is only loaded again when it changed. Every load returns a copy of the cached object so
+ * callers can modify it freely.
+ *
+ * <p>Objects are only cached if the wrapped serializer can tell when they were modified, like the
+ * JSON serializer does. Everything else is passed on to the wrapped provider. You can use this
+ * provider in a {@link org.apache.hop.metadata.serializer.multi.MultiMetadataProvider} like any
+ * other provider.
+ */
+public class CachingMetadataProvider implements IHopMetadataProvider {
+
+  private final IHopMetadataProvider provider;
+
+  private final Map<Class<?>, CachingMetadataSerializer<?>> serializers;
+
+  private final AtomicLong hits;
+  private final AtomicLong misses;
+
+  /** @param provider The metadata provider to cache the objects of */
+  public CachingMetadataProvider(IHopMetadataProvider provider) {
+    this.provider = provider;
+    this.serializers = new ConcurrentHashMap<>();
+    this.hits = new AtomicLong();
+    this.misses = new AtomicLong();
+  }
+
+  /**
+   * The description of the wrapped provider. Objects keep referring to the provider they were
+   * loaded from so they can be saved there again.
+   */
+  @Override
+  public String getDescription() {
+    return provider.getDescription();
+  }
+
+  @Override
+  public <T extends IHopMetadata> IHopMetadataSerializer<T> getSerializer(Class<T> managedClass)
+      throws HopException {
+    if (managedClass == null) {
+      throw new HopException("You need to specify the class to serialize");
+    }
+    CachingMetadataSerializer<T> serializer =
+        (CachingMetadataSerializer<T>) serializers.get(managedClass);
+    if (serializer == null) {
+      serializer = new CachingMetadataSerializer<>(this, provider.getSerializer(managedClass));
+      CachingMetadataSerializer<T> existing =
+          (CachingMetadataSerializer<T>) serializers.putIfAbsent(managedClass, serializer);
+      if (existing != null) {
+        serializer = existing;
+      }
+    }
+    return serializer;
+  }
+
+  @Override
+  public ITwoWayPasswordEncoder getTwoWayPasswordEncoder() {
+    return provider.getTwoWayPasswordEncoder();
+  }
+
+  @Override
+  public <T extends IHopMetadata> List<Class<T>> getMetadataClasses() {
+    return provider.getMetadataClasses();
+  }
+
+  @Override
+  public <T extends IHopMetadata> Class<T> getMetadataClassForKey(String key) throws HopException {
+    return provider.getMetadataClassForKey(key);
+  }
+
+  /** Forget about all the cached objects. The statistics are kept. */
+  public void clear() {
+    for (CachingMetadataSerializer<?> serializer : serializers.values()) {
+      serializer.clear();
+    }
+  }
+
+  void registerHit() {
+    hits.incrementAndGet();
+  }
+
+  void registerMiss() {
+    misses.incrementAndGet();
+  }
+
+  /**
+   * Gets provider
+   *
+   * @return The wrapped metadata provider
+   */
+  public IHopMetadataProvider getProvider() {
+    return provider;
+  }
+
+  /**
+   * Gets hits
+   *
+   * @return The number of objects which were returned from the cache
+   */
+  public long getHits() {
+    return hits.get();
+  }
+
+  /**
+   * Gets misses
+   *
+   * @return The number of objects which had to be loaded by the wrapped provider
+   */
+  public long getMisses() {
+    return misses.get();
+  }
+}
@@ -0,0 +1,278 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.metadata.serializer.cache;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import org.apache.hop.core.exception.HopException;
+import org.apache.hop.core.variables.IVariables;
+import org.apache.hop.metadata.api.IHopMetadata;
+import org.apache.hop.metadata.api.IHopMetadataProvider;
+import org.apache.hop.metadata.api.IHopMetadataSerializer;
+import org.apache.hop.metadata.serializer.json.JsonMetadataParser;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps the objects loaded by another serializer in memory, see {@link CachingMetadataProvider}.
+ *
+ * <p>Copies are made with the public clone() method of the managed class if it has one. Otherwise
+ * the cached object is kept in its JSON form and every copy is parsed from that, which still avoids
+ * reading the file.
+ *
+ * <p>Note that modifications are detected with the modification time of the stored object. A file
+ * which is changed by another process within the resolution of the file system clock can go
+ * unnoticed. Objects which are saved or deleted through this serializer are always reloaded.
+ *
+ * @param <T> The class of the metadata objects
+ */
+public class CachingMetadataSerializer<T extends IHopMetadata>
+    implements IHopMetadataSerializer<T> {
+
+  private final CachingMetadataProvider metadataProvider;
+  private final IHopMetadataSerializer<T> serializer;
+  private final Class<T> managedClass;
+
+  /** The public clone() method of the managed class or null if it doesn't have one */
+  private final Method cloneMethod;
+
+  private final JsonMetadataParser<T> parser;
+  private final JsonFactory jsonFactory;
+
+  private final Map<String, CachedObject<T>> objects;
+  private volatile CachedNames names;
+
+  public CachingMetadataSerializer(
+      CachingMetadataProvider metadataProvider, IHopMetadataSerializer<T> serializer) {
+    this.metadataProvider = metadataProvider;
+    this.serializer = serializer;
+    this.managedClass = serializer.getManagedClass();
+    this.cloneMethod = findCloneMethod(managedClass);
+    this.parser = new JsonMetadataParser<>(managedClass, serializer.getMetadataProvider());
+    this.jsonFactory = new JsonFactory();
+    this.objects = new ConcurrentHashMap<>();
+  }
+
+  private static Method findCloneMethod(Class<?> managedClass) {
+    if (!Cloneable.class.isAssignableFrom(managedClass)) {
+      return null;
+    }
+    try {
+      // Object.clone() is protected so this only finds public overrides
+      //
+      return managedClass.getMethod("clone");
+    } catch (NoSuchMethodException e) {
+      return null;
+    }
+  }
+
+  @Override
+  public String getDescription() {
+    return serializer.getDescription();
+  }
+
+  @Override
+  public T load(String objectName) throws HopException {
+    if (objectName == null) {
+      return serializer.load(null);
+    }
+
+    // Ask for the modification time before loading: if the object changes while we load it we'll
+    // simply load it again next time.
+    //
+    long lastModified = serializer.getLastModified(objectName);
+    if (lastModified < 0) {
+      objects.remove(objectName);
+      metadataProvider.registerMiss();
+      return serializer.load(objectName);
+    }
+
+    CachedObject<T> cachedObject = objects.get(objectName);
+    if (cachedObject != null && cachedObject.lastModified == lastModified) {
+      metadataProvider.registerHit();
+      return copy(cachedObject);
+    }
+
+    metadataProvider.registerMiss();
+    T object = serializer.load(objectName);
+    if (object == null) {
+      objects.remove(objectName);
+      return null;
+    }
+    String json = cloneMethod == null ? toJson(object) : null;
+    cachedObject = new CachedObject<>(lastModified, object, json);
+    objects.put(objectName, cachedObject);
+    return copy(cachedObject);
+  }
+
+  private T copy(CachedObject<T> cachedObject) throws HopException {
+    T original = cachedObject.object;
+    T copy;
+    if (cloneMethod != null) {
+      try {
+        copy = managedClass.cast(cloneMethod.invoke(original));
+      } catch (Exception e) {
+        throw new HopException(
+            "Error copying metadata object '" + original.getName() + "' of " + managedClass, e);
+      }
+    } else {
+      copy = fromJson(cachedObject.json);
+    }
+    copy.setMetadataProviderName(original.getMetadataProviderName());
+    if (copy instanceof IVariables) {
+      IVariables variables = (IVariables) copy;
+      variables.setParentVariables(((IVariables) original).getParentVariables());
+      variables.copyFrom((IVariables) original);
+    }
+    return copy;
+  }
+
+  private String toJson(T object) throws HopException {
+    return parser.getJsonObject(object).toJSONString();
+  }
+
+  private T fromJson(String json) throws HopException {
+    try (JsonParser jsonParser = jsonFactory.createParser(json)) {
+      jsonParser.nextToken(); // skip {
+      return parser.loadJsonObject(managedClass, jsonParser);
+    } catch (IOException e) {
+      throw new HopException("Error copying cached metadata object of " + managedClass, e);
+    }
+  }
+
+  @Override
+  public void save(T object) throws HopException {
+    try {
+      serializer.save(object);
+    } finally {
+      objects.remove(object.getName());
+      names = null;
+    }
+  }
+
+  @Override
+  public T delete(String name) throws HopException {
+    try {
+      return serializer.delete(name);
+    } finally {
+      if (name != null) {
+        objects.remove(name);
+      }
+      names = null;
+    }
+  }
+
+  @Override
+  public List<String> listObjectNames() throws HopException {
+    long lastModified = serializer.getNamesLastModified();
+    CachedNames cachedNames = names;
+    if (lastModified >= 0 && cachedNames != null && cachedNames.lastModified == lastModified) {
+      return new ArrayList<>(cachedNames.names);
+    }
+    List<String> list = serializer.listObjectNames();
+    names = lastModified < 0 ? null : new CachedNames(lastModified, new ArrayList<>(list));
+    return list;
+  }
+
+  @Override
+  public boolean exists(String name) throws HopException {
+    if (name != null && serializer.getLastModified(name) >= 0) {
+      return true;
+    }
+    return serializer.exists(name);
+  }
+
+  @Override
+  public List<T> loadAll() throws HopException {
+    List<String> list = listObjectNames();
+    Collections.sort(list);
+    List<T> all = new ArrayList<>();
+    for (String name : list) {
+      T object = load(name);
+      if (object != null) {
+        all.add(object);
+      }
+    }
+    return all;
+  }
+
+  @Override
+  public long getLastModified(String name) throws HopException {
+    return serializer.getLastModified(name);
+  }
+
+  @Override
+  public long getNamesLastModified() throws HopException {
+    return serializer.getNamesLastModified();
+  }
+
+  @Override
+  public Class<T> getManagedClass() {
+    return managedClass;
+  }
+
+  @Override
+  public IHopMetadataProvider getMetadataProvider() {
+    return metadataProvider;
+  }
+
+  /**
+   * Gets serializer
+   *
+   * @return The wrapped serializer
+   */
+  public IHopMetadataSerializer<T> getSerializer() {
+    return serializer;
+  }
+
+  /** Forget about all the cached objects */
+  public void clear() {
+    objects.clear();
+    names = null;
+  }
+
+  private static final class CachedObject<T> {
+    private final long lastModified;
+    private final T object;
+
+    /** The JSON form of the object if it can't be cloned */
+    private final String json;
+
+    private CachedObject(long lastModified, T object, String json) {
+      this.lastModified = lastModified;
+      this.object = object;
+      this.json = json;
+    }
+  }
+
+  private static final class CachedNames {
+    private final long lastModified;
+    private final List<String> names;
+
+    private CachedNames(long lastModified, List<String> names) {
+      this.lastModified = lastModified;
+      this.names = names;
+    }
+  }
+}
@@ -23,17 +23,16 @@ import org.apache.commons.lang.StringUtils;
 import org.apache.hop.core.encryption.ITwoWayPasswordEncoder;
 import org.apache.hop.core.exception.HopException;
 import org.apache.hop.metadata.api.HopMetadataObject;
-import org.apache.hop.metadata.api.HopMetadataProperty;
 import org.apache.hop.metadata.api.IHopMetadata;
 import org.apache.hop.metadata.api.IHopMetadataObjectFactory;
 import org.apache.hop.metadata.api.IHopMetadataProvider;
 import org.apache.hop.metadata.api.IHopMetadataSerializer;
+import org.apache.hop.metadata.util.MetadataPlan;
+import org.apache.hop.metadata.util.MetadataPropertyAccessor;
 import org.apache.hop.metadata.util.ReflectionUtil;
 import org.json.simple.JSONArray;
 import org.json.simple.JSONObject;
 
-import java.lang.reflect.Field;
-import java.lang.reflect.ParameterizedType;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Date;
@@ -55,7 +54,7 @@ public class JsonMetadataParser<T extends IHopMetadata> {
     try {
       // Now we can load the annotated fields, the properties:
       //
-      T object = managedClass.getDeclaredConstructor().newInstance();
+      T object = managedClass.cast(MetadataPlan.of(managedClass).newInstance());
       loadProperties(object, jsonParser);
       return object;
     } catch (Exception e) {
@@ -66,26 +65,13 @@ public class JsonMetadataParser<T extends IHopMetadata> {
   private void loadProperties(Object object, com.fasterxml.jackson.core.JsonParser jsonParser)
       throws HopException {
     Class<?> objectClass = object.getClass();
-    Map<String, Field> keyFieldMap = new HashMap<>();
-    for (Field field : ReflectionUtil.findAllFields(objectClass)) {
-      HopMetadataProperty metadataProperty = field.getAnnotation(HopMetadataProperty.class);
-      if (metadataProperty != null) {
-        String key;
-        if (StringUtils.isNotEmpty(metadataProperty.key())) {
-          key = metadataProperty.key();
-        } else {
-          key = field.getName();
-        }
-        keyFieldMap.put(key, field);
-
-        // We need to go over the boolean fields and consider the defaultBoolean flag.
-        // If we don't do this we'll always get the value specified in the constructor.
-        //
-        Class<?> fieldType = field.getType();
-        if (Boolean.class.equals(fieldType) || boolean.class.equals(fieldType)) {
-          ReflectionUtil.setFieldValue(
-              object, field.getName(), fieldType, metadataProperty.defaultBoolean());
-        }
+    MetadataPlan plan = MetadataPlan.of(objectClass);
+    for (MetadataPropertyAccessor property : plan.getProperties()) {
+      // We need to go over the boolean fields and consider the defaultBoolean flag.
+      // If we don't do this we'll always get the value specified in the constructor.
+      //
+      if (property.isBoolean()) {
+        property.setValue(object, property.isDefaultBoolean());
       }
     }
 
@@ -94,11 +80,11 @@ public class JsonMetadataParser<T extends IHopMetadata> {
     try {
       while (jsonParser.nextToken() != JsonToken.END_OBJECT) {
         String key = jsonParser.getCurrentName();
-        Field field = keyFieldMap.get(key);
-        if (field != null) {
+        MetadataPropertyAccessor property = plan.findProperty(key);
+        if (property != null) {
           // This is a recognized piece of data. We can load this...
           //
-          loadProperty(object, jsonParser, key, field);
+          loadProperty(object, jsonParser, key, property);
         }
       }
     } catch (Exception e) {
@@ -107,11 +93,13 @@ public class JsonMetadataParser<T extends IHopMetadata> {
   }
 
   private void loadProperty(
-      Object object, com.fasterxml.jackson.core.JsonParser jsonParser, String key, Field field)
+      Object object,
+      com.fasterxml.jackson.core.JsonParser jsonParser,
+      String key,
+      MetadataPropertyAccessor property)
       throws HopException {
     Class<?> objectClass = object.getClass();
-    Class<?> fieldType = field.getType();
-    HopMetadataProperty metadataProperty = field.getAnnotation(HopMetadataProperty.class);
+    Class<?> fieldType = property.getFieldType();
 
     try {
       // Position on the value in the JSON
@@ -125,14 +113,14 @@ public class JsonMetadataParser<T extends IHopMetadata> {
         fieldValue = null;
       } else {
         if (fieldType.isEnum()) {
-          final Class<? extends Enum> enumerationClass = (Class<? extends Enum>) field.getType();
+          final Class<? extends Enum> enumerationClass = (Class<? extends Enum>) fieldType;
           String enumerationName = jsonParser.getText();
           if (StringUtils.isNotEmpty(enumerationName)) {
             fieldValue = Enum.valueOf(enumerationClass, enumerationName);
           }
         } else if (String.class.equals(fieldType)) {
           String string = jsonParser.getText();
-          if (metadataProperty.password()) {
+          if (property.isPassword()) {
             string = metadataProvider.getTwoWayPasswordEncoder().decode(string, true);
           }
           fieldValue = string;
@@ -155,8 +143,7 @@ public class JsonMetadataParser<T extends IHopMetadata> {
           }
           fieldValue = map;
         } else if (List.class.equals(fieldType)) {
-          ParameterizedType parameterizedType = (ParameterizedType) field.getGenericType();
-          Class<?> listClass = (Class<?>) parameterizedType.getActualTypeArguments()[0];
+          Class<?> listClass = property.getListItemClass();
           if (String.class.equals(listClass)) {
             List<String> list = new ArrayList<>();
             while (jsonParser.nextToken() != JsonToken.END_ARRAY) {
@@ -167,7 +154,7 @@ public class JsonMetadataParser<T extends IHopMetadata> {
             // List of POJO
             //
             IHopMetadataSerializer<?> serializer = null;
-            if (metadataProperty.storeWithName()) {
+            if (property.isStoreWithName()) {
               if (!IHopMetadata.class.isAssignableFrom(listClass)) {
                 throw new HopException(
                     "Error: metadata objects that need to be stored with a name reference need to implement IHopMetadata: "
@@ -178,7 +165,7 @@ public class JsonMetadataParser<T extends IHopMetadata> {
             }
             List list = new ArrayList<>();
             while (jsonParser.nextToken() != JsonToken.END_ARRAY) {
-              if (metadataProperty.storeWithName()) {
+              if (property.isStoreWithName()) {
                 // Load by name reference
                 //
                 String name = jsonParser.getText();
@@ -196,7 +183,7 @@ public class JsonMetadataParser<T extends IHopMetadata> {
         } else {
           // POJO
           //
-          if (metadataProperty.storeWithName()) {
+          if (property.isStoreWithName()) {
             // Load using name reference
             //
             if (!IHopMetadata.class.isAssignableFrom(fieldType)) {
@@ -216,14 +203,14 @@ public class JsonMetadataParser<T extends IHopMetadata> {
 
       // Set the value on the object...
       //
-      ReflectionUtil.setFieldValue(object, field.getName(), fieldType, fieldValue);
+      property.setValue(object, fieldValue);
 
     } catch (Exception e) {
       throw new HopException(
           "Error loading field with key '"
               + key
               + "' for field '"
-              + field.getName()
+              + property.getField().getName()
               + " in class "
               + objectClass.getName(),
           e);
@@ -234,9 +221,10 @@ public class JsonMetadataParser<T extends IHopMetadata> {
       Class<?> fieldType, com.fasterxml.jackson.core.JsonParser jsonParser) throws HopException {
     try {
       Object fieldValue;
-      HopMetadataObject hopMetadataObject = fieldType.getAnnotation(HopMetadataObject.class);
+      MetadataPlan plan = MetadataPlan.of(fieldType);
+      HopMetadataObject hopMetadataObject = plan.getMetadataObject();
       if (hopMetadataObject == null) {
-        fieldValue = fieldType.getDeclaredConstructor().newInstance();
+        fieldValue = plan.newInstance();
         loadProperties(fieldValue, jsonParser);
       } else {
         jsonParser.nextToken(); // skip {
@@ -271,28 +259,21 @@ public class JsonMetadataParser<T extends IHopMetadata> {
     if (object == null) {
       return;
     }
-    for (Field objectField : ReflectionUtil.findAllFields(object.getClass())) {
-      HopMetadataProperty metadataProperty = objectField.getAnnotation(HopMetadataProperty.class);
-      if (metadataProperty != null) {
-        // The contents of this field needs to be serialized...
-        //
-        saveProperty(jObject, object, metadataProperty, objectField);
-      }
+    for (MetadataPropertyAccessor property : MetadataPlan.of(object.getClass()).getProperties()) {
+      // The contents of this field needs to be serialized...
+      //
+      saveProperty(jObject, object, property);
     }
   }
 
-  private void saveProperty(
-      JSONObject jObject, Object object, HopMetadataProperty metadataProperty, Field objectField)
+  private void saveProperty(JSONObject jObject, Object object, MetadataPropertyAccessor property)
       throws HopException {
-    String key = objectField.getName();
-    if (StringUtils.isNotEmpty(metadataProperty.key())) {
-      key = metadataProperty.key();
-    }
-    Class<?> fieldType = objectField.getType();
-    boolean isBoolean = Boolean.class.equals(fieldType) || boolean.class.equals(fieldType);
+    String key = property.getKey();
+    Class<?> fieldType = property.getFieldType();
+    boolean isBoolean = property.isBoolean();
 
     try {
-      Object fieldValue = ReflectionUtil.getFieldValue(object, objectField.getName(), isBoolean);
+      Object fieldValue = property.getValue(object);
       if (fieldValue == null) {
         jObject.put(key, null);
       } else {
@@ -302,7 +283,7 @@ public class JsonMetadataParser<T extends IHopMetadata> {
           jObject.put(key, ((Enum) fieldValue).name());
         } else if (String.class.equals(fieldType)) {
           String fieldStringValue = (String) fieldValue;
-          if (metadataProperty.password()) {
+          if (property.isPassword()) {
             ITwoWayPasswordEncoder passwordEncoder = metadataProvider.getTwoWayPasswordEncoder();
             fieldStringValue = passwordEncoder.encode(fieldStringValue, true);
           }
@@ -321,14 +302,13 @@ public class JsonMetadataParser<T extends IHopMetadata> {
           jObject.put(key, new JSONObject((Map) fieldValue));
         } else if (List.class.equals(fieldType)) {
           JSONArray jListObjects = new JSONArray();
-          ParameterizedType parameterizedType = (ParameterizedType) objectField.getGenericType();
-          Class<?> listClass = (Class<?>) parameterizedType.getActualTypeArguments()[0];
+          Class<?> listClass = property.getListItemClass();
 
           List<?> fieldListObjects = (List<?>) fieldValue;
           for (Object fieldListObject : fieldListObjects) {
             if (String.class.equals(listClass)) {
               jListObjects.add(fieldListObject);
-            } else if (metadataProperty.storeWithName()) {
+            } else if (property.isStoreWithName()) {
               String name = ReflectionUtil.getObjectName(fieldListObject);
               jListObjects.add(name);
             } else {
@@ -338,7 +318,7 @@ public class JsonMetadataParser<T extends IHopMetadata> {
           }
           jObject.put(key, jListObjects);
         } else {
-          if (metadataProperty.storeWithName()) {
+          if (property.isStoreWithName()) {
             // Just save the name
             String name = ReflectionUtil.getObjectName(fieldValue);
             jObject.put(key, name);
@@ -351,7 +331,7 @@ public class JsonMetadataParser<T extends IHopMetadata> {
     } catch (Exception e) {
       throw new HopException(
           "Error serializing field '"
-              + objectField.getName()
+              + property.getField().getName()
               + "' with type '"
               + fieldType.toString()
               + "'",
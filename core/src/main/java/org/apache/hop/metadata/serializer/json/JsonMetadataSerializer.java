@@ -215,6 +215,56 @@ public class JsonMetadataSerializer<T extends IHopMetadata> implements IHopMetad
     return HopVfs.fileExists(calculateFilename(name));
   }
 
+  /**
+   * The modification time of the JSON file holding the object.
+   *
+   * @param name The name of the object
+   * @return The last modification time of the file or -1 if the file doesn't exist
+   */
+  @Override
+  public long getLastModified(String name) throws HopException {
+    if (name == null) {
+      return -1L;
+    }
+    return getLastModifiedTime(calculateFilename(name));
+  }
+
+  /**
+   * Adding, removing or renaming a file changes the modification time of a folder on the local
+   * file system. Other file systems don't necessarily keep track of this so we can't tell for
+   * those.
+   *
+   * @return The last modification time of the local base folder or -1
+   */
+  @Override
+  public long getNamesLastModified() throws HopException {
+    if (!"file".equals(HopVfs.getFileObject(baseFolder).getName().getScheme())) {
+      return -1L;
+    }
+    return getLastModifiedTime(baseFolder);
+  }
+
+  private long getLastModifiedTime(String filename) throws HopException {
+    FileObject fileObject = null;
+    try {
+      fileObject = HopVfs.getFileObject(filename);
+      if (!fileObject.exists()) {
+        return -1L;
+      }
+      return fileObject.getContent().getLastModifiedTime();
+    } catch (FileSystemException e) {
+      return -1L;
+    } finally {
+      if (fileObject != null) {
+        try {
+          fileObject.close();
+        } catch (Exception e) {
+          /* Ignore */
+        }
+      }
+    }
+  }
+
   /**
    * Gets managedClass
    *
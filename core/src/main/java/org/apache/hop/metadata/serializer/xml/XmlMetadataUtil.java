@@ -17,9 +17,6 @@
 
 package org.apache.hop.metadata.serializer.xml;
 
-import java.lang.reflect.Field;
-import java.lang.reflect.Modifier;
-import java.lang.reflect.ParameterizedType;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
@@ -33,7 +30,6 @@ import org.apache.hop.core.exception.HopXmlException;
 import org.apache.hop.core.util.EnvUtil;
 import org.apache.hop.core.xml.XmlHandler;
 import org.apache.hop.metadata.api.HopMetadataObject;
-import org.apache.hop.metadata.api.HopMetadataProperty;
 import org.apache.hop.metadata.api.HopMetadataWrapper;
 import org.apache.hop.metadata.api.IEnumHasCode;
 import org.apache.hop.metadata.api.IEnumHasCodeAndDescription;
@@ -41,7 +37,8 @@ import org.apache.hop.metadata.api.IHopMetadata;
 import org.apache.hop.metadata.api.IHopMetadataObjectFactory;
 import org.apache.hop.metadata.api.IHopMetadataProvider;
 import org.apache.hop.metadata.api.IIntCodeConverter;
-import org.apache.hop.metadata.util.ReflectionUtil;
+import org.apache.hop.metadata.util.MetadataPlan;
+import org.apache.hop.metadata.util.MetadataPropertyAccessor;
 import org.w3c.dom.Node;
 
 public class XmlMetadataUtil {
@@ -55,129 +52,88 @@ public class XmlMetadataUtil {
    * @throws HopException
    */
   public static String serializeObjectToXml(Object object) throws HopException {
-    Class<?> objectClass = object.getClass();
+    StringBuilder xml = new StringBuilder();
+    serializeObjectToXml(xml, object);
+    return xml.toString();
+  }
 
-    String xml = "";
+  private static void serializeObjectToXml(StringBuilder xml, Object object) throws HopException {
+    MetadataPlan plan = MetadataPlan.of(object.getClass());
 
-    HopMetadataWrapper wrapper = objectClass.getAnnotation(HopMetadataWrapper.class);
+    HopMetadataWrapper wrapper = plan.getWrapper();
     if (wrapper != null) {
-      xml += XmlHandler.openTag(wrapper.tag());
+      xml.append(XmlHandler.openTag(wrapper.tag()));
     }
 
     // Pick up all the fields with @HopMetadataProperty annotation, sorted by name.
+    // Fields flagged as transient or volatile are left out.
     // Serialize them to XML.
     //
-    List<Field> fields =
-        ReflectionUtil.findAllFields(objectClass, new MetadataPropertyKeyFunction());
-    for (Field field : fields) {
-      // Don't serialize fields flagged as transient or volatile
+    for (MetadataPropertyAccessor property : plan.getXmlProperties()) {
+      // Get the value of the field...
       //
-      if (Modifier.isTransient(field.getModifiers()) || Modifier.isVolatile(field.getModifiers())) {
-        continue;
-      }
-      HopMetadataProperty property = field.getAnnotation(HopMetadataProperty.class);
-      if (property != null) {
-        String groupKey = property.groupKey();
-        String tag = property.key();
-        if (StringUtils.isEmpty(tag)) {
-          tag = field.getName();
-        }
-
-        Class<?> fieldType = field.getType();
-
-        // Is this a boolean?
-        //
-        boolean isBoolean = Boolean.class.equals(fieldType) || boolean.class.equals(fieldType);
-
-        // A password?
-        //
-        boolean isPassword = property.password();
-
-        // Store enums with their code?
-        //
-        boolean storeWithCode = property.storeWithCode();
-
-        // Get the value of the field...
+      Object value = property.getValue(object);
+      if (value != null) {
+        // We only serialize non-null values to save space and performance.
         //
-        Object value = ReflectionUtil.getFieldValue(object, field.getName(), isBoolean);
-        if (value != null) {
-          // We only serialize non-null values to save space and performance.
-          //
-          if (property.storeWithName()) {
-            xml += XmlHandler.addTagValue(tag, ((IHopMetadata) value).getName());
-          } else {
-            xml +=
-                serializeObjectToXml(
-                    property,
-                    value,
-                    groupKey,
-                    tag,
-                    isPassword,
-                    storeWithCode,
-                    property.intCodeConverter());
-          }
+        if (property.isStoreWithName()) {
+          xml.append(XmlHandler.addTagValue(property.getKey(), ((IHopMetadata) value).getName()));
+        } else {
+          serializeObjectToXml(xml, property, value);
         }
       }
     }
 
     if (wrapper != null) {
-      xml += XmlHandler.closeTag(wrapper.tag());
+      xml.append(XmlHandler.closeTag(wrapper.tag()));
     }
-
-    return xml;
   }
 
-  private static String serializeObjectToXml(
-      HopMetadataProperty property,
-      Object value,
-      String groupKey,
-      String tag,
-      boolean password,
-      boolean storeWithCode,
-      Class<? extends IIntCodeConverter> intCodeConverterClass)
-      throws HopException {
+  private static void serializeObjectToXml(
+      StringBuilder xml, MetadataPropertyAccessor property, Object value) throws HopException {
 
-    String xml = "";
+    String tag = property.getKey();
+    String groupKey = property.getGroupKey();
 
     if (value == null) {
-      xml += XmlHandler.addTagValue(tag, (String) null);
+      xml.append(XmlHandler.addTagValue(tag, (String) null));
     } else {
       if (value instanceof String) {
         // Hang on, is this a password?
         //
-        if (password) {
-          xml +=
-              XmlHandler.addTagValue(tag, Encr.encryptPasswordIfNotUsingVariables((String) value));
+        if (property.isPassword()) {
+          xml.append(
+              XmlHandler.addTagValue(tag, Encr.encryptPasswordIfNotUsingVariables((String) value)));
         } else {
-          xml += XmlHandler.addTagValue(tag, (String) value);
+          xml.append(XmlHandler.addTagValue(tag, (String) value));
         }
       } else if (value instanceof Boolean) {
-        xml += XmlHandler.addTagValue(tag, (Boolean) value);
+        xml.append(XmlHandler.addTagValue(tag, (Boolean) value));
       } else if (value instanceof Integer) {
-        if (intCodeConverterClass.equals(IIntCodeConverter.None.class)) {
-          xml += XmlHandler.addTagValue(tag, (Integer) value);
+        if (!property.hasIntCodeConverter()) {
+          xml.append(XmlHandler.addTagValue(tag, (Integer) value));
         } else {
           try {
-            IIntCodeConverter converter = intCodeConverterClass.getConstructor().newInstance();
-            xml += XmlHandler.addTagValue(tag, converter.getCode((int) value));
+            IIntCodeConverter converter = property.getIntCodeConverter();
+            xml.append(XmlHandler.addTagValue(tag, converter.getCode((int) value)));
           } catch (Exception e) {
             throw new HopException(
                 "Error converting int to String code using converter class "
-                    + intCodeConverterClass,
+                    + property.getIntCodeConverterClass(),
                 e);
           }
         }
       } else if (value instanceof Long) {
-        xml += XmlHandler.addTagValue(tag, (Long) value);
+        xml.append(XmlHandler.addTagValue(tag, (Long) value));
       } else if (value instanceof Date) {
-        xml += XmlHandler.addTagValue(tag, (Date) value);
+        xml.append(XmlHandler.addTagValue(tag, (Date) value));
       } else if (value instanceof Locale) {
-        xml += XmlHandler.addTagValue(tag, ((Locale) value).toString());
+        xml.append(XmlHandler.addTagValue(tag, ((Locale) value).toString()));
       } else if (value.getClass().isEnum()) {
-        if (storeWithCode) {
-          xml += XmlHandler.addTagValue(tag, ((IEnumHasCode) value).getCode());
+        if (property.isStoreWithCode()) {
+          xml.append(XmlHandler.addTagValue(tag, ((IEnumHasCode) value).getCode()));
         } else {
-          xml += XmlHandler.addTagValue(tag, ((Enum) value).name());
+          xml.append(XmlHandler.addTagValue(tag, ((Enum) value).name()));
         }
       } else if (value instanceof java.util.List) {
 
@@ -186,26 +142,18 @@ public class XmlMetadataUtil {
         // Store the items in that block
         //
         if (StringUtils.isNotEmpty(groupKey)) {
-          xml += XmlHandler.openTag(groupKey) + Const.CR;
+          xml.append(XmlHandler.openTag(groupKey)).append(Const.CR);
         }
 
         // Add the elements...
         //
         List listItems = (List) value;
         for (Object listItem : listItems) {
-          xml +=
-              serializeObjectToXml(
-                  property,
-                  listItem,
-                  groupKey,
-                  tag,
-                  password,
-                  storeWithCode,
-                  property.intCodeConverter());
+          serializeObjectToXml(xml, property, listItem);
         }
 
         if (StringUtils.isNotEmpty(groupKey)) {
-          xml += XmlHandler.closeTag(groupKey) + Const.CR;
+          xml.append(XmlHandler.closeTag(groupKey)).append(Const.CR);
         }
 
       } else {
@@ -214,16 +162,15 @@ public class XmlMetadataUtil {
         // We only take the fields of the POJO class that are annotated
         // We wrap the POJO properties in the provided tag
         //
-        if (!property.inline()) {
-          xml += XmlHandler.openTag(tag) + Const.CR;
+        if (!property.isInline()) {
+          xml.append(XmlHandler.openTag(tag)).append(Const.CR);
         }
-        xml += serializeObjectToXml(value);
-        if (!property.inline()) {
-          xml += XmlHandler.closeTag(tag) + Const.CR;
+        serializeObjectToXml(xml, value);
+        if (!property.isInline()) {
+          xml.append(XmlHandler.closeTag(tag)).append(Const.CR);
         }
       }
     }
-    return xml;
   }
 
   /**
@@ -305,7 +252,7 @@ public class XmlMetadataUtil {
 
         // See if this is an interface where we need to use a factory.
         //
-        HopMetadataObject metadataObject = clazz.getAnnotation(HopMetadataObject.class);
+        HopMetadataObject metadataObject = MetadataPlan.of(clazz).getMetadataObject();
         if (metadataObject != null) {
           String xmlKey = metadataObject.xmlKey();
           if (StringUtils.isEmpty(xmlKey)) {
@@ -326,7 +273,7 @@ public class XmlMetadataUtil {
               metadataObject.objectFactory().getConstructor().newInstance();
           object = (T) factory.createObject(objectId, parentObject);
         } else {
-          object = clazz.getDeclaredConstructor().newInstance();
+          object = (T) MetadataPlan.of(clazz).newInstance();
         }
       } catch (Exception e) {
         throw new HopXmlException(
@@ -337,103 +284,77 @@ public class XmlMetadataUtil {
       }
     }
 
-    HopMetadataWrapper wrapper = clazz.getAnnotation(HopMetadataWrapper.class);
+    HopMetadataWrapper wrapper = MetadataPlan.of(clazz).getWrapper();
     if (wrapper != null) {
       node = XmlHandler.getSubNode(node, wrapper.tag());
     }
 
     // Pick up all the @HopMetadataProperty annotations.
     // The fields are sorted by name to get a stable XML output when serialized.
+    // Fields flagged as transient or volatile are left out.
     //
-    List<Field> fields =
-        ReflectionUtil.findAllFields(object.getClass(), new MetadataPropertyKeyFunction());
-    for (Field field : fields) {
-      // Don't serialize fields flagged as transient or volatile
-      //
-      if (Modifier.isTransient(field.getModifiers()) || Modifier.isVolatile(field.getModifiers())) {
-        continue;
+    MetadataPlan plan = MetadataPlan.of(object.getClass());
+    for (MetadataPropertyAccessor property : plan.getXmlProperties()) {
+      String tag = property.getKey();
+      String groupKey = property.getGroupKey();
+      Class<?> fieldType = property.getFieldType();
+
+      Node tagNode;
+      if (property.isInline()) {
+        tagNode = node;
+      } else {
+        tagNode = XmlHandler.getSubNode(node, tag);
       }
+      Node groupNode;
+      if (StringUtils.isEmpty(groupKey)) {
+        groupNode = node;
+      } else {
+        groupNode = XmlHandler.getSubNode(node, groupKey);
+      }
+      Object value =
+          deSerializeFromXml(
+              object, fieldType, groupNode, tagNode, tag, property, false, metadataProvider);
 
-      HopMetadataProperty property = field.getAnnotation(HopMetadataProperty.class);
-      if (property != null) {
-        String tag = property.key();
-        String groupKey = property.groupKey();
-        if (StringUtils.isEmpty(tag)) {
-          tag = field.getName();
-        }
-        Class<?> fieldType = field.getType();
-        boolean defaultBoolean = property.defaultBoolean();
-        boolean storeWithName = property.storeWithName();
-        boolean password = property.password();
-        boolean storeWithCode = property.storeWithCode();
-        String[] inlineListTags = property.inlineListTags();
-
-        Node tagNode;
-        if (property.inline()) {
-          tagNode = node;
-        } else {
-          tagNode = XmlHandler.getSubNode(node, tag);
-        }
-        Node groupNode;
-        if (StringUtils.isEmpty(groupKey)) {
-          groupNode = node;
-        } else {
-          groupNode = XmlHandler.getSubNode(node, groupKey);
-        }
-        Object value =
-            deSerializeFromXml(
-                object,
-                fieldType,
-                groupNode,
-                tagNode,
-                tag,
-                field,
-                defaultBoolean,
-                storeWithName,
-                metadataProvider,
-                password,
-                storeWithCode,
-                property.intCodeConverter(),
-                inlineListTags);
-
-        try {
-          // Only set a value if we have something to set.
-          // Empty strings and such will still go through but not null values for int/long/...
-          //
-          if (value != null) {
-            ReflectionUtil.setFieldValue(object, field.getName(), fieldType, value);
-          }
-        } catch (HopException e) {
-          throw new HopXmlException(
-              "Unable to set value "
-                  + value
-                  + " on field "
-                  + field.getName()
-                  + " in class "
-                  + fieldType.getName(),
-              e);
+      try {
+        // Only set a value if we have something to set.
+        // Empty strings and such will still go through but not null values for int/long/...
+        //
+        if (value != null) {
+          property.setValue(object, value);
         }
+      } catch (HopException e) {
+        throw new HopXmlException(
+            "Unable to set value "
+                + value
+                + " on field "
+                + property.getField().getName()
+                + " in class "
+                + fieldType.getName(),
+            e);
       }
     }
     return object;
   }
 
+  /**
+   * @param property The property to de-serialize the value of
+   * @param listItem true if this is an item in the list of values of the property
+   */
   private static Object deSerializeFromXml(
       Object parentObject,
       Class<?> fieldType,
       Node groupNode,
       Node elementNode,
       String tag,
-      Field field,
-      boolean defaultBoolean,
-      boolean storeWithName,
-      IHopMetadataProvider metadataProvider,
-      boolean password,
-      boolean storeWithCode,
-      Class<? extends IIntCodeConverter> intCodeConverterClass,
-      String[] inlineListTags)
+      MetadataPropertyAccessor property,
+      boolean listItem,
+      IHopMetadataProvider metadataProvider)
       throws HopXmlException {
     String elementString = XmlHandler.getNodeValue(elementNode);
+    boolean storeWithName = !listItem && property.isStoreWithName();
+    boolean defaultBoolean = !listItem && property.isDefaultBoolean();
+    boolean password = property.isPassword();
+    boolean storeWithCode = property.isStoreWithCode();
 
     if (storeWithName) {
       // No name: return null
@@ -467,18 +388,18 @@ public class XmlMetadataUtil {
       }
     } else if (fieldType.equals(Integer.class) || fieldType.equals(int.class)) {
       if (elementNode != null) {
-        if (intCodeConverterClass.equals(IIntCodeConverter.None.class)) {
+        if (!property.hasIntCodeConverter()) {
           return Integer.valueOf(elementString);
         } else {
           try {
-            IIntCodeConverter converter = intCodeConverterClass.getConstructor().newInstance();
+            IIntCodeConverter converter = property.getIntCodeConverter();
             return converter.getType(elementString);
           } catch (Exception e) {
             throw new HopXmlException(
                 "Error converting String code "
                     + elementString
                     + " to integer using converter class "
-                    + intCodeConverterClass,
+                    + property.getIntCodeConverterClass(),
                 e);
           }
         }
@@ -504,7 +425,7 @@ public class XmlMetadataUtil {
         return defaultBoolean;
       }
     } else if (fieldType.isEnum()) {
-      final Class<? extends Enum> enumerationClass = (Class<? extends Enum>) field.getType();
+      final Class<? extends Enum> enumerationClass = (Class<? extends Enum>) fieldType;
       if (StringUtils.isNotEmpty(elementString)) {
         if (storeWithCode) {
           try {
@@ -533,8 +454,7 @@ public class XmlMetadataUtil {
           try {
             return Enum.valueOf(enumerationClass, elementString);
           } catch (IllegalArgumentException e) {
-            String nameNotFound =
-                field.getAnnotation(HopMetadataProperty.class).enumNameWhenNotFound();
+            String nameNotFound = property.getProperty().enumNameWhenNotFound();
             if (StringUtils.isEmpty(nameNotFound)) {
               throw e;
             } else {
@@ -549,6 +469,7 @@ public class XmlMetadataUtil {
       //
       List<Object> list = new ArrayList<>();
       List<Node> itemNodes = XmlHandler.getNodes(groupNode, tag);
+      String[] inlineListTags = property.getInlineListTags();
       if (inlineListTags.length > 0) {
         // Old XML serialization format where everything is just dumped into the same tag.
         // See also HopMetadataProperty.inlineListTags
@@ -573,24 +494,11 @@ public class XmlMetadataUtil {
         // We assume that the constructor of the parent class created the List object
         // so that we can simply add items to the list here.
         //
-        ParameterizedType parameterizedType = (ParameterizedType) field.getGenericType();
-        Class<?> listClass = (Class<?>) parameterizedType.getActualTypeArguments()[0];
+        Class<?> listClass = property.getListItemClass();
         try {
           Object newItem =
               deSerializeFromXml(
-                  parentObject,
-                  listClass,
-                  null,
-                  itemNode,
-                  null,
-                  null,
-                  false,
-                  false,
-                  metadataProvider,
-                  password,
-                  storeWithCode,
-                  intCodeConverterClass,
-                  inlineListTags);
+                  parentObject, listClass, null, itemNode, null, property, true, metadataProvider);
 
           // Add it to the list
           //
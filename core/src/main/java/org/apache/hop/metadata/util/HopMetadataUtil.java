@@ -24,6 +24,7 @@ import org.apache.hop.core.variables.IVariables;
 import org.apache.hop.metadata.api.HopMetadata;
 import org.apache.hop.metadata.api.IHopMetadata;
 import org.apache.hop.metadata.api.IHopMetadataProvider;
+import org.apache.hop.metadata.serializer.cache.CachingMetadataProvider;
 import org.apache.hop.metadata.serializer.json.JsonMetadataProvider;
 import org.apache.hop.metadata.serializer.multi.MultiMetadataProvider;
 
@@ -54,10 +55,14 @@ public class HopMetadataUtil {
 
     // Create a multi to wrap the various folders
     //
+    boolean cache = Const.toBoolean(variables.getVariable(Const.HOP_METADATA_CACHE));
     List<IHopMetadataProvider> providers = new ArrayList<>();
     for (String folder : folders) {
       IHopMetadataProvider provider =
           new JsonMetadataProvider(Encr.getEncoder(), folder, variables);
+      if (cache) {
+        provider = new CachingMetadataProvider(provider);
+      }
       providers.add(provider);
     }
     return new MultiMetadataProvider(Encr.getEncoder(), providers, variables);
@@ -0,0 +1,174 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.metadata.util;
+
+import org.apache.hop.metadata.api.HopMetadataObject;
+import org.apache.hop.metadata.api.HopMetadataProperty;
+import org.apache.hop.metadata.api.HopMetadataWrapper;
+import org.apache.hop.metadata.serializer.xml.MetadataPropertyKeyFunction;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Everything the metadata serializers need to know about a class: the fields with a {@link
+ * HopMetadataProperty} annotation in the class and its parent classes, their getters and setters
+ * and the class level annotations. The plan of a class is computed the first time it's asked for
+ * and then kept for as long as the class is loaded.
+ */
+public class MetadataPlan {
+
+  private static final ClassValue<MetadataPlan> PLANS =
+      new ClassValue<MetadataPlan>() {
+        @Override
+        protected MetadataPlan computeValue(Class<?> type) {
+          return new MetadataPlan(type);
+        }
+      };
+
+  private final Class<?> objectClass;
+  private final List<MetadataPropertyAccessor> properties;
+  private final List<MetadataPropertyAccessor> xmlProperties;
+  private final Map<String, MetadataPropertyAccessor> propertiesByKey;
+  private final HopMetadataWrapper wrapper;
+  private final HopMetadataObject metadataObject;
+  private volatile Constructor<?> constructor;
+
+  private MetadataPlan(Class<?> objectClass) {
+    this.objectClass = objectClass;
+    this.wrapper = objectClass.getAnnotation(HopMetadataWrapper.class);
+    this.metadataObject = objectClass.getAnnotation(HopMetadataObject.class);
+
+    // The properties are sorted by field name, like ReflectionUtil.findAllFields() does
+    //
+    List<MetadataPropertyAccessor> list = new ArrayList<>();
+    for (Field field : ReflectionUtil.findAllFields(objectClass)) {
+      HopMetadataProperty property = field.getAnnotation(HopMetadataProperty.class);
+      if (property != null) {
+        list.add(new MetadataPropertyAccessor(objectClass, field, property));
+      }
+    }
+    this.properties = Collections.unmodifiableList(list);
+
+    // If two fields have the same key the last one wins, as before
+    //
+    Map<String, MetadataPropertyAccessor> map = new HashMap<>();
+    for (MetadataPropertyAccessor accessor : list) {
+      map.put(accessor.getKey(), accessor);
+    }
+    this.propertiesByKey = Collections.unmodifiableMap(map);
+
+    // The XML serialization sorts on group key or key to get a stable output.
+    //
+    MetadataPropertyKeyFunction keyFunction = new MetadataPropertyKeyFunction();
+    List<MetadataPropertyAccessor> xmlList = new ArrayList<>();
+    for (MetadataPropertyAccessor accessor : list) {
+      if (accessor.isSerialized()) {
+        xmlList.add(accessor);
+      }
+    }
+    xmlList.sort(Comparator.comparing(accessor -> keyFunction.apply(accessor.getField())));
+    this.xmlProperties = Collections.unmodifiableList(xmlList);
+  }
+
+  /**
+   * Get the plan of a class.
+   *
+   * @param objectClass The class to serialize or de-serialize
+   * @return The plan of the class
+   */
+  public static MetadataPlan of(Class<?> objectClass) {
+    return PLANS.get(objectClass);
+  }
+
+  /**
+   * Create a new instance of the class with its public empty constructor.
+   *
+   * @return The new instance
+   * @throws ReflectiveOperationException In case there is no such constructor or if it failed
+   */
+  public Object newInstance() throws ReflectiveOperationException {
+    Constructor<?> c = constructor;
+    if (c == null) {
+      c = objectClass.getDeclaredConstructor();
+      constructor = c;
+    }
+    return c.newInstance();
+  }
+
+  /**
+   * Gets objectClass
+   *
+   * @return value of objectClass
+   */
+  public Class<?> getObjectClass() {
+    return objectClass;
+  }
+
+  /**
+   * Gets properties
+   *
+   * @return All the metadata properties sorted by field name
+   */
+  public List<MetadataPropertyAccessor> getProperties() {
+    return properties;
+  }
+
+  /**
+   * Gets xmlProperties
+   *
+   * @return The metadata properties which are serialized to XML, sorted by group key or key
+   */
+  public List<MetadataPropertyAccessor> getXmlProperties() {
+    return xmlProperties;
+  }
+
+  /**
+   * Find a metadata property using its key.
+   *
+   * @param key The key of the property
+   * @return The property or null if there is no property with the given key
+   */
+  public MetadataPropertyAccessor findProperty(String key) {
+    return propertiesByKey.get(key);
+  }
+
+  /**
+   * Gets wrapper
+   *
+   * @return The HopMetadataWrapper annotation of the class or null
+   */
+  public HopMetadataWrapper getWrapper() {
+    return wrapper;
+  }
+
+  /**
+   * Gets metadataObject
+   *
+   * @return The HopMetadataObject annotation of the class or null
+   */
+  public HopMetadataObject getMetadataObject() {
+    return metadataObject;
+  }
+}
@@ -0,0 +1,427 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.metadata.util;
+
+import org.apache.hop.core.Const;
+import org.apache.hop.core.exception.HopException;
+import org.apache.hop.metadata.api.HopMetadataProperty;
+import org.apache.hop.metadata.api.IIntCodeConverter;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * The getter and setter of a field with a {@link HopMetadataProperty} annotation, together with the
+ * settings of the annotation. The getter and setter are looked up once and called through lambdas
+ * generated with {@link LambdaMetafactory}, which is about as fast as calling them directly.
+ *
+ * <p>Use {@link MetadataPlan#of(Class)} to get the accessors of a class.
+ */
+public class MetadataPropertyAccessor {
+
+  private final Field field;
+  private final HopMetadataProperty property;
+  private final Class<?> fieldType;
+  private final boolean isBoolean;
+  private final boolean serialized;
+
+  private final String key;
+  private final String groupKey;
+  private final boolean password;
+  private final boolean storeWithName;
+  private final boolean storeWithCode;
+  private final boolean defaultBoolean;
+  private final boolean inline;
+  private final String[] inlineListTags;
+  private final Class<? extends IIntCodeConverter> intCodeConverterClass;
+  private volatile IIntCodeConverter intCodeConverter;
+
+  /** The class of the items if this is a parameterized List, null otherwise */
+  private final Class<?> listItemClass;
+
+  private final String getterMethodName;
+  private final String setterMethodName;
+  private final Function<Object, Object> getter;
+  private final BiConsumer<Object, Object> setter;
+
+  MetadataPropertyAccessor(Class<?> objectClass, Field field, HopMetadataProperty property) {
+    this.field = field;
+    this.property = property;
+    this.fieldType = field.getType();
+    this.isBoolean = Boolean.class.equals(fieldType) || boolean.class.equals(fieldType);
+
+    // Fields flagged as transient or volatile are not serialized to XML
+    //
+    int modifiers = field.getModifiers();
+    this.serialized = !Modifier.isTransient(modifiers) && !Modifier.isVolatile(modifiers);
+
+    this.key = Const.NVL(property.key(), field.getName());
+    this.groupKey = property.groupKey();
+    this.password = property.password();
+    this.storeWithName = property.storeWithName();
+    this.storeWithCode = property.storeWithCode();
+    this.defaultBoolean = property.defaultBoolean();
+    this.inline = property.inline();
+    this.inlineListTags = property.inlineListTags();
+    this.intCodeConverterClass = property.intCodeConverter();
+
+    Class<?> itemClass = null;
+    Type genericType = field.getGenericType();
+    if (genericType instanceof ParameterizedType) {
+      Type[] arguments = ((ParameterizedType) genericType).getActualTypeArguments();
+      if (arguments.length > 0 && arguments[0] instanceof Class) {
+        itemClass = (Class<?>) arguments[0];
+      }
+    }
+    this.listItemClass = itemClass;
+
+    this.getterMethodName = ReflectionUtil.getGetterMethodName(field.getName(), isBoolean);
+    this.setterMethodName = ReflectionUtil.getSetterMethodName(field.getName());
+    this.getter = createGetter(objectClass, getterMethodName);
+    this.setter = createSetter(objectClass, setterMethodName, fieldType);
+  }
+
+  /**
+   * Get the value of the property with its getter.
+   *
+   * @param object The object to get the value from
+   * @return The value
+   * @throws HopException In case the class has no getter for the property or if the getter failed
+   */
+  public Object getValue(Object object) throws HopException {
+    try {
+      if (getter == null) {
+        throw new NoSuchMethodException(object.getClass().getName() + "." + getterMethodName);
+      }
+      return getter.apply(object);
+    } catch (Exception e) {
+      throw new HopException(
+          "Error getting value for field '"
+              + field.getName()
+              + "' using method '"
+              + getterMethodName
+              + "' in class '"
+              + object.getClass().getName(),
+          e);
+    }
+  }
+
+  /**
+   * Set the value of the property with its setter.
+   *
+   * @param object The object to set the value on
+   * @param value The value to set
+   * @throws HopException In case the class has no setter for the property or if the setter failed
+   */
+  public void setValue(Object object, Object value) throws HopException {
+    try {
+      if (setter == null) {
+        throw new NoSuchMethodException(
+            object.getClass().getName() + "." + setterMethodName + "(" + fieldType.getName() + ")");
+      }
+      setter.accept(object, value);
+    } catch (Exception e) {
+      throw new HopException(
+          "Error setting value on field '"
+              + field.getName()
+              + "' using method '"
+              + setterMethodName
+              + "' in class '"
+              + object.getClass().getName(),
+          e);
+    }
+  }
+
+  private static Function<Object, Object> createGetter(Class<?> objectClass, String methodName) {
+    Method method;
+    try {
+      method = objectClass.getMethod(methodName);
+    } catch (NoSuchMethodException e) {
+      return null;
+    }
+    try {
+      MethodHandles.Lookup lookup = lookupFor(method);
+      MethodHandle handle = lookup.unreflect(method);
+      CallSite site =
+          LambdaMetafactory.metafactory(
+              lookup,
+              "apply",
+              MethodType.methodType(Function.class),
+              MethodType.methodType(Object.class, Object.class),
+              handle,
+              handle.type().wrap());
+      return (Function<Object, Object>) site.getTarget().invokeExact();
+    } catch (Throwable e) {
+      // The lambda couldn't be generated, for example because the class comes from another module
+      // or class loader. A method handle is the next best thing.
+      //
+    }
+    try {
+      MethodHandle handle =
+          MethodHandles.publicLookup()
+              .unreflect(method)
+              .asType(MethodType.methodType(Object.class, Object.class));
+      return object -> invokeGetter(handle, object);
+    } catch (IllegalAccessException e) {
+      return object -> invoke(method, object);
+    }
+  }
+
+  private static BiConsumer<Object, Object> createSetter(
+      Class<?> objectClass, String methodName, Class<?> fieldType) {
+    Method method;
+    try {
+      method = objectClass.getMethod(methodName, fieldType);
+    } catch (NoSuchMethodException e) {
+      return null;
+    }
+    try {
+      MethodHandles.Lookup lookup = lookupFor(method);
+      MethodHandle handle = lookup.unreflect(method);
+      CallSite site =
+          LambdaMetafactory.metafactory(
+              lookup,
+              "accept",
+              MethodType.methodType(BiConsumer.class),
+              MethodType.methodType(void.class, Object.class, Object.class),
+              handle,
+              handle.type().wrap().changeReturnType(void.class));
+      return (BiConsumer<Object, Object>) site.getTarget().invokeExact();
+    } catch (Throwable e) {
+      // See createGetter()
+      //
+    }
+    try {
+      MethodHandle handle =
+          MethodHandles.publicLookup()
+              .unreflect(method)
+              .asType(MethodType.methodType(void.class, Object.class, Object.class));
+      return (object, value) -> invokeSetter(handle, object, value);
+    } catch (IllegalAccessException e) {
+      return (object, value) -> invoke(method, object, value);
+    }
+  }
+
+  /**
+   * The generated lambda class is defined next to the class declaring the method so it sees the
+   * same classes, also when that class comes from a plugin class loader.
+   */
+  private static MethodHandles.Lookup lookupFor(Method method) throws IllegalAccessException {
+    return MethodHandles.privateLookupIn(method.getDeclaringClass(), MethodHandles.lookup());
+  }
+
+  private static Object invokeGetter(MethodHandle handle, Object object) {
+    try {
+      return (Object) handle.invokeExact(object);
+    } catch (RuntimeException | Error e) {
+      throw e;
+    } catch (Throwable e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static void invokeSetter(MethodHandle handle, Object object, Object value) {
+    try {
+      handle.invokeExact(object, value);
+    } catch (RuntimeException | Error e) {
+      throw e;
+    } catch (Throwable e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static Object invoke(Method method, Object object, Object... arguments) {
+    try {
+      return method.invoke(object, arguments);
+    } catch (ReflectiveOperationException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * Get an instance of the integer code converter of the property.
+   *
+   * @return The converter
+   * @throws HopException In case the converter can't be instantiated
+   */
+  public IIntCodeConverter getIntCodeConverter() throws HopException {
+    IIntCodeConverter converter = intCodeConverter;
+    if (converter == null) {
+      try {
+        converter = intCodeConverterClass.getConstructor().newInstance();
+      } catch (Exception e) {
+        throw new HopException(
+            "Error instantiating integer code converter class " + intCodeConverterClass, e);
+      }
+      intCodeConverter = converter;
+    }
+    return converter;
+  }
+
+  /**
+   * @return true if the property has an integer code converter
+   */
+  public boolean hasIntCodeConverter() {
+    return !IIntCodeConverter.None.class.equals(intCodeConverterClass);
+  }
+
+  /**
+   * Gets field
+   *
+   * @return value of field
+   */
+  public Field getField() {
+    return field;
+  }
+
+  /**
+   * Gets property
+   *
+   * @return value of property
+   */
+  public HopMetadataProperty getProperty() {
+    return property;
+  }
+
+  /**
+   * Gets fieldType
+   *
+   * @return value of fieldType
+   */
+  public Class<?> getFieldType() {
+    return fieldType;
+  }
+
+  /**
+   * Gets isBoolean
+   *
+   * @return true if the field is a boolean or Boolean
+   */
+  public boolean isBoolean() {
+    return isBoolean;
+  }
+
+  /**
+   * Gets serialized
+   *
+   * @return false if the field is transient or volatile
+   */
+  public boolean isSerialized() {
+    return serialized;
+  }
+
+  /**
+   * Gets key
+   *
+   * @return The key of the property or the name of the field if no key was specified
+   */
+  public String getKey() {
+    return key;
+  }
+
+  /**
+   * Gets groupKey
+   *
+   * @return value of groupKey
+   */
+  public String getGroupKey() {
+    return groupKey;
+  }
+
+  /**
+   * Gets password
+   *
+   * @return value of password
+   */
+  public boolean isPassword() {
+    return password;
+  }
+
+  /**
+   * Gets storeWithName
+   *
+   * @return value of storeWithName
+   */
+  public boolean isStoreWithName() {
+    return storeWithName;
+  }
+
+  /**
+   * Gets storeWithCode
+   *
+   * @return value of storeWithCode
+   */
+  public boolean isStoreWithCode() {
+    return storeWithCode;
+  }
+
+  /**
+   * Gets defaultBoolean
+   *
+   * @return value of defaultBoolean
+   */
+  public boolean isDefaultBoolean() {
+    return defaultBoolean;
+  }
+
+  /**
+   * Gets inline
+   *
+   * @return value of inline
+   */
+  public boolean isInline() {
+    return inline;
+  }
+
+  /**
+   * Gets inlineListTags
+   *
+   * @return value of inlineListTags
+   */
+  public String[] getInlineListTags() {
+    return inlineListTags;
+  }
+
+  /**
+   * Gets intCodeConverterClass
+   *
+   * @return value of intCodeConverterClass
+   */
+  public Class<? extends IIntCodeConverter> getIntCodeConverterClass() {
+    return intCodeConverterClass;
+  }
+
+  /**
+   * Gets listItemClass
+   *
+   * @return The class of the list items if the field is a parameterized List, null otherwise
+   */
+  public Class<?> getListItemClass() {
+    return listItemClass;
+  }
+}
@@ -22,6 +22,7 @@ import org.apache.hop.core.row.RowMeta;
 import org.apache.hop.core.row.ValueMetaAndData;
 import org.apache.hop.core.row.value.ValueMetaInteger;
 import org.apache.hop.core.row.value.ValueMetaNumber;
+import org.apache.hop.core.row.value.ValueMetaString;
 import org.apache.hop.core.xml.XmlHandler;
 import org.apache.hop.junit.rules.RestoreHopEnvironment;
 import org.junit.Assert;
@@ -116,4 +117,149 @@ public class ConditionTest {
     Assert.assertNull(condition.getRightValue());
     Assert.assertEquals(Function.LARGER_EQUAL, condition.getFunction());
   }
+
+  @Test
+  public void testConstantComparisons() throws Exception {
+    IRowMeta rowMeta = new RowMeta();
+    rowMeta.addValueMeta(new ValueMetaInteger("id"));
+    rowMeta.addValueMeta(new ValueMetaString("name"));
+
+    // The constant is a string, converted once to the integer type of the field
+    //
+    ValueMetaAndData ten = new ValueMetaAndData(new ValueMetaString("constant"), "10");
+    Condition condition = new Condition("id", Function.LARGER_EQUAL, null, ten);
+    CompiledCondition compiled = condition.compile(rowMeta);
+    assertTrue(compiled.evaluate(new Object[] {10L, "a"}));
+    assertTrue(compiled.evaluate(new Object[] {11L, "a"}));
+    assertFalse(compiled.evaluate(new Object[] {9L, "a"}));
+    assertFalse(compiled.evaluate(new Object[] {null, "a"}));
+
+    condition = new Condition(true, "id", Function.SMALLER, null, ten);
+    assertTrue(condition.evaluate(rowMeta, new Object[] {null, "a"}));
+    assertTrue(condition.evaluate(rowMeta, new Object[] {10L, "a"}));
+    assertFalse(condition.evaluate(rowMeta, new Object[] {9L, "a"}));
+
+    ValueMetaAndData b = new ValueMetaAndData(new ValueMetaString("constant"), "b");
+    condition = new Condition("name", Function.NOT_EQUAL, null, b);
+    assertTrue(condition.evaluate(rowMeta, new Object[] {1L, "a"}));
+    assertFalse(condition.evaluate(rowMeta, new Object[] {1L, "b"}));
+  }
+
+  @Test
+  public void testStringFunctions() throws Exception {
+    IRowMeta rowMeta = new RowMeta();
+    rowMeta.addValueMeta(new ValueMetaString("name"));
+
+    assertTrue(evaluate(rowMeta, Function.REGEXP, "a.c", "abc"));
+    assertFalse(evaluate(rowMeta, Function.REGEXP, "a.c", "abcd"));
+    assertFalse(evaluate(rowMeta, Function.REGEXP, "a.c", null));
+    assertTrue(evaluate(rowMeta, Function.LIKE, "a%d", "abcd"));
+    assertTrue(evaluate(rowMeta, Function.LIKE, "a?c", "abc"));
+    assertFalse(evaluate(rowMeta, Function.LIKE, "a?c", "abbc"));
+    assertTrue(evaluate(rowMeta, Function.IN_LIST, "x;abc;y", "abc"));
+    assertTrue(evaluate(rowMeta, Function.IN_LIST, "x;a\\;b;y", "a;b"));
+    assertFalse(evaluate(rowMeta, Function.IN_LIST, "x;abc;y", "ab"));
+    assertFalse(evaluate(rowMeta, Function.IN_LIST, "x;abc;y", null));
+    assertTrue(evaluate(rowMeta, Function.CONTAINS, "bc", "abcd"));
+    assertFalse(evaluate(rowMeta, Function.CONTAINS, "bc", null));
+    assertTrue(evaluate(rowMeta, Function.STARTS_WITH, "ab", "abcd"));
+    assertFalse(evaluate(rowMeta, Function.STARTS_WITH, "bc", "abcd"));
+    assertTrue(evaluate(rowMeta, Function.ENDS_WITH, "cd", "abcd"));
+    assertFalse(evaluate(rowMeta, Function.ENDS_WITH, "cd", ""));
+    assertTrue(evaluate(rowMeta, Function.NULL, null, null));
+    assertTrue(evaluate(rowMeta, Function.NOT_NULL, null, "a"));
+  }
+
+  @Test
+  public void testFieldComparisonAndComposite() throws Exception {
+    IRowMeta rowMeta = new RowMeta();
+    rowMeta.addValueMeta(new ValueMetaInteger("a"));
+    rowMeta.addValueMeta(new ValueMetaInteger("b"));
+    rowMeta.addValueMeta(new ValueMetaString("c"));
+
+    Condition condition = new Condition();
+    condition.addCondition(new Condition("a", Function.SMALLER, "b", null));
+    Condition c2 =
+        new Condition(
+            Condition.Operator.OR,
+            "c",
+            Function.EQUAL,
+            null,
+            new ValueMetaAndData(new ValueMetaString("constant"), "yes"));
+    condition.addCondition(c2);
+
+    CompiledCondition compiled = condition.compile(rowMeta);
+    assertTrue(compiled.evaluate(new Object[] {1L, 2L, "no"}));
+    assertTrue(compiled.evaluate(new Object[] {3L, 2L, "yes"}));
+    assertFalse(compiled.evaluate(new Object[] {3L, 2L, "no"}));
+
+    // Changing the condition compiles it again
+    //
+    assertFalse(condition.evaluate(rowMeta, new Object[] {3L, 2L, "no"}));
+    c2.setOperator(Condition.Operator.OR_NOT);
+    assertTrue(condition.evaluate(rowMeta, new Object[] {3L, 2L, "no"}));
+  }
+
+  @Test
+  public void testChangesOnlyRecompileTheirOwnCondition() throws Exception {
+    IRowMeta rowMeta = new RowMeta();
+    rowMeta.addValueMeta(new ValueMetaInteger("a"));
+    rowMeta.addValueMeta(new ValueMetaString("c"));
+
+    Condition condition = new Condition();
+    condition.addCondition(new Condition("a", Function.LARGER, null, integer(5L)));
+    condition.addCondition(
+        new Condition(Condition.Operator.AND, "c", Function.EQUAL, null, string("yes")));
+
+    // A copy, as loaded from XML, is linked the first time it's evaluated
+    //
+    Condition loaded = new Condition(condition.getXml());
+    Object[] row = new Object[] {7L, "yes"};
+    assertTrue(condition.evaluate(rowMeta, row));
+    assertTrue(loaded.evaluate(rowMeta, row));
+
+    // Changing the constant of a nested condition in the loaded copy leaves the original alone
+    //
+    loaded.getCondition(1).getRightValue().setText("no");
+    assertFalse(loaded.evaluate(rowMeta, row));
+    assertTrue(condition.evaluate(rowMeta, row));
+
+    // Changes to other conditions don't throw away the compiled condition
+    //
+    CompiledCondition compiled = condition.compile(rowMeta);
+    Condition other = new Condition("a", Function.EQUAL, null, integer(1L));
+    other.setFunction(Function.NOT_EQUAL);
+    loaded.getCondition(0).setNegated(true);
+    assertTrue(compiled.isCompiledFor(rowMeta, condition.getVersion()));
+
+    // A removed sub-condition no longer changes the condition it was part of
+    //
+    Condition removed = condition.getCondition(1);
+    Condition first = condition.getCondition(0);
+    condition.addCondition(
+        new Condition(Condition.Operator.AND, "c", Function.NOT_NULL, null, null));
+    condition.removeCondition(1);
+    compiled = condition.compile(rowMeta);
+    removed.setLeftValueName("a");
+    assertTrue(compiled.isCompiledFor(rowMeta, condition.getVersion()));
+    first.getRightValue().setText("10");
+    assertFalse(compiled.isCompiledFor(rowMeta, condition.getVersion()));
+    assertFalse(condition.evaluate(rowMeta, row));
+  }
+
+  private static ValueMetaAndData integer(long value) {
+    return new ValueMetaAndData(new ValueMetaInteger("constant"), value);
+  }
+
+  private static ValueMetaAndData string(String value) {
+    return new ValueMetaAndData(new ValueMetaString("constant"), value);
+  }
+
+  private static boolean evaluate(
+      IRowMeta rowMeta, Function function, String constant, String value) throws Exception {
+    ValueMetaAndData exact =
+        constant == null ? null : new ValueMetaAndData(new ValueMetaString("constant"), constant);
+    Condition condition = new Condition(rowMeta.getValueMeta(0).getName(), function, null, exact);
+    return condition.evaluate(rowMeta, new Object[] {value});
+  }
 }
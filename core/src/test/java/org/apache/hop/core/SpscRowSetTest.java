@@ -0,0 +1,174 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.core;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import org.apache.hop.core.row.IRowMeta;
+import org.apache.hop.core.row.RowMeta;
+import org.apache.hop.core.row.value.ValueMetaInteger;
+import org.apache.hop.junit.rules.RestoreHopEnvironment;
+import org.junit.ClassRule;
+import org.junit.Test;
+
+/** Test class for the lock-free single producer, single consumer row set. */
+public class SpscRowSetTest {
+  @ClassRule public static RestoreHopEnvironment env = new RestoreHopEnvironment();
+
+  private IRowMeta createRowMeta() {
+    IRowMeta rm = new RowMeta();
+    rm.addValueMeta(new ValueMetaInteger("ROWNR"));
+    return rm;
+  }
+
+  @Test
+  public void testBasicCreation() {
+    IRowSet set = new SpscRowSet(10);
+
+    assertFalse(set.isDone());
+    assertEquals(0, set.size());
+    assertNull(set.getRowImmediate());
+  }
+
+  @Test
+  public void testCapacityIsRespected() {
+    SpscRowSet set = new SpscRowSet(3);
+    IRowMeta rm = createRowMeta();
+
+    assertTrue(set.putRowWait(rm, new Object[] {1L}, 1, TimeUnit.MILLISECONDS));
+    assertTrue(set.putRowWait(rm, new Object[] {2L}, 1, TimeUnit.MILLISECONDS));
+    assertTrue(set.putRowWait(rm, new Object[] {3L}, 1, TimeUnit.MILLISECONDS));
+
+    // The ring buffer is 4 slots large but the row set only accepts 3 rows
+    //
+    assertFalse(set.putRowWait(rm, new Object[] {4L}, 1, TimeUnit.MILLISECONDS));
+    assertEquals(3, set.size());
+    assertEquals(rm, set.getRowMeta());
+
+    assertArrayEquals(new Object[] {1L}, set.getRowImmediate());
+    assertTrue(set.putRowWait(rm, new Object[] {4L}, 1, TimeUnit.MILLISECONDS));
+    assertArrayEquals(new Object[] {2L}, set.getRowImmediate());
+    assertArrayEquals(new Object[] {3L}, set.getRowImmediate());
+    assertArrayEquals(new Object[] {4L}, set.getRowImmediate());
+    assertNull(set.getRowImmediate());
+    assertEquals(0, set.size());
+  }
+
+  @Test
+  public void testClear() {
+    SpscRowSet set = new SpscRowSet(5);
+    IRowMeta rm = createRowMeta();
+
+    set.putRow(rm, new Object[] {1L});
+    set.putRow(rm, new Object[] {2L});
+    set.setDone();
+    set.clear();
+
+    assertFalse(set.isDone());
+    assertEquals(0, set.size());
+    assertNull(set.getRowImmediate());
+  }
+
+  @Test
+  public void testSetDoneWakesUpConsumer() throws Exception {
+    SpscRowSet set = new SpscRowSet(5);
+    AtomicReference<Object[]> result = new AtomicReference<>(new Object[0]);
+
+    Thread consumer = new Thread(() -> result.set(set.getRowWait(1, TimeUnit.MINUTES)));
+    consumer.start();
+    Thread.sleep(50);
+    set.setDone();
+    consumer.join(10000);
+
+    assertFalse(consumer.isAlive());
+    assertNull(result.get());
+  }
+
+  @Test
+  public void testProducerConsumerOrdering() throws Exception {
+    final int nrRows = 100000;
+    SpscRowSet set = new SpscRowSet(16);
+    IRowMeta rm = createRowMeta();
+
+    Thread producer =
+        new Thread(
+            () -> {
+              for (long i = 0; i < nrRows; i++) {
+                Object[] row = new Object[] {i};
+                while (!set.putRowWait(rm, row, 10, TimeUnit.MILLISECONDS)) {
+                  // Retry until the consumer has made room
+                }
+              }
+              set.setDone();
+            });
+    producer.start();
+
+    long expected = 0;
+    Object[] row = set.getRowWait(10, TimeUnit.MILLISECONDS);
+    while (row != null || !set.isDone() || set.size() > 0) {
+      if (row != null) {
+        assertEquals(expected++, row[0]);
+      }
+      row = set.getRowWait(10, TimeUnit.MILLISECONDS);
+    }
+    producer.join();
+
+    assertEquals(nrRows, expected);
+  }
+
+  @Test
+  public void testInterruptKeepsFlag() {
+    SpscRowSet set = new SpscRowSet(1);
+    IRowMeta rm = createRowMeta();
+    assertTrue(set.putRowWait(rm, new Object[] {1L}, 1, TimeUnit.MILLISECONDS));
+
+    Thread.currentThread().interrupt();
+    try {
+      assertFalse(set.putRowWait(rm, new Object[] {2L}, 10, TimeUnit.SECONDS));
+      assertTrue(Thread.currentThread().isInterrupted());
+
+      assertArrayEquals(new Object[] {1L}, set.getRowImmediate());
+      assertNull(set.getRowWait(10, TimeUnit.SECONDS));
+      assertTrue(Thread.currentThread().isInterrupted());
+    } finally {
+      Thread.interrupted();
+    }
+  }
+
+  @Test
+  public void testLongTimeoutDoesNotOverflow() throws Exception {
+    SpscRowSet set = new SpscRowSet(1);
+    IRowMeta rm = createRowMeta();
+    AtomicReference<Object[]> result = new AtomicReference<>();
+
+    Thread consumer = new Thread(() -> result.set(set.getRowWait(Long.MAX_VALUE, TimeUnit.DAYS)));
+    consumer.start();
+    Thread.sleep(50);
+    assertTrue(consumer.isAlive());
+
+    set.putRow(rm, new Object[] {1L});
+    consumer.join(10000);
+    assertArrayEquals(new Object[] {1L}, result.get());
+  }
+}
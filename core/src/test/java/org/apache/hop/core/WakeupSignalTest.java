@@ -0,0 +1,132 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import org.apache.hop.core.row.IRowMeta;
+import org.apache.hop.core.row.RowMeta;
+import org.apache.hop.core.row.value.ValueMetaInteger;
+import org.apache.hop.junit.rules.RestoreHopEnvironment;
+import org.junit.ClassRule;
+import org.junit.Test;
+
+/** Test class for the signal used by transforms to wait for rows and state changes. */
+public class WakeupSignalTest {
+  @ClassRule public static RestoreHopEnvironment env = new RestoreHopEnvironment();
+
+  @Test
+  public void testConditionAlreadyMet() throws Exception {
+    WakeupSignal signal = new WakeupSignal();
+
+    assertTrue(signal.await(() -> true, 1, TimeUnit.MINUTES));
+  }
+
+  @Test
+  public void testTimeout() throws Exception {
+    WakeupSignal signal = new WakeupSignal();
+
+    long start = System.nanoTime();
+    assertFalse(signal.await(() -> false, 20, TimeUnit.MILLISECONDS));
+    assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(20));
+  }
+
+  @Test
+  public void testSignalWakesUpWaiter() throws Exception {
+    WakeupSignal signal = new WakeupSignal();
+    AtomicBoolean condition = new AtomicBoolean(false);
+    AtomicReference<Boolean> result = new AtomicReference<>();
+
+    Thread waiter =
+        new Thread(
+            () -> {
+              try {
+                result.set(signal.await(condition::get, 1, TimeUnit.MINUTES));
+              } catch (InterruptedException e) {
+                result.set(null);
+              }
+            });
+    waiter.start();
+    Thread.sleep(50);
+    condition.set(true);
+    signal.signal();
+    waiter.join(10000);
+
+    assertFalse(waiter.isAlive());
+    assertEquals(Boolean.TRUE, result.get());
+  }
+
+  @Test
+  public void testRowSetSignalsConsumer() throws Exception {
+    IRowMeta rowMeta = new RowMeta();
+    rowMeta.addValueMeta(new ValueMetaInteger("ROWNR"));
+    IRowSet first = new SpscRowSet(5);
+    IRowSet second = new BlockingRowSet(5);
+    WakeupSignal signal = new WakeupSignal();
+    first.setConsumerSignal(signal);
+    second.setConsumerSignal(signal);
+    AtomicReference<Boolean> result = new AtomicReference<>();
+
+    Thread consumer =
+        new Thread(
+            () -> {
+              try {
+                result.set(
+                    signal.await(
+                        () -> first.size() > 0 || second.size() > 0, 1, TimeUnit.MINUTES));
+              } catch (InterruptedException e) {
+                result.set(null);
+              }
+            });
+    consumer.start();
+    Thread.sleep(50);
+    second.putRow(rowMeta, new Object[] {1L});
+    consumer.join(10000);
+
+    assertFalse(consumer.isAlive());
+    assertEquals(Boolean.TRUE, result.get());
+  }
+
+  @Test
+  public void testSetDoneSignalsConsumer() throws Exception {
+    IRowSet rowSet = new QueueRowSet();
+    WakeupSignal signal = new WakeupSignal();
+    rowSet.setConsumerSignal(signal);
+
+    Thread consumer =
+        new Thread(
+            () -> {
+              try {
+                signal.await(rowSet::isDone, 1, TimeUnit.MINUTES);
+              } catch (InterruptedException e) {
+                // Ignore
+              }
+            });
+    consumer.start();
+    Thread.sleep(50);
+    rowSet.setDone();
+    consumer.join(10000);
+
+    assertFalse(consumer.isAlive());
+  }
+}
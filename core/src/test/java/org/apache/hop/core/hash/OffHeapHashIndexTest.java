@@ -0,0 +1,182 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.core.hash;
+
+import org.apache.hop.core.exception.HopException;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/** Test class for the off-heap hash index. */
+public class OffHeapHashIndexTest {
+
+  @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private static byte[] bytes(String value) {
+    return value.getBytes(StandardCharsets.UTF_8);
+  }
+
+  @Test
+  public void testLongKeys() throws Exception {
+    try (OffHeapHashIndex index = new OffHeapHashIndex(true)) {
+      index.put(1L, bytes("one"));
+      index.put(-2L, bytes("minus two"));
+      index.put(0L, bytes("zero"));
+
+      assertEquals(3, index.getSize());
+      assertArrayEquals(bytes("one"), index.get(1L));
+      assertArrayEquals(bytes("minus two"), index.get(-2L));
+      assertArrayEquals(bytes("zero"), index.get(0L));
+      assertNull(index.get(3L));
+    }
+  }
+
+  @Test
+  public void testByteArrayKeys() throws Exception {
+    try (OffHeapHashIndex index = new OffHeapHashIndex(false)) {
+      index.put(bytes("a"), bytes("1"));
+      index.put(bytes("ab"), bytes("2"));
+      index.put(new byte[0], bytes("empty"));
+
+      assertEquals(3, index.getSize());
+      assertArrayEquals(bytes("1"), index.get(bytes("a")));
+      assertArrayEquals(bytes("2"), index.get(bytes("ab")));
+      assertArrayEquals(bytes("empty"), index.get(new byte[0]));
+      assertNull(index.get(bytes("b")));
+    }
+  }
+
+  @Test
+  public void testReplaceValue() throws Exception {
+    try (OffHeapHashIndex index = new OffHeapHashIndex(false)) {
+      index.put(bytes("key"), bytes("first"));
+      index.put(bytes("key"), bytes("second"));
+
+      assertEquals(1, index.getSize());
+      assertArrayEquals(bytes("second"), index.get(bytes("key")));
+    }
+  }
+
+  @Test
+  public void testManyEntries() throws Exception {
+    try (OffHeapHashIndex longIndex = new OffHeapHashIndex(true);
+        OffHeapHashIndex bytesIndex = new OffHeapHashIndex(false)) {
+      for (long i = 0; i < 100000; i++) {
+        longIndex.put(i * 31, bytes("value" + i));
+        bytesIndex.put(bytes("key" + i), bytes("value" + i));
+      }
+      assertEquals(100000, longIndex.getSize());
+      assertEquals(100000, bytesIndex.getSize());
+      for (long i = 0; i < 100000; i++) {
+        assertArrayEquals(bytes("value" + i), longIndex.get(i * 31));
+        assertArrayEquals(bytes("value" + i), bytesIndex.get(bytes("key" + i)));
+      }
+      assertNull(longIndex.get(1L));
+      assertNull(bytesIndex.get(bytes("key100000")));
+    }
+  }
+
+  @Test
+  public void testSpillToMappedFile() throws Exception {
+    File directory = temporaryFolder.newFolder();
+    OffHeapHashIndex index = new OffHeapHashIndex(false, 1024, 4096, directory.getPath());
+    for (int i = 0; i < 1000; i++) {
+      index.put(bytes("key" + i), bytes("value" + i));
+    }
+
+    assertEquals(4096, index.getDirectBytes());
+    assertTrue(index.getSpilledBytes() > 0);
+    assertEquals(1, directory.listFiles().length);
+    for (int i = 0; i < 1000; i++) {
+      assertArrayEquals(bytes("value" + i), index.get(bytes("key" + i)));
+    }
+
+    index.close();
+    assertEquals(0, directory.listFiles().length);
+  }
+
+  @Test
+  public void testChunksGrow() throws Exception {
+    try (OffHeapHashIndex index = new OffHeapHashIndex(false)) {
+      // A small index only takes a small chunk
+      //
+      index.put(bytes("key"), bytes("value"));
+      assertEquals(64 * 1024, index.getDirectBytes());
+
+      // Every next chunk is twice as large as the previous one
+      //
+      byte[] value = new byte[1000];
+      for (int i = 0; i < 200; i++) {
+        index.put(bytes("key" + i), value);
+      }
+      assertEquals((64 + 128 + 256) * 1024, index.getDirectBytes());
+
+      // A record larger than the next chunk gets a chunk of its own size
+      //
+      index.put(bytes("large"), new byte[1024 * 1024]);
+      assertEquals((64 + 128 + 256) * 1024 + 1024 * 1024 + 13, index.getDirectBytes());
+
+      assertArrayEquals(bytes("value"), index.get(bytes("key")));
+      for (int i = 0; i < 200; i++) {
+        assertArrayEquals(value, index.get(bytes("key" + i)));
+      }
+      assertEquals(1024 * 1024, index.get(bytes("large")).length);
+    }
+  }
+
+  @Test
+  public void testSpillAfterMemoryBudget() throws Exception {
+    File directory = temporaryFolder.newFolder();
+    try (OffHeapHashIndex index =
+        new OffHeapHashIndex(true, 1024 * 1024, 100000, directory.getPath())) {
+      byte[] value = new byte[1000];
+      for (long i = 0; i < 200; i++) {
+        index.put(i, value);
+      }
+      // The second chunk is shrunk to the rest of the budget before spilling
+      //
+      assertEquals(100000, index.getDirectBytes());
+      assertTrue(index.getSpilledBytes() > 0);
+      for (long i = 0; i < 200; i++) {
+        assertArrayEquals(value, index.get(i));
+      }
+    }
+  }
+
+  @Test(expected = HopException.class)
+  public void testRecordLargerThanChunk() throws Exception {
+    try (OffHeapHashIndex index = new OffHeapHashIndex(true, 16, 0L, null)) {
+      index.put(1L, new byte[16]);
+    }
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testKeyTypeIsChecked() throws Exception {
+    try (OffHeapHashIndex index = new OffHeapHashIndex(true)) {
+      index.put(bytes("key"), bytes("value"));
+    }
+  }
+}
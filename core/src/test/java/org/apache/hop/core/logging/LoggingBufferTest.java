@@ -20,6 +20,11 @@ package org.apache.hop.core.logging;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.atomic.AtomicBoolean;
 
@@ -127,4 +132,223 @@ public class LoggingBufferTest {
     loggingBuffer.removeChannelFromBuffer(logChannelId);
     Assert.assertEquals(10, loggingBuffer.size());
   }
+
+  @Test
+  public void testRingKeepsLastLines() {
+    LoggingBuffer loggingBuffer = new LoggingBuffer(10);
+    for (int i = 0; i < 25; i++) {
+      loggingBuffer.addLogggingEvent(createEvent("line" + i, "1", i));
+    }
+    Assert.assertEquals(10, loggingBuffer.size());
+    Assert.assertEquals(25, loggingBuffer.getLastBufferLineNr());
+
+    List<HopLoggingEvent> events =
+        loggingBuffer.getLogBufferFromTo((List<String>) null, true, 0, 25);
+    Assert.assertEquals(10, events.size());
+    Assert.assertEquals("line15", getMessage(events.get(0)));
+    Assert.assertEquals("line24", getMessage(events.get(9)));
+
+    events = loggingBuffer.getLogBufferFromTo((List<String>) null, true, 20, 22);
+    Assert.assertEquals(2, events.size());
+    Assert.assertEquals("line20", getMessage(events.get(0)));
+    Assert.assertEquals("line21", getMessage(events.get(1)));
+  }
+
+  @Test
+  public void testGetLinesOfChannels() {
+    LoggingBuffer loggingBuffer = new LoggingBuffer(100);
+    for (int i = 0; i < 50; i++) {
+      loggingBuffer.addLogggingEvent(createEvent("line" + i, i % 5 == 0 ? "a" : "b", i));
+    }
+
+    // Few lines of the requested channel: uses the channel index
+    //
+    List<HopLoggingEvent> events =
+        loggingBuffer.getLogBufferFromTo(Arrays.asList("a"), false, 0, 50);
+    Assert.assertEquals(10, events.size());
+    for (int i = 0; i < 10; i++) {
+      Assert.assertEquals("line" + (i * 5), getMessage(events.get(i)));
+    }
+
+    // Small range: scans the ring
+    //
+    events = loggingBuffer.getLogBufferFromTo(Arrays.asList("a", "c"), false, 44, 50);
+    Assert.assertEquals(1, events.size());
+    Assert.assertEquals("line45", getMessage(events.get(0)));
+
+    loggingBuffer.removeChannelFromBuffer("a");
+    Assert.assertEquals(40, loggingBuffer.size());
+    Assert.assertTrue(loggingBuffer.getLogBufferFromTo(Arrays.asList("a"), false, 0, 50).isEmpty());
+    Assert.assertEquals(
+        40, loggingBuffer.getLogBufferFromTo(Arrays.asList("b"), false, 0, 50).size());
+  }
+
+  @Test
+  public void testUnlimitedBufferGrows() {
+    LoggingBuffer loggingBuffer = new LoggingBuffer(0);
+    for (int i = 0; i < 3000; i++) {
+      loggingBuffer.addLogggingEvent(createEvent("line" + i, "1", i));
+    }
+    Assert.assertEquals(3000, loggingBuffer.size());
+    Assert.assertEquals(3000, loggingBuffer.getLastBufferLineNr());
+    List<HopLoggingEvent> events =
+        loggingBuffer.getLogBufferFromTo((List<String>) null, true, 0, 3000);
+    Assert.assertEquals(3000, events.size());
+    Assert.assertEquals("line0", getMessage(events.get(0)));
+  }
+
+  @Test
+  public void testSetMaxNrLinesKeepsNewestLines() {
+    LoggingBuffer loggingBuffer = new LoggingBuffer(100);
+    for (int i = 0; i < 50; i++) {
+      loggingBuffer.addLogggingEvent(createEvent("line" + i, "1", i));
+    }
+    loggingBuffer.setMaxNrLines(20);
+    Assert.assertEquals(20, loggingBuffer.size());
+    List<HopLoggingEvent> events =
+        loggingBuffer.getLogBufferFromTo(Arrays.asList("1"), false, 0, 50);
+    Assert.assertEquals(20, events.size());
+    Assert.assertEquals("line30", getMessage(events.get(0)));
+
+    loggingBuffer.clear();
+    Assert.assertEquals(0, loggingBuffer.size());
+    Assert.assertEquals(50, loggingBuffer.getLastBufferLineNr());
+    loggingBuffer.addLogggingEvent(createEvent("line50", "1", 50));
+    Assert.assertEquals(51, loggingBuffer.getLastBufferLineNr());
+    Assert.assertEquals(
+        1, loggingBuffer.getLogBufferFromTo(Arrays.asList("1"), false, 0, 51).size());
+  }
+
+  @Test(timeout = 60000)
+  public void testLoggingWhileUnlimitedBufferGrows() throws Exception {
+    final int nrThreads = 4;
+    final int nrLinesPerThread = 20000;
+    LoggingBuffer loggingBuffer = new LoggingBuffer(0);
+
+    // Every thread fills up the ring over and over, so they keep running into each other's resize
+    //
+    runConcurrently(
+        nrThreads,
+        t -> {
+          for (int i = 0; i < nrLinesPerThread; i++) {
+            loggingBuffer.addLogggingEvent(createEvent(t + "-" + i, "channel" + t, i));
+          }
+        });
+
+    int nrLines = nrThreads * nrLinesPerThread;
+    Assert.assertEquals(nrLines, loggingBuffer.size());
+    Assert.assertEquals(nrLines, loggingBuffer.getLastBufferLineNr());
+    List<HopLoggingEvent> events =
+        loggingBuffer.getLogBufferFromTo((List<String>) null, true, 0, nrLines);
+    Set<String> messages = new HashSet<>();
+    for (HopLoggingEvent event : events) {
+      messages.add(getMessage(event));
+    }
+    Assert.assertEquals(nrLines, messages.size());
+    for (int t = 0; t < nrThreads; t++) {
+      Assert.assertEquals(
+          nrLinesPerThread,
+          loggingBuffer
+              .getLogBufferFromTo(Arrays.asList("channel" + t), false, 0, nrLines)
+              .size());
+    }
+  }
+
+  @Test(timeout = 60000)
+  public void testLoggingWhileBufferIsResized() throws Exception {
+    final int nrThreads = 3;
+    final int nrLinesPerThread = 20000;
+    final int[] sizes = {0, 50, 500, 0, 5, 1000};
+    LoggingBuffer loggingBuffer = new LoggingBuffer(100);
+    AtomicBoolean logging = new AtomicBoolean(true);
+
+    // The last thread keeps changing the size, also between a limited and an unlimited buffer
+    //
+    runConcurrently(
+        nrThreads + 1,
+        t -> {
+          if (t == nrThreads) {
+            for (int i = 0; logging.get(); i++) {
+              loggingBuffer.setMaxNrLines(sizes[i % sizes.length]);
+            }
+            return;
+          }
+          for (int i = 0; i < nrLinesPerThread; i++) {
+            loggingBuffer.addLogggingEvent(createEvent(t + "-" + i, "channel" + t, i));
+          }
+        },
+        () -> logging.set(false));
+
+    int nrLines = nrThreads * nrLinesPerThread;
+    Assert.assertEquals(nrLines, loggingBuffer.getLastBufferLineNr());
+
+    // The buffer still works as a plain ring afterwards
+    //
+    loggingBuffer.setMaxNrLines(10);
+    for (int i = 0; i < 20; i++) {
+      loggingBuffer.addLogggingEvent(createEvent("line" + i, "1", i));
+    }
+    Assert.assertEquals(10, loggingBuffer.size());
+    List<HopLoggingEvent> events =
+        loggingBuffer.getLogBufferFromTo((List<String>) null, true, 0, nrLines + 20);
+    Assert.assertEquals(10, events.size());
+    Assert.assertEquals("line10", getMessage(events.get(0)));
+    Assert.assertEquals("line19", getMessage(events.get(9)));
+  }
+
+  private interface ILogger {
+    void log(int threadNr);
+  }
+
+  /**
+   * Runs the logger in the given number of threads, starting them all at once. The optional action
+   * is run once all threads but the last one are finished.
+   */
+  private static void runConcurrently(int nrThreads, ILogger logger, Runnable... whenLogged)
+      throws Exception {
+    CountDownLatch start = new CountDownLatch(1);
+    List<Throwable> errors = new ArrayList<>();
+    List<Thread> threads = new ArrayList<>();
+    for (int t = 0; t < nrThreads; t++) {
+      final int threadNr = t;
+      Thread thread =
+          new Thread(
+              () -> {
+                try {
+                  start.await();
+                  logger.log(threadNr);
+                } catch (Throwable e) {
+                  synchronized (errors) {
+                    errors.add(e);
+                  }
+                }
+              },
+              "Logging Thread " + t);
+      threads.add(thread);
+      thread.start();
+    }
+    start.countDown();
+    for (int t = 0; t < nrThreads; t++) {
+      if (t == nrThreads - 1) {
+        for (Runnable action : whenLogged) {
+          action.run();
+        }
+      }
+      threads.get(t).join();
+    }
+    if (!errors.isEmpty()) {
+      throw new AssertionError("A logging thread failed", errors.get(0));
+    }
+  }
+
+  private static HopLoggingEvent createEvent(String message, String logChannelId, long timeStamp) {
+    HopLoggingEvent event = new HopLoggingEvent();
+    event.setMessage(new LogMessage(message, logChannelId, LogLevel.BASIC));
+    event.setTimeStamp(timeStamp);
+    return event;
+  }
+
+  private static String getMessage(HopLoggingEvent event) {
+    return ((LogMessage) event.getMessage()).getMessage();
+  }
 }
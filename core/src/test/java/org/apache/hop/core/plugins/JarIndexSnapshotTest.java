@@ -0,0 +1,133 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.core.plugins;
+
+import org.apache.hop.core.Const;
+import org.jboss.jandex.Index;
+import org.jboss.jandex.IndexWriter;
+import org.jboss.jandex.Indexer;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.Set;
+import java.util.jar.JarOutputStream;
+import java.util.zip.ZipEntry;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class JarIndexSnapshotTest {
+
+  @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @After
+  public void tearDown() {
+    System.clearProperty(Const.HOP_PLUGIN_BASE_FOLDERS);
+    System.clearProperty(Const.HOP_PLUGIN_INDEX_SNAPSHOT);
+    JarCache.getInstance().clear();
+  }
+
+  @Test
+  public void testWriteAndRead() throws Exception {
+    File jarFile = temporaryFolder.newFile("plugin.jar");
+    File otherJarFile = temporaryFolder.newFile("other.jar");
+    File snapshotFile = new File(temporaryFolder.getRoot(), "cache/plugins.idx");
+
+    JarIndexSnapshot snapshot = new JarIndexSnapshot();
+    snapshot.putIndex(jarFile, new byte[] {1, 2, 3});
+    snapshot.putIndex(otherJarFile, null);
+    snapshot.write(snapshotFile);
+
+    JarIndexSnapshot read = JarIndexSnapshot.read(snapshotFile);
+    assertEquals(2, read.getPaths().size());
+    assertArrayEquals(new byte[] {1, 2, 3}, read.getIndex(jarFile));
+    assertArrayEquals(new byte[0], read.getIndex(otherJarFile));
+
+    // A jar file which changed isn't taken from the snapshot
+    //
+    try (FileOutputStream out = new FileOutputStream(jarFile)) {
+      out.write(new byte[] {4, 5});
+    }
+    assertNull(read.getIndex(jarFile));
+
+    assertTrue(read.retain(Collections.singleton(jarFile)));
+    assertEquals(Collections.singleton(jarFile.getAbsolutePath()), read.getPaths());
+  }
+
+  @Test
+  public void testReadInvalidFile() throws Exception {
+    File snapshotFile = temporaryFolder.newFile("plugins.idx");
+    try (FileOutputStream out = new FileOutputStream(snapshotFile)) {
+      out.write("not a snapshot".getBytes());
+    }
+    assertTrue(JarIndexSnapshot.read(snapshotFile).getPaths().isEmpty());
+    assertTrue(JarIndexSnapshot.read(new File(snapshotFile + ".missing")).getPaths().isEmpty());
+  }
+
+  @Test
+  public void testPluginJarsUseSnapshot() throws Exception {
+    File pluginFolder = temporaryFolder.newFolder("plugins");
+    File jarFile = createIndexedJar(new File(pluginFolder, "plugin.jar"));
+    File snapshotFile = new File(temporaryFolder.getRoot(), "plugins.idx");
+    System.setProperty(Const.HOP_PLUGIN_BASE_FOLDERS, pluginFolder.getAbsolutePath());
+    System.setProperty(Const.HOP_PLUGIN_INDEX_SNAPSHOT, snapshotFile.getAbsolutePath());
+
+    JarCache cache = JarCache.getInstance();
+    cache.clear();
+    Set<File> pluginJars = cache.getPluginJars();
+    assertEquals(Collections.singleton(jarFile), pluginJars);
+    assertNotNull(cache.getIndex(jarFile).getClassByName(JarIndexSnapshotTest.class.getName()));
+    assertTrue(snapshotFile.exists());
+    assertNotNull(JarIndexSnapshot.read(snapshotFile).getIndex(jarFile));
+
+    // The jar file didn't change: what the snapshot says wins over the content of the jar file
+    //
+    JarIndexSnapshot snapshot = new JarIndexSnapshot();
+    snapshot.putIndex(jarFile, null);
+    snapshot.write(snapshotFile);
+
+    cache.clear();
+    assertFalse(cache.getPluginJars().contains(jarFile));
+  }
+
+  private File createIndexedJar(File jarFile) throws Exception {
+    Indexer indexer = new Indexer();
+    String classFile = JarIndexSnapshotTest.class.getName().replace('.', '/') + ".class";
+    try (InputStream in = getClass().getClassLoader().getResourceAsStream(classFile)) {
+      indexer.index(in);
+    }
+    Index index = indexer.complete();
+
+    try (JarOutputStream out = new JarOutputStream(new FileOutputStream(jarFile))) {
+      out.putNextEntry(new ZipEntry(JarCache.ANNOTATION_INDEX_LOCATION));
+      new IndexWriter(out).write(index);
+      out.closeEntry();
+    }
+    return jarFile;
+  }
+}
@@ -38,10 +38,15 @@ import org.w3c.dom.Document;
 
 import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
@@ -509,6 +514,78 @@ public class RowMetaTest {
     }
   }
 
+  @Test
+  public void testReadsDontTakeTheLock() throws Exception {
+    rowMeta.addValueMeta(bin);
+
+    // The copy the next transform gets with the first row, read once
+    //
+    RowMeta copy = (RowMeta) rowMeta.clone();
+    assertEquals(4, copy.size());
+
+    // Reading it doesn't wait for a lock, even when somebody else holds the write lock
+    //
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    copy.lock.writeLock().lock();
+    try {
+      Future<Object[]> reads =
+          executor.submit(
+              () -> {
+                assertEquals(4, copy.size());
+                assertFalse(copy.isEmpty());
+                assertEquals("integer", copy.getValueMeta(1).getName());
+                assertNull(copy.getValueMeta(4));
+                assertEquals(2, copy.indexOfValue("DATE"));
+                assertEquals(-1, copy.indexOfValue("unknown"));
+                assertEquals("string", copy.searchValueMeta("string").getName());
+                assertEquals(4, copy.getValueMetaList().size());
+                return copy.cloneRow(new Object[] {"a", 1L, null, new byte[] {1, 2, 3}});
+              });
+      Object[] clone = reads.get(10, TimeUnit.SECONDS);
+      assertEquals("a", clone[0]);
+      assertTrue(Arrays.equals(new byte[] {1, 2, 3}, (byte[]) clone[3]));
+    } finally {
+      copy.lock.writeLock().unlock();
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testReadsSeeChanges() throws Exception {
+    assertEquals(3, rowMeta.size());
+    assertEquals(-1, rowMeta.indexOfValue("charly"));
+
+    rowMeta.addValueMeta(charly);
+    assertEquals(4, rowMeta.size());
+    assertEquals(3, rowMeta.indexOfValue("charly"));
+
+    rowMeta.addValueMeta(0, bin);
+    assertSame(bin, rowMeta.getValueMeta(0));
+    assertEquals(4, rowMeta.indexOfValue("charly"));
+
+    rowMeta.setValueMeta(0, dup);
+    assertSame(dup, rowMeta.searchValueMeta("dup"));
+    assertNull(rowMeta.searchValueMeta("bin"));
+
+    rowMeta.removeValueMeta("dup");
+    assertEquals(0, rowMeta.indexOfValue("string"));
+    assertEquals(4, rowMeta.getValueMetaList().size());
+
+    // Value metadata renamed outside of the row metadata can still be found
+    //
+    date.setName("renamed");
+    assertEquals(2, rowMeta.indexOfValue("renamed"));
+    assertEquals(-1, rowMeta.indexOfValue("date"));
+
+    rowMeta.setValueMetaList(new ArrayList<>(Arrays.asList(integer, string)));
+    assertEquals(2, rowMeta.size());
+    assertEquals(1, rowMeta.indexOfValue("string"));
+
+    rowMeta.clear();
+    assertTrue(rowMeta.isEmpty());
+    assertNull(rowMeta.getValueMeta(0));
+  }
+
   private void fillRowMeta() {
     rowMeta.addValueMeta(0, new ValueMetaString("sample"));
     for (int i = 1; i < 10; i++) {
@@ -64,6 +64,7 @@ import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.sql.Timestamp;
 import java.sql.Types;
+import java.text.DecimalFormat;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
@@ -1239,4 +1240,130 @@ public class ValueMetaBaseTest {
     IValueMeta valueMeta = valueMetaBase.getMetadataPreview(variables, dbMeta, resultSet);
     assertTrue(valueMeta.isBoolean());
   }
+
+  @Test
+  public void testPlainNumbers() {
+    assertTrue(ValueMetaBase.isPlainInteger("0"));
+    assertTrue(ValueMetaBase.isPlainInteger("-123"));
+    assertTrue(ValueMetaBase.isPlainInteger("000000000000000001"));
+    assertFalse(ValueMetaBase.isPlainInteger("-"));
+    assertFalse(ValueMetaBase.isPlainInteger("+1"));
+    assertFalse(ValueMetaBase.isPlainInteger("1 "));
+    assertFalse(ValueMetaBase.isPlainInteger("1,000"));
+    assertFalse(ValueMetaBase.isPlainInteger("1234567890123456789"));
+
+    assertTrue(ValueMetaBase.isPlainDecimal("1.5"));
+    assertTrue(ValueMetaBase.isPlainDecimal("-0.25"));
+    assertTrue(ValueMetaBase.isPlainDecimal("42"));
+    assertFalse(ValueMetaBase.isPlainDecimal("1."));
+    assertFalse(ValueMetaBase.isPlainDecimal(".5"));
+    assertFalse(ValueMetaBase.isPlainDecimal("-.5"));
+    assertFalse(ValueMetaBase.isPlainDecimal("1.2.3"));
+    assertFalse(ValueMetaBase.isPlainDecimal("1e5"));
+    assertFalse(ValueMetaBase.isPlainDecimal("1234567890.1234567"));
+  }
+
+  @Test
+  public void testPlainNumberConversionsMatchDecimalFormat() throws Exception {
+    ValueMetaInteger integerMeta = new ValueMetaInteger("integer");
+    DecimalFormat integerFormat = integerMeta.getDecimalFormat(false);
+    for (long value :
+        new long[] {0L, 1L, -1L, 42L, -987654321L, Long.MAX_VALUE, Long.MIN_VALUE}) {
+      String string = integerMeta.convertIntegerToString(value);
+      assertEquals(integerFormat.format(value), string);
+      assertEquals(
+          Long.valueOf(integerFormat.parse(string).longValue()),
+          integerMeta.convertStringToInteger(string));
+    }
+
+    ValueMetaNumber numberMeta = new ValueMetaNumber("number");
+    numberMeta.setConversionMask(ValueMetaBase.DEFAULT_NUMBER_PARSE_MASK);
+    DecimalFormat numberFormat = numberMeta.getDecimalFormat(false);
+    for (String string : new String[] {"0", "-0", "1.5", "-0.1", "007", "123456.789012345"}) {
+      assertEquals(
+          Double.valueOf(numberFormat.parse(string).doubleValue()),
+          numberMeta.convertStringToNumber(string));
+    }
+  }
+
+  @Test
+  public void testConcurrentConversions() throws Exception {
+    ValueMetaDate dateMeta = new ValueMetaDate("date");
+    dateMeta.setConversionMask("yyyy-MM-dd HH:mm:ss");
+    ValueMetaNumber numberMeta = new ValueMetaNumber("number");
+    numberMeta.setConversionMask("#,##0.00");
+
+    List<Throwable> errors = new ArrayList<>();
+    List<Thread> threads = new ArrayList<>();
+    for (int t = 0; t < 4; t++) {
+      final int offset = t;
+      Thread thread =
+          new Thread(
+              () -> {
+                try {
+                  for (int i = 0; i < 2000; i++) {
+                    String date =
+                        String.format(
+                            "20%02d-%02d-%02d 12:34:56", offset, 1 + i % 12, 1 + i % 28);
+                    assertEquals(
+                        date, dateMeta.convertDateToString(dateMeta.convertStringToDate(date)));
+
+                    double number = offset * 100000.0 + i + 0.25;
+                    assertEquals(
+                        Double.valueOf(number),
+                        numberMeta.convertStringToNumber(numberMeta.convertNumberToString(number)));
+                  }
+                } catch (Throwable e) {
+                  synchronized (errors) {
+                    errors.add(e);
+                  }
+                }
+              });
+      threads.add(thread);
+      thread.start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    assertTrue(errors.toString(), errors.isEmpty());
+  }
+
+  @Test
+  public void testFormatIsRecompiledAfterMaskChange() throws Exception {
+    ValueMetaInteger integerMeta = new ValueMetaInteger("integer");
+    assertEquals("1234", integerMeta.convertIntegerToString(1234L));
+
+    integerMeta.setConversionMask("000000");
+    assertEquals("001234", integerMeta.convertIntegerToString(1234L));
+  }
+
+  @Test
+  public void testClonesConvertWithTheirOwnFormats() throws Exception {
+    ValueMetaNumber numberMeta = new ValueMetaNumber("number");
+    numberMeta.setConversionMask("#,##0.00");
+    assertEquals("1,234.50", numberMeta.convertNumberToString(1234.5));
+
+    ValueMetaNumber cloneMeta = (ValueMetaNumber) numberMeta.clone();
+    cloneMeta.setConversionMask("0.0");
+    ValueMetaDate dateMeta = new ValueMetaDate("date");
+    dateMeta.setConversionMask("yyyy/MM/dd");
+    ValueMetaDate dateCloneMeta = (ValueMetaDate) dateMeta.clone();
+    dateCloneMeta.setConversionMask("dd-MM-yyyy");
+    Date date = new SimpleDateFormat("yyyy-MM-dd").parse("2021-03-04");
+
+    // Alternate between the original and the clone on the same thread
+    //
+    for (int i = 0; i < 3; i++) {
+      assertEquals("1,234.50", numberMeta.convertNumberToString(1234.5));
+      assertEquals("1234.5", cloneMeta.convertNumberToString(1234.5));
+      assertEquals("2021/03/04", dateMeta.convertDateToString(date));
+      assertEquals("04-03-2021", dateCloneMeta.convertDateToString(date));
+    }
+
+    // A new mask is picked up by the next conversion
+    //
+    numberMeta.setConversionMask("0.000");
+    assertEquals("1234.500", numberMeta.convertNumberToString(1234.5));
+    assertEquals("1234.5", cloneMeta.convertNumberToString(1234.5));
+  }
 }
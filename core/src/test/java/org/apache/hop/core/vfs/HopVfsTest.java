@@ -18,13 +18,24 @@
 package org.apache.hop.core.vfs;
 
 import org.apache.commons.vfs2.FileObject;
+import org.apache.commons.vfs2.FileSystemManager;
 import org.apache.hop.core.exception.HopFileException;
 import org.junit.Test;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 public class HopVfsTest {
@@ -70,4 +81,114 @@ public class HopVfsTest {
       outputStream.write("Test-content".getBytes());
     }
   }
+
+  @Test
+  public void testResolvedFilesAreReused() throws Exception {
+    String filename = "ram:///reused-file.txt";
+    FileObject fileObject = HopVfs.getFileObject(filename);
+    assertSame(fileObject, HopVfs.getFileObject(filename));
+
+    // The cached file object is refreshed, it doesn't hold on to an old state
+    //
+    assertFalse(HopVfs.getFileObject(filename).exists());
+    try (OutputStream outputStream = fileObject.getContent().getOutputStream()) {
+      outputStream.write("Test-content".getBytes());
+    }
+    assertTrue(HopVfs.getFileObject(filename).exists());
+    fileObject.delete();
+  }
+
+  @Test
+  public void testResolvedFilesAreDroppedWithTheirFileSystem() throws Exception {
+    String filename = "ram:///closed-file-system.txt";
+    FileObject fileObject = HopVfs.getFileObject(filename);
+
+    HopVfs.getFileSystemManager().closeFileSystem(fileObject.getFileSystem());
+
+    assertNotSame(fileObject, HopVfs.getFileObject(filename));
+  }
+
+  @Test
+  public void testTempFilesAreNotCached() throws Exception {
+    HopFilesCache filesCache = (HopFilesCache) HopVfs.getFileSystemManager().getFilesCache();
+    int nrResolvedFiles = filesCache.getNrResolvedFiles();
+
+    FileObject tempFile = HopVfs.createTempFile("cache-test", ".txt", "ram:///tmp");
+
+    assertEquals(nrResolvedFiles, filesCache.getNrResolvedFiles());
+    assertNull(filesCache.getResolvedFile(tempFile.getName().getURI()));
+  }
+
+  @Test
+  public void testLeastRecentlyUsedFileIsForgotten() throws Exception {
+    HopFilesCache filesCache = new HopFilesCache();
+    FileSystemManager manager = HopVfs.getFileSystemManager();
+    FileObject first = manager.resolveFile("ram:///lru/first.txt");
+    FileObject second = manager.resolveFile("ram:///lru/second.txt");
+    filesCache.putResolvedFile("first", first);
+    filesCache.putResolvedFile("second", second);
+
+    // Using the first file makes the second one the least recently used
+    //
+    assertSame(first, filesCache.getResolvedFile("first"));
+    for (int i = 2; i < HopFilesCache.MAX_RESOLVED_FILES; i++) {
+      filesCache.putResolvedFile("file-" + i, manager.resolveFile("ram:///lru/file-" + i));
+    }
+    assertEquals(HopFilesCache.MAX_RESOLVED_FILES, filesCache.getNrResolvedFiles());
+
+    filesCache.putResolvedFile("last", manager.resolveFile("ram:///lru/last.txt"));
+
+    assertEquals(HopFilesCache.MAX_RESOLVED_FILES, filesCache.getNrResolvedFiles());
+    assertSame(first, filesCache.getResolvedFile("first"));
+    assertNull(filesCache.getResolvedFile("second"));
+  }
+
+  @Test
+  public void testRemovedFileIsForgottenForAllItsFilenames() throws Exception {
+    HopFilesCache filesCache = new HopFilesCache();
+    FileObject fileObject = HopVfs.getFileSystemManager().resolveFile("ram:///removed-file.txt");
+    FileObject other = HopVfs.getFileSystemManager().resolveFile("ram:///other-file.txt");
+    filesCache.putResolvedFile("ram:///removed-file.txt", fileObject);
+    filesCache.putResolvedFile("ram:/removed-file.txt", fileObject);
+    filesCache.putResolvedFile("ram:///other-file.txt", other);
+
+    filesCache.removeFile(fileObject.getFileSystem(), fileObject.getName());
+
+    assertNull(filesCache.getResolvedFile("ram:///removed-file.txt"));
+    assertNull(filesCache.getResolvedFile("ram:/removed-file.txt"));
+    assertSame(other, filesCache.getResolvedFile("ram:///other-file.txt"));
+    assertEquals(1, filesCache.getNrResolvedFiles());
+  }
+
+  @Test
+  public void testConcurrentResolve() throws Exception {
+    final int nrThreads = 8;
+    final int nrFiles = 500;
+    ExecutorService executor = Executors.newFixedThreadPool(nrThreads);
+    try {
+      List<Future<List<FileObject>>> futures = new ArrayList<>();
+      for (int t = 0; t < nrThreads; t++) {
+        Callable<List<FileObject>> task =
+            () -> {
+              List<FileObject> files = new ArrayList<>();
+              for (int i = 0; i < nrFiles; i++) {
+                files.add(HopVfs.getFileObject("ram:///concurrent/file-" + i + ".txt"));
+              }
+              return files;
+            };
+        futures.add(executor.submit(task));
+      }
+      List<FileObject> expected = futures.get(0).get();
+      for (Future<List<FileObject>> future : futures) {
+        List<FileObject> files = future.get();
+        assertEquals(nrFiles, files.size());
+        for (int i = 0; i < nrFiles; i++) {
+          assertEquals("/concurrent/file-" + i + ".txt", files.get(i).getName().getPath());
+          assertSame(expected.get(i), files.get(i));
+        }
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
 }
@@ -0,0 +1,133 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.metadata.serializer.cache;
+
+import org.apache.hop.core.encryption.HopTwoWayPasswordEncoder;
+import org.apache.hop.core.variables.IVariables;
+import org.apache.hop.core.variables.Variables;
+import org.apache.hop.metadata.api.IHopMetadataSerializer;
+import org.apache.hop.metadata.serializer.json.JsonMetadataProvider;
+import org.apache.hop.metadata.serializer.json.JsonMetadataSerializer;
+import org.apache.hop.metadata.serializer.json.occupation.Occupation;
+import org.apache.hop.metadata.serializer.multi.MultiMetadataProvider;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class CachingMetadataProviderTest {
+
+  @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+  private JsonMetadataProvider jsonProvider;
+  private CachingMetadataProvider cachingProvider;
+
+  @Before
+  public void setUp() throws Exception {
+    IVariables variables = Variables.getADefaultVariableSpace();
+    jsonProvider =
+        new JsonMetadataProvider(
+            new HopTwoWayPasswordEncoder(), folder.getRoot().getAbsolutePath(), variables);
+    cachingProvider = new CachingMetadataProvider(jsonProvider);
+  }
+
+  @Test
+  public void testLoadReturnsCopiesOfCachedObject() throws Exception {
+    IHopMetadataSerializer<Occupation> serializer =
+        cachingProvider.getSerializer(Occupation.class);
+    serializer.save(new Occupation("Developer", "Writes code", 2001));
+
+    Occupation first = serializer.load("Developer");
+    assertEquals("Writes code", first.getDescription());
+    assertEquals(0, cachingProvider.getHits());
+    assertEquals(1, cachingProvider.getMisses());
+
+    // Changing a loaded object doesn't change the cached one
+    //
+    first.setDescription("Changed");
+    Occupation second = serializer.load("Developer");
+    assertNotSame(first, second);
+    assertEquals("Writes code", second.getDescription());
+    assertEquals(jsonProvider.getDescription(), second.getMetadataProviderName());
+    assertEquals(1, cachingProvider.getHits());
+    assertEquals(1, cachingProvider.getMisses());
+  }
+
+  @Test
+  public void testChangedFileIsLoadedAgain() throws Exception {
+    IHopMetadataSerializer<Occupation> serializer =
+        cachingProvider.getSerializer(Occupation.class);
+    serializer.save(new Occupation("Developer", "Writes code", 2001));
+    assertEquals(2001, serializer.load("Developer").getStartYear());
+
+    // Change the file behind the back of the cache
+    //
+    JsonMetadataSerializer<Occupation> jsonSerializer =
+        (JsonMetadataSerializer<Occupation>) jsonProvider.getSerializer(Occupation.class);
+    jsonSerializer.save(new Occupation("Developer", "Writes tests", 2002));
+    File file = new File(jsonSerializer.calculateFilename("Developer"));
+    assertTrue(file.setLastModified(file.lastModified() + 10000L));
+
+    Occupation occupation = serializer.load("Developer");
+    assertEquals("Writes tests", occupation.getDescription());
+    assertEquals(2002, occupation.getStartYear());
+    assertEquals(0, cachingProvider.getHits());
+    assertEquals(2, cachingProvider.getMisses());
+  }
+
+  @Test
+  public void testSaveAndDeleteUpdateTheCache() throws Exception {
+    IHopMetadataSerializer<Occupation> serializer =
+        cachingProvider.getSerializer(Occupation.class);
+    serializer.save(new Occupation("Developer", "Writes code", 2001));
+    serializer.save(new Occupation("Tester", "Writes tests", 2002));
+    assertEquals(2, serializer.listObjectNames().size());
+    assertEquals(2, serializer.loadAll().size());
+
+    serializer.delete("Tester");
+    assertFalse(serializer.exists("Tester"));
+    assertNull(serializer.load("Tester"));
+    assertEquals(Collections.singletonList("Developer"), serializer.listObjectNames());
+
+    serializer.save(new Occupation("Developer", "Reviews code", 2001));
+    assertEquals("Reviews code", serializer.load("Developer").getDescription());
+  }
+
+  @Test
+  public void testCachingProviderInMultiProvider() throws Exception {
+    MultiMetadataProvider multiProvider =
+        new MultiMetadataProvider(Variables.getADefaultVariableSpace(), cachingProvider);
+    IHopMetadataSerializer<Occupation> serializer = multiProvider.getSerializer(Occupation.class);
+    serializer.save(new Occupation("Developer", "Writes code", 2001));
+
+    for (int i = 0; i < 5; i++) {
+      assertEquals("Writes code", serializer.load("Developer").getDescription());
+    }
+    assertEquals(4, cachingProvider.getHits());
+    assertEquals(1, cachingProvider.getMisses());
+  }
+}
@@ -0,0 +1,150 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.metadata.util;
+
+import org.apache.hop.core.exception.HopException;
+import org.apache.hop.metadata.api.HopMetadataProperty;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class MetadataPlanTest {
+
+  @Test
+  public void testPlanIsComputedOnce() {
+    assertSame(MetadataPlan.of(Child.class), MetadataPlan.of(Child.class));
+  }
+
+  @Test
+  public void testPropertiesIncludeParentClass() {
+    MetadataPlan plan = MetadataPlan.of(Child.class);
+
+    List<String> names = new ArrayList<>();
+    for (MetadataPropertyAccessor property : plan.getProperties()) {
+      names.add(property.getField().getName());
+    }
+    assertEquals(List.of("active", "count", "name", "readOnly", "scratch", "values"), names);
+
+    // The transient field is not serialized to XML
+    //
+    assertEquals(5, plan.getXmlProperties().size());
+    assertFalse(plan.findProperty("scratch_value").isSerialized());
+    assertEquals(String.class, plan.findProperty("values").getListItemClass());
+    assertNull(plan.findProperty("scratch"));
+  }
+
+  @Test
+  public void testGetAndSetValues() throws Exception {
+    MetadataPlan plan = MetadataPlan.of(Child.class);
+    Child child = (Child) plan.newInstance();
+
+    plan.findProperty("name").setValue(child, "a name");
+    plan.findProperty("count").setValue(child, 42);
+    plan.findProperty("active").setValue(child, true);
+
+    assertEquals("a name", child.getName());
+    assertEquals(42, child.getCount());
+    assertTrue(child.isActive());
+    assertEquals("a name", plan.findProperty("name").getValue(child));
+    assertEquals(42, plan.findProperty("count").getValue(child));
+    assertEquals(Boolean.TRUE, plan.findProperty("active").getValue(child));
+  }
+
+  @Test
+  public void testMissingSetter() throws Exception {
+    MetadataPropertyAccessor property = MetadataPlan.of(Child.class).findProperty("readOnly");
+    Child child = new Child();
+    assertEquals("fixed", property.getValue(child));
+    try {
+      property.setValue(child, "other");
+      fail("There is no setter for this property");
+    } catch (HopException e) {
+      assertNotNull(e.getMessage());
+    }
+  }
+
+  public static class Parent {
+    @HopMetadataProperty private String name;
+
+    public String getName() {
+      return name;
+    }
+
+    public void setName(String name) {
+      this.name = name;
+    }
+  }
+
+  public static class Child extends Parent {
+    @HopMetadataProperty private int count;
+
+    @HopMetadataProperty private boolean active;
+
+    @HopMetadataProperty private String readOnly = "fixed";
+
+    @HopMetadataProperty(key = "scratch_value")
+    private transient String scratch;
+
+    @HopMetadataProperty private List<String> values = new ArrayList<>();
+
+    public int getCount() {
+      return count;
+    }
+
+    public void setCount(int count) {
+      this.count = count;
+    }
+
+    public boolean isActive() {
+      return active;
+    }
+
+    public void setActive(boolean active) {
+      this.active = active;
+    }
+
+    public String getReadOnly() {
+      return readOnly;
+    }
+
+    public String getScratch() {
+      return scratch;
+    }
+
+    public void setScratch(String scratch) {
+      this.scratch = scratch;
+    }
+
+    public List<String> getValues() {
+      return values;
+    }
+
+    public void setValues(List<String> values) {
+      this.values = values;
+    }
+  }
+}
@@ -0,0 +1,97 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.core.vfs;
+
+import org.apache.commons.vfs2.FileObject;
+import org.apache.hop.core.HopEnvironment;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the throughput of resolving filenames with {@link HopVfs#getFileObject(String)} from
+ * many threads at the same time, the way parallel transform copies open their files.
+ *
+ * <p>This is not a unit test. It is only compiled with the benchmark profile: build the engine
+ * with {@code mvn test-compile -Pbenchmark} and run the main() method from the test class path.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+@Fork(1)
+public class HopVfsResolveBenchmark {
+
+  @Param({"100", "5000"})
+  public int nrFiles;
+
+  private String[] localFilenames;
+  private String[] ramFilenames;
+
+  @Setup
+  public void setUp() throws Exception {
+    HopEnvironment.init();
+
+    File folder = Files.createTempDirectory("hop-vfs-benchmark").toFile();
+    folder.deleteOnExit();
+    localFilenames = new String[nrFiles];
+    ramFilenames = new String[nrFiles];
+    for (int i = 0; i < nrFiles; i++) {
+      localFilenames[i] = new File(folder, "file-" + i + ".txt").getAbsolutePath();
+      ramFilenames[i] = "ram:///benchmark/file-" + i + ".txt";
+    }
+  }
+
+  @Benchmark
+  public FileObject resolveLocalFile() throws Exception {
+    return HopVfs.getFileObject(localFilenames[ThreadLocalRandom.current().nextInt(nrFiles)]);
+  }
+
+  @Benchmark
+  public FileObject resolveRamFile() throws Exception {
+    return HopVfs.getFileObject(ramFilenames[ThreadLocalRandom.current().nextInt(nrFiles)]);
+  }
+
+  @Benchmark
+  public FileObject createTempFile() throws Exception {
+    return HopVfs.createTempFile("benchmark", HopVfs.Suffix.TMP);
+  }
+
+  public static void main(String[] args) throws Exception {
+    new Runner(new OptionsBuilder().include(HopVfsResolveBenchmark.class.getSimpleName()).build())
+        .run();
+  }
+}
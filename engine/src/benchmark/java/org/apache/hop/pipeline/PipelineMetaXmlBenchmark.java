@@ -0,0 +1,112 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.pipeline;
+
+import org.apache.hop.core.HopEnvironment;
+import org.apache.hop.core.variables.IVariables;
+import org.apache.hop.core.variables.Variables;
+import org.apache.hop.core.xml.XmlHandler;
+import org.apache.hop.metadata.api.IHopMetadataProvider;
+import org.apache.hop.metadata.serializer.memory.MemoryMetadataProvider;
+import org.apache.hop.pipeline.transform.TransformMeta;
+import org.apache.hop.pipeline.transforms.injector.InjectorField;
+import org.apache.hop.pipeline.transforms.injector.InjectorMeta;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.w3c.dom.Document;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how long it takes to load a pipeline from its XML (.hpl) form and to serialize it again.
+ * The transforms are serialized with their metadata property annotations.
+ *
+ * <p>This is not a unit test. It is only compiled with the benchmark profile: build the engine
+ * with {@code mvn test-compile -Pbenchmark} and run the main() method from the test class path.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PipelineMetaXmlBenchmark {
+
+  @Param({"10", "250"})
+  public int nrTransforms;
+
+  private IVariables variables;
+  private IHopMetadataProvider metadataProvider;
+  private PipelineMeta pipelineMeta;
+  private String pipelineXml;
+
+  @Setup
+  public void setUp() throws Exception {
+    HopEnvironment.init();
+    variables = Variables.getADefaultVariableSpace();
+    metadataProvider = new MemoryMetadataProvider();
+
+    pipelineMeta = new PipelineMeta();
+    pipelineMeta.setName("benchmark");
+    TransformMeta previous = null;
+    for (int i = 0; i < nrTransforms; i++) {
+      InjectorMeta injectorMeta = new InjectorMeta();
+      for (int f = 0; f < 10; f++) {
+        injectorMeta
+            .getInjectorFields()
+            .add(new InjectorField("field" + f, "String", Integer.toString(f), "-1"));
+      }
+      TransformMeta transformMeta = new TransformMeta("injector" + i, injectorMeta);
+      pipelineMeta.addTransform(transformMeta);
+      if (previous != null) {
+        pipelineMeta.addPipelineHop(new PipelineHopMeta(previous, transformMeta));
+      }
+      previous = transformMeta;
+    }
+    pipelineXml = XmlHandler.getXmlHeader() + pipelineMeta.getXml(variables);
+  }
+
+  @Benchmark
+  public PipelineMeta loadPipeline() throws Exception {
+    Document document = XmlHandler.loadXmlString(pipelineXml);
+    return new PipelineMeta(
+        XmlHandler.getSubNode(document, PipelineMeta.XML_TAG), metadataProvider);
+  }
+
+  @Benchmark
+  public String serializePipeline() throws Exception {
+    return pipelineMeta.getXml(variables);
+  }
+
+  public static void main(String[] args) throws Exception {
+    new Runner(
+            new OptionsBuilder().include(PipelineMetaXmlBenchmark.class.getSimpleName()).build())
+        .run();
+  }
+}
@@ -0,0 +1,229 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.core.spill;
+
+import org.apache.hop.core.exception.HopException;
+import org.apache.hop.core.row.IRowMeta;
+import org.apache.hop.core.row.IValueMeta;
+import org.apache.hop.core.row.RowDataUtil;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.Date;
+
+/**
+ * The compact row encoding of spill files. A row starts with a bitmap flagging the null values
+ * followed by the values that are not null. Integers and dates are written as variable length
+ * integers, strings and binaries with a variable length prefix. There is no per value metadata.
+ *
+ * <p>Values of other types and values which aren't in normal storage (lazy conversion) are written
+ * with {@link IValueMeta#writeData(DataOutputStream, Object)}, including their own null flag.
+ *
+ * <p>An instance is not thread-safe, every reader and writer uses its own.
+ */
+public class CompactRowEncoding {
+  private static final int KIND_FALLBACK = 0;
+  private static final int KIND_STRING = 1;
+  private static final int KIND_INTEGER = 2;
+  private static final int KIND_NUMBER = 3;
+  private static final int KIND_DATE = 4;
+  private static final int KIND_TIMESTAMP = 5;
+  private static final int KIND_BOOLEAN = 6;
+  private static final int KIND_BIGNUMBER = 7;
+  private static final int KIND_BINARY = 8;
+
+  private final IRowMeta rowMeta;
+  private final IValueMeta[] valueMetas;
+  private final int[] kinds;
+  private final int bitmapSize;
+  private final byte[] nullBitmap;
+
+  public CompactRowEncoding(IRowMeta rowMeta) {
+    this.rowMeta = rowMeta;
+    int size = rowMeta.size();
+    valueMetas = new IValueMeta[size];
+    kinds = new int[size];
+    for (int i = 0; i < size; i++) {
+      valueMetas[i] = rowMeta.getValueMeta(i);
+      kinds[i] = getKind(valueMetas[i]);
+    }
+    bitmapSize = (size + 7) >>> 3;
+    nullBitmap = new byte[bitmapSize];
+  }
+
+  private static int getKind(IValueMeta valueMeta) {
+    if (valueMeta.getStorageType() != IValueMeta.STORAGE_TYPE_NORMAL) {
+      return KIND_FALLBACK;
+    }
+    switch (valueMeta.getType()) {
+      case IValueMeta.TYPE_STRING:
+        return KIND_STRING;
+      case IValueMeta.TYPE_INTEGER:
+        return KIND_INTEGER;
+      case IValueMeta.TYPE_NUMBER:
+        return KIND_NUMBER;
+      case IValueMeta.TYPE_DATE:
+        return KIND_DATE;
+      case IValueMeta.TYPE_TIMESTAMP:
+        return KIND_TIMESTAMP;
+      case IValueMeta.TYPE_BOOLEAN:
+        return KIND_BOOLEAN;
+      case IValueMeta.TYPE_BIGNUMBER:
+        return KIND_BIGNUMBER;
+      case IValueMeta.TYPE_BINARY:
+        return KIND_BINARY;
+      default:
+        return KIND_FALLBACK;
+    }
+  }
+
+  /** @return The row metadata this encoding was created for */
+  public IRowMeta getRowMeta() {
+    return rowMeta;
+  }
+
+  /**
+   * Append a row to a block.
+   *
+   * @param out The block to write to
+   * @param fallbackOut A data output stream on top of the same block, used for the fallback types
+   * @param row The row to write
+   */
+  public void writeRow(SpillBlockOutput out, DataOutputStream fallbackOut, Object[] row)
+      throws HopException, IOException {
+    // The null bitmap
+    //
+    for (int b = 0; b < bitmapSize; b++) {
+      int bits = 0;
+      for (int i = b << 3, bit = 0; i < kinds.length && bit < 8; i++, bit++) {
+        if (row[i] == null) {
+          bits |= 1 << bit;
+        }
+      }
+      out.write(bits);
+    }
+
+    for (int i = 0; i < kinds.length; i++) {
+      Object value = row[i];
+      if (kinds[i] == KIND_FALLBACK) {
+        valueMetas[i].writeData(fallbackOut, value);
+        continue;
+      }
+      if (value == null) {
+        continue;
+      }
+      switch (kinds[i]) {
+        case KIND_STRING:
+          out.writeBytes(((String) value).getBytes(StandardCharsets.UTF_8));
+          break;
+        case KIND_INTEGER:
+          out.writeZigZagLong((Long) value);
+          break;
+        case KIND_NUMBER:
+          out.writeLong(Double.doubleToLongBits((Double) value));
+          break;
+        case KIND_DATE:
+          out.writeZigZagLong(((Date) value).getTime());
+          break;
+        case KIND_TIMESTAMP:
+          Timestamp timestamp = (Timestamp) value;
+          out.writeZigZagLong(timestamp.getTime());
+          out.writeVarLong(timestamp.getNanos());
+          break;
+        case KIND_BOOLEAN:
+          out.write(((Boolean) value) ? 1 : 0);
+          break;
+        case KIND_BIGNUMBER:
+          BigDecimal bigDecimal = (BigDecimal) value;
+          out.writeZigZagLong(bigDecimal.scale());
+          out.writeBytes(bigDecimal.unscaledValue().toByteArray());
+          break;
+        case KIND_BINARY:
+          out.writeBytes((byte[]) value);
+          break;
+        default:
+          break;
+      }
+    }
+  }
+
+  /**
+   * Read the next row from a block.
+   *
+   * @param in The block to read from
+   * @param fallbackIn A data input stream on top of the same block, used for the fallback types
+   * @return The row
+   */
+  public Object[] readRow(SpillBlockInput in, DataInputStream fallbackIn)
+      throws HopException, IOException {
+    Object[] row = RowDataUtil.allocateRowData(kinds.length);
+
+    for (int b = 0; b < bitmapSize; b++) {
+      nullBitmap[b] = (byte) in.readByte();
+    }
+
+    for (int i = 0; i < kinds.length; i++) {
+      boolean isNull = (nullBitmap[i >>> 3] & (1 << (i & 7))) != 0;
+
+      if (kinds[i] == KIND_FALLBACK) {
+        row[i] = valueMetas[i].readData(fallbackIn);
+        continue;
+      }
+      if (isNull) {
+        continue;
+      }
+      switch (kinds[i]) {
+        case KIND_STRING:
+          row[i] = in.readString();
+          break;
+        case KIND_INTEGER:
+          row[i] = in.readZigZagLong();
+          break;
+        case KIND_NUMBER:
+          row[i] = Double.longBitsToDouble(in.readLong());
+          break;
+        case KIND_DATE:
+          row[i] = new Date(in.readZigZagLong());
+          break;
+        case KIND_TIMESTAMP:
+          Timestamp timestamp = new Timestamp(in.readZigZagLong());
+          timestamp.setNanos((int) in.readVarLong());
+          row[i] = timestamp;
+          break;
+        case KIND_BOOLEAN:
+          row[i] = in.readByte() != 0;
+          break;
+        case KIND_BIGNUMBER:
+          int scale = (int) in.readZigZagLong();
+          row[i] = new BigDecimal(new BigInteger(in.readBytes()), scale);
+          break;
+        case KIND_BINARY:
+          row[i] = in.readBytes();
+          break;
+        default:
+          break;
+      }
+    }
+    return row;
+  }
+}
@@ -0,0 +1,135 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.core.spill;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads one uncompressed block of a spill file, the counterpart of {@link SpillBlockOutput}. The
+ * block can be refilled to avoid allocating a new buffer for every block.
+ */
+public class SpillBlockInput extends InputStream {
+  private byte[] buffer;
+  private int position;
+  private int length;
+
+  public SpillBlockInput(int initialSize) {
+    buffer = new byte[Math.max(16, initialSize)];
+  }
+
+  /**
+   * Get a buffer of at least the given size to decompress the next block in. The content of the
+   * previous block is lost.
+   *
+   * @param size The size of the next block
+   * @return The buffer to fill
+   */
+  public byte[] prepare(int size) {
+    if (buffer.length < size) {
+      buffer = new byte[size];
+    }
+    position = 0;
+    length = size;
+    return buffer;
+  }
+
+  @Override
+  public int read() {
+    if (position >= length) {
+      return -1;
+    }
+    return buffer[position++] & 0xFF;
+  }
+
+  @Override
+  public int read(byte[] bytes, int offset, int len) {
+    if (position >= length) {
+      return -1;
+    }
+    int n = Math.min(len, length - position);
+    System.arraycopy(buffer, position, bytes, offset, n);
+    position += n;
+    return n;
+  }
+
+  @Override
+  public int available() {
+    return length - position;
+  }
+
+  public int readByte() throws IOException {
+    if (position >= length) {
+      throw new EOFException("Unexpected end of spill block");
+    }
+    return buffer[position++] & 0xFF;
+  }
+
+  public long readVarLong() throws IOException {
+    long value = 0;
+    int shift = 0;
+    int b;
+    do {
+      b = readByte();
+      value |= (long) (b & 0x7F) << shift;
+      shift += 7;
+    } while ((b & 0x80) != 0);
+    return value;
+  }
+
+  public long readZigZagLong() throws IOException {
+    long value = readVarLong();
+    return (value >>> 1) ^ -(value & 1);
+  }
+
+  public long readLong() throws IOException {
+    if (position + 8 > length) {
+      throw new EOFException("Unexpected end of spill block");
+    }
+    long value = 0;
+    for (int i = 0; i < 8; i++) {
+      value = (value << 8) | (buffer[position++] & 0xFF);
+    }
+    return value;
+  }
+
+  /** Read a length prefixed byte array. */
+  public byte[] readBytes() throws IOException {
+    int size = (int) readVarLong();
+    if (position + size > length) {
+      throw new EOFException("Unexpected end of spill block");
+    }
+    byte[] bytes = new byte[size];
+    System.arraycopy(buffer, position, bytes, 0, size);
+    position += size;
+    return bytes;
+  }
+
+  /** Read a length prefixed UTF-8 string without copying the bytes first. */
+  public String readString() throws IOException {
+    int size = (int) readVarLong();
+    if (position + size > length) {
+      throw new EOFException("Unexpected end of spill block");
+    }
+    String string = new String(buffer, position, size, StandardCharsets.UTF_8);
+    position += size;
+    return string;
+  }
+}
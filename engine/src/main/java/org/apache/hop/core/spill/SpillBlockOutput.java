@@ -0,0 +1,96 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.core.spill;
+
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * A growable, unsynchronized byte buffer holding one uncompressed block of a spill file. Next to the
+ * plain {@link OutputStream} methods it writes the variable length integers of the compact row
+ * encoding.
+ */
+public class SpillBlockOutput extends OutputStream {
+  private byte[] buffer;
+  private int length;
+
+  public SpillBlockOutput(int initialSize) {
+    buffer = new byte[Math.max(16, initialSize)];
+  }
+
+  @Override
+  public void write(int b) {
+    ensureCapacity(1);
+    buffer[length++] = (byte) b;
+  }
+
+  @Override
+  public void write(byte[] bytes, int offset, int len) {
+    ensureCapacity(len);
+    System.arraycopy(bytes, offset, buffer, length, len);
+    length += len;
+  }
+
+  /** Write an unsigned variable length integer, 7 bits per byte. */
+  public void writeVarLong(long value) {
+    ensureCapacity(10);
+    while ((value & ~0x7FL) != 0) {
+      buffer[length++] = (byte) ((value & 0x7F) | 0x80);
+      value >>>= 7;
+    }
+    buffer[length++] = (byte) value;
+  }
+
+  /** Write a signed variable length integer, small negative values take few bytes as well. */
+  public void writeZigZagLong(long value) {
+    writeVarLong((value << 1) ^ (value >> 63));
+  }
+
+  public void writeLong(long value) {
+    ensureCapacity(8);
+    for (int shift = 56; shift >= 0; shift -= 8) {
+      buffer[length++] = (byte) (value >>> shift);
+    }
+  }
+
+  /** Write a length prefixed byte array. */
+  public void writeBytes(byte[] bytes) {
+    writeVarLong(bytes.length);
+    write(bytes, 0, bytes.length);
+  }
+
+  private void ensureCapacity(int extra) {
+    if (length + extra > buffer.length) {
+      buffer = Arrays.copyOf(buffer, Math.max(buffer.length << 1, length + extra));
+    }
+  }
+
+  /** @return The internal buffer, only the first {@link #getLength()} bytes are valid */
+  public byte[] getBuffer() {
+    return buffer;
+  }
+
+  /** @return The number of bytes written since the last reset */
+  public int getLength() {
+    return length;
+  }
+
+  public void reset() {
+    length = 0;
+  }
+}
@@ -0,0 +1,121 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.core.spill;
+
+import org.xerial.snappy.Snappy;
+
+import java.io.IOException;
+
+/**
+ * The block compression used in spill files. Every block of a spill file is compressed on its own
+ * so the codecs work on byte arrays rather than on streams.
+ */
+public enum SpillCodec {
+  /** Blocks are stored as they are. */
+  NONE(0) {
+    @Override
+    public int maxCompressedLength(int length) {
+      return length;
+    }
+
+    @Override
+    public int compress(byte[] source, int length, byte[] target) {
+      System.arraycopy(source, 0, target, 0, length);
+      return length;
+    }
+
+    @Override
+    public void decompress(byte[] source, int length, byte[] target, int rawLength) {
+      System.arraycopy(source, 0, target, 0, rawLength);
+    }
+  },
+
+  /** Fast compression with a moderate ratio, the default for spill traffic. */
+  SNAPPY(1) {
+    @Override
+    public int maxCompressedLength(int length) {
+      return Snappy.maxCompressedLength(length);
+    }
+
+    @Override
+    public int compress(byte[] source, int length, byte[] target) throws IOException {
+      return Snappy.compress(source, 0, length, target, 0);
+    }
+
+    @Override
+    public void decompress(byte[] source, int length, byte[] target, int rawLength)
+        throws IOException {
+      Snappy.uncompress(source, 0, length, target, 0);
+    }
+  };
+
+  private final int id;
+
+  SpillCodec(int id) {
+    this.id = id;
+  }
+
+  /** @return The identifier of the codec as stored in the header of a spill file */
+  public int getId() {
+    return id;
+  }
+
+  /**
+   * @param length The length of the data to compress
+   * @return The size of the buffer needed to hold the compressed data in the worst case
+   */
+  public abstract int maxCompressedLength(int length);
+
+  /**
+   * Compress a block of data.
+   *
+   * @param source The data to compress, starting at offset 0
+   * @param length The number of bytes to compress
+   * @param target The buffer receiving the compressed data, at least {@link
+   *     #maxCompressedLength(int)} bytes long
+   * @return The number of compressed bytes
+   */
+  public abstract int compress(byte[] source, int length, byte[] target) throws IOException;
+
+  /**
+   * Decompress a block of data.
+   *
+   * @param source The compressed data, starting at offset 0
+   * @param length The number of compressed bytes
+   * @param target The buffer receiving the original data
+   * @param rawLength The length of the original data
+   */
+  public abstract void decompress(byte[] source, int length, byte[] target, int rawLength)
+      throws IOException;
+
+  /**
+   * Find a codec by the identifier stored in a spill file.
+   *
+   * @param id The identifier
+   * @return The codec
+   * @throws IOException if no codec has the given identifier
+   */
+  public static SpillCodec getCodecById(int id) throws IOException {
+    for (SpillCodec codec : values()) {
+      if (codec.id == id) {
+        return codec;
+      }
+    }
+    throw new IOException("Unknown spill file codec: " + id);
+  }
+}
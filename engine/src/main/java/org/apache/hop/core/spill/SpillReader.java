@@ -0,0 +1,191 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.core.spill;
+
+import org.apache.hop.core.exception.HopException;
+import org.apache.hop.core.exception.HopFileException;
+import org.apache.hop.core.row.IRowMeta;
+import org.apache.hop.core.util.ExecutorUtil;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * Reads back the rows of a spill file written by a {@link SpillWriter}. Each read from the
+ * underlying stream fetches a complete block. With read-ahead enabled the next block is read and
+ * decompressed in the background while the rows of the current block are being consumed.
+ */
+public class SpillReader implements AutoCloseable {
+  private final CompactRowEncoding encoding;
+  private final DataInputStream in;
+  private final SpillCodec codec;
+  private final boolean readAhead;
+
+  private Block current;
+  private Block spare;
+  private Future<Block> nextBlock;
+  private boolean endReached;
+  private boolean closed;
+
+  public SpillReader(IRowMeta rowMeta, InputStream inputStream) throws HopFileException {
+    this(rowMeta, inputStream, false);
+  }
+
+  /**
+   * Open a spill file.
+   *
+   * @param rowMeta The layout of the rows in the file
+   * @param inputStream The stream to read from, closed when the reader is closed
+   * @param readAhead true to read and decompress the next block in the background
+   */
+  public SpillReader(IRowMeta rowMeta, InputStream inputStream, boolean readAhead)
+      throws HopFileException {
+    this.encoding = new CompactRowEncoding(rowMeta);
+    this.in = new DataInputStream(new BufferedInputStream(inputStream, 64 * 1024));
+    this.readAhead = readAhead;
+    try {
+      if (in.readInt() != SpillWriter.MAGIC) {
+        throw new HopFileException("This is not a spill file");
+      }
+      this.codec = SpillCodec.getCodecById(in.readUnsignedByte());
+    } catch (IOException e) {
+      throw new HopFileException("Unable to read the header of the spill file", e);
+    }
+    current = new Block();
+    spare = new Block();
+    if (readAhead) {
+      scheduleNextBlock();
+    }
+  }
+
+  /**
+   * Read the next row.
+   *
+   * @return The next row or null if all rows have been read
+   */
+  public Object[] readRow() throws HopFileException {
+    try {
+      while (current.rowsLeft == 0) {
+        if (!nextBlock()) {
+          return null;
+        }
+      }
+      current.rowsLeft--;
+      return encoding.readRow(current.data, current.dataIn);
+    } catch (HopException | IOException e) {
+      throw new HopFileException("Unable to read a row from the spill file", e);
+    }
+  }
+
+  private boolean nextBlock() throws IOException {
+    if (endReached) {
+      return false;
+    }
+    Block block;
+    if (readAhead) {
+      block = waitForNextBlock();
+      if (block != null) {
+        spare = current;
+        current = block;
+        scheduleNextBlock();
+      }
+    } else {
+      block = readBlock(current);
+    }
+    if (block == null) {
+      endReached = true;
+      return false;
+    }
+    return true;
+  }
+
+  private void scheduleNextBlock() {
+    final Block target = spare;
+    nextBlock = ExecutorUtil.getExecutor().submit(() -> readBlock(target));
+  }
+
+  private Block waitForNextBlock() throws IOException {
+    try {
+      return nextBlock.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while reading the spill file", e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof IOException) {
+        throw (IOException) e.getCause();
+      }
+      throw new IOException("Unable to read the spill file", e.getCause());
+    } finally {
+      nextBlock = null;
+    }
+  }
+
+  /** Read and decompress a block, returns null at the end of the file. */
+  private Block readBlock(Block block) throws IOException {
+    int rows = in.readInt();
+    if (rows == 0) {
+      return null;
+    }
+    int rawLength = in.readInt();
+    int length = in.readInt();
+    if (codec == SpillCodec.NONE) {
+      in.readFully(block.data.prepare(rawLength), 0, rawLength);
+    } else {
+      if (block.compressed == null || block.compressed.length < length) {
+        block.compressed = new byte[length];
+      }
+      in.readFully(block.compressed, 0, length);
+      codec.decompress(block.compressed, length, block.data.prepare(rawLength), rawLength);
+    }
+    block.rowsLeft = rows;
+    return block;
+  }
+
+  @Override
+  public void close() throws HopFileException {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    try {
+      if (nextBlock != null) {
+        // Don't close the stream underneath the background read
+        //
+        try {
+          waitForNextBlock();
+        } catch (IOException e) {
+          // We're closing anyway
+        }
+      }
+      in.close();
+    } catch (IOException e) {
+      throw new HopFileException("Unable to close the spill file", e);
+    }
+  }
+
+  private static final class Block {
+    private final SpillBlockInput data = new SpillBlockInput(SpillWriter.DEFAULT_BLOCK_SIZE);
+    private final DataInputStream dataIn = new DataInputStream(data);
+    private byte[] compressed;
+    private int rowsLeft;
+  }
+}
@@ -0,0 +1,150 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.core.spill;
+
+import org.apache.hop.core.exception.HopException;
+import org.apache.hop.core.exception.HopFileException;
+import org.apache.hop.core.row.IRowMeta;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes rows to a spill file: a temporary file holding rows which don't fit in memory. Rows are
+ * written with the {@link CompactRowEncoding} into blocks which are compressed one by one with a
+ * {@link SpillCodec}.
+ *
+ * <p>The file starts with a magic number and the codec identifier. Every block starts with the
+ * number of rows, the uncompressed and the compressed size. A block with zero rows ends the file.
+ * Read the file back with a {@link SpillReader}.
+ */
+public class SpillWriter implements AutoCloseable {
+  /** "HSP1": Hop spill file, version 1 */
+  static final int MAGIC = 0x48535031;
+
+  /** The default uncompressed block size in bytes */
+  public static final int DEFAULT_BLOCK_SIZE = 64 * 1024;
+
+  private final CompactRowEncoding encoding;
+  private final SpillCodec codec;
+  private final int blockSize;
+  private final DataOutputStream out;
+
+  private final SpillBlockOutput block;
+  private final DataOutputStream blockData;
+  private byte[] compressed;
+  private int blockRows;
+  private long rowCount;
+  private boolean closed;
+
+  public SpillWriter(IRowMeta rowMeta, OutputStream outputStream, SpillCodec codec)
+      throws HopFileException {
+    this(rowMeta, outputStream, codec, DEFAULT_BLOCK_SIZE);
+  }
+
+  /**
+   * Create a new spill file writer.
+   *
+   * @param rowMeta The layout of the rows to write
+   * @param outputStream The stream to write to, closed when the writer is closed
+   * @param codec The block compression
+   * @param blockSize The uncompressed size in bytes after which a block is written
+   */
+  public SpillWriter(IRowMeta rowMeta, OutputStream outputStream, SpillCodec codec, int blockSize)
+      throws HopFileException {
+    this.encoding = new CompactRowEncoding(rowMeta);
+    this.codec = codec;
+    this.blockSize = Math.max(1024, blockSize);
+    this.out = new DataOutputStream(new BufferedOutputStream(outputStream, 64 * 1024));
+    this.block = new SpillBlockOutput(this.blockSize + this.blockSize / 4);
+    this.blockData = new DataOutputStream(block);
+
+    try {
+      out.writeInt(MAGIC);
+      out.writeByte(codec.getId());
+    } catch (IOException e) {
+      throw new HopFileException("Unable to write the header of the spill file", e);
+    }
+  }
+
+  /**
+   * Add a row to the spill file.
+   *
+   * @param row The row to write
+   */
+  public void writeRow(Object[] row) throws HopFileException {
+    try {
+      encoding.writeRow(block, blockData, row);
+      blockRows++;
+      rowCount++;
+      if (block.getLength() >= blockSize) {
+        writeBlock();
+      }
+    } catch (HopException | IOException e) {
+      throw new HopFileException("Unable to write a row to the spill file", e);
+    }
+  }
+
+  private void writeBlock() throws IOException {
+    if (blockRows == 0) {
+      return;
+    }
+    int rawLength = block.getLength();
+    if (codec == SpillCodec.NONE) {
+      out.writeInt(blockRows);
+      out.writeInt(rawLength);
+      out.writeInt(rawLength);
+      out.write(block.getBuffer(), 0, rawLength);
+    } else {
+      int maxLength = codec.maxCompressedLength(rawLength);
+      if (compressed == null || compressed.length < maxLength) {
+        compressed = new byte[maxLength];
+      }
+      int length = codec.compress(block.getBuffer(), rawLength, compressed);
+      out.writeInt(blockRows);
+      out.writeInt(rawLength);
+      out.writeInt(length);
+      out.write(compressed, 0, length);
+    }
+    block.reset();
+    blockRows = 0;
+  }
+
+  /** @return The number of rows written so far */
+  public long getRowCount() {
+    return rowCount;
+  }
+
+  /** Write the last block and the end marker and close the file. */
+  @Override
+  public void close() throws HopFileException {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    try {
+      writeBlock();
+      out.writeInt(0);
+      out.close();
+    } catch (IOException e) {
+      throw new HopFileException("Unable to close the spill file", e);
+    }
+  }
+}
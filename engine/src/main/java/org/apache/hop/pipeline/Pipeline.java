@@ -31,6 +31,7 @@ import org.apache.hop.core.QueueRowSet;
 import org.apache.hop.core.Result;
 import org.apache.hop.core.ResultFile;
 import org.apache.hop.core.RowMetaAndData;
+import org.apache.hop.core.SpscRowSet;
 import org.apache.hop.core.database.Database;
 import org.apache.hop.core.exception.HopException;
 import org.apache.hop.core.exception.HopFileException;
@@ -259,6 +260,9 @@ public abstract class Pipeline
   /** Int value for storage pipeline statuses */
   private AtomicInteger status;
 
+  /** Notified when the pipeline starts running or gets stopped, see {@link #waitUntilRunning}. */
+  private final Object runningMonitor = new Object();
+
   /** Boolean to check if pipeline is already stopped */
   private final AtomicBoolean isAlreadyStopped = new AtomicBoolean(false);
 
@@ -361,6 +365,9 @@ public abstract class Pipeline
 
   protected int rowSetSize;
 
+  /** Whether the hops use the lock-free single producer, single consumer row set. */
+  protected boolean lockFreeRowSets;
+
   /** Whether the feedback is shown. */
   protected boolean feedbackShown;
 
@@ -704,7 +711,9 @@ public abstract class Pipeline
                 Boolean batchingRowSet =
                     ValueMetaString.convertStringToBoolean(
                         System.getProperty(Const.HOP_BATCHING_ROWSET));
-                if (batchingRowSet != null && batchingRowSet.booleanValue()) {
+                if (lockFreeRowSets) {
+                  rowSet = new SpscRowSet(rowSetSize);
+                } else if (batchingRowSet != null && batchingRowSet.booleanValue()) {
                   rowSet = new BlockingBatchingRowSet(rowSetSize);
                 } else {
                   rowSet = new BlockingRowSet(rowSetSize);
@@ -755,7 +764,11 @@ public abstract class Pipeline
           // distribution...
           for (int s = 0; s < thisCopies; s++) {
             for (int t = 0; t < nextCopies; t++) {
-              BlockingRowSet rowSet = new BlockingRowSet(rowSetSize);
+              // Every source copy gets its own row set to every target copy, so these are still
+              // written by one thread and read by one thread.
+              //
+              IRowSet rowSet =
+                  lockFreeRowSets ? new SpscRowSet(rowSetSize) : new BlockingRowSet(rowSetSize);
               rowSet.setThreadNameFromToCopy(
                   thisTransform.getName(), s, nextTransform.getName(), t);
               rowsets.add(rowSet);
@@ -2164,6 +2177,36 @@ public abstract class Pipeline
    */
   public void setRunning(boolean running) {
     status.updateAndGet(v -> running ? v | RUNNING.mask : (BIT_STATUS_SUM ^ RUNNING.mask) & v);
+    notifyRunningMonitor();
+  }
+
+  /**
+   * Wait until the pipeline is running or stopped, or until the timeout expires. Transforms call
+   * this while the other transform threads are being started.
+   *
+   * @param timeout The maximum time to wait
+   * @param unit The unit of the timeout
+   * @throws InterruptedException in case the waiting thread was interrupted
+   */
+  @Override
+  public void waitUntilRunning(long timeout, TimeUnit unit) throws InterruptedException {
+    long timeoutNanos = unit.toNanos(timeout);
+    long start = System.nanoTime();
+    synchronized (runningMonitor) {
+      while (!isRunning() && !isStopped()) {
+        long remaining = timeoutNanos - (System.nanoTime() - start);
+        if (remaining <= 0) {
+          return;
+        }
+        TimeUnit.NANOSECONDS.timedWait(runningMonitor, remaining);
+      }
+    }
+  }
+
+  private void notifyRunningMonitor() {
+    synchronized (runningMonitor) {
+      runningMonitor.notifyAll();
+    }
   }
 
   /**
@@ -2575,6 +2618,7 @@ public abstract class Pipeline
 
   public void setStopped(boolean stopped) {
     status.updateAndGet(v -> stopped ? v | STOPPED.mask : (BIT_STATUS_SUM ^ STOPPED.mask) & v);
+    notifyRunningMonitor();
   }
 
   /**
@@ -3501,6 +3545,22 @@ public abstract class Pipeline
     this.rowSetSize = rowSetSize;
   }
 
+  /**
+   * Gets lockFreeRowSets
+   *
+   * @return true if the hops between transforms use lock-free row sets
+   */
+  public boolean isLockFreeRowSets() {
+    return lockFreeRowSets;
+  }
+
+  /**
+   * @param lockFreeRowSets true if the hops between transforms should use lock-free row sets
+   */
+  public void setLockFreeRowSets(boolean lockFreeRowSets) {
+    this.lockFreeRowSets = lockFreeRowSets;
+  }
+
   /**
    * Gets feedbackShown
    *
@@ -276,6 +276,10 @@ public class PipelineMeta extends AbstractMeta
         pipelineMeta.notes = new ArrayList<>();
         pipelineMeta.namedParams = new NamedParameters();
         pipelineMeta.transformChangeListeners = new ArrayList<>();
+        // The caches refer to our transforms, the clone builds its own
+        pipelineMeta.transformFieldsCache = new HashMap<>();
+        pipelineMeta.loopCache = new HashMap<>();
+        pipelineMeta.previousTransformCache = new HashMap<>();
       }
       for (TransformMeta transform : transforms) {
         pipelineMeta.addTransform((TransformMeta) transform.clone());
@@ -23,10 +23,12 @@ import org.apache.hop.core.exception.HopException;
 import org.apache.hop.core.logging.ILogChannel;
 import org.apache.hop.i18n.BaseMessages;
 import org.apache.hop.pipeline.transform.BaseTransform;
+import org.apache.hop.pipeline.transform.ITransform;
 import org.apache.hop.pipeline.transform.TransformMetaDataCombi;
 import org.apache.hop.pipeline.transform.stream.IStream;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 public class SingleThreadedPipelineExecutor {
@@ -393,6 +395,75 @@ public class SingleThreadedPipelineExecutor {
     return nrDone < transforms.size() && !pipeline.isStopped();
   }
 
+  /**
+   * Let every transform process all its rows, one transform after the other, until every transform
+   * is finished. Unlike {@link #oneIteration()} this also finishes the transforms which read from
+   * other transforms. Afterwards the pipeline can be run again for a new set of rows with {@link
+   * #reset()}.
+   *
+   * @return true if all transforms finished without errors.
+   */
+  public boolean processAllRows() throws HopException {
+    try {
+      for (int s = 0; s < transforms.size() && !pipeline.isStopped(); s++) {
+        if (done[s]) {
+          continue;
+        }
+        TransformMetaDataCombi combi = transforms.get(s);
+        this.inProcessCombi = combi;
+
+        // The transforms are sorted so all the transforms before this one are finished.
+        // That means the transform will see the end of its input.
+        //
+        boolean transformDone = false;
+        while (!transformDone && !pipeline.isStopped()) {
+          transformDone = !combi.transform.processRow();
+          if (combi.transform.getErrors() > 0) {
+            return false;
+          }
+        }
+        if (transformDone) {
+          done[s] = true;
+          nrDone++;
+        }
+      }
+    } catch (Exception e) {
+      throw new HopException("Error processing all rows in a single threaded pipeline", e);
+    }
+    return nrDone == transforms.size();
+  }
+
+  /** @return true if all the transforms of the pipeline support {@link ITransform#reset()} */
+  public boolean isResettable() {
+    for (TransformMetaDataCombi combi : transforms) {
+      if (!combi.transform.isResettable()) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Get the pipeline ready to process a new set of rows after {@link #processAllRows()}, without
+   * disposing and initializing the transforms again. The row sets and the result rows and files of
+   * the pipeline are cleared and every transform is reset.
+   *
+   * @throws HopException In case a transform can't be reset.
+   */
+  public void reset() throws HopException {
+    for (IRowSet rowSet : pipeline.getRowsets()) {
+      rowSet.clear();
+    }
+    pipeline.setResultRows(new ArrayList<>());
+    pipeline.setResultFiles(new ArrayList<>());
+
+    for (TransformMetaDataCombi combi : transforms) {
+      combi.transform.reset();
+    }
+    Arrays.fill(done, false);
+    nrDone = 0;
+  }
+
   public void buildExecutionSummary() {
 
     for (int s = 0; s < transforms.size(); s++) {
@@ -41,6 +41,7 @@ import org.apache.hop.workflow.engine.IWorkflowEngine;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Describes the capabilities of an execution engine for a certain type of object called the subject
@@ -166,6 +167,22 @@ public interface IPipelineEngine<T extends PipelineMeta>
    */
   boolean isStopped();
 
+  /**
+   * Wait until the engine is running or stopped, or until the timeout expires. Engines that can
+   * notify waiting threads override this, the default implementation checks every millisecond.
+   *
+   * @param timeout The maximum time to wait
+   * @param unit The unit of the timeout
+   * @throws InterruptedException in case the waiting thread was interrupted
+   */
+  default void waitUntilRunning(long timeout, TimeUnit unit) throws InterruptedException {
+    long timeoutNanos = unit.toNanos(timeout);
+    long start = System.nanoTime();
+    while (!isRunning() && !isStopped() && System.nanoTime() - start < timeoutNanos) {
+      Thread.sleep(1);
+    }
+  }
+
   /** Pauses the execution (all components). */
   void pauseExecution();
 
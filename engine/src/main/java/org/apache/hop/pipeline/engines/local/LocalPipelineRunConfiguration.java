@@ -144,6 +144,18 @@ public class LocalPipelineRunConfiguration extends EmptyPipelineRunConfiguration
   @HopMetadataProperty(key = "transactional")
   protected boolean transactional;
 
+  @GuiWidgetElement(
+      id = "lockFreeRowSets",
+      order = "110",
+      parentId = PipelineRunConfiguration.GUI_PLUGIN_ELEMENT_PARENT_ID,
+      type = GuiElementType.CHECKBOX,
+      label =
+          "i18n:org.apache.hop.ui.pipeline.config:PipelineRunConfigurationDialog.LockFreeRowSets.Label",
+      toolTip =
+          "i18n:org.apache.hop.ui.pipeline.config:PipelineRunConfigurationDialog.LockFreeRowSets.ToolTip")
+  @HopMetadataProperty(key = "lock_free_rowsets")
+  protected boolean lockFreeRowSets;
+
   public enum SampleType {
     None,
     First,
@@ -160,6 +172,7 @@ public class LocalPipelineRunConfiguration extends EmptyPipelineRunConfiguration
     this.sampleTypeInGui = SampleType.Last.name();
     this.sampleSize = "100";
     this.transactional = false;
+    this.lockFreeRowSets = false;
   }
 
   public LocalPipelineRunConfiguration(LocalPipelineRunConfiguration config) {
@@ -174,6 +187,7 @@ public class LocalPipelineRunConfiguration extends EmptyPipelineRunConfiguration
     this.sampleTypeInGui = config.sampleTypeInGui;
     this.sampleSize = config.sampleSize;
     this.transactional = config.transactional;
+    this.lockFreeRowSets = config.lockFreeRowSets;
   }
 
   @Override
@@ -347,4 +361,20 @@ public class LocalPipelineRunConfiguration extends EmptyPipelineRunConfiguration
   public void setTransactional(boolean transactional) {
     this.transactional = transactional;
   }
+
+  /**
+   * Gets lockFreeRowSets
+   *
+   * @return value of lockFreeRowSets
+   */
+  public boolean isLockFreeRowSets() {
+    return lockFreeRowSets;
+  }
+
+  /**
+   * @param lockFreeRowSets The lockFreeRowSets to set
+   */
+  public void setLockFreeRowSets(boolean lockFreeRowSets) {
+    this.lockFreeRowSets = lockFreeRowSets;
+  }
 }
@@ -26,6 +26,7 @@ import org.apache.hop.core.Const;
 import org.apache.hop.core.IExtensionData;
 import org.apache.hop.core.IRowSet;
 import org.apache.hop.core.ResultFile;
+import org.apache.hop.core.WakeupSignal;
 import org.apache.hop.core.exception.HopException;
 import org.apache.hop.core.exception.HopRowException;
 import org.apache.hop.core.exception.HopTransformException;
@@ -197,6 +198,9 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
   /** The rowsets on the input, size() == nr of source transforms */
   private List<IRowSet> inputRowSets;
 
+  /** The input row sets before the first one was removed because it was done, see reset() */
+  private List<IRowSet> allInputRowSets;
+
   private final ReentrantReadWriteLock inputRowSetsLock = new ReentrantReadWriteLock();
 
   /** the rowsets on the output, size() == nr of target transforms */
@@ -217,6 +221,12 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
 
   private AtomicBoolean paused;
 
+  /**
+   * Raised when this transform is paused, resumed or stopped and when rows arrive on one of its
+   * input row sets. The transform thread waits on it instead of polling.
+   */
+  private final WakeupSignal wakeupSignal = new WakeupSignal();
+
   private boolean init;
 
   /** the copy number of this thread */
@@ -289,23 +299,14 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
 
   private static final int NR_OF_ROWS_IN_BLOCK = 500;
 
+  /** The default number of rows transforms working with batches ask for in {@link #getRows(int)} */
+  public static final int ROW_BATCH_SIZE = 100;
+
   private int blockPointer;
 
   private List<ITransformFinishedListener> transformFinishedListeners;
   private List<ITransformStartedListener> transformStartedListeners;
 
-  /**
-   * The upper buffer size boundary after which we manage the thread priority a little bit to
-   * prevent excessive locking
-   */
-  private int upperBufferBoundary;
-
-  /**
-   * The lower buffer size boundary after which we manage the thread priority a little bit to
-   * prevent excessive locking
-   */
-  private int lowerBufferBoundary;
-
   /** maximum number of errors to allow */
   private Long maxErrors = -1L;
 
@@ -434,14 +435,6 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
 
     dispatch();
 
-    if (pipeline != null) {
-      upperBufferBoundary = (int) (pipeline.getRowSetSize() * 0.99);
-      lowerBufferBoundary = (int) (pipeline.getRowSetSize() * 0.01);
-    } else {
-      upperBufferBoundary = 100;
-      lowerBufferBoundary = 10;
-    }
-
     setInternalVariables();
   }
 
@@ -990,6 +983,38 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
    */
   @Override
   public void putRow(IRowMeta rowMeta, Object[] row) throws HopTransformException {
+    verifyOutputRowMeta(rowMeta);
+    getRowHandler().putRow(rowMeta, row);
+
+    // This transform is not reading data, only writing
+    //
+    if (firstRowReadDate == null) {
+      firstRowReadDate = new Date();
+    }
+  }
+
+  /**
+   * putRows is the batch version of {@link #putRow(IRowMeta, Object[])}. The pause and stop checks,
+   * the output row sets locking and the row set hand-over are done once for the whole batch instead
+   * of once per row. Row listeners are still called for every row.
+   *
+   * @param rowMeta The row metadata of all the rows in the batch
+   * @param rows The rows to put to the destination rowset(s), only the first count entries are used
+   * @param count The number of rows to put
+   * @throws HopTransformException
+   */
+  public void putRows(IRowMeta rowMeta, Object[][] rows, int count) throws HopTransformException {
+    verifyOutputRowMeta(rowMeta);
+    getRowHandler().putRows(rowMeta, rows, count);
+
+    // This transform is not reading data, only writing
+    //
+    if (firstRowReadDate == null) {
+      firstRowReadDate = new Date();
+    }
+  }
+
+  private void verifyOutputRowMeta(IRowMeta rowMeta) throws HopTransformException {
     if (rowMeta != null) {
       if (!allowEmptyFieldNamesAndTypes) {
         // check row meta for empty field name (BACKLOG-18004)
@@ -1007,69 +1032,70 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
         }
       }
     }
-    getRowHandler().putRow(rowMeta, row);
+  }
 
-    // This transform is not reading data, only writing
+  private void handlePutRow(IRowMeta rowMeta, Object[] row) throws HopTransformException {
+    if (!waitUntilReadyToPutRows()) {
+      return;
+    }
+
+    // call all row listeners...
     //
-    if (firstRowReadDate == null) {
-      firstRowReadDate = new Date();
+    for (IRowListener listener : rowListeners) {
+      listener.rowWrittenEvent(rowMeta, row);
     }
-  }
 
-  private void handlePutRow(IRowMeta rowMeta, Object[] row) throws HopTransformException {
-    // Are we pausing the transform? If so, stall forever...
+    // Keep adding to terminator_rows buffer...
     //
-    while (paused.get() && !stopped.get()) {
+    if (terminator && terminatorRows != null) {
       try {
-        Thread.sleep(1);
-      } catch (InterruptedException e) {
-        throw new HopTransformException(e);
+        terminatorRows.add(rowMeta.cloneRow(row));
+      } catch (HopValueException e) {
+        throw new HopTransformException(
+            "Unable to clone row while adding rows to the terminator rows.", e);
       }
     }
 
-    // Right after the pause loop we have to check if this thread is stopped or
-    // not.
-    //
-    if (stopped.get() && !safeStopped.get()) {
-      if (log.isDebug()) {
-        logDebug(BaseMessages.getString(PKG, "BaseTransform.Log.StopPuttingARow"));
+    outputRowSetsLock.readLock().lock();
+    try {
+      if (outputRowSets.isEmpty()) {
+        // No more output rowsets!
+        // Still update the nr of lines written.
+        //
+        incrementLinesWritten();
+
+        return; // we're done here!
       }
-      stopAll();
-      return;
+
+      putRowToOutputRowSets(rowMeta, row);
+    } finally {
+      outputRowSetsLock.readLock().unlock();
     }
+  }
 
-    // Have all threads started?
-    // Are we running yet? If not, wait a bit until all threads have been
-    // started.
-    //
-    if (this.checkPipelineRunning == false) {
-      int counter = 0;
-      while (!pipeline.isRunning() && !stopped.get()) {
-        try {
-          Thread.sleep(1000);
-          counter++;
-        } catch (InterruptedException e) {
-          // Ignore
-        }
-        // wait 3s max
-        if (counter >= 3) {
-          break;
-        }
-      }
-      this.checkPipelineRunning = true;
+  private void handlePutRows(IRowMeta rowMeta, Object[][] rows, int count)
+      throws HopTransformException {
+    if (count <= 0 || !waitUntilReadyToPutRows()) {
+      return;
     }
 
     // call all row listeners...
     //
-    for (IRowListener listener : rowListeners) {
-      listener.rowWrittenEvent(rowMeta, row);
+    if (!rowListeners.isEmpty()) {
+      for (int i = 0; i < count; i++) {
+        for (IRowListener listener : rowListeners) {
+          listener.rowWrittenEvent(rowMeta, rows[i]);
+        }
+      }
     }
 
     // Keep adding to terminator_rows buffer...
     //
     if (terminator && terminatorRows != null) {
       try {
-        terminatorRows.add(rowMeta.cloneRow(row));
+        for (int i = 0; i < count; i++) {
+          terminatorRows.add(rowMeta.cloneRow(rows[i]));
+        }
       } catch (HopValueException e) {
         throw new HopTransformException(
             "Unable to clone row while adding rows to the terminator rows.", e);
@@ -1082,36 +1108,90 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
         // No more output rowsets!
         // Still update the nr of lines written.
         //
-        incrementLinesWritten();
-
-        return; // we're done here!
+        synchronized (statusCountersLock) {
+          linesWritten += count;
+        }
+        return;
       }
 
-      // Repartitioning happens when the current transform is not partitioned, but the next one is.
-      // That means we need to look up the partitioning information in the next transform..
-      // If there are multiple transforms, we need to look at the first (they should be all the
-      // same)
+      // With a single target row set and no partitioning or plugin row distribution, every row
+      // goes to the same place: hand over the whole batch at once.
       //
-      switch (repartitioning) {
-        case TransformPartitioningMeta.PARTITIONING_METHOD_NONE:
-          noPartitioning(rowMeta, row);
-          break;
-
-        case TransformPartitioningMeta.PARTITIONING_METHOD_SPECIAL:
-          specialPartitioning(rowMeta, row);
-          break;
-        case TransformPartitioningMeta.PARTITIONING_METHOD_MIRROR:
-          mirrorPartitioning(rowMeta, row);
-          break;
-        default:
-          throw new HopTransformException(
-              "Internal error: invalid repartitioning type: " + repartitioning);
+      if (repartitioning == TransformPartitioningMeta.PARTITIONING_METHOD_NONE
+          && outputRowSets.size() == 1
+          && (!distributed || rowDistribution == null)) {
+        putRowsToRowSet(outputRowSets.get(0), rowMeta, rows, count);
+        synchronized (statusCountersLock) {
+          linesWritten += count;
+        }
+      } else {
+        for (int i = 0; i < count; i++) {
+          putRowToOutputRowSets(rowMeta, rows[i]);
+        }
       }
     } finally {
       outputRowSetsLock.readLock().unlock();
     }
   }
 
+  /**
+   * Waits while the transform is paused and until the pipeline is running.
+   *
+   * @return false if the transform was stopped and no rows should be put anymore.
+   */
+  private boolean waitUntilReadyToPutRows() throws HopTransformException {
+    // Are we pausing the transform? If so, stall forever...
+    //
+    waitWhilePaused();
+
+    // Right after the pause loop we have to check if this thread is stopped or
+    // not.
+    //
+    if (stopped.get() && !safeStopped.get()) {
+      if (log.isDebug()) {
+        logDebug(BaseMessages.getString(PKG, "BaseTransform.Log.StopPuttingARow"));
+      }
+      stopAll();
+      return false;
+    }
+
+    // Have all threads started?
+    // Are we running yet? If not, wait a bit until all threads have been
+    // started.
+    //
+    if (this.checkPipelineRunning == false) {
+      // wait 3s max
+      waitUntilPipelineIsRunning(3, TimeUnit.SECONDS);
+      this.checkPipelineRunning = true;
+    }
+    return true;
+  }
+
+  /** Called with the output row sets read lock held. */
+  private void putRowToOutputRowSets(IRowMeta rowMeta, Object[] row)
+      throws HopTransformException {
+    // Repartitioning happens when the current transform is not partitioned, but the next one is.
+    // That means we need to look up the partitioning information in the next transform..
+    // If there are multiple transforms, we need to look at the first (they should be all the
+    // same)
+    //
+    switch (repartitioning) {
+      case TransformPartitioningMeta.PARTITIONING_METHOD_NONE:
+        noPartitioning(rowMeta, row);
+        break;
+
+      case TransformPartitioningMeta.PARTITIONING_METHOD_SPECIAL:
+        specialPartitioning(rowMeta, row);
+        break;
+      case TransformPartitioningMeta.PARTITIONING_METHOD_MIRROR:
+        mirrorPartitioning(rowMeta, row);
+        break;
+      default:
+        throw new HopTransformException(
+            "Internal error: invalid repartitioning type: " + repartitioning);
+    }
+  }
+
   /** Copy always to all target transforms/copies */
   private void mirrorPartitioning(IRowMeta rowMeta, Object[] row) {
     for (IRowSet rowSet : outputRowSets) {
@@ -1196,17 +1276,6 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
         //
         IRowSet rs = outputRowSets.get(currentOutputRowSetNr);
 
-        // To reduce stress on the locking system we are NOT going to allow
-        // the buffer to grow to its full capacity.
-
-        if (!rs.isDone() && rs.size() >= upperBufferBoundary && !isStopped()) {
-          try {
-            Thread.sleep(0, 1);
-          } catch (InterruptedException e) {
-            // Ignore sleep interruption exception
-          }
-        }
-
         // Loop until we find room in the target rowset
         //
         putRowToRowSet(rs, rowMeta, row);
@@ -1232,17 +1301,6 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
 
         IRowSet rs = outputRowSets.get(i);
 
-        // To reduce stress on the locking system we are NOT going to allow
-        // the buffer to grow to its full capacity.
-
-        if (!rs.isDone() && rs.size() >= upperBufferBoundary && !isStopped()) {
-          try {
-            Thread.sleep(0, 1);
-          } catch (InterruptedException e) {
-            // Ignore sleep interruption exception
-          }
-        }
-
         try {
           // Loop until we find room in the target rowset
           //
@@ -1280,6 +1338,32 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
     }
   }
 
+  private void putRowsToRowSet(IRowSet rs, IRowMeta rowMeta, Object[][] rows, int count) {
+    IRowMeta toBeSent;
+    IRowMeta metaFromRs = rs.getRowMeta();
+    if (metaFromRs == null) {
+      // IRowSet is not initialised so far
+      toBeSent = rowMeta.clone();
+    } else {
+      // use the existing
+      toBeSent = metaFromRs;
+    }
+
+    Object[][] remaining = rows;
+    int remainingCount = count;
+    int added = rs.putRows(toBeSent, remaining, remainingCount);
+    while (added < remainingCount) {
+      if (isStopped() && !safeStopped.get()) {
+        return;
+      }
+      if (added > 0) {
+        remaining = Arrays.copyOfRange(remaining, added, remainingCount);
+        remainingCount -= added;
+      }
+      added = rs.putRows(toBeSent, remaining, remainingCount);
+    }
+  }
+
   /**
    * putRowTo is used to put a row in a certain specific IRowSet.
    *
@@ -1304,13 +1388,7 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
 
     // Are we pausing the transform? If so, stall forever...
     //
-    while (paused.get() && !stopped.get()) {
-      try {
-        Thread.sleep(1);
-      } catch (InterruptedException e) {
-        throw new HopTransformException(e);
-      }
-    }
+    waitWhilePaused();
 
     // Do not call the row listeners for targeted rows.
     // It can cause rows with varying layouts to arrive at the same listener without a way to keep them apart.
@@ -1495,6 +1573,92 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
     }
   }
 
+  /**
+   * Wait while the transform is paused. Pausing, resuming and stopping raise the wake-up signal so
+   * the transform continues right away. The flag is checked regularly as well since it can be
+   * shared with other components.
+   */
+  private void waitWhilePaused() throws HopTransformException {
+    try {
+      while (paused.get() && !stopped.get()) {
+        wakeupSignal.await(() -> !paused.get() || stopped.get(), 100, TimeUnit.MILLISECONDS);
+      }
+    } catch (InterruptedException e) {
+      throw new HopTransformException(e);
+    }
+  }
+
+  /** Wait until the pipeline is running or this transform is stopped, without a timeout. */
+  private void waitUntilPipelineIsRunning() {
+    while (!pipeline.isRunning() && !stopped.get()) {
+      if (!waitForPipelineRunning(TimeUnit.MILLISECONDS.toNanos(100))) {
+        return;
+      }
+    }
+  }
+
+  /**
+   * Wait until the pipeline is running, this transform is stopped or the timeout expires.
+   *
+   * @param timeout The maximum time to wait
+   * @param unit The unit of the timeout
+   */
+  private void waitUntilPipelineIsRunning(long timeout, TimeUnit unit) {
+    long timeoutNanos = unit.toNanos(timeout);
+    long start = System.nanoTime();
+    while (!pipeline.isRunning() && !stopped.get()) {
+      long remaining = timeoutNanos - (System.nanoTime() - start);
+      if (remaining <= 0) {
+        return;
+      }
+      if (!waitForPipelineRunning(Math.min(remaining, TimeUnit.MILLISECONDS.toNanos(100)))) {
+        return;
+      }
+    }
+  }
+
+  /**
+   * Wait a while for the pipeline to start running. We wake up regularly to see if this transform
+   * was stopped on its own.
+   *
+   * @return false if the thread was interrupted, the interrupt flag is set again for the caller
+   */
+  private boolean waitForPipelineRunning(long nanos) {
+    try {
+      pipeline.waitUntilRunning(nanos, TimeUnit.NANOSECONDS);
+      return true;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    }
+  }
+
+  /**
+   * Wait until any of the input row sets has rows or is done, the transform is stopped, or the
+   * timeout expires. Called with the input row sets read lock held.
+   *
+   * @param timeout The maximum time to wait in milliseconds
+   */
+  private void waitForInput(long timeout) throws HopTransformException {
+    try {
+      wakeupSignal.await(this::isInputAvailable, timeout, TimeUnit.MILLISECONDS);
+    } catch (InterruptedException e) {
+      throw new HopTransformException(e);
+    }
+  }
+
+  private boolean isInputAvailable() {
+    if (stopped.get()) {
+      return true;
+    }
+    for (IRowSet rowSet : inputRowSets) {
+      if (rowSet.size() > 0 || rowSet.isDone()) {
+        return true;
+      }
+    }
+    return false;
+  }
+
   /** Wait until the pipeline is completely running and all threads have been started. */
   protected void waitUntilPipelineIsStarted() {
     // Have all threads started?
@@ -1502,13 +1666,7 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
     // started.
     //
     if (this.checkPipelineRunning == false) {
-      while (!pipeline.isRunning() && !stopped.get()) {
-        try {
-          Thread.sleep(1);
-        } catch (InterruptedException e) {
-          // Ignore sleep interruption exception
-        }
-      }
+      waitUntilPipelineIsRunning();
       this.checkPipelineRunning = true;
     }
   }
@@ -1528,18 +1686,78 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
     return row;
   }
 
-  private Object[] handleGetRow() throws HopException {
+  /**
+   * getRows is the batch version of {@link #getRow()}. It returns the next row together with the
+   * rows that are immediately available in the same input row set, up to the given maximum.
+   *
+   * @param max the maximum number of rows to return
+   * @return the rows or null if there are no more rows
+   * @throws HopException
+   */
+  public Object[][] getRows(int max) throws HopException {
+    Object[][] rows = getRowHandler().getRows(max);
 
-    // Are we pausing the transform? If so, stall forever...
+    if (firstRowReadDate == null) {
+      firstRowReadDate = new Date();
+    }
+
+    return rows;
+  }
+
+  private Object[][] handleGetRows(int max) throws HopException {
+    // The first row goes through all the regular checks and input row set switching.
+    // It is read with getRow() so that subclasses or tests overriding it keep working.
     //
-    while (paused.get() && !stopped.get()) {
-      try {
-        Thread.sleep(100);
-      } catch (InterruptedException e) {
-        throw new HopTransformException(e);
+    Object[] first = getRow();
+    if (first == null) {
+      return null;
+    }
+    if (max <= 1) {
+      return new Object[][] {first};
+    }
+
+    // Then take what is already waiting in the same input row set, without exceeding the block of
+    // rows we read from a row set before switching to the next one.
+    //
+    Object[][] more = null;
+    inputRowSetsLock.readLock().lock();
+    try {
+      int room = Math.min(max - 1, NR_OF_ROWS_IN_BLOCK - blockPointer);
+      if (room > 0 && !inputRowSets.isEmpty()) {
+        IRowSet inputRowSet = currentInputStream();
+        if (inputRowSet.size() > 0) {
+          more = inputRowSet.getRows(room);
+        }
+      }
+    } finally {
+      inputRowSetsLock.readLock().unlock();
+    }
+    if (more == null || more.length == 0) {
+      return new Object[][] {first};
+    }
+
+    blockPointer += more.length;
+    synchronized (statusCountersLock) {
+      linesRead += more.length;
+    }
+    for (Object[] row : more) {
+      for (IRowListener listener : rowListeners) {
+        listener.rowReadEvent(inputRowMeta, row);
       }
     }
 
+    Object[][] rows = new Object[more.length + 1][];
+    rows[0] = first;
+    System.arraycopy(more, 0, rows, 1, more.length);
+    return rows;
+  }
+
+  private Object[] handleGetRow() throws HopException {
+
+    // Are we pausing the transform? If so, stall forever...
+    //
+    waitWhilePaused();
+
     if (stopped.get()) {
       if (log.isDebug()) {
         logDebug(BaseMessages.getString(PKG, "BaseTransform.Log.StopLookingForMoreRows"));
@@ -1584,18 +1802,6 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
         inputRowSet = currentInputStream();
       }
 
-      // To reduce stress on the locking system we are going to allow
-      // The buffer to grow beyond "a few" entries.
-      // We'll only do that if the previous transform has not ended...
-
-      if (!inputRowSet.isDone() && inputRowSet.size() <= lowerBufferBoundary && !isStopped()) {
-        try {
-          Thread.sleep(0, 1);
-        } catch (InterruptedException e) {
-          // Ignore sleep interruption exception
-        }
-      }
-
       // See if this transform is receiving partitioned data...
       // In that case it might be the case that one input row set is receiving
       // all data and
@@ -1620,13 +1826,24 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
           waitTime = Const.toInt(runconfig.getWaitTime(), waitTime);
         }
         waitingTime = DynamicWaitTimes.build(inputRowSets, this::getCurrentInputRowSetNr, waitTime);
+        for (IRowSet rowSet : inputRowSets) {
+          rowSet.setConsumerSignal(wakeupSignal);
+        }
       }
       while (row == null && !isStopped()) {
         // Get a row from the input in row set ...
-        // Timeout immediately if nothing is there to read.
+        // With several input row sets we wait until a producer signals that any of them has rows.
         // We will then switch to the next row set to read from...
         //
-        row = inputRowSet.getRowWait(waitingTime.get(), TimeUnit.MILLISECONDS);
+        if (inputRowSets.size() > 1) {
+          row = inputRowSet.getRowImmediate();
+          if (row == null && !inputRowSet.isDone()) {
+            waitForInput(waitingTime.get());
+            row = inputRowSet.getRowImmediate();
+          }
+        } else {
+          row = inputRowSet.getRowWait(waitingTime.get(), TimeUnit.MILLISECONDS);
+        }
         boolean timeout = false;
         if (row != null) {
           incrementLinesRead();
@@ -1873,41 +2090,17 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
   public Object[] handleGetRowFrom(IRowSet rowSet) throws HopTransformException {
     // Are we pausing the transform? If so, stall forever...
     //
-    while (paused.get() && !stopped.get()) {
-      try {
-        Thread.sleep(10);
-      } catch (InterruptedException e) {
-        throw new HopTransformException(e);
-      }
-    }
+    waitWhilePaused();
 
     // Have all threads started?
     // Are we running yet? If not, wait a bit until all threads have been
     // started.
     if (this.checkPipelineRunning == false) {
-      while (!pipeline.isRunning() && !stopped.get()) {
-        try {
-          Thread.sleep(1);
-        } catch (InterruptedException e) {
-          // Ignore sleep interruption exception
-        }
-      }
+      waitUntilPipelineIsRunning();
       this.checkPipelineRunning = true;
     }
     Object[] rowData = null;
 
-    // To reduce stress on the locking system we are going to allow
-    // The buffer to grow beyond "a few" entries.
-    // We'll only do that if the previous transform has not ended...
-
-    if (!rowSet.isDone() && rowSet.size() <= lowerBufferBoundary && !isStopped()) {
-      try {
-        Thread.sleep(0, 1);
-      } catch (InterruptedException e) {
-        // Ignore sleep interruption exception
-      }
-    }
-
     // Grab a row... If nothing received after a timeout, try again.
     //
     rowData = rowSet.getRow();
@@ -2617,6 +2810,7 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
   @Override
   public void stopAll() {
     stopped.set(true);
+    wakeupSignal.signal();
     pipeline.stopAll();
   }
 
@@ -2658,6 +2852,7 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
   @Override
   public void setStopped(boolean stopped) {
     this.stopped.set(stopped);
+    wakeupSignal.signal();
   }
 
   @Override
@@ -2707,6 +2902,7 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
    */
   public void setPaused(boolean paused) {
     this.paused.set(paused);
+    wakeupSignal.signal();
   }
 
   /**
@@ -2716,6 +2912,7 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
    */
   public void setPaused(AtomicBoolean paused) {
     this.paused = paused;
+    wakeupSignal.signal();
   }
 
   /**
@@ -2952,6 +3149,7 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
   public void addRowSetToInputRowSets(IRowSet rowSet) {
     inputRowSetsLock.writeLock().lock();
     try {
+      rowSet.setConsumerSignal(wakeupSignal);
       inputRowSets.add(rowSet);
     } finally {
       inputRowSetsLock.writeLock().unlock();
@@ -2959,6 +3157,9 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
   }
 
   private void removeRowSetFromInputRowSets(IRowSet rowSet) {
+    if (allInputRowSets == null) {
+      allInputRowSets = new ArrayList<>(inputRowSets);
+    }
     inputRowSets.remove(rowSet);
     waitingTime.remove(rowSet);
     if (currentInputRowSetNr > 0) {
@@ -3258,6 +3459,21 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
         && (lines % getPipeline().getFeedbackSize()) == 0;
   }
 
+  /**
+   * Check feedback for a batch of rows: the line counter jumped from previousLines to lines.
+   *
+   * @param previousLines the lines before the batch was processed
+   * @param lines the lines after the batch was processed
+   * @return true, if a feedback boundary was crossed
+   */
+  protected boolean checkFeedback(long previousLines, long lines) {
+    if (!getPipeline().isFeedbackShown() || lines <= 0) {
+      return false;
+    }
+    long feedbackSize = getPipeline().getFeedbackSize();
+    return feedbackSize > 0 && previousLines / feedbackSize != lines / feedbackSize;
+  }
+
   /**
    * @return the rowMeta
    */
@@ -3714,6 +3930,50 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
   @Override
   public void finishBundle() throws HopException {}
 
+  /**
+   * Resets the state kept by the base transform: the first row flag, the row counters, the result
+   * files and the input row sets which were done. Transforms which support a reset override {@link
+   * #isResettable()} and clear their own state after calling this method.
+   *
+   * @throws HopException In case the transform can't be reset.
+   */
+  @Override
+  public void reset() throws HopException {
+    if (!isResettable()) {
+      throw new HopException("Transform " + getTransformName() + " can't be reset");
+    }
+    first = true;
+    synchronized (statusCountersLock) {
+      linesRead = 0L;
+      linesWritten = 0L;
+      linesInput = 0L;
+      linesOutput = 0L;
+      linesUpdated = 0L;
+      linesSkipped = 0L;
+      linesRejected = 0L;
+    }
+    resultFilesLock.writeLock().lock();
+    try {
+      resultFiles.clear();
+    } finally {
+      resultFilesLock.writeLock().unlock();
+    }
+    inputRowSetsLock.writeLock().lock();
+    try {
+      if (allInputRowSets != null) {
+        inputRowSets.clear();
+        inputRowSets.addAll(allInputRowSets);
+        allInputRowSets = null;
+      }
+      currentInputRowSetNr = 0;
+      waitingTime = null;
+    } finally {
+      inputRowSetsLock.writeLock().unlock();
+    }
+    currentOutputRowSetNr = 0;
+    blockPointer = 0;
+  }
+
   /**
    * Returns the registration date
    *
@@ -3794,6 +4054,17 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
       handlePutRow(rowMeta, row);
     }
 
+    @Override
+    public Object[][] getRows(int max) throws HopException {
+      return handleGetRows(max);
+    }
+
+    @Override
+    public void putRows(IRowMeta rowMeta, Object[][] rows, int count)
+        throws HopTransformException {
+      handlePutRows(rowMeta, rows, count);
+    }
+
     @Override
     public void putError(
         IRowMeta rowMeta,
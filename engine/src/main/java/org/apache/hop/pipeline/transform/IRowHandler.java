@@ -47,6 +47,38 @@ public interface IRowHandler {
       String errorCodes)
       throws HopTransformException;
 
+  /**
+   * Get a batch of rows. Row handlers which only know how to deliver a single row at a time are
+   * adapted by returning a batch of one row.
+   *
+   * @param max the maximum number of rows to return
+   * @return the rows or null if there are no more rows
+   * @throws HopException in case something goes wrong
+   */
+  default Object[][] getRows(int max) throws HopException {
+    Object[] row = getRow();
+    if (row == null) {
+      return null;
+    }
+    return new Object[][] {row};
+  }
+
+  /**
+   * Put a batch of rows. Row handlers which only know how to handle a single row at a time are
+   * adapted by passing the rows one by one to {@link #putRow(IRowMeta, Object[])}.
+   *
+   * @param rowMeta the row metadata of all the rows
+   * @param rows the rows, only the first count entries are used
+   * @param count the number of rows to put
+   * @throws HopTransformException in case something goes wrong
+   */
+  default void putRows(IRowMeta rowMeta, Object[][] rows, int count)
+      throws HopTransformException {
+    for (int i = 0; i < count; i++) {
+      putRow(rowMeta, rows[i]);
+    }
+  }
+
   default void putRowTo(IRowMeta rowMeta, Object[] row, IRowSet rowSet)
       throws HopTransformException {
     throw new UnsupportedOperationException(
@@ -320,6 +320,25 @@ public interface ITransform
    */
   void finishBundle() throws HopException;
 
+  /**
+   * @return true if the transform can be reset with {@link #reset()} to process another set of rows
+   *     in the same prepared pipeline.
+   */
+  default boolean isResettable() {
+    return false;
+  }
+
+  /**
+   * When using the Single threaded engine this gets a transform which finished processing its rows
+   * ready to process a new set of rows, without disposing and initializing it again. Only called
+   * on transforms which are {@link #isResettable()}.
+   *
+   * @throws HopException In case the transform can't be reset.
+   */
+  default void reset() throws HopException {
+    throw new HopException("Transform " + getTransformName() + " can't be reset");
+  }
+
   /**
    * Pass along the metadata to use when loading external elements at runtime.
    *
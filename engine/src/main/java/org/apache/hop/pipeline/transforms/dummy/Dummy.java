@@ -41,16 +41,17 @@ public class Dummy extends BaseTransform<DummyMeta, DummyData>
 
   @Override
   public boolean processRow() throws HopException {
-    Object[] r = getRow(); // get row, set busy!
+    long previousLinesRead = getLinesRead();
+    Object[][] rows = getRows(ROW_BATCH_SIZE); // get rows, set busy!
     // no more input to be expected...
-    if (r == null) {
+    if (rows == null) {
       setOutputDone();
       return false;
     }
 
-    putRow(getInputRowMeta(), r); // copy row to possible alternate rowset(s).
+    putRows(getInputRowMeta(), rows, rows.length); // copy rows to possible alternate rowset(s).
 
-    if (checkFeedback(getLinesRead())) {
+    if (checkFeedback(previousLinesRead, getLinesRead())) {
       if (log.isBasic()) {
         logBasic(BaseMessages.getString(PKG, "Dummy.Log.LineNumber") + getLinesRead());
       }
@@ -58,4 +59,9 @@ public class Dummy extends BaseTransform<DummyMeta, DummyData>
 
     return true;
   }
+
+  @Override
+  public boolean isResettable() {
+    return true;
+  }
 }
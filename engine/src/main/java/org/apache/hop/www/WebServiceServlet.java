@@ -41,10 +41,12 @@ import org.apache.hop.pipeline.engine.PipelineEngineFactory;
 import org.apache.hop.pipeline.engines.local.LocalPipelineEngine;
 import org.apache.hop.pipeline.transform.RowAdapter;
 import org.apache.hop.www.service.WebService;
+import org.apache.hop.www.service.WebServicePipelineCache;
 
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
+import java.io.BufferedOutputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
@@ -60,6 +62,11 @@ public class WebServiceServlet extends BaseHttpServlet implements IHopServerPlug
 
   public static final String CONTEXT_PATH = "/hop/webService";
 
+  private static final int DEFAULT_BUFFER_SIZE = 8192;
+
+  /** The parsed pipelines of the web services, shared by all calls */
+  private final transient WebServicePipelineCache pipelineCache = new WebServicePipelineCache();
+
   public WebServiceServlet() {}
 
   public WebServiceServlet(PipelineMap pipelineMap) {
@@ -145,7 +152,8 @@ public class WebServiceServlet extends BaseHttpServlet implements IHopServerPlug
       // Load and start the pipeline
       // Output the data to the response output stream...
       //
-      PipelineMeta pipelineMeta = new PipelineMeta(filename, metadataProvider, variables);
+      PipelineMeta pipelineMeta =
+          pipelineCache.getPipelineMeta(filename, metadataProvider, variables);
       IPipelineEngine<PipelineMeta> pipeline;
       if (StringUtils.isEmpty(runConfigurationName)) {
         pipeline = new LocalPipelineEngine(pipelineMeta, variables, servletLoggingObject);
@@ -194,7 +202,17 @@ public class WebServiceServlet extends BaseHttpServlet implements IHopServerPlug
       // Allocate the threads...
       pipeline.prepareExecution();
 
-      final OutputStream outputStream = response.getOutputStream();
+      // Rows are collected in a buffer which is sent to the client when it's full, or every
+      // flushRows rows when that is configured.
+      //
+      int bufferSize =
+          Const.toInt(
+              variables.getVariable(Const.HOP_SERVER_WEB_SERVICE_BUFFER_SIZE),
+              DEFAULT_BUFFER_SIZE);
+      final int flushRows =
+          Const.toInt(variables.getVariable(Const.HOP_SERVER_WEB_SERVICE_FLUSH_ROWS), 0);
+      final OutputStream outputStream =
+          new BufferedOutputStream(response.getOutputStream(), Math.max(1, bufferSize));
 
       // Add the row listener to the transform/field...
       // TODO: add to all copies
@@ -202,13 +220,17 @@ public class WebServiceServlet extends BaseHttpServlet implements IHopServerPlug
       IEngineComponent component = pipeline.findComponent(transformName, 0);
       component.addRowListener(
           new RowAdapter() {
+            private long nrRows = 0;
+
             @Override
             public void rowWrittenEvent(IRowMeta rowMeta, Object[] row)
                 throws HopTransformException {
               try {
                 String outputString = rowMeta.getString(row, fieldName, "");
                 outputStream.write(outputString.getBytes(StandardCharsets.UTF_8));
-                outputStream.flush();
+                if (flushRows > 0 && ++nrRows % flushRows == 0) {
+                  outputStream.flush();
+                }
               } catch (HopValueException e) {
                 throw new HopTransformException(
                     "Error getting output field '"
@@ -226,6 +248,7 @@ public class WebServiceServlet extends BaseHttpServlet implements IHopServerPlug
       pipeline.waitUntilFinished();
 
       response.setStatus(HttpServletResponse.SC_OK);
+      outputStream.flush();
 
     } catch (Exception e) {
       throw new ServletException("Error producing web service output", e);
@@ -0,0 +1,116 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.www.service;
+
+import org.apache.commons.vfs2.FileObject;
+import org.apache.commons.vfs2.FileSystemException;
+import org.apache.hop.core.exception.HopException;
+import org.apache.hop.core.variables.IVariables;
+import org.apache.hop.core.vfs.HopVfs;
+import org.apache.hop.metadata.api.IHopMetadataProvider;
+import org.apache.hop.pipeline.PipelineMeta;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps the pipelines of the web services parsed between calls. A pipeline file is only loaded
+ * again when its modification time changes. Every caller gets its own copy of the pipeline
+ * metadata so that concurrent calls don't share any state.
+ *
+ * <p>Files for which the modification time isn't available are loaded for every call.
+ */
+public class WebServicePipelineCache {
+
+  private final Map<String, CachedPipeline> pipelines = new ConcurrentHashMap<>();
+
+  /**
+   * Get a copy of the pipeline in the given file, loading it only if it isn't cached or if the
+   * file changed since it was loaded.
+   *
+   * @param filename The resolved name of the pipeline file
+   * @param metadataProvider The metadata provider to load the pipeline with
+   * @param variables The variables to load the pipeline with
+   * @return A copy of the pipeline metadata which the caller is free to modify
+   * @throws HopException In case the pipeline couldn't be loaded
+   */
+  public PipelineMeta getPipelineMeta(
+      String filename, IHopMetadataProvider metadataProvider, IVariables variables)
+      throws HopException {
+    long lastModified = getLastModified(filename);
+
+    CachedPipeline cached = pipelines.get(filename);
+    if (cached == null
+        || cached.lastModified != lastModified
+        || cached.metadataProvider != metadataProvider) {
+      PipelineMeta pipelineMeta = new PipelineMeta(filename, metadataProvider, variables);
+      if (lastModified <= 0) {
+        pipelines.remove(filename);
+        return pipelineMeta;
+      }
+      cached = new CachedPipeline(pipelineMeta, metadataProvider, lastModified);
+      pipelines.put(filename, cached);
+    }
+    return (PipelineMeta) cached.pipelineMeta.realClone(false);
+  }
+
+  /**
+   * Forget the pipeline of the given file.
+   *
+   * @param filename The resolved name of the pipeline file
+   */
+  public void remove(String filename) {
+    pipelines.remove(filename);
+  }
+
+  /** Forget all the pipelines */
+  public void clear() {
+    pipelines.clear();
+  }
+
+  /** @return The number of pipelines kept in the cache */
+  public int size() {
+    return pipelines.size();
+  }
+
+  private static long getLastModified(String filename) {
+    try {
+      FileObject fileObject = HopVfs.getFileObject(filename);
+      if (!fileObject.exists()) {
+        return 0L;
+      }
+      return fileObject.getContent().getLastModifiedTime();
+    } catch (HopException | FileSystemException e) {
+      // Not every file system knows when a file was changed, load the pipeline every time
+      return 0L;
+    }
+  }
+
+  private static final class CachedPipeline {
+    private final PipelineMeta pipelineMeta;
+    private final IHopMetadataProvider metadataProvider;
+    private final long lastModified;
+
+    private CachedPipeline(
+        PipelineMeta pipelineMeta, IHopMetadataProvider metadataProvider, long lastModified) {
+      this.pipelineMeta = pipelineMeta;
+      this.metadataProvider = metadataProvider;
+      this.lastModified = lastModified;
+    }
+  }
+}
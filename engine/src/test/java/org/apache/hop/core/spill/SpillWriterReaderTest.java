@@ -0,0 +1,166 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.core.spill;
+
+import org.apache.hop.core.row.IRowMeta;
+import org.apache.hop.core.row.IValueMeta;
+import org.apache.hop.core.row.RowMeta;
+import org.apache.hop.core.row.value.ValueMetaBigNumber;
+import org.apache.hop.core.row.value.ValueMetaBinary;
+import org.apache.hop.core.row.value.ValueMetaBoolean;
+import org.apache.hop.core.row.value.ValueMetaDate;
+import org.apache.hop.core.row.value.ValueMetaInteger;
+import org.apache.hop.core.row.value.ValueMetaNumber;
+import org.apache.hop.core.row.value.ValueMetaString;
+import org.apache.hop.core.row.value.ValueMetaTimestamp;
+import org.apache.hop.junit.rules.RestoreHopEngineEnvironment;
+import org.junit.ClassRule;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+public class SpillWriterReaderTest {
+  @ClassRule public static RestoreHopEngineEnvironment env = new RestoreHopEngineEnvironment();
+
+  private IRowMeta createRowMeta() {
+    IRowMeta rowMeta = new RowMeta();
+    rowMeta.addValueMeta(new ValueMetaString("string"));
+    rowMeta.addValueMeta(new ValueMetaInteger("integer"));
+    rowMeta.addValueMeta(new ValueMetaNumber("number"));
+    rowMeta.addValueMeta(new ValueMetaDate("date"));
+    rowMeta.addValueMeta(new ValueMetaTimestamp("timestamp"));
+    rowMeta.addValueMeta(new ValueMetaBoolean("boolean"));
+    rowMeta.addValueMeta(new ValueMetaBigNumber("bignumber"));
+    rowMeta.addValueMeta(new ValueMetaBinary("binary"));
+
+    // Lazy conversion: written the classic way
+    //
+    ValueMetaString lazy = new ValueMetaString("lazy");
+    lazy.setStorageType(IValueMeta.STORAGE_TYPE_BINARY_STRING);
+    lazy.setStorageMetadata(new ValueMetaString("lazy"));
+    rowMeta.addValueMeta(lazy);
+    return rowMeta;
+  }
+
+  private List<Object[]> createRows(int nrRows) {
+    List<Object[]> rows = new ArrayList<>();
+    for (int i = 0; i < nrRows; i++) {
+      Timestamp timestamp = new Timestamp(1600000000000L + i);
+      timestamp.setNanos(123456789);
+      Object[] row =
+          new Object[] {
+            "row " + i + " \u00e9",
+            (long) (i % 2 == 0 ? i : -i),
+            i * 1.5,
+            new Date(-1000000L * i),
+            timestamp,
+            i % 3 == 0,
+            new BigDecimal("12345678901234567890.123").multiply(BigDecimal.valueOf(i)),
+            new byte[] {(byte) i, 1, 2},
+            ("lazy " + i).getBytes(StandardCharsets.UTF_8)
+          };
+      // Sprinkle some nulls over the columns
+      //
+      row[i % row.length] = null;
+      rows.add(row);
+    }
+    return rows;
+  }
+
+  private void testRoundTrip(SpillCodec codec, boolean readAhead) throws Exception {
+    IRowMeta rowMeta = createRowMeta();
+    List<Object[]> rows = createRows(20000);
+
+    ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    try (SpillWriter writer = new SpillWriter(rowMeta, outputStream, codec, 4096)) {
+      for (Object[] row : rows) {
+        writer.writeRow(row);
+      }
+      assertEquals(rows.size(), writer.getRowCount());
+    }
+
+    try (SpillReader reader =
+        new SpillReader(
+            rowMeta, new ByteArrayInputStream(outputStream.toByteArray()), readAhead)) {
+      for (Object[] expected : rows) {
+        Object[] row = reader.readRow();
+        for (int i = 0; i < rowMeta.size(); i++) {
+          if (expected[i] instanceof byte[]) {
+            assertArrayEquals((byte[]) expected[i], (byte[]) row[i]);
+          } else {
+            assertEquals(expected[i], row[i]);
+          }
+        }
+      }
+      assertNull(reader.readRow());
+      assertNull(reader.readRow());
+    }
+  }
+
+  @Test
+  public void testRoundTripWithoutCompression() throws Exception {
+    testRoundTrip(SpillCodec.NONE, false);
+  }
+
+  @Test
+  public void testRoundTripSnappy() throws Exception {
+    testRoundTrip(SpillCodec.SNAPPY, false);
+  }
+
+  @Test
+  public void testRoundTripSnappyWithReadAhead() throws Exception {
+    testRoundTrip(SpillCodec.SNAPPY, true);
+  }
+
+  @Test
+  public void testEmptyFile() throws Exception {
+    IRowMeta rowMeta = createRowMeta();
+    ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    new SpillWriter(rowMeta, outputStream, SpillCodec.SNAPPY).close();
+
+    try (SpillReader reader =
+        new SpillReader(rowMeta, new ByteArrayInputStream(outputStream.toByteArray()), true)) {
+      assertNull(reader.readRow());
+    }
+  }
+
+  @Test
+  public void testCodecLookup() throws Exception {
+    assertEquals(SpillCodec.NONE, SpillCodec.getCodecById(SpillCodec.NONE.getId()));
+    assertEquals(SpillCodec.SNAPPY, SpillCodec.getCodecById(SpillCodec.SNAPPY.getId()));
+    try {
+      SpillCodec.getCodecById(2);
+      fail("There is no codec with id 2");
+    } catch (IOException e) {
+      // Expected
+    }
+  }
+}
@@ -45,21 +45,25 @@ import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
 import org.mockito.stubbing.Answer;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicBoolean;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.CALLS_REAL_METHODS;
 import static org.mockito.Mockito.anyObject;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -277,6 +281,127 @@ public class BaseTransformTest {
     verify(rowHandler, times(1)).putRow(iRowMeta, objects);
   }
 
+  @Test
+  public void putRowsIsAdaptedForRowAtATimeRowHandler() throws HopException {
+    BaseTransform baseTransform =
+        new BaseTransform(
+            mockHelper.transformMeta,
+            mockHelper.iTransformMeta,
+            mockHelper.iTransformData,
+            0,
+            mockHelper.pipelineMeta,
+            mockHelper.pipeline);
+    IRowHandler singleRowHandler = mock(IRowHandler.class, CALLS_REAL_METHODS);
+    baseTransform.setRowHandler(singleRowHandler);
+
+    IRowMeta iRowMeta = mock(IRowMeta.class);
+    Object[][] rows = new Object[][] {{"foo"}, {"bar"}, {"baz"}};
+    baseTransform.putRows(iRowMeta, rows, 2);
+    verify(singleRowHandler, times(1)).putRow(iRowMeta, rows[0]);
+    verify(singleRowHandler, times(1)).putRow(iRowMeta, rows[1]);
+    verify(singleRowHandler, never()).putRow(iRowMeta, rows[2]);
+  }
+
+  @Test
+  public void putRowsAndGetRowsThroughRowSet() throws HopException {
+    IRowSet rowSet = new BlockingRowSet(10);
+
+    when(mockHelper.pipeline.isRunning()).thenReturn(true);
+    BaseTransform<ITransformMeta, ITransformData> producer =
+        new BaseTransform(
+            mockHelper.transformMeta,
+            mockHelper.iTransformMeta,
+            mockHelper.iTransformData,
+            0,
+            mockHelper.pipelineMeta,
+            mockHelper.pipeline);
+    producer.setStopped(false);
+    producer.setRepartitioning(TransformPartitioningMeta.PARTITIONING_METHOD_NONE);
+    producer.setOutputRowSets(new ArrayList<>(Arrays.asList(rowSet)));
+
+    IRowMeta rowMeta = new RowMeta();
+    rowMeta.addValueMeta(new ValueMetaInteger("integer"));
+
+    Object[][] rows = new Object[][] {{1L}, {2L}, {3L}, {4L}};
+    producer.putRows(rowMeta, rows, 3);
+    assertEquals(3, producer.getLinesWritten());
+    assertEquals(3, rowSet.size());
+
+    rowSet.setDone();
+    BaseTransform<ITransformMeta, ITransformData> consumer =
+        new BaseTransform(
+            mockHelper.transformMeta,
+            mockHelper.iTransformMeta,
+            mockHelper.iTransformData,
+            0,
+            mockHelper.pipelineMeta,
+            mockHelper.pipeline);
+    consumer.setStopped(false);
+    consumer.setInputRowSets(new ArrayList<>(Arrays.asList(rowSet)));
+
+    Object[][] read = consumer.getRows(10);
+    assertNotNull(read);
+    assertEquals(3, read.length);
+    assertEquals(1L, read[0][0]);
+    assertEquals(3L, read[2][0]);
+    assertEquals(3, consumer.getLinesRead());
+  }
+
+  @Test
+  public void resetRestoresFinishedInputRowSets() throws HopException {
+    IRowSet rowSet = new QueueRowSet();
+    IRowMeta rowMeta = new RowMeta();
+    rowMeta.addValueMeta(new ValueMetaInteger("integer"));
+
+    when(mockHelper.pipeline.isRunning()).thenReturn(true);
+    BaseTransform<ITransformMeta, ITransformData> transform =
+        new BaseTransform(
+            mockHelper.transformMeta,
+            mockHelper.iTransformMeta,
+            mockHelper.iTransformData,
+            0,
+            mockHelper.pipelineMeta,
+            mockHelper.pipeline) {
+          @Override
+          public boolean isResettable() {
+            return true;
+          }
+        };
+    transform.setStopped(false);
+    transform.setInputRowSets(new ArrayList<>(Arrays.asList(rowSet)));
+
+    rowSet.putRow(rowMeta, new Object[] {1L});
+    rowSet.setDone();
+    transform.first = false;
+    assertNotNull(transform.getRow());
+    assertNull(transform.getRow());
+    assertTrue(transform.getInputRowSets().isEmpty());
+
+    rowSet.clear();
+    transform.reset();
+    assertTrue(transform.first);
+    assertEquals(0, transform.getLinesRead());
+    assertEquals(1, transform.getInputRowSets().size());
+
+    rowSet.putRow(rowMeta, new Object[] {2L});
+    rowSet.setDone();
+    assertEquals(2L, transform.getRow()[0]);
+    assertNull(transform.getRow());
+    assertEquals(1, transform.getLinesRead());
+  }
+
+  @Test(expected = HopException.class)
+  public void resetFailsWhenNotResettable() throws HopException {
+    new BaseTransform(
+            mockHelper.transformMeta,
+            mockHelper.iTransformMeta,
+            mockHelper.iTransformData,
+            0,
+            mockHelper.pipelineMeta,
+            mockHelper.pipeline)
+        .reset();
+  }
+
   @Test
   public void putErrorWithRowHandler() throws HopException {
     BaseTransform baseTransform =
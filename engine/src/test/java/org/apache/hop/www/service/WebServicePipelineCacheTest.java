@@ -0,0 +1,110 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.www.service;
+
+import org.apache.hop.core.HopEnvironment;
+import org.apache.hop.core.exception.HopException;
+import org.apache.hop.core.variables.IVariables;
+import org.apache.hop.core.variables.Variables;
+import org.apache.hop.metadata.api.IHopMetadataProvider;
+import org.apache.hop.metadata.serializer.memory.MemoryMetadataProvider;
+import org.apache.hop.pipeline.PipelineMeta;
+import org.apache.hop.pipeline.transform.TransformMeta;
+import org.apache.hop.pipeline.transforms.dummy.DummyMeta;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+
+public class WebServicePipelineCacheTest {
+
+  @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+  private IVariables variables;
+  private IHopMetadataProvider metadataProvider;
+  private WebServicePipelineCache cache;
+
+  @BeforeClass
+  public static void initHop() throws Exception {
+    HopEnvironment.init();
+  }
+
+  @Before
+  public void setUp() {
+    variables = new Variables();
+    metadataProvider = new MemoryMetadataProvider();
+    cache = new WebServicePipelineCache();
+  }
+
+  private void writePipeline(File file, String parameterDefault) throws Exception {
+    PipelineMeta pipelineMeta = new PipelineMeta();
+    pipelineMeta.setName("web-service");
+    pipelineMeta.addTransform(new TransformMeta("output", new DummyMeta()));
+    pipelineMeta.addParameterDefinition("PARAM", parameterDefault, "");
+    Files.write(file.toPath(), pipelineMeta.getXml(variables).getBytes(StandardCharsets.UTF_8));
+  }
+
+  @Test
+  public void testEveryCallGetsItsOwnCopy() throws Exception {
+    File file = folder.newFile("service.hpl");
+    writePipeline(file, "one");
+
+    PipelineMeta first = cache.getPipelineMeta(file.getAbsolutePath(), metadataProvider, variables);
+    PipelineMeta second =
+        cache.getPipelineMeta(file.getAbsolutePath(), metadataProvider, variables);
+
+    assertEquals(1, cache.size());
+    assertNotSame(first, second);
+    assertNotSame(first.findTransform("output"), second.findTransform("output"));
+    assertEquals(second, second.findTransform("output").getParentPipelineMeta());
+    assertEquals("one", second.getParameterDefault("PARAM"));
+    assertEquals(file.getAbsolutePath(), second.getFilename());
+  }
+
+  @Test
+  public void testChangedFileIsLoadedAgain() throws Exception {
+    File file = folder.newFile("service.hpl");
+    writePipeline(file, "one");
+    long lastModified = file.lastModified();
+
+    PipelineMeta before =
+        cache.getPipelineMeta(file.getAbsolutePath(), metadataProvider, variables);
+    assertEquals("one", before.getParameterDefault("PARAM"));
+
+    writePipeline(file, "two");
+    file.setLastModified(lastModified + 10000L);
+
+    PipelineMeta after = cache.getPipelineMeta(file.getAbsolutePath(), metadataProvider, variables);
+    assertEquals("two", after.getParameterDefault("PARAM"));
+    assertEquals(1, cache.size());
+  }
+
+  @Test(expected = HopException.class)
+  public void testMissingFileFails() throws Exception {
+    cache.getPipelineMeta(
+        new File(folder.getRoot(), "missing.hpl").getAbsolutePath(), metadataProvider, variables);
+  }
+}
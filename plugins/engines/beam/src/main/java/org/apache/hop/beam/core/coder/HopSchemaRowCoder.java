@@ -0,0 +1,344 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.beam.core.coder;
+
+import org.apache.beam.sdk.coders.CustomCoder;
+import org.apache.beam.sdk.util.VarInt;
+import org.apache.hop.beam.core.HopRow;
+import org.apache.hop.core.row.IRowMeta;
+import org.apache.hop.core.row.IValueMeta;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.Date;
+
+/**
+ * A coder for rows of which the layout is known when the pipeline is converted. Rows are written as
+ * a null bitmap followed by the non-null values: integers and dates as variable length integers,
+ * strings as UTF-8 with a length prefix. No type information or Java serialization headers are
+ * written.
+ *
+ * <p>Rows which don't match the layout (other value classes, values past the end of the layout)
+ * and layouts with types we don't handle here are written with the generic {@link HopRowCoder}.
+ */
+public class HopSchemaRowCoder extends CustomCoder<HopRow> {
+
+  private static final int ROW_NULL = 0;
+  private static final int ROW_COMPACT = 1;
+  private static final int ROW_GENERIC = 2;
+
+  private final int[] types;
+  private final boolean compact;
+  private final int bitmapSize;
+  private final HopRowCoder genericCoder;
+
+  /**
+   * Create a coder for rows with the given layout.
+   *
+   * @param rowMeta The layout of the rows
+   * @return The coder
+   */
+  public static HopSchemaRowCoder of(IRowMeta rowMeta) {
+    int[] types = new int[rowMeta.size()];
+    for (int i = 0; i < types.length; i++) {
+      IValueMeta valueMeta = rowMeta.getValueMeta(i);
+      if (valueMeta.getStorageType() != IValueMeta.STORAGE_TYPE_NORMAL) {
+        types[i] = IValueMeta.TYPE_NONE;
+      } else {
+        types[i] = valueMeta.getType();
+      }
+    }
+    return new HopSchemaRowCoder(types);
+  }
+
+  public HopSchemaRowCoder(int[] types) {
+    this.types = types;
+    this.bitmapSize = (types.length + 7) >>> 3;
+    this.genericCoder = new HopRowCoder();
+
+    boolean allSupported = true;
+    for (int type : types) {
+      allSupported &= isSupported(type);
+    }
+    this.compact = allSupported;
+  }
+
+  private static boolean isSupported(int type) {
+    switch (type) {
+      case IValueMeta.TYPE_STRING:
+      case IValueMeta.TYPE_INTEGER:
+      case IValueMeta.TYPE_NUMBER:
+      case IValueMeta.TYPE_DATE:
+      case IValueMeta.TYPE_TIMESTAMP:
+      case IValueMeta.TYPE_BOOLEAN:
+      case IValueMeta.TYPE_BIGNUMBER:
+      case IValueMeta.TYPE_BINARY:
+        return true;
+      default:
+        return false;
+    }
+  }
+
+  @Override
+  public void encode(HopRow hopRow, OutputStream outStream) throws IOException {
+    Object[] row = hopRow.getRow();
+    if (row == null) {
+      outStream.write(ROW_NULL);
+      return;
+    }
+    if (!fitsLayout(row, hopRow.length())) {
+      outStream.write(ROW_GENERIC);
+      genericCoder.encode(hopRow, outStream);
+      return;
+    }
+
+    outStream.write(ROW_COMPACT);
+    VarInt.encode(hopRow.length(), outStream);
+
+    // The null bitmap
+    //
+    for (int b = 0; b < bitmapSize; b++) {
+      int bits = 0;
+      for (int i = b << 3, bit = 0; i < types.length && bit < 8; i++, bit++) {
+        if (row[i] == null) {
+          bits |= 1 << bit;
+        }
+      }
+      outStream.write(bits);
+    }
+
+    DataOutputStream out = null;
+    for (int i = 0; i < types.length; i++) {
+      Object object = row[i];
+      if (object == null) {
+        continue;
+      }
+      switch (types[i]) {
+        case IValueMeta.TYPE_STRING:
+          writeBytes(outStream, ((String) object).getBytes(StandardCharsets.UTF_8));
+          break;
+        case IValueMeta.TYPE_INTEGER:
+          VarInt.encode(zigZag((Long) object), outStream);
+          break;
+        case IValueMeta.TYPE_NUMBER:
+          if (out == null) {
+            out = new DataOutputStream(outStream);
+          }
+          out.writeDouble((Double) object);
+          break;
+        case IValueMeta.TYPE_DATE:
+          VarInt.encode(zigZag(((Date) object).getTime()), outStream);
+          break;
+        case IValueMeta.TYPE_TIMESTAMP:
+          VarInt.encode(zigZag(((Timestamp) object).getTime()), outStream);
+          VarInt.encode(((Timestamp) object).getNanos(), outStream);
+          break;
+        case IValueMeta.TYPE_BOOLEAN:
+          outStream.write(((Boolean) object) ? 1 : 0);
+          break;
+        case IValueMeta.TYPE_BIGNUMBER:
+          writeBytes(outStream, object.toString().getBytes(StandardCharsets.UTF_8));
+          break;
+        case IValueMeta.TYPE_BINARY:
+          writeBytes(outStream, (byte[]) object);
+          break;
+        default:
+          throw new IOException("Data type not supported: " + types[i]);
+      }
+    }
+    if (out != null) {
+      out.flush();
+    }
+  }
+
+  @Override
+  public HopRow decode(InputStream inStream) throws IOException {
+    int marker = inStream.read();
+    switch (marker) {
+      case ROW_NULL:
+        return new HopRow(null);
+      case ROW_GENERIC:
+        return genericCoder.decode(inStream);
+      case ROW_COMPACT:
+        break;
+      default:
+        throw new IOException("Invalid row marker: " + marker);
+    }
+
+    int length = VarInt.decodeInt(inStream);
+    Object[] row = new Object[length];
+
+    byte[] bitmap = new byte[bitmapSize];
+    readFully(inStream, bitmap);
+
+    DataInputStream in = null;
+    for (int i = 0; i < types.length; i++) {
+      if ((bitmap[i >>> 3] & (1 << (i & 7))) != 0) {
+        continue;
+      }
+      switch (types[i]) {
+        case IValueMeta.TYPE_STRING:
+          row[i] = new String(readBytes(inStream), StandardCharsets.UTF_8);
+          break;
+        case IValueMeta.TYPE_INTEGER:
+          row[i] = unZigZag(VarInt.decodeLong(inStream));
+          break;
+        case IValueMeta.TYPE_NUMBER:
+          if (in == null) {
+            in = new DataInputStream(inStream);
+          }
+          row[i] = in.readDouble();
+          break;
+        case IValueMeta.TYPE_DATE:
+          row[i] = new Date(unZigZag(VarInt.decodeLong(inStream)));
+          break;
+        case IValueMeta.TYPE_TIMESTAMP:
+          Timestamp timestamp = new Timestamp(unZigZag(VarInt.decodeLong(inStream)));
+          timestamp.setNanos(VarInt.decodeInt(inStream));
+          row[i] = timestamp;
+          break;
+        case IValueMeta.TYPE_BOOLEAN:
+          row[i] = inStream.read() != 0;
+          break;
+        case IValueMeta.TYPE_BIGNUMBER:
+          row[i] = new BigDecimal(new String(readBytes(inStream), StandardCharsets.UTF_8));
+          break;
+        case IValueMeta.TYPE_BINARY:
+          row[i] = readBytes(inStream);
+          break;
+        default:
+          throw new IOException("Data type not supported: " + types[i]);
+      }
+    }
+    return new HopRow(row, length);
+  }
+
+  /**
+   * See if a row can be written compactly: all the values need to be of the class we expect and
+   * the values past the end of the layout need to be null.
+   */
+  private boolean fitsLayout(Object[] row, int length) {
+    if (!compact || length < types.length) {
+      return false;
+    }
+    for (int i = 0; i < types.length; i++) {
+      Object object = row[i];
+      if (object != null && !isExpectedClass(types[i], object)) {
+        return false;
+      }
+    }
+    for (int i = types.length; i < length; i++) {
+      if (row[i] != null) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static boolean isExpectedClass(int type, Object object) {
+    switch (type) {
+      case IValueMeta.TYPE_STRING:
+        return object instanceof String;
+      case IValueMeta.TYPE_INTEGER:
+        return object instanceof Long;
+      case IValueMeta.TYPE_NUMBER:
+        return object instanceof Double;
+      case IValueMeta.TYPE_DATE:
+        // A timestamp in a date field keeps its nanoseconds with the generic coder
+        return object instanceof Date && !(object instanceof Timestamp);
+      case IValueMeta.TYPE_TIMESTAMP:
+        return object instanceof Timestamp;
+      case IValueMeta.TYPE_BOOLEAN:
+        return object instanceof Boolean;
+      case IValueMeta.TYPE_BIGNUMBER:
+        return object instanceof BigDecimal;
+      case IValueMeta.TYPE_BINARY:
+        return object instanceof byte[];
+      default:
+        return false;
+    }
+  }
+
+  private static long zigZag(long value) {
+    return (value << 1) ^ (value >> 63);
+  }
+
+  private static long unZigZag(long value) {
+    return (value >>> 1) ^ -(value & 1);
+  }
+
+  private static void writeBytes(OutputStream outStream, byte[] bytes) throws IOException {
+    VarInt.encode(bytes.length, outStream);
+    outStream.write(bytes);
+  }
+
+  private static byte[] readBytes(InputStream inStream) throws IOException {
+    byte[] bytes = new byte[VarInt.decodeInt(inStream)];
+    readFully(inStream, bytes);
+    return bytes;
+  }
+
+  private static void readFully(InputStream inStream, byte[] bytes) throws IOException {
+    int offset = 0;
+    while (offset < bytes.length) {
+      int read = inStream.read(bytes, offset, bytes.length - offset);
+      if (read < 0) {
+        throw new EOFException("Unexpected end of encoded row");
+      }
+      offset += read;
+    }
+  }
+
+  @Override
+  public void verifyDeterministic() {
+    // Sure
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    if (this == other) {
+      return true;
+    }
+    if (!(other instanceof HopSchemaRowCoder)) {
+      return false;
+    }
+    return Arrays.equals(types, ((HopSchemaRowCoder) other).types);
+  }
+
+  @Override
+  public int hashCode() {
+    return Arrays.hashCode(types);
+  }
+
+  /**
+   * Gets types
+   *
+   * @return value of types
+   */
+  public int[] getTypes() {
+    return types;
+  }
+}
@@ -17,6 +17,7 @@
 
 package org.apache.hop.beam.core.transform;
 
+import org.apache.beam.sdk.coders.KvCoder;
 import org.apache.beam.sdk.metrics.Counter;
 import org.apache.beam.sdk.metrics.Metrics;
 import org.apache.beam.sdk.transforms.GroupByKey;
@@ -26,6 +27,8 @@ import org.apache.beam.sdk.values.KV;
 import org.apache.beam.sdk.values.PCollection;
 import org.apache.hop.beam.core.BeamHop;
 import org.apache.hop.beam.core.HopRow;
+import org.apache.hop.beam.core.coder.HopRowCoder;
+import org.apache.hop.beam.core.coder.HopSchemaRowCoder;
 import org.apache.hop.beam.core.fn.GroupByFn;
 import org.apache.hop.beam.core.fn.HopKeyValueFn;
 import org.apache.hop.core.row.IRowMeta;
@@ -101,6 +104,11 @@ public class GroupByTransform extends PTransform<PCollection<HopRow>, PCollectio
                       subjects,
                       transformName)));
 
+      // The group keys keep the generic coder, the subjects have a known layout
+      //
+      groupSubjects.setCoder(
+          KvCoder.of(new HopRowCoder(), HopSchemaRowCoder.of(subjectRowMeta)));
+
       // Now we need to aggregate the groups with a Combine
       GroupByKey<HopRow, HopRow> byKey = GroupByKey.<HopRow, HopRow>create();
       PCollection<KV<HopRow, Iterable<HopRow>>> grouped = groupSubjects.apply(byKey);
@@ -30,6 +30,7 @@ import org.apache.beam.sdk.values.PCollectionList;
 import org.apache.commons.lang.StringUtils;
 import org.apache.hop.beam.core.HopRow;
 import org.apache.hop.beam.core.coder.HopRowCoder;
+import org.apache.hop.beam.core.coder.HopSchemaRowCoder;
 import org.apache.hop.beam.core.util.HopBeamUtil;
 import org.apache.hop.beam.engines.HopPipelineExecutionOptions;
 import org.apache.hop.beam.engines.IBeamPipelineEngineRunConfiguration;
@@ -67,6 +68,7 @@ import java.io.File;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -370,6 +372,7 @@ public class HopPipelineMetaToBeamPipelineConverter {
                 + transformMeta.getName());
       }
 
+      Set<String> existingCollections = new HashSet<>(transformCollectionMap.keySet());
       transformHandler.handleTransform(
           log,
           variables,
@@ -385,6 +388,7 @@ public class HopPipelineMetaToBeamPipelineConverter {
           null,
           null,
           parentLogChannelId);
+      setSchemaCoders(transformCollectionMap, existingCollections, transformMeta);
     }
   }
 
@@ -442,6 +446,7 @@ public class HopPipelineMetaToBeamPipelineConverter {
       //
       IRowMeta rowMeta = pipelineMeta.getTransformFields(variables, previousTransform);
 
+      Set<String> existingCollections = new HashSet<>(transformCollectionMap.keySet());
       transformHandler.handleTransform(
           log,
           variables,
@@ -457,6 +462,7 @@ public class HopPipelineMetaToBeamPipelineConverter {
           previousTransforms,
           input,
           parentLogChannelId);
+      setSchemaCoders(transformCollectionMap, existingCollections, transformMeta);
     }
   }
 
@@ -585,6 +591,7 @@ public class HopPipelineMetaToBeamPipelineConverter {
           transformHandler = genericTransformHandler;
         }
 
+        Set<String> existingCollections = new HashSet<>(transformCollectionMap.keySet());
         transformHandler.handleTransform(
             log,
             variables,
@@ -600,6 +607,37 @@ public class HopPipelineMetaToBeamPipelineConverter {
             previousTransforms,
             input,
             parentLogChannelId);
+        setSchemaCoders(transformCollectionMap, existingCollections, transformMeta);
+      }
+    }
+  }
+
+  /**
+   * The rows in the collections a transform produced have the layout of the transform output. Give
+   * those collections a compact coder for that layout. The generic {@link HopRowCoder} registered
+   * for {@link HopRow} stays in place for all other collections.
+   *
+   * @param transformCollectionMap The collections per transform (and target)
+   * @param existingCollections The collections which were there before the transform was handled
+   * @param transformMeta The transform which was handled
+   */
+  private void setSchemaCoders(
+      Map<String, PCollection<HopRow>> transformCollectionMap,
+      Set<String> existingCollections,
+      TransformMeta transformMeta)
+      throws HopException {
+    HopSchemaRowCoder coder = null;
+    for (Map.Entry<String, PCollection<HopRow>> entry : transformCollectionMap.entrySet()) {
+      if (existingCollections.contains(entry.getKey())) {
+        continue;
+      }
+      if (coder == null) {
+        coder = HopSchemaRowCoder.of(pipelineMeta.getTransformFields(variables, transformMeta));
+      }
+      try {
+        entry.getValue().setCoder(coder);
+      } catch (IllegalStateException e) {
+        // The collection is already being consumed: keep the coder it has
       }
     }
   }
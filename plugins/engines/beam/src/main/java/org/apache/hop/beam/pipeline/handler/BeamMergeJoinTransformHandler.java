@@ -18,12 +18,15 @@
 package org.apache.hop.beam.pipeline.handler;
 
 import org.apache.beam.sdk.Pipeline;
+import org.apache.beam.sdk.coders.KvCoder;
 import org.apache.beam.sdk.extensions.joinlibrary.Join;
 import org.apache.beam.sdk.transforms.DoFn;
 import org.apache.beam.sdk.transforms.ParDo;
 import org.apache.beam.sdk.values.KV;
 import org.apache.beam.sdk.values.PCollection;
 import org.apache.hop.beam.core.HopRow;
+import org.apache.hop.beam.core.coder.HopRowCoder;
+import org.apache.hop.beam.core.coder.HopSchemaRowCoder;
 import org.apache.hop.beam.core.fn.HopKeyValueFn;
 import org.apache.hop.beam.core.fn.MergeJoinAssemblerFn;
 import org.apache.hop.beam.engines.IBeamPipelineEngineRunConfiguration;
@@ -139,6 +142,12 @@ public class BeamMergeJoinTransformHandler extends BeamBaseTransformHandler
             transformMeta.getName());
     PCollection<KV<HopRow, HopRow>> leftKVPCollection = leftPCollection.apply(ParDo.of(leftKVFn));
 
+    // The join keys keep the generic coder so that equal keys of both sides encode the same way.
+    // The values have a known layout.
+    //
+    leftKVPCollection.setCoder(
+        KvCoder.of(new HopRowCoder(), HopSchemaRowCoder.of(leftVRowMeta)));
+
     // Create key-value pairs (KV) for the right collections
     //
     List<String> rightK = new ArrayList<>(Arrays.asList(rightKeys));
@@ -162,6 +171,8 @@ public class BeamMergeJoinTransformHandler extends BeamBaseTransformHandler
             transformMeta.getName());
     PCollection<KV<HopRow, HopRow>> rightKVPCollection =
         rightPCollection.apply(ParDo.of(rightKVFn));
+    rightKVPCollection.setCoder(
+        KvCoder.of(new HopRowCoder(), HopSchemaRowCoder.of(rightVRowMeta)));
 
     PCollection<KV<HopRow, KV<HopRow, HopRow>>> kvpCollection;
 
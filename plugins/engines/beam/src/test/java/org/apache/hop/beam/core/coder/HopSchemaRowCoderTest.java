@@ -0,0 +1,139 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.beam.core.coder;
+
+import junit.framework.TestCase;
+import org.apache.hop.beam.core.HopRow;
+import org.apache.hop.core.row.IRowMeta;
+import org.apache.hop.core.row.RowMeta;
+import org.apache.hop.core.row.value.ValueMetaBigNumber;
+import org.apache.hop.core.row.value.ValueMetaBinary;
+import org.apache.hop.core.row.value.ValueMetaBoolean;
+import org.apache.hop.core.row.value.ValueMetaDate;
+import org.apache.hop.core.row.value.ValueMetaInteger;
+import org.apache.hop.core.row.value.ValueMetaNumber;
+import org.apache.hop.core.row.value.ValueMetaString;
+import org.apache.hop.core.row.value.ValueMetaTimestamp;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.Date;
+
+public class HopSchemaRowCoderTest extends TestCase {
+
+  private IRowMeta rowMeta;
+  private HopSchemaRowCoder coder;
+
+  @Override
+  protected void setUp() throws Exception {
+    rowMeta = new RowMeta();
+    rowMeta.addValueMeta(new ValueMetaString("string"));
+    rowMeta.addValueMeta(new ValueMetaInteger("integer"));
+    rowMeta.addValueMeta(new ValueMetaNumber("number"));
+    rowMeta.addValueMeta(new ValueMetaDate("date"));
+    rowMeta.addValueMeta(new ValueMetaTimestamp("timestamp"));
+    rowMeta.addValueMeta(new ValueMetaBoolean("boolean"));
+    rowMeta.addValueMeta(new ValueMetaBigNumber("bignumber"));
+    rowMeta.addValueMeta(new ValueMetaBinary("binary"));
+    rowMeta.addValueMeta(new ValueMetaInteger("negative"));
+
+    coder = HopSchemaRowCoder.of(rowMeta);
+  }
+
+  private HopRow roundTrip(HopRow hopRow) throws IOException {
+    ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    coder.encode(hopRow, outputStream);
+    return coder.decode(new ByteArrayInputStream(outputStream.toByteArray()));
+  }
+
+  @Test
+  public void testEncodeDecodeAllTypes() throws IOException {
+    Timestamp timestamp = new Timestamp(810311);
+    timestamp.setNanos(123456789);
+    Object[] row =
+        new Object[] {
+          "Apache Hop \u00e9",
+          Long.valueOf(100),
+          Double.valueOf(1.234),
+          new Date(876876868),
+          timestamp,
+          Boolean.TRUE,
+          new BigDecimal("1234567890123456789.0123"),
+          new byte[] {1, 2, 3},
+          Long.valueOf(-987654321L)
+        };
+    HopRow decoded = roundTrip(new HopRow(row));
+
+    for (int i = 0; i < row.length; i++) {
+      if (row[i] instanceof byte[]) {
+        assertTrue(Arrays.equals((byte[]) row[i], (byte[]) decoded.getRow()[i]));
+      } else {
+        assertEquals(row[i], decoded.getRow()[i]);
+      }
+    }
+  }
+
+  @Test
+  public void testEncodeDecodeNullsAndPadding() throws IOException {
+    // Rows often have some extra room at the end
+    //
+    Object[] row = new Object[rowMeta.size() + 5];
+    row[0] = "AAA";
+    row[2] = Double.valueOf(5.5);
+    HopRow hopRow = new HopRow(row);
+
+    HopRow decoded = roundTrip(hopRow);
+    assertEquals(hopRow, decoded);
+    assertEquals(hopRow.length(), decoded.length());
+  }
+
+  @Test
+  public void testRowNotMatchingLayoutUsesGenericEncoding() throws IOException {
+    // An integer in a String field and a shorter row
+    //
+    HopRow hopRow = new HopRow(new Object[] {Long.valueOf(1), "BBB"});
+
+    HopRow decoded = roundTrip(hopRow);
+    assertEquals(hopRow, decoded);
+  }
+
+  @Test
+  public void testCompactIsSmaller() throws IOException {
+    HopRow hopRow =
+        new HopRow(
+            new Object[] {"A", 1L, 2.0, new Date(0), null, true, BigDecimal.ONE, null, -1L});
+
+    ByteArrayOutputStream compact = new ByteArrayOutputStream();
+    coder.encode(hopRow, compact);
+    ByteArrayOutputStream generic = new ByteArrayOutputStream();
+    new HopRowCoder().encode(hopRow, generic);
+
+    assertTrue(compact.size() < generic.size());
+  }
+
+  @Test
+  public void testEquality() {
+    assertEquals(coder, HopSchemaRowCoder.of(rowMeta.clone()));
+    assertFalse(coder.equals(HopSchemaRowCoder.of(new RowMeta())));
+  }
+}
@@ -17,7 +17,6 @@
 
 package org.apache.hop.parquet.transforms.input;
 
-import org.apache.commons.io.IOUtils;
 import org.apache.commons.vfs2.FileObject;
 import org.apache.hop.core.RowMetaAndData;
 import org.apache.hop.core.exception.HopException;
@@ -29,9 +28,6 @@ import org.apache.hop.pipeline.transform.BaseTransform;
 import org.apache.hop.pipeline.transform.TransformMeta;
 import org.apache.parquet.hadoop.ParquetReader;
 
-import java.io.ByteArrayOutputStream;
-import java.io.InputStream;
-
 public class ParquetInput extends BaseTransform<ParquetInputMeta, ParquetInputData>
 {
   public ParquetInput(
@@ -75,19 +71,12 @@ public class ParquetInput extends BaseTransform<ParquetInputMeta, ParquetInputDa
     String filename = getInputRowMeta().getString(row, data.filenameFieldIndex);
     FileObject fileObject = HopVfs.getFileObject(filename);
 
-    try {
-      long size = fileObject.getContent().getSize();
-      InputStream inputStream = HopVfs.getInputStream(fileObject);
-
-      // Reads the whole file into memory...
-      //
-      ByteArrayOutputStream outputStream = new ByteArrayOutputStream((int) size);
-      IOUtils.copy(inputStream, outputStream);
-      ParquetStream inputFile = new ParquetStream(outputStream.toByteArray(), filename);
-
-      ParquetReadSupport readSupport = new ParquetReadSupport(meta.getFields());
-      ParquetReader<RowMetaAndData> reader =
-          new ParquetReaderBuilder<>(readSupport, inputFile).build();
+    // Stream the file: only the footer and the column chunks of the requested fields are read.
+    // All row groups are read since this transform doesn't have a filter condition to push down.
+    //
+    ParquetReadSupport readSupport = new ParquetReadSupport(meta.getFields());
+    try (ParquetReader<RowMetaAndData> reader =
+        new ParquetReaderBuilder<>(readSupport, new ParquetVfsInputFile(fileObject)).build()) {
 
       RowMetaAndData r = reader.read();
       while (r != null && !isStopped()) {
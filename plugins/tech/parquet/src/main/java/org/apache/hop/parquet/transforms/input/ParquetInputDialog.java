@@ -17,7 +17,6 @@
 
 package org.apache.hop.parquet.transforms.input;
 
-import org.apache.commons.io.IOUtils;
 import org.apache.commons.vfs2.FileObject;
 import org.apache.hop.core.Const;
 import org.apache.hop.core.RowMetaAndData;
@@ -54,8 +53,6 @@ import org.eclipse.swt.widgets.Shell;
 import org.eclipse.swt.widgets.TableItem;
 import org.eclipse.swt.widgets.Text;
 
-import java.io.ByteArrayOutputStream;
-import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -217,14 +214,7 @@ public class ParquetInputDialog extends BaseTransformDialog implements ITransfor
       if (filename != null) {
         FileObject fileObject = HopVfs.getFileObject(variables.resolve(filename));
 
-        long size = fileObject.getContent().getSize();
-        InputStream inputStream = HopVfs.getInputStream(fileObject);
-
-        // Reads the whole file into memory...
-        //
-        ByteArrayOutputStream outputStream = new ByteArrayOutputStream((int) size);
-        IOUtils.copy(inputStream, outputStream);
-        ParquetStream inputFile = new ParquetStream(outputStream.toByteArray(), filename);
+        ParquetVfsInputFile inputFile = new ParquetVfsInputFile(fileObject);
         // Empty list of fields to retrieve: we still grab the schema
         //
         ParquetReadSupport readSupport = new ParquetReadSupport(new ArrayList<>());
@@ -234,6 +224,7 @@ public class ParquetInputDialog extends BaseTransformDialog implements ITransfor
         // Read one empty row...
         //
         reader.read();
+        reader.close();
 
         // Now we have the schema...
         //
@@ -23,7 +23,9 @@ import org.apache.parquet.hadoop.api.InitContext;
 import org.apache.parquet.hadoop.api.ReadSupport;
 import org.apache.parquet.io.api.RecordMaterializer;
 import org.apache.parquet.schema.MessageType;
+import org.apache.parquet.schema.Type;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -41,16 +43,39 @@ public class ParquetReadSupport extends ReadSupport<RowMetaAndData> {
   @Override
   public ReadContext init(InitContext context) {
     this.messageType = context.getFileSchema();
-    return new ReadContext(messageType, new HashMap<>());
+    return new ReadContext(getRequestedSchema(messageType), new HashMap<>());
+  }
+
+  /**
+   * Only ask for the columns of the fields we want to read. This way Parquet doesn't even decode the
+   * column chunks of the other fields. Without fields we ask for the complete file schema.
+   *
+   * @param fileSchema The schema of the file
+   * @return The schema with the requested fields
+   */
+  private MessageType getRequestedSchema(MessageType fileSchema) {
+    if (fields == null || fields.isEmpty()) {
+      return fileSchema;
+    }
+    List<Type> types = new ArrayList<>();
+    for (Type type : fileSchema.getFields()) {
+      for (ParquetField field : fields) {
+        if (type.getName().equalsIgnoreCase(field.getSourceField())) {
+          types.add(type);
+          break;
+        }
+      }
+    }
+    return new MessageType(fileSchema.getName(), types);
   }
 
   @Override
   public RecordMaterializer<RowMetaAndData> prepareForRead(
       Configuration configuration,
       Map<String, String> keyValueMetaData,
-      MessageType messageType,
+      MessageType fileSchema,
       ReadContext readContext) {
-    return new ParquetRecordMaterializer(messageType, fields);
+    return new ParquetRecordMaterializer(readContext.getRequestedSchema(), fields);
   }
 
   /**
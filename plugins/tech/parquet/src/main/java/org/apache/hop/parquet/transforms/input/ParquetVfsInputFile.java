@@ -0,0 +1,233 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.parquet.transforms.input;
+
+import org.apache.commons.vfs2.Capability;
+import org.apache.commons.vfs2.FileObject;
+import org.apache.commons.vfs2.RandomAccessContent;
+import org.apache.commons.vfs2.util.RandomAccessMode;
+import org.apache.hop.core.vfs.HopVfs;
+import org.apache.parquet.io.InputFile;
+import org.apache.parquet.io.SeekableInputStream;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * A Parquet input file which streams from a VFS file instead of loading it in memory. When the file
+ * system supports random access we seek in the file directly. Otherwise the file is opened again
+ * for a backward seek and skipped over for a forward seek.
+ */
+public class ParquetVfsInputFile implements InputFile {
+  private final FileObject fileObject;
+  private final String filename;
+  private final long length;
+
+  public ParquetVfsInputFile(FileObject fileObject) throws IOException {
+    this.fileObject = fileObject;
+    this.filename = fileObject.getName().getURI();
+    this.length = fileObject.getContent().getSize();
+  }
+
+  @Override
+  public long getLength() {
+    return length;
+  }
+
+  @Override
+  public SeekableInputStream newStream() throws IOException {
+    if (fileObject.getFileSystem().hasCapability(Capability.RANDOM_ACCESS_READ)) {
+      return new RandomAccessStream(
+          fileObject.getContent().getRandomAccessContent(RandomAccessMode.READ), length);
+    }
+    return new ReopeningStream(fileObject, length);
+  }
+
+  @Override
+  public String toString() {
+    return "ParquetVfsInputFile of file '" + filename + "'";
+  }
+
+  /** The buffer oriented reads which Parquet uses, implemented on top of the array reads. */
+  private abstract static class VfsSeekableInputStream extends SeekableInputStream {
+    protected final long length;
+
+    protected VfsSeekableInputStream(long length) {
+      this.length = length;
+    }
+
+    @Override
+    public int read() throws IOException {
+      byte[] single = new byte[1];
+      int read = read(single, 0, 1);
+      return read < 0 ? -1 : single[0] & 0xFF;
+    }
+
+    @Override
+    public void readFully(byte[] bytes) throws IOException {
+      readFully(bytes, 0, bytes.length);
+    }
+
+    @Override
+    public void readFully(byte[] bytes, int start, int len) throws IOException {
+      int offset = start;
+      int remaining = len;
+      while (remaining > 0) {
+        int read = read(bytes, offset, remaining);
+        if (read < 0) {
+          throw new EOFException(
+              "Reached the end of stream with " + remaining + " bytes left to read");
+        }
+        offset += read;
+        remaining -= read;
+      }
+    }
+
+    @Override
+    public int read(ByteBuffer buffer) throws IOException {
+      if (!buffer.hasRemaining()) {
+        return 0;
+      }
+      if (buffer.hasArray()) {
+        int read =
+            read(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+        if (read > 0) {
+          buffer.position(buffer.position() + read);
+        }
+        return read;
+      }
+      byte[] bytes = new byte[Math.min(buffer.remaining(), 64 * 1024)];
+      int read = read(bytes, 0, bytes.length);
+      if (read > 0) {
+        buffer.put(bytes, 0, read);
+      }
+      return read;
+    }
+
+    @Override
+    public void readFully(ByteBuffer buffer) throws IOException {
+      while (buffer.hasRemaining()) {
+        if (read(buffer) < 0) {
+          throw new EOFException(
+              "Reached the end of stream with " + buffer.remaining() + " bytes left to read");
+        }
+      }
+    }
+  }
+
+  /** Seeks directly in the file, for local files, SFTP, HTTP ranges and so on. */
+  private static class RandomAccessStream extends VfsSeekableInputStream {
+    private final RandomAccessContent content;
+
+    RandomAccessStream(RandomAccessContent content, long length) {
+      super(length);
+      this.content = content;
+    }
+
+    @Override
+    public int read(byte[] bytes, int offset, int len) throws IOException {
+      if (len == 0) {
+        return 0;
+      }
+      long left = length - content.getFilePointer();
+      if (left <= 0) {
+        return -1;
+      }
+      int toRead = (int) Math.min(len, left);
+      content.readFully(bytes, offset, toRead);
+      return toRead;
+    }
+
+    @Override
+    public long getPos() throws IOException {
+      return content.getFilePointer();
+    }
+
+    @Override
+    public void seek(long newPos) throws IOException {
+      content.seek(newPos);
+    }
+
+    @Override
+    public void close() throws IOException {
+      content.close();
+    }
+  }
+
+  /**
+   * For file systems without random access. Parquet reads the footer first and then the column
+   * chunks mostly front to back so a re-open is only needed now and then.
+   */
+  private static class ReopeningStream extends VfsSeekableInputStream {
+    private final FileObject fileObject;
+    private InputStream inputStream;
+    private long position;
+
+    ReopeningStream(FileObject fileObject, long length) throws IOException {
+      super(length);
+      this.fileObject = fileObject;
+      open();
+    }
+
+    private void open() throws IOException {
+      inputStream = HopVfs.getInputStream(fileObject);
+      position = 0L;
+    }
+
+    @Override
+    public int read(byte[] bytes, int offset, int len) throws IOException {
+      int read = inputStream.read(bytes, offset, len);
+      if (read > 0) {
+        position += read;
+      }
+      return read;
+    }
+
+    @Override
+    public long getPos() {
+      return position;
+    }
+
+    @Override
+    public void seek(long newPos) throws IOException {
+      if (newPos < position) {
+        inputStream.close();
+        open();
+      }
+      while (position < newPos) {
+        long skipped = inputStream.skip(newPos - position);
+        if (skipped <= 0) {
+          // Some streams only skip what is buffered, make sure we make progress
+          //
+          if (inputStream.read() < 0) {
+            throw new EOFException("Unable to seek to position " + newPos + " of " + length);
+          }
+          skipped = 1;
+        }
+        position += skipped;
+      }
+    }
+
+    @Override
+    public void close() throws IOException {
+      inputStream.close();
+    }
+  }
+}
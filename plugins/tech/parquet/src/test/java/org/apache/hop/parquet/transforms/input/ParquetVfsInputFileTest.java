@@ -0,0 +1,162 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.parquet.transforms.input;
+
+import org.apache.commons.vfs2.Capability;
+import org.apache.commons.vfs2.FileObject;
+import org.apache.hop.core.vfs.HopVfs;
+import org.apache.parquet.io.SeekableInputStream;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ParquetVfsInputFileTest {
+
+  @Rule public TemporaryFolder tempFolder = new TemporaryFolder();
+
+  private byte[] contents;
+  private FileObject localFile;
+  private FileObject zippedFile;
+
+  @Before
+  public void setUp() throws Exception {
+    contents = new byte[100000];
+    for (int i = 0; i < contents.length; i++) {
+      contents[i] = (byte) (i * 31);
+    }
+
+    File file = tempFolder.newFile("data.bin");
+    Files.write(file.toPath(), contents);
+    localFile = HopVfs.getFileObject(file.getAbsolutePath());
+
+    // A file inside a zip archive can only be streamed, not accessed randomly
+    //
+    File zip = tempFolder.newFile("data.zip");
+    try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(zip))) {
+      out.putNextEntry(new ZipEntry("data.bin"));
+      out.write(contents);
+      out.closeEntry();
+    }
+    zippedFile = HopVfs.getFileObject("zip:" + zip.toURI() + "!/data.bin");
+  }
+
+  @Test
+  public void testCapabilities() throws Exception {
+    assertTrue(localFile.getFileSystem().hasCapability(Capability.RANDOM_ACCESS_READ));
+    assertFalse(zippedFile.getFileSystem().hasCapability(Capability.RANDOM_ACCESS_READ));
+  }
+
+  @Test
+  public void testLength() throws Exception {
+    assertEquals(contents.length, new ParquetVfsInputFile(localFile).getLength());
+    assertEquals(contents.length, new ParquetVfsInputFile(zippedFile).getLength());
+  }
+
+  @Test
+  public void testRandomAccessSeeks() throws Exception {
+    assertSeeks(new ParquetVfsInputFile(localFile));
+  }
+
+  @Test
+  public void testReopeningSeeks() throws Exception {
+    assertSeeks(new ParquetVfsInputFile(zippedFile));
+  }
+
+  @Test
+  public void testRandomAccessReadPastEnd() throws Exception {
+    assertReadPastEnd(new ParquetVfsInputFile(localFile));
+  }
+
+  @Test
+  public void testReopeningReadPastEnd() throws Exception {
+    assertReadPastEnd(new ParquetVfsInputFile(zippedFile));
+  }
+
+  /** Reads the way Parquet does: the footer first, then chunks front to back and back again. */
+  private void assertSeeks(ParquetVfsInputFile inputFile) throws Exception {
+    try (SeekableInputStream stream = inputFile.newStream()) {
+      assertEquals(0L, stream.getPos());
+
+      // The footer at the end of the file
+      //
+      stream.seek(contents.length - 8);
+      byte[] footer = new byte[8];
+      stream.readFully(footer);
+      assertArrayEquals(range(contents.length - 8, 8), footer);
+      assertEquals(contents.length, stream.getPos());
+      assertEquals(-1, stream.read());
+
+      // Back to the start
+      //
+      stream.seek(0);
+      assertEquals(contents[0] & 0xFF, stream.read());
+      assertEquals(1L, stream.getPos());
+
+      // Forward into a heap buffer
+      //
+      stream.seek(1000);
+      ByteBuffer heapBuffer = ByteBuffer.allocate(5000);
+      stream.readFully(heapBuffer);
+      assertArrayEquals(range(1000, 5000), heapBuffer.array());
+      assertEquals(6000L, stream.getPos());
+
+      // Backward into a direct buffer
+      //
+      stream.seek(500);
+      ByteBuffer directBuffer = ByteBuffer.allocateDirect(70000);
+      stream.readFully(directBuffer);
+      directBuffer.flip();
+      byte[] direct = new byte[directBuffer.remaining()];
+      directBuffer.get(direct);
+      assertArrayEquals(range(500, 70000), direct);
+      assertEquals(70500L, stream.getPos());
+    }
+  }
+
+  private void assertReadPastEnd(ParquetVfsInputFile inputFile) throws Exception {
+    try (SeekableInputStream stream = inputFile.newStream()) {
+      stream.seek(contents.length - 10);
+      try {
+        stream.readFully(new byte[20]);
+        fail("Reading past the end of the file should fail");
+      } catch (EOFException e) {
+        // Expected
+      }
+    }
+  }
+
+  private byte[] range(int start, int length) {
+    return Arrays.copyOfRange(contents, start, start + length);
+  }
+}
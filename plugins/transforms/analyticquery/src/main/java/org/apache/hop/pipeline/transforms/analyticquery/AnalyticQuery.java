@@ -20,16 +20,19 @@ package org.apache.hop.pipeline.transforms.analyticquery;
 import org.apache.hop.core.exception.HopException;
 import org.apache.hop.core.exception.HopTransformException;
 import org.apache.hop.core.exception.HopValueException;
+import org.apache.hop.core.row.IValueMeta;
 import org.apache.hop.core.row.RowDataUtil;
 import org.apache.hop.i18n.BaseMessages;
 import org.apache.hop.pipeline.Pipeline;
 import org.apache.hop.pipeline.PipelineMeta;
 import org.apache.hop.pipeline.transform.BaseTransform;
 import org.apache.hop.pipeline.transform.TransformMeta;
+import org.apache.hop.pipeline.transforms.analyticquery.QueryField.AggregateType;
 
-import java.util.concurrent.ConcurrentLinkedQueue;
+import java.math.BigDecimal;
+import java.math.MathContext;
 
-/** Performs analytic queries (LEAD/LAG, etc) based on a group */
+/** Performs analytic queries (LEAD/LAG, running aggregates, etc) based on a group */
 public class AnalyticQuery extends BaseTransform<AnalyticQueryMeta, AnalyticQueryData> {
 
   private static final Class<?> PKG = AnalyticQuery.class; // For Translator
@@ -83,17 +86,7 @@ public class AnalyticQuery extends BaseTransform<AnalyticQueryMeta, AnalyticQuer
         }
       }
 
-      // Setup of "window size" and "queue_size"
-      int maxOffset = 0;
-      for (int i = 0; i < meta.getQueryFields().size(); i++) {
-        QueryField queryField = meta.getQueryFields().get(i);
-
-        if (queryField.getValueField() > maxOffset) {
-          maxOffset = queryField.getValueField();
-        }
-      }
-      data.window_size = maxOffset;
-      data.queue_size = (maxOffset * 2) + 1;
+      prepareQueryFields();
 
       // After we've processed the metadata we're all set
       first = false;
@@ -110,14 +103,19 @@ public class AnalyticQuery extends BaseTransform<AnalyticQueryMeta, AnalyticQuer
         clearQueue();
         resetGroup();
       }
-      /* Add this row to the end of the queue */
-      data.data.add(r);
-      /* Push the extra records off the end of the queue */
-      while (data.data.size() > data.queue_size) {
-        data.data.poll();
-      }
+      /* Add this row to the buffer, overwriting a row we no longer need */
+      data.buffer[(int) (data.rowCount % data.buffer.length)] = r;
+      data.rowCount++;
 
-      data.previous = r.clone();
+      // Keep a copy of the group fields: the row itself is sent to the next transform which is
+      // free to change it
+      //
+      if (data.previous == null) {
+        data.previous = new Object[data.inputRowMeta.size()];
+      }
+      for (int groupnr : data.groupnrs) {
+        data.previous[groupnr] = r[groupnr];
+      }
 
       processQueue();
     }
@@ -129,82 +127,215 @@ public class AnalyticQuery extends BaseTransform<AnalyticQueryMeta, AnalyticQuer
     return true;
   }
 
-  public void processQueue() throws HopTransformException {
-
-    // If we've filled up our queue for processing
-    if (data.data.size() == data.queue_size) {
-      // Bring current cursor "up to current"
-      if (data.queue_cursor <= data.window_size) {
-        while (data.queue_cursor <= data.window_size) {
-          processQueueObjectAt(data.queue_cursor + 1);
-          data.queue_cursor++;
-        }
-      } else {
-        processQueueObjectAt(data.window_size + 1);
-      }
-    }
-  }
-
-  public void clearQueue() throws HopTransformException {
-
-    if (data.data == null) {
-      return;
-    }
-
-    int numberOfRows = data.data.size();
-
-    for (int i = data.queue_cursor; i < numberOfRows; i++) {
-      processQueueObjectAt(i + 1);
-    }
-  }
-
-  public void processQueueObjectAt(int i) throws HopTransformException {
-    int index = i - 1;
-    Object[] rows = data.data.toArray();
-
-    Object[] fields = new Object[meta.getQueryFields().size()];
-    for (int j = 0; j < meta.getQueryFields().size(); j++) {
-      QueryField queryField = meta.getQueryFields().get(j);
+  /**
+   * Look up the subject fields of the query fields and size the row buffer after the largest number
+   * of rows we need to look back and ahead.
+   */
+  private void prepareQueryFields() throws HopException {
+    int nrFields = meta.getQueryFields().size();
+    data.queryFields = meta.getQueryFields().toArray(new QueryField[nrFields]);
+    data.subjectIndexes = new int[nrFields];
+    data.subjectMetas = new IValueMeta[nrFields];
+    data.windows = new SlidingWindowAggregate[nrFields];
+    data.windowEnds = new long[nrFields];
+    data.ranks = new long[nrFields];
+    data.maxLag = 0;
+    data.maxLead = 0;
+
+    for (int i = 0; i < nrFields; i++) {
+      QueryField queryField = data.queryFields[i];
+      AggregateType type = queryField.getAggregateType();
+      int offset = Math.max(0, queryField.getValueField());
 
       // field_index is the location inside a row of the subject of this
       // ie, ORDERTOTAL might be the subject ofthis field lag or lead
       // so we determine that ORDERTOTAL's index in the row
-      int fieldIndex = data.inputRowMeta.indexOfValue(queryField.getSubjectField());
-      int rowIndex = 0;
-      switch (queryField.getAggregateType()) {
+      data.subjectIndexes[i] = data.inputRowMeta.indexOfValue(queryField.getSubjectField());
+      if (data.subjectIndexes[i] >= 0) {
+        data.subjectMetas[i] = data.inputRowMeta.getValueMeta(data.subjectIndexes[i]);
+      } else if (type != AggregateType.ROW_NUMBER) {
+        throw new HopException(
+            BaseMessages.getString(
+                PKG, "AnalyticQuery.Exception.SubjectFieldNotFound", queryField.getSubjectField()));
+      }
+
+      switch (type) {
         case LAG:
-          rowIndex = index - queryField.getValueField();
+          data.maxLag = Math.max(data.maxLag, offset);
           break;
         case LEAD:
-          rowIndex = index + queryField.getValueField();
+          data.maxLead = Math.max(data.maxLead, offset);
+          break;
+        case RANK:
+          // We compare with the previous row
+          data.maxLag = Math.max(data.maxLag, 1);
           break;
-        case NONE:
         default:
+          if (type.isPrecedingWindow()) {
+            data.maxLag = Math.max(data.maxLag, offset);
+            data.windows[i] = new SlidingWindowAggregate(getCombiner(type, data.subjectMetas[i]));
+          } else if (type.isFollowingWindow()) {
+            data.maxLead = Math.max(data.maxLead, offset);
+            data.windows[i] = new SlidingWindowAggregate(getCombiner(type, data.subjectMetas[i]));
+          }
           break;
       }
-      if (rowIndex < rows.length && rowIndex >= 0) {
-        Object[] singleRow = (Object[]) rows[rowIndex];
-        if (singleRow != null && singleRow[fieldIndex] != null) {
-          fields[j] = ((Object[]) rows[rowIndex])[fieldIndex];
-        } else {
-          // set default
-          fields[j] = null;
+    }
+    data.buffer = new Object[data.maxLag + data.maxLead + 1][];
+  }
+
+  /** Send out all rows for which we have seen the rows ahead needed to calculate them. */
+  public void processQueue() throws HopTransformException {
+    while (data.cursor + data.maxLead < data.rowCount) {
+      processQueueObjectAt(data.cursor++);
+    }
+  }
+
+  /** Send out the remaining rows of the group. */
+  public void clearQueue() throws HopTransformException {
+    if (data.buffer == null) {
+      return;
+    }
+    while (data.cursor < data.rowCount) {
+      processQueueObjectAt(data.cursor++);
+    }
+  }
+
+  /**
+   * Calculate the analytic fields of a row and send it out.
+   *
+   * @param position The position of the row in the group
+   */
+  public void processQueueObjectAt(long position) throws HopTransformException {
+    Object[] row = getRowAt(position);
+
+    Object[] fields = new Object[data.queryFields.length];
+    try {
+      for (int j = 0; j < data.queryFields.length; j++) {
+        QueryField queryField = data.queryFields[j];
+        int fieldIndex = data.subjectIndexes[j];
+        int offset = Math.max(0, queryField.getValueField());
+
+        switch (queryField.getAggregateType()) {
+          case LAG:
+            fields[j] = position - offset >= 0 ? getRowAt(position - offset)[fieldIndex] : null;
+            break;
+          case LEAD:
+            fields[j] =
+                position + offset < data.rowCount ? getRowAt(position + offset)[fieldIndex] : null;
+            break;
+          case ROW_NUMBER:
+            fields[j] = position + 1;
+            break;
+          case RANK:
+            // Rows with the same subject value share the same rank
+            //
+            if (position == 0
+                || data.subjectMetas[j].compare(getRowAt(position - 1)[fieldIndex], row[fieldIndex])
+                    != 0) {
+              data.ranks[j] = position + 1;
+            }
+            fields[j] = data.ranks[j];
+            break;
+          case NONE:
+            fields[j] = row[fieldIndex];
+            break;
+          default:
+            if (queryField.getAggregateType().isPrecedingWindow()) {
+              fields[j] = getWindowAggregate(j, position - offset, position);
+            } else {
+              fields[j] = getWindowAggregate(j, position, position + offset);
+            }
+            break;
         }
-      } else {
-        // set default
-        fields[j] = null;
       }
+    } catch (HopValueException e) {
+      throw new HopTransformException(e);
     }
 
-    Object[] newRow =
-        RowDataUtil.addRowData((Object[]) rows[index], data.inputRowMeta.size(), fields);
+    Object[] newRow = RowDataUtil.addRowData(row, data.inputRowMeta.size(), fields);
 
     putRow(data.outputRowMeta, newRow);
   }
 
+  private Object[] getRowAt(long position) {
+    return data.buffer[(int) (position % data.buffer.length)];
+  }
+
+  /**
+   * Slide the window of a running aggregate to cover the given rows of the group and calculate the
+   * aggregate. The window only ever moves forward so every row is added and removed once.
+   */
+  private Object getWindowAggregate(int j, long from, long to) throws HopValueException {
+    SlidingWindowAggregate window = data.windows[j];
+    int fieldIndex = data.subjectIndexes[j];
+    IValueMeta subjectMeta = data.subjectMetas[j];
+    AggregateType type = data.queryFields[j].getAggregateType();
+
+    long last = Math.min(to, data.rowCount - 1);
+    while (data.windowEnds[j] <= last) {
+      Object value = getRowAt(data.windowEnds[j])[fieldIndex];
+      if (type.isSum() || type.isAverage()) {
+        value = getNumericValue(subjectMeta, value);
+      }
+      window.add(value);
+      data.windowEnds[j]++;
+    }
+    while (data.windowEnds[j] - window.size() < from) {
+      window.removeOldest();
+    }
+
+    Object aggregate = window.getAggregate();
+    if (aggregate == null || !type.isAverage()) {
+      return aggregate;
+    }
+    int count = window.getNonNullCount();
+    if (aggregate instanceof BigDecimal) {
+      return ((BigDecimal) aggregate).divide(BigDecimal.valueOf(count), MathContext.DECIMAL128);
+    }
+    return ((Number) aggregate).doubleValue() / count;
+  }
+
+  /** Sums and averages are calculated on the native Java value of the numeric data types. */
+  private static Object getNumericValue(IValueMeta subjectMeta, Object value)
+      throws HopValueException {
+    switch (subjectMeta.getType()) {
+      case IValueMeta.TYPE_INTEGER:
+        return subjectMeta.getInteger(value);
+      case IValueMeta.TYPE_BIGNUMBER:
+        return subjectMeta.getBigNumber(value);
+      default:
+        return subjectMeta.getNumber(value);
+    }
+  }
+
+  private static SlidingWindowAggregate.ICombiner getCombiner(
+      AggregateType type, IValueMeta subjectMeta) {
+    if (type.isSum() || type.isAverage()) {
+      switch (subjectMeta.getType()) {
+        case IValueMeta.TYPE_INTEGER:
+          return (a, b) -> (Long) a + (Long) b;
+        case IValueMeta.TYPE_BIGNUMBER:
+          return (a, b) -> ((BigDecimal) a).add((BigDecimal) b);
+        default:
+          return (a, b) -> (Double) a + (Double) b;
+      }
+    }
+    if (type.isMinimum()) {
+      return (a, b) -> subjectMeta.compare(a, b) <= 0 ? a : b;
+    }
+    return (a, b) -> subjectMeta.compare(a, b) >= 0 ? a : b;
+  }
+
   public void resetGroup() {
-    data.data = new ConcurrentLinkedQueue<>();
-    data.queue_cursor = 0;
+    data.rowCount = 0;
+    data.cursor = 0;
+    for (int j = 0; j < data.windows.length; j++) {
+      if (data.windows[j] != null) {
+        data.windows[j].clear();
+      }
+      data.windowEnds[j] = 0;
+    }
   }
 
   // Is the row r of the same group as previous?
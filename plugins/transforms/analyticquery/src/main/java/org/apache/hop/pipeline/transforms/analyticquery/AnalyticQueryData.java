@@ -18,11 +18,10 @@
 package org.apache.hop.pipeline.transforms.analyticquery;
 
 import org.apache.hop.core.row.IRowMeta;
+import org.apache.hop.core.row.IValueMeta;
 import org.apache.hop.pipeline.transform.BaseTransformData;
 import org.apache.hop.pipeline.transform.ITransformData;
 
-import java.util.concurrent.ConcurrentLinkedQueue;
-
 public class AnalyticQueryData extends BaseTransformData implements ITransformData {
   // Grouped Field Indexes (faster than looking up by strings)
   public int[] groupnrs;
@@ -30,18 +29,30 @@ public class AnalyticQueryData extends BaseTransformData implements ITransformDa
   public IRowMeta inputRowMeta;
   public IRowMeta outputRowMeta;
 
-  // Two Integers for our processing
-  // Window Size (the largest N we need to skip forward/back)
-  public int window_size;
-  // Queue Size (the size of our data queue (Window Size * 2 ) + 1)
-  public int queue_size;
-  // / Queue Cursor (the current processing location in the queue) reset with every group
-  public int queue_cursor;
-
-  // Queue for keeping the data. We will push data onto the queue
-  // and pop it off as we process rows. The queue of data is required
-  // to get the second previous row and the second ahead row, etc.
-  public ConcurrentLinkedQueue<Object[]> data;
+  // The query fields with the index and metadata of their subject fields, looked up once
+  public QueryField[] queryFields;
+  public int[] subjectIndexes;
+  public IValueMeta[] subjectMetas;
+
+  // The largest number of rows we need to look back and ahead
+  public int maxLag;
+  public int maxLead;
+
+  // Circular buffer with the last rows of the group. The row at position N in the group is kept at
+  // index N % buffer.length. It holds enough rows to look maxLag rows back from the current row
+  // while we're maxLead rows ahead of it.
+  public Object[][] buffer;
+  // The number of rows of the current group we've received
+  public long rowCount;
+  // The position in the group of the next row to send out
+  public long cursor;
+
+  // The windows of the running aggregates, null for the other functions
+  public SlidingWindowAggregate[] windows;
+  // The position in the group of the next row to add to each window
+  public long[] windowEnds;
+  // The current rank for the RANK functions
+  public long[] ranks;
 
   public Object[] previous;
 
@@ -24,6 +24,9 @@ import org.apache.hop.core.exception.HopTransformException;
 import org.apache.hop.core.row.IRowMeta;
 import org.apache.hop.core.row.IValueMeta;
 import org.apache.hop.core.row.RowMeta;
+import org.apache.hop.core.row.value.ValueMetaBigNumber;
+import org.apache.hop.core.row.value.ValueMetaInteger;
+import org.apache.hop.core.row.value.ValueMetaNumber;
 import org.apache.hop.core.variables.IVariables;
 import org.apache.hop.i18n.BaseMessages;
 import org.apache.hop.metadata.api.HopMetadataProperty;
@@ -32,6 +35,7 @@ import org.apache.hop.pipeline.PipelineMeta;
 import org.apache.hop.pipeline.PipelineMeta.PipelineType;
 import org.apache.hop.pipeline.transform.BaseTransformMeta;
 import org.apache.hop.pipeline.transform.TransformMeta;
+import org.apache.hop.pipeline.transforms.analyticquery.QueryField.AggregateType;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -80,11 +84,21 @@ public class AnalyticQueryMeta extends BaseTransformMeta<AnalyticQuery, Analytic
     // add analytic values
     for (QueryField queryField : queryFields) {
 
+      AggregateType type = queryField.getAggregateType();
+      if (type == AggregateType.ROW_NUMBER) {
+        // The row number doesn't need a subject
+        //
+        IValueMeta vmi = new ValueMetaInteger(queryField.getAggregateField());
+        vmi.setOrigin(origin);
+        fields.addValueMeta(vmi);
+        continue;
+      }
+
       int indexOfSubject = r.indexOfValue(queryField.getSubjectField());
 
       // if we found the subjectField in the IRowMeta, and we should....
       if (indexOfSubject > -1) {
-        IValueMeta vmi = r.getValueMeta(indexOfSubject).clone();
+        IValueMeta vmi = getAggregateValueMeta(type, r.getValueMeta(indexOfSubject));
         vmi.setOrigin(origin);
         vmi.setName(queryField.getAggregateField());
         fields.addValueMeta(vmi);
@@ -114,6 +128,29 @@ public class AnalyticQueryMeta extends BaseTransformMeta<AnalyticQuery, Analytic
     r.addRowMeta(fields);
   }
 
+  /**
+   * Determine the metadata of an analytic field. Functions that return a value of the subject field
+   * keep its metadata. Sums keep the integer and big number types, other subjects are summed and
+   * averaged as numbers.
+   */
+  private static IValueMeta getAggregateValueMeta(AggregateType type, IValueMeta subjectMeta) {
+    String name = subjectMeta.getName();
+    if (type == AggregateType.RANK) {
+      return new ValueMetaInteger(name);
+    }
+    if (type.isSum() || type.isAverage()) {
+      switch (subjectMeta.getType()) {
+        case IValueMeta.TYPE_INTEGER:
+          return type.isSum() ? new ValueMetaInteger(name) : new ValueMetaNumber(name);
+        case IValueMeta.TYPE_BIGNUMBER:
+          return new ValueMetaBigNumber(name);
+        default:
+          return new ValueMetaNumber(name);
+      }
+    }
+    return subjectMeta.clone();
+  }
+
   @Override
   public void check(
       List<ICheckResult> remarks,
@@ -28,7 +28,25 @@ public class QueryField {
   public enum AggregateType {
     NONE(""),
     LEAD(BaseMessages.getString(PKG, "AnalyticQueryMeta.TypeGroupLongDesc.LEAD")),
-    LAG(BaseMessages.getString(PKG, "AnalyticQueryMeta.TypeGroupLongDesc.LAG"));
+    LAG(BaseMessages.getString(PKG, "AnalyticQueryMeta.TypeGroupLongDesc.LAG")),
+    ROW_NUMBER(BaseMessages.getString(PKG, "AnalyticQueryMeta.TypeGroupLongDesc.ROW_NUMBER")),
+    RANK(BaseMessages.getString(PKG, "AnalyticQueryMeta.TypeGroupLongDesc.RANK")),
+    SUM_PRECEDING(
+        BaseMessages.getString(PKG, "AnalyticQueryMeta.TypeGroupLongDesc.SUM_PRECEDING")),
+    AVG_PRECEDING(
+        BaseMessages.getString(PKG, "AnalyticQueryMeta.TypeGroupLongDesc.AVG_PRECEDING")),
+    MIN_PRECEDING(
+        BaseMessages.getString(PKG, "AnalyticQueryMeta.TypeGroupLongDesc.MIN_PRECEDING")),
+    MAX_PRECEDING(
+        BaseMessages.getString(PKG, "AnalyticQueryMeta.TypeGroupLongDesc.MAX_PRECEDING")),
+    SUM_FOLLOWING(
+        BaseMessages.getString(PKG, "AnalyticQueryMeta.TypeGroupLongDesc.SUM_FOLLOWING")),
+    AVG_FOLLOWING(
+        BaseMessages.getString(PKG, "AnalyticQueryMeta.TypeGroupLongDesc.AVG_FOLLOWING")),
+    MIN_FOLLOWING(
+        BaseMessages.getString(PKG, "AnalyticQueryMeta.TypeGroupLongDesc.MIN_FOLLOWING")),
+    MAX_FOLLOWING(
+        BaseMessages.getString(PKG, "AnalyticQueryMeta.TypeGroupLongDesc.MAX_FOLLOWING"));
 
     private String description;
 
@@ -37,7 +55,42 @@ public class QueryField {
     }
 
     public static final String[] getDescriptions() {
-      return new String[] {LEAD.description, LAG.description};
+      String[] descriptions = new String[values().length - 1];
+      for (int i = 1; i < values().length; i++) {
+        descriptions[i - 1] = values()[i].description;
+      }
+      return descriptions;
+    }
+
+    /** @return true if this function aggregates the N preceding rows and the current row */
+    public boolean isPrecedingWindow() {
+      return this == SUM_PRECEDING
+          || this == AVG_PRECEDING
+          || this == MIN_PRECEDING
+          || this == MAX_PRECEDING;
+    }
+
+    /** @return true if this function aggregates the current row and the N following rows */
+    public boolean isFollowingWindow() {
+      return this == SUM_FOLLOWING
+          || this == AVG_FOLLOWING
+          || this == MIN_FOLLOWING
+          || this == MAX_FOLLOWING;
+    }
+
+    /** @return true if this function sums the values in its window */
+    public boolean isSum() {
+      return this == SUM_PRECEDING || this == SUM_FOLLOWING;
+    }
+
+    /** @return true if this function averages the values in its window */
+    public boolean isAverage() {
+      return this == AVG_PRECEDING || this == AVG_FOLLOWING;
+    }
+
+    /** @return true if this function takes the smallest value in its window */
+    public boolean isMinimum() {
+      return this == MIN_PRECEDING || this == MIN_FOLLOWING;
     }
 
     public static final AggregateType findTypeWithName(String name) {
@@ -78,12 +131,12 @@ public class QueryField {
   @HopMetadataProperty(key = "subject", injectionKey = "OUTPUT.SUBJECT_FIELD")
   private String subjectField;
 
-  /** Aggregate type (LEAD/LAG, etc) */
+  /** Aggregate type (LEAD/LAG, ROW_NUMBER, SUM_PRECEDING, etc) */
   // @Injection(group = "fields", name = "OUTPUT.AGGREGATE_TYPE")
   @HopMetadataProperty(key = "type", injectionKey = "OUTPUT.AGGREGATE_TYPE")
   private AggregateType aggregateType;
 
-  /** Offset "N" of how many rows to go forward/back */
+  /** Offset "N" of how many rows to go forward/back, or the number of rows in the window */
   // @Injection(group = "fields", name = "OUTPUT.VALUE_FIELD")
   @HopMetadataProperty(key = "valuefield", injectionKey = "OUTPUT.VALUE_FIELD")
   private int valueField;
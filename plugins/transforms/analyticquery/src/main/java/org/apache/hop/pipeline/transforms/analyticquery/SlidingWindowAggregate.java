@@ -0,0 +1,153 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.pipeline.transforms.analyticquery;
+
+import org.apache.hop.core.exception.HopValueException;
+
+import java.util.Arrays;
+
+/**
+ * Aggregates the values in a window that slides over the rows of a group: values are added at the
+ * end of the window and removed from the start. The aggregate of the whole window is available in
+ * constant amortized time per row, without the need to undo a value when it leaves the window. That
+ * means it works for functions like minimum and maximum, and sums of floating point numbers don't
+ * drift as the window slides.
+ *
+ * <p>The window is kept as two stacks. New values are pushed on the back stack which keeps the
+ * aggregate of all its values. Values are taken from the front stack which keeps, for every value,
+ * the aggregate of that value and all the newer values on the stack. When the front stack runs
+ * empty the back stack is moved over in one go.
+ *
+ * <p>Null values are ignored by the aggregate, like in SQL.
+ */
+public class SlidingWindowAggregate {
+
+  /** Combines two non-null values or aggregates into one aggregate. */
+  @FunctionalInterface
+  public interface ICombiner {
+    Object combine(Object a, Object b) throws HopValueException;
+  }
+
+  private final ICombiner combiner;
+
+  private Object[] backValues;
+  private int backSize;
+  private Object backAggregate;
+
+  private Object[] frontValues;
+  private Object[] frontAggregates;
+  private int frontSize;
+
+  private int nonNullCount;
+
+  public SlidingWindowAggregate(ICombiner combiner) {
+    this.combiner = combiner;
+    this.backValues = new Object[16];
+    this.frontValues = new Object[16];
+    this.frontAggregates = new Object[16];
+  }
+
+  /**
+   * Add a value at the end of the window.
+   *
+   * @param value The value to add, can be null
+   */
+  public void add(Object value) throws HopValueException {
+    if (backSize == backValues.length) {
+      backValues = Arrays.copyOf(backValues, backSize * 2);
+    }
+    backValues[backSize++] = value;
+    backAggregate = combine(backAggregate, value);
+    if (value != null) {
+      nonNullCount++;
+    }
+  }
+
+  /** Remove the oldest value from the window. */
+  public void removeOldest() throws HopValueException {
+    if (frontSize == 0) {
+      if (backSize == 0) {
+        return;
+      }
+      moveBackToFront();
+    }
+    frontSize--;
+    if (frontValues[frontSize] != null) {
+      nonNullCount--;
+    }
+    frontValues[frontSize] = null;
+    frontAggregates[frontSize] = null;
+  }
+
+  /** @return The aggregate of all the non-null values in the window or null if there are none */
+  public Object getAggregate() throws HopValueException {
+    Object frontAggregate = frontSize == 0 ? null : frontAggregates[frontSize - 1];
+    return combine(frontAggregate, backAggregate);
+  }
+
+  /** @return The number of values in the window, including nulls */
+  public int size() {
+    return frontSize + backSize;
+  }
+
+  /** @return The number of non-null values in the window */
+  public int getNonNullCount() {
+    return nonNullCount;
+  }
+
+  /** Remove all values from the window. */
+  public void clear() {
+    Arrays.fill(backValues, 0, backSize, null);
+    Arrays.fill(frontValues, 0, frontSize, null);
+    Arrays.fill(frontAggregates, 0, frontSize, null);
+    backSize = 0;
+    frontSize = 0;
+    backAggregate = null;
+    nonNullCount = 0;
+  }
+
+  private void moveBackToFront() throws HopValueException {
+    if (frontValues.length < backSize) {
+      frontValues = new Object[backValues.length];
+      frontAggregates = new Object[backValues.length];
+    }
+    // The newest value ends up at the bottom of the front stack, the oldest on top
+    //
+    Object aggregate = null;
+    for (int i = backSize - 1; i >= 0; i--) {
+      Object value = backValues[i];
+      aggregate = combine(value, aggregate);
+      frontValues[frontSize] = value;
+      frontAggregates[frontSize] = aggregate;
+      frontSize++;
+      backValues[i] = null;
+    }
+    backSize = 0;
+    backAggregate = null;
+  }
+
+  private Object combine(Object a, Object b) throws HopValueException {
+    if (a == null) {
+      return b;
+    }
+    if (b == null) {
+      return a;
+    }
+    return combiner.combine(a, b);
+  }
+}
@@ -0,0 +1,212 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.pipeline.transforms.analyticquery;
+
+import org.apache.hop.core.HopEnvironment;
+import org.apache.hop.core.IRowSet;
+import org.apache.hop.core.exception.HopException;
+import org.apache.hop.core.logging.ILoggingObject;
+import org.apache.hop.core.row.IRowMeta;
+import org.apache.hop.core.row.RowDataUtil;
+import org.apache.hop.core.row.RowMeta;
+import org.apache.hop.core.row.value.ValueMetaInteger;
+import org.apache.hop.core.row.value.ValueMetaString;
+import org.apache.hop.junit.rules.RestoreHopEngineEnvironment;
+import org.apache.hop.pipeline.transform.RowAdapter;
+import org.apache.hop.pipeline.transforms.analyticquery.QueryField.AggregateType;
+import org.apache.hop.pipeline.transforms.mock.TransformMockHelper;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.when;
+
+public class AnalyticQueryTest {
+  @ClassRule public static RestoreHopEngineEnvironment env = new RestoreHopEngineEnvironment();
+
+  private TransformMockHelper<AnalyticQueryMeta, AnalyticQueryData> smh;
+
+  @BeforeClass
+  public static void init() throws HopException {
+    HopEnvironment.init();
+  }
+
+  @Before
+  public void setUp() {
+    smh =
+        new TransformMockHelper<>(
+            "AnalyticQuery", AnalyticQueryMeta.class, AnalyticQueryData.class);
+    when(smh.logChannelFactory.create(any(), any(ILoggingObject.class)))
+        .thenReturn(smh.iLogChannel);
+    when(smh.pipeline.isRunning()).thenReturn(true);
+  }
+
+  @After
+  public void cleanUp() {
+    smh.cleanUp();
+  }
+
+  private boolean changeWrittenRows;
+
+  /** Runs the rows X (group), Y through the transform and returns the analytic fields. */
+  private List<Object[]> runQuery(boolean grouped, QueryField... queryFields)
+      throws HopException {
+    IRowMeta inputRowMeta = new RowMeta();
+    inputRowMeta.addValueMeta(new ValueMetaString("X"));
+    inputRowMeta.addValueMeta(new ValueMetaInteger("Y"));
+
+    IRowSet inputRowSet =
+        smh.getMockInputRowSet(
+            row("aaa", 1L),
+            row("aaa", 2L),
+            row("aaa", 2L),
+            row("aaa", 4L),
+            row("bbb", 5L),
+            row("bbb", null),
+            row("bbb", 7L));
+    when(inputRowSet.getRowMeta()).thenReturn(inputRowMeta);
+
+    AnalyticQueryMeta meta = new AnalyticQueryMeta();
+    if (grouped) {
+      meta.getGroupFields().add(new GroupField("X"));
+    }
+    meta.getQueryFields().addAll(Arrays.asList(queryFields));
+
+    AnalyticQuery transform =
+        new AnalyticQuery(
+            smh.transformMeta, meta, new AnalyticQueryData(), 0, smh.pipelineMeta, smh.pipeline);
+    transform.addRowSetToInputRowSets(inputRowSet);
+    transform.setInputRowMeta(inputRowMeta);
+    transform.init();
+
+    List<Object[]> result = new ArrayList<>();
+    transform.addRowListener(
+        new RowAdapter() {
+          @Override
+          public void rowWrittenEvent(IRowMeta rowMeta, Object[] row) {
+            result.add(Arrays.copyOfRange(row, 2, 2 + queryFields.length));
+            if (changeWrittenRows) {
+              // Like a next transform changing the row it received
+              row[0] = "changed";
+            }
+          }
+        });
+    while (transform.processRow()) {
+      // Process all rows
+    }
+    return result;
+  }
+
+  /** Over-allocated like the rows of a pipeline, the output fields are added to the same array. */
+  private static Object[] row(Object... values) {
+    Object[] row = RowDataUtil.allocateRowData(values.length);
+    System.arraycopy(values, 0, row, 0, values.length);
+    return row;
+  }
+
+  private static Object[] column(List<Object[]> rows, int index) {
+    return rows.stream().map(row -> row[index]).toArray();
+  }
+
+  @Test
+  public void testLeadLag() throws Exception {
+    List<Object[]> result =
+        runQuery(
+            true,
+            new QueryField("lag1", "Y", AggregateType.LAG, 1),
+            new QueryField("lead2", "Y", AggregateType.LEAD, 2));
+
+    assertEquals(7, result.size());
+    assertArrayEquals(new Object[] {null, 1L, 2L, 2L, null, 5L, null}, column(result, 0));
+    assertArrayEquals(new Object[] {2L, 4L, null, null, 7L, null, null}, column(result, 1));
+  }
+
+  @Test
+  public void testLeadLagWithoutGroup() throws Exception {
+    List<Object[]> result =
+        runQuery(
+            false,
+            new QueryField("lag3", "Y", AggregateType.LAG, 3),
+            new QueryField("lead1", "Y", AggregateType.LEAD, 1));
+
+    assertArrayEquals(new Object[] {null, null, null, 1L, 2L, 2L, 4L}, column(result, 0));
+    assertArrayEquals(new Object[] {2L, 2L, 4L, 5L, null, 7L, null}, column(result, 1));
+  }
+
+  @Test
+  public void testRowNumberAndRank() throws Exception {
+    List<Object[]> result =
+        runQuery(
+            true,
+            new QueryField("nr", null, AggregateType.ROW_NUMBER, 1),
+            new QueryField("rank", "Y", AggregateType.RANK, 1));
+
+    assertArrayEquals(new Object[] {1L, 2L, 3L, 4L, 1L, 2L, 3L}, column(result, 0));
+    assertArrayEquals(new Object[] {1L, 2L, 2L, 4L, 1L, 2L, 3L}, column(result, 1));
+  }
+
+  @Test
+  public void testPrecedingWindows() throws Exception {
+    List<Object[]> result =
+        runQuery(
+            true,
+            new QueryField("sum", "Y", AggregateType.SUM_PRECEDING, 2),
+            new QueryField("avg", "Y", AggregateType.AVG_PRECEDING, 1),
+            new QueryField("min", "Y", AggregateType.MIN_PRECEDING, 2),
+            new QueryField("max", "Y", AggregateType.MAX_PRECEDING, 1));
+
+    assertArrayEquals(new Object[] {1L, 3L, 5L, 8L, 5L, 5L, 12L}, column(result, 0));
+    assertArrayEquals(new Object[] {1.0, 1.5, 2.0, 3.0, 5.0, 5.0, 7.0}, column(result, 1));
+    assertArrayEquals(new Object[] {1L, 1L, 1L, 2L, 5L, 5L, 5L}, column(result, 2));
+    assertArrayEquals(new Object[] {1L, 2L, 2L, 4L, 5L, 5L, 7L}, column(result, 3));
+  }
+
+  @Test
+  public void testFollowingWindows() throws Exception {
+    List<Object[]> result =
+        runQuery(
+            true,
+            new QueryField("sum", "Y", AggregateType.SUM_FOLLOWING, 2),
+            new QueryField("max", "Y", AggregateType.MAX_FOLLOWING, 1));
+
+    assertArrayEquals(new Object[] {5L, 8L, 6L, 4L, 12L, 7L, 7L}, column(result, 0));
+    assertArrayEquals(new Object[] {2L, 2L, 4L, 4L, 5L, 7L, 7L}, column(result, 1));
+  }
+
+  @Test
+  public void testGroupsWhenWrittenRowsChange() throws Exception {
+    changeWrittenRows = true;
+    List<Object[]> result =
+        runQuery(
+            true,
+            new QueryField("nr", null, AggregateType.ROW_NUMBER, 1),
+            new QueryField("lag1", "Y", AggregateType.LAG, 1));
+
+    assertArrayEquals(new Object[] {1L, 2L, 3L, 4L, 1L, 2L, 3L}, column(result, 0));
+    assertArrayEquals(new Object[] {null, 1L, 2L, 2L, null, 5L, null}, column(result, 1));
+  }
+}
@@ -0,0 +1,90 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.pipeline.transforms.analyticquery;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class SlidingWindowAggregateTest {
+
+  @Test
+  public void testEmptyWindow() throws Exception {
+    SlidingWindowAggregate window = new SlidingWindowAggregate((a, b) -> (Long) a + (Long) b);
+    assertNull(window.getAggregate());
+    assertEquals(0, window.size());
+
+    window.add(null);
+    assertNull(window.getAggregate());
+    assertEquals(1, window.size());
+    assertEquals(0, window.getNonNullCount());
+  }
+
+  @Test
+  public void testSlidingMinimumMatchesScan() throws Exception {
+    Random random = new Random(42);
+    long[] values = new long[10000];
+    for (int i = 0; i < values.length; i++) {
+      values[i] = random.nextInt(1000);
+    }
+
+    int windowSize = 37;
+    SlidingWindowAggregate window =
+        new SlidingWindowAggregate((a, b) -> Math.min((Long) a, (Long) b));
+    for (int i = 0; i < values.length; i++) {
+      window.add(values[i]);
+      if (window.size() > windowSize) {
+        window.removeOldest();
+      }
+
+      long expected = Long.MAX_VALUE;
+      for (int j = Math.max(0, i - windowSize + 1); j <= i; j++) {
+        expected = Math.min(expected, values[j]);
+      }
+      assertEquals(expected, window.getAggregate());
+      assertEquals(Math.min(i + 1, windowSize), window.size());
+    }
+  }
+
+  @Test
+  public void testNullsAreIgnored() throws Exception {
+    SlidingWindowAggregate window = new SlidingWindowAggregate((a, b) -> (Long) a + (Long) b);
+    window.add(1L);
+    window.add(null);
+    window.add(3L);
+    assertEquals(4L, window.getAggregate());
+    assertEquals(2, window.getNonNullCount());
+
+    window.removeOldest();
+    assertEquals(3L, window.getAggregate());
+    assertEquals(1, window.getNonNullCount());
+
+    window.removeOldest();
+    window.add(5L);
+    assertEquals(8L, window.getAggregate());
+    assertEquals(2, window.size());
+
+    window.clear();
+    assertNull(window.getAggregate());
+    assertEquals(0, window.size());
+    assertEquals(0, window.getNonNullCount());
+  }
+}
@@ -62,8 +62,9 @@ public class Calculator extends BaseTransform<CalculatorMeta, CalculatorData> {
   @Override
   public boolean processRow() throws HopException {
 
-    Object[] r = getRow(); // get row, set busy!
-    if (r == null) { // no more input to be expected...
+    long previousLinesRead = getLinesRead();
+    Object[][] rows = getRows(ROW_BATCH_SIZE); // get rows, set busy!
+    if (rows == null) { // no more input to be expected...
       setOutputDone();
       data.clearValuesMetaMapping();
       return false;
@@ -164,32 +165,46 @@ public class Calculator extends BaseTransform<CalculatorMeta, CalculatorData> {
       }
     }
 
-    if (log.isRowLevel()) {
-      logRowlevel(
-          BaseMessages.getString(PKG, "Calculator.Log.ReadRow")
-              + getLinesRead()
-              + " : "
-              + getInputRowMeta().getString(r));
-    }
-
     try {
-      Object[] row = calcFields(getInputRowMeta(), r);
-      putRow(data.getOutputRowMeta(), row); // copy row to possible alternate rowset(s).
+      Object[][] outputRows = new Object[rows.length][];
+      int written = 0;
+      for (Object[] r : rows) {
+        if (log.isRowLevel()) {
+          logRowlevel(
+              BaseMessages.getString(PKG, "Calculator.Log.ReadRow")
+                  + getLinesRead()
+                  + " : "
+                  + getInputRowMeta().getString(r));
+        }
+        try {
+          Object[] row = calcFields(getInputRowMeta(), r);
+          outputRows[written++] = row;
+        } catch (HopFileNotFoundException e) {
+          if (meta.isFailIfNoFile()) {
+            logError(
+                BaseMessages.getString(PKG, "Calculator.Log.NoFile") + " : " + e.getFilepath());
+            setErrors(getErrors() + 1);
+            // Send the rows calculated before the missing file was found
+            putRows(data.getOutputRowMeta(), outputRows, written);
+            return false;
+          }
+        } catch (HopException e) {
+          // Pass on the rows calculated before the failing one, like a row by row calculation
+          putRows(data.getOutputRowMeta(), outputRows, written);
+          throw e;
+        }
+      }
+      // copy rows to possible alternate rowset(s).
+      putRows(data.getOutputRowMeta(), outputRows, written);
 
       if (log.isRowLevel()) {
-        logRowlevel("Wrote row #" + getLinesWritten() + " : " + getInputRowMeta().getString(r));
+        logRowlevel("Wrote " + written + " rows, total written : " + getLinesWritten());
       }
-      if (checkFeedback(getLinesRead())) {
+      if (checkFeedback(previousLinesRead, getLinesRead())) {
         if (log.isBasic()) {
           logBasic(BaseMessages.getString(PKG, "Calculator.Log.Linenr", "" + getLinesRead()));
         }
       }
-    } catch (HopFileNotFoundException e) {
-      if (meta.isFailIfNoFile()) {
-        logError(BaseMessages.getString(PKG, "Calculator.Log.NoFile") + " : " + e.getFilepath());
-        setErrors(getErrors() + 1);
-        return false;
-      }
     } catch (HopException e) {
       logError(
           BaseMessages.getString(
@@ -304,6 +304,68 @@ public class CalculatorUnitTest {
     verify(data).clearValuesMetaMapping();
   }
 
+  @Test
+  public void testRowsBeforeFailingRowArePassedOn() throws Exception {
+    RowMeta inputRowMeta = new RowMeta();
+    inputRowMeta.addValueMeta(new ValueMetaString("Value"));
+
+    CalculatorMeta meta = new CalculatorMeta();
+    meta.getFunctions()
+        .add(
+            new CalculatorMetaFunction(
+                "copy",
+                CalculationType.COPY_OF_FIELD,
+                "Value",
+                null,
+                null,
+                "Integer",
+                0,
+                0,
+                "",
+                "",
+                "",
+                "",
+                false));
+
+    // The third row of the batch can't be converted to an integer
+    //
+    final Object[][] batch = {{"1"}, {"2"}, {"three"}, {"4"}};
+    final List<Object[]> written = new ArrayList<>();
+    Calculator calculator =
+        new Calculator(
+            smh.transformMeta, meta, new CalculatorData(), 0, smh.pipelineMeta, smh.pipeline) {
+          private boolean read;
+
+          @Override
+          public Object[][] getRows(int max) {
+            if (read) {
+              return null;
+            }
+            read = true;
+            return batch;
+          }
+
+          @Override
+          public void putRows(IRowMeta rowMeta, Object[][] rows, int count) {
+            for (int i = 0; i < count; i++) {
+              written.add(rows[i]);
+            }
+          }
+        };
+    calculator.setInputRowMeta(inputRowMeta);
+    calculator.init();
+
+    try {
+      calculator.processRow();
+      fail("The conversion of the third row should fail");
+    } catch (HopTransformException e) {
+      // Expected
+    }
+    Assert.assertEquals(2, written.size());
+    Assert.assertEquals(1L, written.get(0)[1]);
+    Assert.assertEquals(2L, written.get(1)[1]);
+  }
+
   @Test
   public void testRound1() throws HopException {
     assertRound1(1.0, 1.2);
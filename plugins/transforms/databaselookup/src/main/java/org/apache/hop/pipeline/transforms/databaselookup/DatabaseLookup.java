@@ -25,6 +25,7 @@ import org.apache.hop.core.database.DatabaseMeta;
 import org.apache.hop.core.exception.HopDatabaseException;
 import org.apache.hop.core.exception.HopException;
 import org.apache.hop.core.exception.HopTransformException;
+import org.apache.hop.core.exception.HopValueException;
 import org.apache.hop.core.row.IRowMeta;
 import org.apache.hop.core.row.IValueMeta;
 import org.apache.hop.core.row.RowDataUtil;
@@ -40,15 +41,34 @@ import org.apache.hop.pipeline.transform.BaseTransform;
 import org.apache.hop.pipeline.transform.TransformMeta;
 import org.apache.hop.pipeline.transforms.databaselookup.readallcache.ReadAllCache;
 
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
 
 /** Looks up values in a database using keys from input streams. */
 public class DatabaseLookup extends BaseTransform<DatabaseLookupMeta, DatabaseLookupData> {
 
   private static final Class<?> PKG = DatabaseLookupMeta.class; // For Translator
 
+  /** The maximum number of values in an IN list, Oracle doesn't allow more */
+  private static final int MAX_IN_LIST_SIZE = 1000;
+
+  /** The maximum number of parameters of a batch query, SQL Server allows 2100 */
+  private static final int MAX_BATCH_PARAMETERS = 2000;
+
+  /**
+   * Cached for keys which aren't found when rows without a match are removed or sent to the error
+   * handling, so that the same key isn't looked up again
+   */
+  private static final Object[] NOT_FOUND = new Object[0];
+
   public DatabaseLookup(
       TransformMeta transformMeta,
       DatabaseLookupMeta meta,
@@ -68,8 +88,83 @@ public class DatabaseLookup extends BaseTransform<DatabaseLookupMeta, DatabaseLo
    */
   @VisibleForTesting
   synchronized Object[] lookupValues(IRowMeta inputRowMeta, Object[] row) throws HopException {
-    Object[] outputRow = RowDataUtil.resizeArray(row, data.outputRowMeta.size());
+    Object[] lookupRow = createLookupRow(inputRowMeta, row);
 
+    Object[] add;
+    boolean cacheNow = false;
+    boolean cacheHit = false;
+
+    // First, check if we looked up before
+    if (meta.isCached()) {
+      add = data.cache.getRowFromCache(data.lookupMeta, lookupRow);
+      if (add != null) {
+        cacheHit = true;
+        data.cacheHits++;
+      } else {
+        data.cacheMisses++;
+      }
+    } else {
+      add = null;
+    }
+
+    if (add == null) {
+      if (!(meta.isCached() && meta.isLoadingAllDataInCache())
+          || data.hasDBCondition) { // do not go to the
+        // database when all rows
+        // are in (exception LIKE
+        // operator)
+        if (log.isRowLevel()) {
+          logRowlevel(
+              BaseMessages.getString(PKG, "DatabaseLookup.Log.AddedValuesToLookupRow1")
+                  + meta.getLookup().getKeyFields().size()
+                  + BaseMessages.getString(PKG, "DatabaseLookup.Log.AddedValuesToLookupRow2")
+                  + data.lookupMeta.getString(lookupRow));
+        }
+
+        data.db.setValuesLookup(data.lookupMeta, lookupRow);
+        add = data.db.getLookup(meta.getLookup().isFailingOnMultipleResults());
+        cacheNow = true;
+
+        if (data.rangeCache && add != null) {
+          Object[] found = add;
+          add = Arrays.copyOf(found, data.returnMeta.size());
+          storeInRangeCache(found, add);
+        }
+      }
+    }
+
+    return addLookupResult(inputRowMeta, row, lookupRow, add, cacheHit, cacheNow, null, 0);
+  }
+
+  /**
+   * Stores a row found on a validity interval in the cache, by the values of its table keys
+   * returned after the return values. The values are cached before their conversion to the return
+   * types: they are converted in place later on.
+   *
+   * @param found The row returned by the lookup query
+   * @param values The return values of the row
+   */
+  private void storeInRangeCache(Object[] found, Object[] values) {
+    int nrValues = data.returnMeta.size();
+    if (data.rangeKeyMeta == null) {
+      IRowMeta returnRowMeta = data.db.getReturnRowMeta();
+      data.rangeKeyMeta = new RowMeta();
+      for (int i = nrValues; i < returnRowMeta.size(); i++) {
+        data.rangeKeyMeta.addValueMeta(returnRowMeta.getValueMeta(i).clone());
+      }
+    }
+    Object[] keyData = Arrays.copyOfRange(found, nrValues, found.length);
+    data.cache.storeRowInCache(meta, data.rangeKeyMeta, keyData, values);
+  }
+
+  /**
+   * Builds the values to look up from an input row, converted to the data types of the table.
+   *
+   * @param inputRowMeta The metadata of the input row
+   * @param row The input row
+   * @return The values of the lookup keys
+   */
+  private Object[] createLookupRow(IRowMeta inputRowMeta, Object[] row) throws HopException {
     Object[] lookupRow = new Object[data.lookupMeta.size()];
     int lookupIndex = 0;
 
@@ -101,42 +196,45 @@ public class DatabaseLookup extends BaseTransform<DatabaseLookupMeta, DatabaseLo
         lookupIndex++;
       }
     }
+    return lookupRow;
+  }
 
-    Object[] add;
-    boolean cacheNow = false;
-    boolean cacheHit = false;
+  /**
+   * Adds the result of a lookup to an input row, using the default values when nothing was found.
+   *
+   * @param inputRowMeta The metadata of the input row
+   * @param row The input row
+   * @param lookupRow The looked up key values
+   * @param add The values found, null if nothing was found
+   * @param cacheHit true if the values come from the cache
+   * @param cacheNow true if the result needs to be stored in the cache
+   * @param returnedMeta The metadata of the values returned by the database, null to use the
+   *     metadata of the last lookup query
+   * @param returnedOffset The index of the first looked up value in the returned metadata
+   * @return The output row or null if the row is removed from the stream
+   */
+  private Object[] addLookupResult(
+      IRowMeta inputRowMeta,
+      Object[] row,
+      Object[] lookupRow,
+      Object[] add,
+      boolean cacheHit,
+      boolean cacheNow,
+      IRowMeta returnedMeta,
+      int returnedOffset)
+      throws HopException {
+    Object[] outputRow = RowDataUtil.resizeArray(row, data.outputRowMeta.size());
 
-    // First, check if we looked up before
-    if (meta.isCached()) {
-      add = data.cache.getRowFromCache(data.lookupMeta, lookupRow);
-      if (add != null) {
-        cacheHit = true;
-      }
-    } else {
+    if (add == NOT_FOUND) {
       add = null;
     }
 
-    if (add == null) {
-      if (!(meta.isCached() && meta.isLoadingAllDataInCache())
-          || data.hasDBCondition) { // do not go to the
-        // database when all rows
-        // are in (exception LIKE
-        // operator)
-        if (log.isRowLevel()) {
-          logRowlevel(
-              BaseMessages.getString(PKG, "DatabaseLookup.Log.AddedValuesToLookupRow1")
-                  + meta.getLookup().getKeyFields().size()
-                  + BaseMessages.getString(PKG, "DatabaseLookup.Log.AddedValuesToLookupRow2")
-                  + data.lookupMeta.getString(lookupRow));
-        }
-
-        data.db.setValuesLookup(data.lookupMeta, lookupRow);
-        add = data.db.getLookup(meta.getLookup().isFailingOnMultipleResults());
-        cacheNow = true;
-      }
-    }
-
     if (add == null) { // nothing was found, unknown code: add default values
+      if (cacheNow
+          && (meta.getLookup().isEatingRowOnLookupFailure()
+              || getTransformMeta().isDoingErrorHandling())) {
+        storeInCache(lookupRow, NOT_FOUND);
+      }
       if (meta.getLookup().isEatingRowOnLookupFailure()) {
         return null;
       }
@@ -183,9 +281,10 @@ public class DatabaseLookup extends BaseTransform<DatabaseLookupMeta, DatabaseLo
         // as the returned lookup row, but since we make the lookup row
         // that should not be a problem.
         //
+        IRowMeta returnRowMeta = returnedMeta == null ? data.db.getReturnRowMeta() : returnedMeta;
         int[] types = data.returnValueTypes;
         for (int i = 0; i < types.length; i++) {
-          IValueMeta returned = data.db.getReturnRowMeta().getValueMeta(i);
+          IValueMeta returned = returnRowMeta.getValueMeta(returnedOffset + i);
           IValueMeta expected = data.returnMeta.getValueMeta(i);
 
           if (returned != null && types[i] > 0 && types[i] != returned.getType()) {
@@ -197,10 +296,9 @@ public class DatabaseLookup extends BaseTransform<DatabaseLookupMeta, DatabaseLo
     }
 
     // Store in cache if we need to!
-    // If we already loaded all data into the cache, storing more makes no sense.
     //
-    if (meta.isCached() && cacheNow && !meta.isLoadingAllDataInCache() && data.allEquals) {
-      data.cache.storeRowInCache(meta, data.lookupMeta, lookupRow, add);
+    if (cacheNow) {
+      storeInCache(lookupRow, add);
     }
 
     for (int i = 0; i < data.returnMeta.size(); i++) {
@@ -210,6 +308,14 @@ public class DatabaseLookup extends BaseTransform<DatabaseLookupMeta, DatabaseLo
     return outputRow;
   }
 
+  private void storeInCache(Object[] lookupRow, Object[] add) {
+    // If we already loaded all data into the cache, storing more makes no sense.
+    //
+    if (meta.isCached() && !meta.isLoadingAllDataInCache() && data.allEquals) {
+      data.cache.storeRowInCache(meta, data.lookupMeta, lookupRow, add);
+    }
+  }
+
   // visible for testing purposes
   void determineFieldsTypesQueryingDb() throws HopException {
     List<KeyField> keyFields = meta.getLookup().getKeyFields();
@@ -324,6 +430,9 @@ public class DatabaseLookup extends BaseTransform<DatabaseLookupMeta, DatabaseLo
   public boolean processRow() throws HopException {
     Object[] r = getRow(); // Get row from input rowset & set row busy!
     if (r == null) { // no more input to be expected...
+      if (data.batchSize > 1 && !lookupBatch()) {
+        return false;
+      }
       setOutputDone();
       return false;
     }
@@ -360,6 +469,14 @@ public class DatabaseLookup extends BaseTransform<DatabaseLookupMeta, DatabaseLo
         data.returnTrimTypes[i] = returnValues.get(i).getTrimType();
       }
 
+      // On a validity interval the table keys of the rows found are needed to cache them
+      //
+      if (data.rangeCache) {
+        returnField = Arrays.copyOf(returnField, returnField.length + keyField.length);
+        returnRename = Arrays.copyOf(returnRename, returnRename.length + keyField.length);
+        System.arraycopy(keyField, 0, returnField, returnValues.size(), keyField.length);
+      }
+
       data.db.setLookup(
           resolve(meta.getSchemaName()),
           resolve(meta.getTableName()),
@@ -416,7 +533,11 @@ public class DatabaseLookup extends BaseTransform<DatabaseLookupMeta, DatabaseLo
       }
 
       if (meta.isCached()) {
-        data.cache = DefaultCache.newCache(data, meta.getCacheSize());
+        // All data loaded in the cache means that the cache size isn't limited
+        //
+        data.cache =
+            DefaultCache.newCache(
+                data, meta.isLoadingAllDataInCache() ? 0 : meta.getCacheSize());
       }
 
       determineFieldsTypesQueryingDb();
@@ -451,40 +572,337 @@ public class DatabaseLookup extends BaseTransform<DatabaseLookupMeta, DatabaseLo
               + getInputRowMeta().getString(r));
     }
 
+    if (data.batchSize > 1) {
+      // Collect the rows to look up the keys of a whole batch with a single query
+      //
+      data.batchRows.add(r);
+      if (data.batchRows.size() >= data.batchSize) {
+        return lookupBatch();
+      }
+      return true;
+    }
+
     try {
       // add new lookup values to the row
       Object[] outputRow = lookupValues(getInputRowMeta(), r);
+      writeOutputRow(r, outputRow);
+    } catch (HopException e) {
+      return handleLookupError(r, e);
+    }
 
-      if (outputRow != null) {
-        // copy row to output rowset(s)
-        putRow(data.outputRowMeta, outputRow);
+    return true;
+  }
 
-        if (log.isRowLevel()) {
-          logRowlevel(
-              BaseMessages.getString(PKG, "DatabaseLookup.Log.WroteRowToNextTransform")
-                  + getInputRowMeta().getString(r));
+  private void writeOutputRow(Object[] row, Object[] outputRow) throws HopException {
+    if (outputRow != null) {
+      // copy row to output rowset(s)
+      putRow(data.outputRowMeta, outputRow);
+
+      if (log.isRowLevel()) {
+        logRowlevel(
+            BaseMessages.getString(PKG, "DatabaseLookup.Log.WroteRowToNextTransform")
+                + getInputRowMeta().getString(row));
+      }
+      if (checkFeedback(getLinesRead())) {
+        logBasic("linenr " + getLinesRead());
+      }
+    }
+  }
+
+  /** @return true if processing can continue, false if the transform stops */
+  private boolean handleLookupError(Object[] row, HopException e) throws HopException {
+    if (getTransformMeta().isDoingErrorHandling()) {
+      putError(getInputRowMeta(), row, 1, e.getMessage(), null, "DBLOOKUPD001");
+      return true;
+    }
+    logError(
+        BaseMessages.getString(PKG, "DatabaseLookup.ERROR003.UnexpectedErrorDuringProcessing")
+            + e.getMessage());
+    setErrors(1);
+    stopAll();
+    setOutputDone(); // signal end to receiver(s)
+    return false;
+  }
+
+  /**
+   * Looks up the collected rows. The keys which aren't cached are looked up with a single query,
+   * after which the rows are written in their original order. A key without a match in the batch
+   * isn't found, unless the keys without a match are to be looked up row by row.
+   *
+   * @return true if processing can continue, false if the transform stops
+   */
+  private boolean lookupBatch() throws HopException {
+    List<Object[]> rows = new ArrayList<>(data.batchRows);
+    data.batchRows.clear();
+    if (rows.isEmpty()) {
+      return true;
+    }
+
+    Comparator<Object[]> keyComparator = new LookupKeyComparator(data.lookupMeta);
+    Object[][] lookupRows = new Object[rows.size()][];
+    Object[][] cached = new Object[rows.size()][];
+    Map<Object[], Object[]> found = new TreeMap<>(keyComparator);
+    List<Object[]> missingKeys = new ArrayList<>();
+    try {
+      for (int r = 0; r < rows.size(); r++) {
+        lookupRows[r] = createLookupRow(getInputRowMeta(), rows.get(r));
+        if (meta.isCached()) {
+          cached[r] = data.cache.getRowFromCache(data.lookupMeta, lookupRows[r]);
+          if (cached[r] != null) {
+            data.cacheHits++;
+            continue;
+          }
+          data.cacheMisses++;
         }
-        if (checkFeedback(getLinesRead())) {
-          logBasic("linenr " + getLinesRead());
+        if (!found.containsKey(lookupRows[r])) {
+          found.put(lookupRows[r], null);
+          if (!hasNullValue(lookupRows[r])) {
+            missingKeys.add(lookupRows[r]);
+          }
         }
       }
+      if (!missingKeys.isEmpty()) {
+        queryBatch(missingKeys, found);
+      }
     } catch (HopException e) {
-      if (getTransformMeta().isDoingErrorHandling()) {
-        putError(getInputRowMeta(), r, 1, e.getMessage(), null, "DBLOOKUPD001");
-      } else {
-        logError(
-            BaseMessages.getString(PKG, "DatabaseLookup.ERROR003.UnexpectedErrorDuringProcessing")
-                + e.getMessage());
-        setErrors(1);
-        stopAll();
-        setOutputDone(); // signal end to receiver(s)
-        return false;
+      // The whole batch failed
+      //
+      for (Object[] row : rows) {
+        if (!handleLookupError(row, e)) {
+          return false;
+        }
       }
+      return true;
     }
 
+    // Keys found more than once in the batch are only converted and cached the first time
+    //
+    IRowMeta returnedMeta = data.db.getReturnRowMeta();
+    int returnedOffset = data.lookupMeta.size();
+    Set<Object[]> handled = new TreeSet<>(keyComparator);
+    Map<Object[], Object[]> foundRowByRow = new TreeMap<>(keyComparator);
+    for (int r = 0; r < rows.size(); r++) {
+      Object[] row = rows.get(r);
+      try {
+        Object[] outputRow;
+        if (cached[r] != null) {
+          outputRow =
+              addLookupResult(
+                  getInputRowMeta(), row, lookupRows[r], cached[r], true, false, null, 0);
+        } else if (meta.isLookingUpBatchMissesRowByRow()
+            && found.get(lookupRows[r]) == null
+            && !hasNullValue(lookupRows[r])) {
+          // The database can match keys which the value metadata considers different, with a
+          // case insensitive collation for example. Look up the keys without a batch match alone,
+          // once per batch.
+          //
+          boolean firstOfKey = !foundRowByRow.containsKey(lookupRows[r]);
+          if (firstOfKey) {
+            data.db.setValuesLookup(data.lookupMeta, lookupRows[r]);
+            foundRowByRow.put(
+                lookupRows[r], data.db.getLookup(meta.getLookup().isFailingOnMultipleResults()));
+          }
+          outputRow =
+              addLookupResult(
+                  getInputRowMeta(),
+                  row,
+                  lookupRows[r],
+                  foundRowByRow.get(lookupRows[r]),
+                  !firstOfKey,
+                  firstOfKey,
+                  null,
+                  0);
+        } else {
+          boolean firstOfKey = handled.add(lookupRows[r]);
+          outputRow =
+              addLookupResult(
+                  getInputRowMeta(),
+                  row,
+                  lookupRows[r],
+                  found.get(lookupRows[r]),
+                  !firstOfKey,
+                  firstOfKey,
+                  returnedMeta,
+                  returnedOffset);
+        }
+        writeOutputRow(row, outputRow);
+      } catch (HopException e) {
+        if (!handleLookupError(row, e)) {
+          return false;
+        }
+      }
+    }
     return true;
   }
 
+  /** Orders lookup keys the way the value metadata of the lookup compares them. */
+  private static final class LookupKeyComparator implements Comparator<Object[]> {
+    private final IRowMeta lookupMeta;
+
+    private LookupKeyComparator(IRowMeta lookupMeta) {
+      this.lookupMeta = lookupMeta;
+    }
+
+    @Override
+    public int compare(Object[] key1, Object[] key2) {
+      try {
+        return lookupMeta.compare(key1, key2);
+      } catch (HopValueException e) {
+        throw new IllegalStateException("Unable to compare lookup keys", e);
+      }
+    }
+  }
+
+  /**
+   * @param nrKeys The number of key fields
+   * @return The maximum number of keys a batch query can look up
+   */
+  private static int getMaxBatchSize(int nrKeys) {
+    if (nrKeys == 1) {
+      return MAX_IN_LIST_SIZE;
+    }
+    return Math.max(1, MAX_BATCH_PARAMETERS / nrKeys);
+  }
+
+  private static boolean hasNullValue(Object[] lookupRow) {
+    for (Object value : lookupRow) {
+      if (value == null) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Looks up a number of keys with a single query. The query always has parameters for a full
+   * batch so that it only needs to be prepared once, smaller batches repeat their last key.
+   *
+   * @param keys The key values to look up, without duplicates
+   * @param found The keys to look up, ordered by the lookup value metadata, receiving the values
+   *     found
+   */
+  private void queryBatch(List<Object[]> keys, Map<Object[], Object[]> found)
+      throws HopException {
+    if (data.batchStatement == null) {
+      prepareBatchStatement();
+    }
+
+    int nrKeys = data.lookupMeta.size();
+    Object[] parameters = new Object[data.batchSize * nrKeys];
+    for (int k = 0; k < data.batchSize; k++) {
+      Object[] key = keys.get(Math.min(k, keys.size() - 1));
+      System.arraycopy(key, 0, parameters, k * nrKeys, nrKeys);
+    }
+
+    if (log.isRowLevel()) {
+      logRowlevel(
+          BaseMessages.getString(
+              PKG, "DatabaseLookup.Log.LookingUpBatch", Integer.toString(keys.size())));
+    }
+
+    ResultSet resultSet =
+        data.db.openQuery(data.batchStatement, data.batchParameterMeta, parameters);
+    try {
+      IRowMeta resultMeta = data.db.getReturnRowMeta();
+      Object[] resultRow = data.db.getRow(resultSet);
+      while (resultRow != null) {
+        Object[] keyData = new Object[nrKeys];
+        for (int i = 0; i < nrKeys; i++) {
+          IValueMeta keyMeta = data.lookupMeta.getValueMeta(i);
+          IValueMeta resultKeyMeta = resultMeta.getValueMeta(i);
+          keyData[i] =
+              keyMeta.getType() == resultKeyMeta.getType()
+                  ? resultRow[i]
+                  : keyMeta.convertData(resultKeyMeta, resultRow[i]);
+        }
+        if (found.containsKey(keyData)) {
+          if (found.get(keyData) == null) {
+            Object[] values = new Object[resultMeta.size() - nrKeys];
+            System.arraycopy(resultRow, nrKeys, values, 0, values.length);
+            found.put(keyData, values);
+          } else if (meta.getLookup().isFailingOnMultipleResults()) {
+            throw new HopDatabaseException(
+                "Only 1 row was expected as a result of a lookup, and at least 2 were found!");
+          }
+        }
+        resultRow = data.db.getRow(resultSet);
+      }
+    } finally {
+      try {
+        resultSet.close();
+      } catch (SQLException e) {
+        logError("Unable to close the result set of the batch lookup", e);
+      }
+    }
+  }
+
+  /**
+   * Prepares the query looking up the keys of a full batch: {@code WHERE key IN (?, ...)} for a
+   * single key, {@code WHERE (key1 = ? AND key2 = ?) OR ...} for composite keys. The keys are
+   * returned as well to match the result rows with the input rows.
+   */
+  private void prepareBatchStatement() throws HopException {
+    DatabaseMeta databaseMeta = data.db.getDatabaseMeta();
+    Lookup lookup = meta.getLookup();
+    List<KeyField> keyFields = lookup.getKeyFields();
+
+    StringBuilder sql = new StringBuilder("SELECT ");
+    for (int i = 0; i < keyFields.size(); i++) {
+      sql.append(databaseMeta.quoteField(keyFields.get(i).getTableField())).append(", ");
+    }
+    List<ReturnValue> returnValues = lookup.getReturnValues();
+    for (int i = 0; i < returnValues.size(); i++) {
+      if (i > 0) {
+        sql.append(", ");
+      }
+      sql.append(databaseMeta.quoteField(returnValues.get(i).getTableField()));
+    }
+    sql.append(" FROM ")
+        .append(
+            databaseMeta.getQuotedSchemaTableCombination(
+                this, resolve(meta.getSchemaName()), resolve(meta.getTableName())))
+        .append(" WHERE ");
+
+    if (keyFields.size() == 1) {
+      sql.append(databaseMeta.quoteField(keyFields.get(0).getTableField())).append(" IN (");
+      for (int k = 0; k < data.batchSize; k++) {
+        sql.append(k == 0 ? "?" : ", ?");
+      }
+      sql.append(")");
+    } else {
+      for (int k = 0; k < data.batchSize; k++) {
+        sql.append(k == 0 ? "(" : " OR (");
+        for (int i = 0; i < keyFields.size(); i++) {
+          if (i > 0) {
+            sql.append(" AND ");
+          }
+          sql.append(databaseMeta.quoteField(keyFields.get(i).getTableField())).append(" = ?");
+        }
+        sql.append(")");
+      }
+    }
+
+    // The first row of every key wins, as with the row by row lookup
+    //
+    if (StringUtils.isNotEmpty(lookup.getOrderByClause())) {
+      sql.append(" ORDER BY ").append(lookup.getOrderByClause());
+    }
+
+    if (log.isDetailed()) {
+      logDetailed(BaseMessages.getString(PKG, "DatabaseLookup.Log.BatchQuery") + sql);
+    }
+    data.batchStatement = data.db.prepareSql(sql.toString());
+
+    data.batchParameterMeta = new RowMeta();
+    for (int k = 0; k < data.batchSize; k++) {
+      for (int i = 0; i < data.lookupMeta.size(); i++) {
+        IValueMeta parameterMeta = data.lookupMeta.getValueMeta(i).clone();
+        parameterMeta.setName(parameterMeta.getName() + "_" + k);
+        data.batchParameterMeta.addValueMeta(parameterMeta);
+      }
+    }
+  }
+
   private void loadAllTableDataIntoTheCache() throws HopException {
     DatabaseMeta dbMeta = getPipelineMeta().findDatabase(meta.getConnection(), variables);
 
@@ -657,6 +1075,40 @@ public class DatabaseLookup extends BaseTransform<DatabaseLookupMeta, DatabaseLo
           }
         }
 
+        // Rows looked up on a validity interval are cached by their table keys. Lookups with
+        // other conditions than "=" can return a different row for every value, they always go to
+        // the database. An ORDER BY clause means that several rows can match.
+        //
+        data.rangeCache =
+            meta.isCached()
+                && !meta.isLoadingAllDataInCache()
+                && StringUtils.isEmpty(meta.getLookup().getOrderByClause())
+                && RangeIndex.isValidityInterval(keyFields);
+
+        // Batched lookups are only possible for equality conditions and when not all data is read
+        // into the cache up front
+        //
+        data.batchSize = 1;
+        if (meta.getLookupBatchSize() > 1) {
+          boolean onlyEquals = !keyFields.isEmpty();
+          for (int condition : data.conditions) {
+            onlyEquals &= condition == DatabaseLookupMeta.CONDITION_EQ;
+          }
+          if (onlyEquals && !(meta.isCached() && meta.isLoadingAllDataInCache())) {
+            data.batchSize = Math.min(meta.getLookupBatchSize(), getMaxBatchSize(keyFields.size()));
+            if (data.batchSize < meta.getLookupBatchSize()) {
+              logBasic(
+                  BaseMessages.getString(
+                      PKG,
+                      "DatabaseLookup.Log.BatchSizeLimited",
+                      Integer.toString(data.batchSize)));
+            }
+            data.batchRows = new ArrayList<>(data.batchSize);
+          } else {
+            logBasic(BaseMessages.getString(PKG, "DatabaseLookup.Log.BatchNotPossible"));
+          }
+        }
+
         return true;
       } catch (Exception e) {
         logError(
@@ -672,7 +1124,27 @@ public class DatabaseLookup extends BaseTransform<DatabaseLookupMeta, DatabaseLo
   @Override
   public void dispose() {
 
+    if (meta.isCached() && log.isDetailed()) {
+      logDetailed(
+          BaseMessages.getString(
+              PKG,
+              "DatabaseLookup.Log.CacheStatistics",
+              Long.toString(data.cacheHits),
+              Long.toString(data.cacheMisses),
+              Long.toString(
+                  data.cache instanceof DefaultCache
+                      ? ((DefaultCache) data.cache).getEvictions()
+                      : 0L)));
+    }
+
     if (data.db != null) {
+      if (data.batchStatement != null) {
+        try {
+          data.db.closePreparedStatement(data.batchStatement);
+        } catch (HopDatabaseException e) {
+          logError("Unable to close the batch lookup query", e);
+        }
+      }
       data.db.disconnect();
     }
 
@@ -680,6 +1152,8 @@ public class DatabaseLookup extends BaseTransform<DatabaseLookupMeta, DatabaseLo
     //
     data.cache = null;
     data.db = null;
+    data.batchStatement = null;
+    data.batchRows = null;
 
     super.dispose();
   }
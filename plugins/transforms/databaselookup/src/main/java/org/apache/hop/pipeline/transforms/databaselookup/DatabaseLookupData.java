@@ -23,6 +23,7 @@ import org.apache.hop.core.row.IRowMeta;
 import org.apache.hop.pipeline.transform.BaseTransformData;
 import org.apache.hop.pipeline.transform.ITransformData;
 
+import java.sql.PreparedStatement;
 import java.util.List;
 
 public class DatabaseLookupData extends BaseTransformData implements ITransformData {
@@ -45,6 +46,30 @@ public class DatabaseLookupData extends BaseTransformData implements ITransformD
   public String[] returnTrimTypes;
   public List<Integer> trimIndexes;
 
+  /** The number of input rows to look up with a single query, 1 to look up row by row */
+  public int batchSize;
+
+  /** The input rows waiting for a batched lookup, in their original order */
+  public List<Object[]> batchRows;
+
+  /** The query looking up the keys of a batch of rows */
+  public PreparedStatement batchStatement;
+
+  /** The metadata of the parameters of the batch query: the lookup keys of every row */
+  public IRowMeta batchParameterMeta;
+
+  /**
+   * Cache rows looked up on a validity interval by the values of their table keys, which are then
+   * returned by the lookup query after the return values
+   */
+  public boolean rangeCache;
+
+  /** The metadata of the table keys returned by the lookup query in range cache mode */
+  public IRowMeta rangeKeyMeta;
+
+  public long cacheHits;
+  public long cacheMisses;
+
   public DatabaseLookupData() {
     super();
 
@@ -75,6 +75,10 @@ public class DatabaseLookupDialog extends BaseTransformDialog implements ITransf
   private Label wlCachesize;
   private Text wCachesize;
 
+  private Text wLookupBatchSize;
+
+  private Button wBatchMissesRowByRow;
+
   private TableView wKey;
 
   private TextVar wSchema;
@@ -290,12 +294,59 @@ public class DatabaseLookupDialog extends BaseTransformDialog implements ITransf
           }
         });
 
+    // Lookup batch size line
+    Label wlLookupBatchSize = new Label(shell, SWT.RIGHT);
+    wlLookupBatchSize.setText(
+        BaseMessages.getString(PKG, "DatabaseLookupDialog.LookupBatchSize.Label"));
+    PropsUi.setLook(wlLookupBatchSize);
+    FormData fdlLookupBatchSize = new FormData();
+    fdlLookupBatchSize.left = new FormAttachment(0, 0);
+    fdlLookupBatchSize.right = new FormAttachment(middle, -margin);
+    fdlLookupBatchSize.top = new FormAttachment(wCacheLoadAll, margin);
+    wlLookupBatchSize.setLayoutData(fdlLookupBatchSize);
+    wLookupBatchSize = new Text(shell, SWT.SINGLE | SWT.LEFT | SWT.BORDER);
+    wLookupBatchSize.setToolTipText(
+        BaseMessages.getString(PKG, "DatabaseLookupDialog.LookupBatchSize.Tooltip"));
+    PropsUi.setLook(wLookupBatchSize);
+    wLookupBatchSize.addModifyListener(lsMod);
+    FormData fdLookupBatchSize = new FormData();
+    fdLookupBatchSize.left = new FormAttachment(middle, 0);
+    fdLookupBatchSize.right = new FormAttachment(100, 0);
+    fdLookupBatchSize.top = new FormAttachment(wCacheLoadAll, margin);
+    wLookupBatchSize.setLayoutData(fdLookupBatchSize);
+
+    // Look up batch misses row by row?
+    Label wlBatchMissesRowByRow = new Label(shell, SWT.RIGHT);
+    wlBatchMissesRowByRow.setText(
+        BaseMessages.getString(PKG, "DatabaseLookupDialog.BatchMissesRowByRow.Label"));
+    PropsUi.setLook(wlBatchMissesRowByRow);
+    FormData fdlBatchMissesRowByRow = new FormData();
+    fdlBatchMissesRowByRow.left = new FormAttachment(0, 0);
+    fdlBatchMissesRowByRow.right = new FormAttachment(middle, -margin);
+    fdlBatchMissesRowByRow.top = new FormAttachment(wLookupBatchSize, margin);
+    wlBatchMissesRowByRow.setLayoutData(fdlBatchMissesRowByRow);
+    wBatchMissesRowByRow = new Button(shell, SWT.CHECK);
+    wBatchMissesRowByRow.setToolTipText(
+        BaseMessages.getString(PKG, "DatabaseLookupDialog.BatchMissesRowByRow.Tooltip"));
+    PropsUi.setLook(wBatchMissesRowByRow);
+    FormData fdBatchMissesRowByRow = new FormData();
+    fdBatchMissesRowByRow.left = new FormAttachment(middle, 0);
+    fdBatchMissesRowByRow.top = new FormAttachment(wlBatchMissesRowByRow, 0, SWT.CENTER);
+    wBatchMissesRowByRow.setLayoutData(fdBatchMissesRowByRow);
+    wBatchMissesRowByRow.addSelectionListener(
+        new SelectionAdapter() {
+          @Override
+          public void widgetSelected(SelectionEvent e) {
+            input.setChanged();
+          }
+        });
+
     Label wlKey = new Label(shell, SWT.NONE);
     wlKey.setText(BaseMessages.getString(PKG, "DatabaseLookupDialog.Keys.Label"));
     PropsUi.setLook(wlKey);
     FormData fdlKey = new FormData();
     fdlKey.left = new FormAttachment(0, 0);
-    fdlKey.top = new FormAttachment(wCacheLoadAll, margin);
+    fdlKey.top = new FormAttachment(wlBatchMissesRowByRow, margin);
     wlKey.setLayoutData(fdlKey);
 
     int nrKeyCols = 4;
@@ -611,6 +662,8 @@ public class DatabaseLookupDialog extends BaseTransformDialog implements ITransf
     wCache.setSelection(input.isCached());
     wCachesize.setText("" + input.getCacheSize());
     wCacheLoadAll.setSelection(input.isLoadingAllDataInCache());
+    wLookupBatchSize.setText("" + input.getLookupBatchSize());
+    wBatchMissesRowByRow.setSelection(input.isLookingUpBatchMissesRowByRow());
 
     Lookup lookup = input.getLookup();
 
@@ -674,6 +727,8 @@ public class DatabaseLookupDialog extends BaseTransformDialog implements ITransf
     input.setCached(wCache.getSelection());
     input.setCacheSize(Const.toInt(wCachesize.getText(), 0));
     input.setLoadingAllDataInCache(wCacheLoadAll.getSelection());
+    input.setLookupBatchSize(Const.toInt(wLookupBatchSize.getText(), 0));
+    input.setLookingUpBatchMissesRowByRow(wBatchMissesRowByRow.getSelection());
 
     for (TableItem item : wKey.getNonEmptyItems()) {
       KeyField keyField = new KeyField();
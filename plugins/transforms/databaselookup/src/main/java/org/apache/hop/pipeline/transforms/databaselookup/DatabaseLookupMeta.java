@@ -99,6 +99,18 @@ public class DatabaseLookupMeta extends BaseTransformMeta<DatabaseLookup, Databa
       injectionKeyDescription = "DatabaseLookupMeta.Injection.CacheLoadAll")
   private boolean loadingAllDataInCache;
 
+  /** The number of input rows to look up with a single query */
+  @HopMetadataProperty(
+      key = "lookup_batch_size",
+      injectionKeyDescription = "DatabaseLookupMeta.Injection.LookupBatchSize")
+  private int lookupBatchSize;
+
+  /** Look up the keys without a match in a batch again, row by row */
+  @HopMetadataProperty(
+      key = "lookup_batch_misses_row_by_row",
+      injectionKeyDescription = "DatabaseLookupMeta.Injection.LookupBatchMissesRowByRow")
+  private boolean lookingUpBatchMissesRowByRow;
+
   @HopMetadataProperty(key = "lookup")
   private Lookup lookup;
 
@@ -110,6 +122,8 @@ public class DatabaseLookupMeta extends BaseTransformMeta<DatabaseLookup, Databa
     this.cached = m.cached;
     this.cacheSize = m.cacheSize;
     this.loadingAllDataInCache = m.loadingAllDataInCache;
+    this.lookupBatchSize = m.lookupBatchSize;
+    this.lookingUpBatchMissesRowByRow = m.lookingUpBatchMissesRowByRow;
     this.lookup = new Lookup(m.lookup);
   }
 
@@ -558,6 +572,34 @@ public class DatabaseLookupMeta extends BaseTransformMeta<DatabaseLookup, Databa
     this.loadingAllDataInCache = loadingAllDataInCache;
   }
 
+  /**
+   * Gets lookupBatchSize
+   *
+   * @return value of lookupBatchSize
+   */
+  public int getLookupBatchSize() {
+    return lookupBatchSize;
+  }
+
+  /** @param lookupBatchSize The lookupBatchSize to set */
+  public void setLookupBatchSize(int lookupBatchSize) {
+    this.lookupBatchSize = lookupBatchSize;
+  }
+
+  /**
+   * Gets lookingUpBatchMissesRowByRow
+   *
+   * @return value of lookingUpBatchMissesRowByRow
+   */
+  public boolean isLookingUpBatchMissesRowByRow() {
+    return lookingUpBatchMissesRowByRow;
+  }
+
+  /** @param lookingUpBatchMissesRowByRow The lookingUpBatchMissesRowByRow to set */
+  public void setLookingUpBatchMissesRowByRow(boolean lookingUpBatchMissesRowByRow) {
+    this.lookingUpBatchMissesRowByRow = lookingUpBatchMissesRowByRow;
+  }
+
   /**
    * Gets lookup
    *
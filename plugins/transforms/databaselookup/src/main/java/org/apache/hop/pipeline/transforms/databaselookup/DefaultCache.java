@@ -18,35 +18,75 @@
 package org.apache.hop.pipeline.transforms.databaselookup;
 
 import org.apache.hop.core.RowMetaAndData;
-import org.apache.hop.core.TimedRow;
 import org.apache.hop.core.exception.HopException;
 import org.apache.hop.core.row.IRowMeta;
-import org.apache.hop.core.row.IValueMeta;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Date;
 import java.util.LinkedHashMap;
-import java.util.List;
+import java.util.Map;
 
-/** Old code, copied from {@linkplain DatabaseLookup} */
+/**
+ * The cache of looked up rows. When a maximum size is given the cache keeps the most recently used
+ * rows and evicts the least recently used one when it overflows. Without a maximum size rows are
+ * kept in the order in which they were stored.
+ */
 public class DefaultCache implements DatabaseLookupData.ICache {
 
+  /**
+   * Create a cache.
+   *
+   * @param data The transform data
+   * @param cacheSize The maximum number of rows to keep, 0 or less to keep all rows
+   * @return The cache
+   */
   public static DefaultCache newCache(DatabaseLookupData data, int cacheSize) {
     if (cacheSize > 0) {
-      cacheSize = (int) (cacheSize * 1.5);
+      return new DefaultCache(data, (int) (cacheSize * 1.5), cacheSize);
     } else {
-      cacheSize = 16;
+      return new DefaultCache(data, 16, 0);
     }
-    return new DefaultCache(data, cacheSize);
   }
 
   private final DatabaseLookupData data;
-  private final LinkedHashMap<RowMetaAndData, TimedRow> map;
+  private final int maxSize;
+  private final LinkedHashMap<RowMetaAndData, Object[]> map;
+  private long evictions;
+
+  /** Built on the first lookup on a validity interval */
+  private RangeIndex rangeIndex;
 
   DefaultCache(DatabaseLookupData data, int capacity) {
+    this(data, capacity, 0);
+  }
+
+  DefaultCache(DatabaseLookupData data, int capacity, int maxSize) {
     this.data = data;
-    map = new LinkedHashMap<>(capacity);
+    this.maxSize = maxSize;
+    // A bounded cache is kept in access order so that the eldest entry is the least recently used
+    //
+    map =
+        new LinkedHashMap<RowMetaAndData, Object[]>(capacity, 0.75f, maxSize > 0) {
+          @Override
+          protected boolean removeEldestEntry(Map.Entry<RowMetaAndData, Object[]> eldest) {
+            if (DefaultCache.this.maxSize > 0 && size() > DefaultCache.this.maxSize) {
+              evictions++;
+              if (rangeIndex != null) {
+                rangeIndex.remove(eldest.getKey());
+              }
+              return true;
+            }
+            return false;
+          }
+        };
+  }
+
+  /** @return The number of rows in the cache */
+  public int size() {
+    return map.size();
+  }
+
+  /** @return The number of rows removed from the cache to make room for new ones */
+  public long getEvictions() {
+    return evictions;
   }
 
   @Override
@@ -54,80 +94,21 @@ public class DefaultCache implements DatabaseLookupData.ICache {
     if (data.allEquals) {
       // only do the map lookup when all equals otherwise conditions >, <, <> will give wrong
       // results
-      TimedRow timedRow = map.get(new RowMetaAndData(data.lookupMeta, lookupRow));
-      if (timedRow != null) {
-        return timedRow.getRow();
-      }
-    } else { // special handling of conditions <,>, <> etc.
-      if (!data.hasDBCondition) { // e.g. LIKE not handled by this routine, yet
-        // TODO: find an alternative way to look up the data based on the condition.
-        // Not all conditions are "=" so we are going to have to evaluate row by row
-        // A sorted list or index might be a good solution here...
-        //
+      return map.get(new RowMetaAndData(data.lookupMeta, lookupRow));
+    } else if (data.rangeCache) {
+      // Rows found on a validity interval are cached by their table keys, use the index on the
+      // interval starts
+      //
+      if (rangeIndex == null) {
+        rangeIndex = new RangeIndex(data);
         for (RowMetaAndData key : map.keySet()) {
-          // Now verify that the key is matching our conditions...
-          //
-          boolean match = true;
-          int lookupIndex = 0;
-          for (int i = 0; i < data.conditions.length && match; i++) {
-            IValueMeta cmpMeta = lookupMeta.getValueMeta(lookupIndex);
-            Object cmpData = lookupRow[lookupIndex];
-            IValueMeta keyMeta = key.getValueMeta(i);
-            Object keyData = key.getData()[i];
-
-            switch (data.conditions[i]) {
-              case DatabaseLookupMeta.CONDITION_EQ:
-                match = (cmpMeta.compare(cmpData, keyMeta, keyData) == 0);
-                break;
-              case DatabaseLookupMeta.CONDITION_NE:
-                match = (cmpMeta.compare(cmpData, keyMeta, keyData) != 0);
-                break;
-              case DatabaseLookupMeta.CONDITION_LT:
-                match = (cmpMeta.compare(cmpData, keyMeta, keyData) > 0);
-                break;
-              case DatabaseLookupMeta.CONDITION_LE:
-                match = (cmpMeta.compare(cmpData, keyMeta, keyData) >= 0);
-                break;
-              case DatabaseLookupMeta.CONDITION_GT:
-                match = (cmpMeta.compare(cmpData, keyMeta, keyData) < 0);
-                break;
-              case DatabaseLookupMeta.CONDITION_GE:
-                match = (cmpMeta.compare(cmpData, keyMeta, keyData) <= 0);
-                break;
-              case DatabaseLookupMeta.CONDITION_IS_NULL:
-                match = keyMeta.isNull(keyData);
-                break;
-              case DatabaseLookupMeta.CONDITION_IS_NOT_NULL:
-                match = !keyMeta.isNull(keyData);
-                break;
-              case DatabaseLookupMeta.CONDITION_BETWEEN:
-                // Between key >= cmp && key <= cmp2
-                IValueMeta cmpMeta2 = lookupMeta.getValueMeta(lookupIndex + 1);
-                Object cmpData2 = lookupRow[lookupIndex + 1];
-                match = (keyMeta.compare(keyData, cmpMeta, cmpData) >= 0);
-                if (match) {
-                  match = (keyMeta.compare(keyData, cmpMeta2, cmpData2) <= 0);
-                }
-                lookupIndex++;
-                break;
-                // TODO: add LIKE operator (think of changing the hasDBCondition logic then)
-              default:
-                match = false;
-                data.hasDBCondition =
-                    true; // avoid looping in here the next time, also safety when a new condition
-                // will be introduced
-                break;
-            }
-            lookupIndex++;
-          }
-          if (match) {
-            TimedRow timedRow = map.get(key);
-            if (timedRow != null) {
-              return timedRow.getRow();
-            }
-          }
+          rangeIndex.add(key);
         }
       }
+      RowMetaAndData key = rangeIndex.find(lookupMeta, lookupRow);
+      if (key != null) {
+        return map.get(key);
+      }
     }
     return null;
   }
@@ -144,46 +125,11 @@ public class DefaultCache implements DatabaseLookupData.ICache {
     // * Additionally, if using the load all data feature, re-inserting would reverse the order
     // * specified in the transform.
     // */
-    map.put(rowMetaAndData, new TimedRow(add));
-
-    // See if we have to limit the cache_size.
-    // Sample 10% of the rows in the cache.
-    // Remove everything below the second lowest date.
-    // That should on average remove more than 10% of the entries
-    // It's not exact science, but it will be faster than the old algorithm
-
-    // 2009-02-01: If you had previously set a cache size and then turned on load all,
-    // this
-    // method would throw out entries if the previous cache size wasn't big enough.
-    if (!meta.isLoadingAllDataInCache()
-        && meta.getCacheSize() > 0
-        && map.size() > meta.getCacheSize()) {
-      List<RowMetaAndData> keys = new ArrayList<>(map.keySet());
-      List<Date> samples = new ArrayList<>();
-      int incr = keys.size() / 10;
-      if (incr == 0) {
-        incr = 1;
-      }
-      for (int k = 0; k < keys.size(); k += incr) {
-        RowMetaAndData key = keys.get(k);
-        TimedRow timedRow = map.get(key);
-        samples.add(timedRow.getLogDate());
-      }
-
-      Collections.sort(samples);
-
-      if (samples.size() > 1) {
-        Date smallest = samples.get(1);
-
-        // Everything below the smallest date goes away...
-        for (RowMetaAndData key : keys) {
-          TimedRow timedRow = map.get(key);
-
-          if (timedRow.getLogDate().compareTo(smallest) < 0) {
-            map.remove(key);
-          }
-        }
-      }
+    // A bounded cache evicts its least recently used row when it overflows.
+    // If all the data was loaded in the cache the size isn't limited.
+    //
+    if (map.put(rowMetaAndData, add) == null && rangeIndex != null) {
+      rangeIndex.add(rowMetaAndData);
     }
   }
 }
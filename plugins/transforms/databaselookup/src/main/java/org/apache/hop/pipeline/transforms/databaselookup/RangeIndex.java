@@ -0,0 +1,249 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.pipeline.transforms.databaselookup;
+
+import org.apache.hop.core.Const;
+import org.apache.hop.core.RowMetaAndData;
+import org.apache.hop.core.exception.HopValueException;
+import org.apache.hop.core.row.IRowMeta;
+import org.apache.hop.core.row.IValueMeta;
+import org.apache.hop.core.row.RowMeta;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+/**
+ * An index on the cached keys of a lookup on a validity interval, as in a slowly changing
+ * dimension: {@code valid_from <= ? AND valid_to > ?} for the same stream field, all other
+ * conditions "=". The keys are grouped by the values of their "=" conditions and sorted on the
+ * start of their interval within a group, so that the only interval which can hold a value is
+ * found directly.
+ *
+ * <p>The intervals of the rows with the same "=" values are expected not to overlap, so that the
+ * database returns a single row for every lookup.
+ */
+class RangeIndex {
+
+  private final int[] conditions;
+  private final int[] eqColumns;
+  private final int fromColumn;
+  private final int toColumn;
+
+  private final Map<RowMetaAndData, Group> groups = new HashMap<>();
+  private IRowMeta groupMeta;
+
+  RangeIndex(DatabaseLookupData data) {
+    this.conditions = data.conditions;
+
+    List<Integer> eq = new ArrayList<>();
+    int from = -1;
+    int to = -1;
+    for (int i = 0; i < conditions.length; i++) {
+      switch (conditions[i]) {
+        case DatabaseLookupMeta.CONDITION_LT:
+        case DatabaseLookupMeta.CONDITION_LE:
+          from = i;
+          break;
+        case DatabaseLookupMeta.CONDITION_GT:
+        case DatabaseLookupMeta.CONDITION_GE:
+          to = i;
+          break;
+        default:
+          eq.add(i);
+          break;
+      }
+    }
+    eqColumns = eq.stream().mapToInt(Integer::intValue).toArray();
+    fromColumn = from;
+    toColumn = to;
+  }
+
+  /**
+   * Checks if the rows found with the given key fields can be cached by their interval: one "&lt;"
+   * or "&lt;=" condition on the start of the interval and one "&gt;" or "&gt;=" condition on its
+   * end, both on the same stream field, all other conditions "=".
+   *
+   * @param keyFields The key fields of the lookup
+   * @return true if the lookup is on a single validity interval
+   */
+  static boolean isValidityInterval(List<KeyField> keyFields) {
+    KeyField from = null;
+    KeyField to = null;
+    for (KeyField keyField : keyFields) {
+      switch (Const.indexOfString(keyField.getCondition(), DatabaseLookupMeta.conditionStrings)) {
+        case DatabaseLookupMeta.CONDITION_EQ:
+          break;
+        case DatabaseLookupMeta.CONDITION_LT:
+        case DatabaseLookupMeta.CONDITION_LE:
+          if (from != null) {
+            return false;
+          }
+          from = keyField;
+          break;
+        case DatabaseLookupMeta.CONDITION_GT:
+        case DatabaseLookupMeta.CONDITION_GE:
+          if (to != null) {
+            return false;
+          }
+          to = keyField;
+          break;
+        default:
+          return false;
+      }
+    }
+    return from != null
+        && to != null
+        && Objects.equals(from.getStreamField1(), to.getStreamField1())
+        && !Objects.equals(from.getTableField(), to.getTableField());
+  }
+
+  /** Adds a cached key to the index */
+  void add(RowMetaAndData key) {
+    Group group = groups.computeIfAbsent(getGroupKey(key), k -> new Group(key));
+    group.add(key);
+  }
+
+  /** Removes a cached key from the index */
+  void remove(RowMetaAndData key) {
+    RowMetaAndData groupKey = getGroupKey(key);
+    Group group = groups.get(groupKey);
+    if (group != null && group.remove(key)) {
+      groups.remove(groupKey);
+    }
+  }
+
+  /**
+   * Finds the cached key of the interval holding the lookup value.
+   *
+   * @return the matching key or null if there is none
+   */
+  RowMetaAndData find(IRowMeta lookupMeta, Object[] lookupRow) throws HopValueException {
+    if (groups.isEmpty()) {
+      return null;
+    }
+
+    // Every condition has one lookup value
+    //
+    Object[] values = new Object[eqColumns.length];
+    for (int i = 0; i < eqColumns.length; i++) {
+      values[i] =
+          toKeyType(
+              groupMeta.getValueMeta(i),
+              lookupMeta.getValueMeta(eqColumns[i]),
+              lookupRow[eqColumns[i]]);
+    }
+    Group group = groups.get(new RowMetaAndData(groupMeta, values));
+    if (group == null) {
+      return null;
+    }
+    return group.find(lookupMeta.getValueMeta(fromColumn), lookupRow[fromColumn]);
+  }
+
+  private RowMetaAndData getGroupKey(RowMetaAndData key) {
+    if (groupMeta == null) {
+      groupMeta = new RowMeta();
+      for (int column : eqColumns) {
+        groupMeta.addValueMeta(key.getValueMeta(column).clone());
+      }
+    }
+    Object[] values = new Object[eqColumns.length];
+    for (int i = 0; i < eqColumns.length; i++) {
+      values[i] = key.getData()[eqColumns[i]];
+    }
+    return new RowMetaAndData(groupMeta, values);
+  }
+
+  private static Object toKeyType(IValueMeta keyMeta, IValueMeta cmpMeta, Object cmpData)
+      throws HopValueException {
+    if (cmpData == null) {
+      return null;
+    }
+    return keyMeta.getType() == cmpMeta.getType()
+        ? cmpMeta.convertToNormalStorageType(cmpData)
+        : keyMeta.convertData(cmpMeta, cmpData);
+  }
+
+  /** The cached keys sharing the same values for the "=" conditions, by start of interval */
+  private class Group {
+    private final IValueMeta fromMeta;
+    private final IValueMeta toMeta;
+    private final TreeMap<Object, RowMetaAndData> sorted;
+
+    Group(RowMetaAndData first) {
+      fromMeta = first.getValueMeta(fromColumn);
+      toMeta = first.getValueMeta(toColumn);
+      sorted =
+          new TreeMap<>(
+              (o1, o2) -> {
+                try {
+                  return fromMeta.compare(o1, o2);
+                } catch (HopValueException e) {
+                  throw new IllegalStateException("Unable to compare interval starts", e);
+                }
+              });
+    }
+
+    void add(RowMetaAndData key) {
+      Object from = key.getData()[fromColumn];
+      if (from == null) {
+        // A NULL never satisfies a range condition
+        return;
+      }
+      sorted.put(from, key);
+    }
+
+    /** @return true if the group is empty after removing the key */
+    boolean remove(RowMetaAndData key) {
+      Object from = key.getData()[fromColumn];
+      if (from != null && key.equals(sorted.get(from))) {
+        sorted.remove(from);
+      }
+      return sorted.isEmpty();
+    }
+
+    /** @return the key of the interval holding the value, null if there is none */
+    RowMetaAndData find(IValueMeta cmpMeta, Object cmpData) throws HopValueException {
+      Object value = toKeyType(fromMeta, cmpMeta, cmpData);
+      if (value == null) {
+        return null;
+      }
+
+      // The interval starting closest before the value is the only one which can hold it
+      //
+      Map.Entry<Object, RowMetaAndData> entry =
+          conditions[fromColumn] == DatabaseLookupMeta.CONDITION_LE
+              ? sorted.floorEntry(value)
+              : sorted.lowerEntry(value);
+      if (entry == null) {
+        return null;
+      }
+      RowMetaAndData key = entry.getValue();
+      Object to = key.getData()[toColumn];
+      if (to == null) {
+        return null;
+      }
+      int compare = toMeta.compare(to, fromMeta, value);
+      boolean inclusive = conditions[toColumn] == DatabaseLookupMeta.CONDITION_GE;
+      return compare > 0 || (compare == 0 && inclusive) ? key : null;
+    }
+  }
+}
@@ -177,6 +177,8 @@ public class DatabaseLookupMetaTest {
     meta.setCached(true);
     meta.setCacheSize(123456);
     meta.setLoadingAllDataInCache(true);
+    meta.setLookupBatchSize(50);
+    meta.setLookingUpBatchMissesRowByRow(true);
     Lookup lookup = meta.getLookup();
     lookup.getKeyFields().add(new KeyField("aa", "gg", "ee", "cc"));
     lookup.getKeyFields().add(new KeyField("bb", "hh", "ff", "dd"));
@@ -212,6 +214,9 @@ public class DatabaseLookupMetaTest {
     assertEquals(meta.isCached(), meta2.isCached());
     assertEquals(meta.getCacheSize(), meta2.getCacheSize());
     assertEquals(meta.isLoadingAllDataInCache(), meta2.isLoadingAllDataInCache());
+    assertEquals(meta.getLookupBatchSize(), meta2.getLookupBatchSize());
+    assertEquals(
+        meta.isLookingUpBatchMissesRowByRow(), meta2.isLookingUpBatchMissesRowByRow());
 
     assertEquals(lookup.getKeyFields().size(), lookup2.getKeyFields().size());
     for (int i = 0; i < lookup.getKeyFields().size(); i++) {
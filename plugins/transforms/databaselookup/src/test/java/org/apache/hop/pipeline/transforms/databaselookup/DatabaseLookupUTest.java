@@ -52,15 +52,19 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 import static org.hamcrest.CoreMatchers.instanceOf;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyBoolean;
@@ -74,7 +78,10 @@ import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.mockingDetails;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public class DatabaseLookupUTest {
@@ -452,6 +459,255 @@ public class DatabaseLookupUTest {
     assertNotNull(data.cache.getRowFromCache(data.lookupMeta, new Object[] {2L}));
   }
 
+  @Test
+  public void boundedCacheEvictsLeastRecentlyUsedRow() throws Exception {
+    DatabaseLookupData data = new DatabaseLookupData();
+    data.allEquals = true;
+    data.lookupMeta = new RowMeta();
+    data.lookupMeta.addValueMeta(new ValueMetaInteger("id"));
+    DefaultCache cache = DefaultCache.newCache(data, 2);
+    DatabaseLookupMeta meta = new DatabaseLookupMeta();
+
+    cache.storeRowInCache(meta, data.lookupMeta, new Object[] {1L}, new Object[] {10L});
+    cache.storeRowInCache(meta, data.lookupMeta, new Object[] {2L}, new Object[] {20L});
+    assertNotNull(cache.getRowFromCache(data.lookupMeta, new Object[] {1L}));
+    cache.storeRowInCache(meta, data.lookupMeta, new Object[] {3L}, new Object[] {30L});
+
+    assertEquals(2, cache.size());
+    assertEquals(1L, cache.getEvictions());
+    assertArrayEquals(
+        new Object[] {10L}, cache.getRowFromCache(data.lookupMeta, new Object[] {1L}));
+    assertNull(cache.getRowFromCache(data.lookupMeta, new Object[] {2L}));
+    assertArrayEquals(
+        new Object[] {30L}, cache.getRowFromCache(data.lookupMeta, new Object[] {3L}));
+  }
+
+  @Test
+  public void batchedLookupKeepsRowOrder() throws Exception {
+    NoneDatabaseMeta genericMeta = new NoneDatabaseMeta();
+    DatabaseMeta dbMeta = new DatabaseMeta();
+    dbMeta.setIDatabase(genericMeta);
+
+    RowMeta resultMeta = new RowMeta();
+    resultMeta.addValueMeta(new ValueMetaInteger("id"));
+    resultMeta.addValueMeta(new ValueMetaInteger("value"));
+
+    ResultSet resultSet = mock(ResultSet.class);
+    Database db = mock(Database.class);
+    when(db.getDatabaseMeta()).thenReturn(dbMeta);
+    when(db.prepareSql(anyString())).thenReturn(mock(PreparedStatement.class));
+    when(db.openQuery(any(PreparedStatement.class), any(IRowMeta.class), any(Object[].class)))
+        .thenReturn(resultSet);
+    when(db.getRow(resultSet))
+        .thenReturn(new Object[] {3L, 30L}, new Object[] {1L, 10L}, null);
+    when(db.getReturnRowMeta()).thenReturn(resultMeta);
+
+    DatabaseLookupMeta meta = new DatabaseLookupMeta();
+    meta.setConnection("connection1");
+    meta.setLookupBatchSize(10);
+    meta.getLookup().getKeyFields().add(new KeyField("Test", "", "=", "id"));
+    ReturnValue returnValue = new ReturnValue();
+    returnValue.setTableField("value");
+    returnValue.setDefaultType("Integer");
+    meta.getLookup().getReturnValues().add(returnValue);
+    DatabaseLookupData data = new DatabaseLookupData();
+
+    DatabaseLookup transform = spyLookup(mockHelper, meta, data, db, dbMeta);
+    when(transform.getPipelineMeta().findDatabase(any(String.class), any(IVariables.class)))
+        .thenReturn(dbMeta);
+    doNothing().when(transform).determineFieldsTypesQueryingDb();
+    RowMeta input = new RowMeta();
+    input.addValueMeta(new ValueMetaInteger("Test"));
+    transform.setInputRowMeta(input);
+    doReturn(new Object[] {1L}, new Object[] {2L}, new Object[] {3L}, new Object[] {1L}, null)
+        .when(transform)
+        .getRow();
+    List<Object[]> written = new ArrayList<>();
+    doAnswer(
+            invocation -> {
+              written.add((Object[]) invocation.getArguments()[1]);
+              return null;
+            })
+        .when(transform)
+        .putRow(any(IRowMeta.class), any(Object[].class));
+
+    assertTrue(transform.init());
+    data.keytypes = new int[] {IValueMeta.TYPE_INTEGER};
+    while (transform.processRow()) {
+      // Process all rows
+    }
+
+    verify(db, times(1))
+        .openQuery(any(PreparedStatement.class), any(IRowMeta.class), any(Object[].class));
+    assertEquals(4, written.size());
+    assertEquals(10L, written.get(0)[1]);
+    assertNull(written.get(1)[1]);
+    assertEquals(30L, written.get(2)[1]);
+    assertEquals(10L, written.get(3)[1]);
+  }
+
+  @Test
+  public void batchedLookupWithoutMatchIsNotFound() throws Exception {
+    NoneDatabaseMeta genericMeta = new NoneDatabaseMeta();
+    DatabaseMeta dbMeta = new DatabaseMeta();
+    dbMeta.setIDatabase(genericMeta);
+
+    RowMeta resultMeta = new RowMeta();
+    resultMeta.addValueMeta(new ValueMetaInteger("id"));
+    resultMeta.addValueMeta(new ValueMetaInteger("value"));
+
+    // Key 2 isn't found in the first batch and is cached as such, the second batch only needs 3
+    //
+    ResultSet resultSet = mock(ResultSet.class);
+    Database db = mock(Database.class);
+    when(db.getDatabaseMeta()).thenReturn(dbMeta);
+    when(db.prepareSql(anyString())).thenReturn(mock(PreparedStatement.class));
+    when(db.openQuery(any(PreparedStatement.class), any(IRowMeta.class), any(Object[].class)))
+        .thenReturn(resultSet);
+    when(db.getRow(resultSet))
+        .thenReturn(new Object[] {1L, 10L}, null, new Object[] {3L, 30L}, null);
+    when(db.getReturnRowMeta()).thenReturn(resultMeta);
+
+    DatabaseLookupMeta meta = createBatchLookupMeta(2, "id");
+    meta.setCached(true);
+    meta.getLookup().setEatingRowOnLookupFailure(true);
+    DatabaseLookupData data = new DatabaseLookupData();
+    DatabaseLookup transform = spyBatchLookup(meta, data, db, dbMeta);
+    doReturn(new Object[] {1L}, new Object[] {2L}, new Object[] {2L}, new Object[] {3L}, null)
+        .when(transform)
+        .getRow();
+    List<Object[]> written = new ArrayList<>();
+    doAnswer(
+            invocation -> {
+              written.add((Object[]) invocation.getArguments()[1]);
+              return null;
+            })
+        .when(transform)
+        .putRow(any(IRowMeta.class), any(Object[].class));
+
+    assertTrue(transform.init());
+    data.keytypes = new int[] {IValueMeta.TYPE_INTEGER};
+    while (transform.processRow()) {
+      // Process all rows
+    }
+
+    verify(db, times(2))
+        .openQuery(any(PreparedStatement.class), any(IRowMeta.class), any(Object[].class));
+    verify(db, never()).getLookup(anyBoolean());
+    assertEquals(1, data.cacheHits);
+    assertEquals(2, written.size());
+    assertEquals(10L, written.get(0)[1]);
+    assertEquals(30L, written.get(1)[1]);
+  }
+
+  @Test
+  public void batchedLookupFallsBackToRowByRowLookup() throws Exception {
+    NoneDatabaseMeta genericMeta = new NoneDatabaseMeta();
+    DatabaseMeta dbMeta = new DatabaseMeta();
+    dbMeta.setIDatabase(genericMeta);
+
+    RowMeta resultMeta = new RowMeta();
+    resultMeta.addValueMeta(new ValueMetaInteger("id"));
+    resultMeta.addValueMeta(new ValueMetaInteger("value"));
+
+    // The batch query only finds key 1, the database matches key 2 when it is looked up alone
+    //
+    ResultSet resultSet = mock(ResultSet.class);
+    Database db = mock(Database.class);
+    when(db.getDatabaseMeta()).thenReturn(dbMeta);
+    when(db.prepareSql(anyString())).thenReturn(mock(PreparedStatement.class));
+    when(db.openQuery(any(PreparedStatement.class), any(IRowMeta.class), any(Object[].class)))
+        .thenReturn(resultSet);
+    when(db.getRow(resultSet)).thenReturn(new Object[] {1L, 10L}, null);
+    when(db.getReturnRowMeta()).thenReturn(resultMeta);
+    when(db.getLookup(anyBoolean())).thenReturn(new Object[] {20L});
+
+    DatabaseLookupMeta meta = createBatchLookupMeta(10, "id");
+    meta.setLookingUpBatchMissesRowByRow(true);
+    DatabaseLookupData data = new DatabaseLookupData();
+    DatabaseLookup transform = spyBatchLookup(meta, data, db, dbMeta);
+    doReturn(new Object[] {1L}, new Object[] {2L}, new Object[] {2L}, null)
+        .when(transform)
+        .getRow();
+    List<Object[]> written = new ArrayList<>();
+    doAnswer(
+            invocation -> {
+              written.add((Object[]) invocation.getArguments()[1]);
+              return null;
+            })
+        .when(transform)
+        .putRow(any(IRowMeta.class), any(Object[].class));
+
+    assertTrue(transform.init());
+    data.keytypes = new int[] {IValueMeta.TYPE_INTEGER};
+    while (transform.processRow()) {
+      // Process all rows
+    }
+
+    verify(db, times(1))
+        .openQuery(any(PreparedStatement.class), any(IRowMeta.class), any(Object[].class));
+    verify(db, times(1)).getLookup(anyBoolean());
+    assertEquals(3, written.size());
+    assertEquals(10L, written.get(0)[1]);
+    assertEquals(20L, written.get(1)[1]);
+    assertEquals(20L, written.get(2)[1]);
+  }
+
+  @Test
+  public void batchSizeStaysWithinTheQueryParameterLimits() throws Exception {
+    NoneDatabaseMeta genericMeta = new NoneDatabaseMeta();
+    DatabaseMeta dbMeta = new DatabaseMeta();
+    dbMeta.setIDatabase(genericMeta);
+    Database db = mock(Database.class);
+    when(db.getDatabaseMeta()).thenReturn(dbMeta);
+
+    // A single key is looked up with an IN list of at most 1000 values
+    //
+    DatabaseLookupData data = new DatabaseLookupData();
+    assertTrue(spyBatchLookup(createBatchLookupMeta(5000, "id"), data, db, dbMeta).init());
+    assertEquals(1000, data.batchSize);
+
+    // Composite keys take a parameter per key field
+    //
+    data = new DatabaseLookupData();
+    DatabaseLookupMeta meta = createBatchLookupMeta(5000, "id", "code", "version");
+    assertTrue(spyBatchLookup(meta, data, db, dbMeta).init());
+    assertEquals(666, data.batchSize);
+
+    // Smaller batches are kept
+    //
+    data = new DatabaseLookupData();
+    assertTrue(spyBatchLookup(createBatchLookupMeta(50, "id"), data, db, dbMeta).init());
+    assertEquals(50, data.batchSize);
+  }
+
+  private DatabaseLookupMeta createBatchLookupMeta(int batchSize, String... keyFields) {
+    DatabaseLookupMeta meta = new DatabaseLookupMeta();
+    meta.setConnection("connection1");
+    meta.setLookupBatchSize(batchSize);
+    for (String keyField : keyFields) {
+      meta.getLookup().getKeyFields().add(new KeyField("Test", "", "=", keyField));
+    }
+    ReturnValue returnValue = new ReturnValue();
+    returnValue.setTableField("value");
+    returnValue.setDefaultType("Integer");
+    meta.getLookup().getReturnValues().add(returnValue);
+    return meta;
+  }
+
+  private DatabaseLookup spyBatchLookup(
+      DatabaseLookupMeta meta, DatabaseLookupData data, Database db, DatabaseMeta dbMeta)
+      throws Exception {
+    DatabaseLookup transform = spyLookup(mockHelper, meta, data, db, dbMeta);
+    when(transform.getPipelineMeta().findDatabase(any(String.class), any(IVariables.class)))
+        .thenReturn(dbMeta);
+    doNothing().when(transform).determineFieldsTypesQueryingDb();
+    RowMeta input = new RowMeta();
+    input.addValueMeta(new ValueMetaInteger("Test"));
+    transform.setInputRowMeta(input);
+    return transform;
+  }
+
   public class MockDatabaseLookup extends DatabaseLookup {
     public MockDatabaseLookup(
         TransformMeta transformMeta,
@@ -0,0 +1,180 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.pipeline.transforms.databaselookup;
+
+import org.apache.hop.core.row.IRowMeta;
+import org.apache.hop.core.row.RowMeta;
+import org.apache.hop.core.row.value.ValueMetaInteger;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class RangeIndexTest {
+
+  private DatabaseLookupData data;
+  private DatabaseLookupMeta meta;
+  private IRowMeta keyMeta;
+
+  @Before
+  public void setUp() {
+    data = new DatabaseLookupData();
+    data.allEquals = false;
+    data.rangeCache = true;
+    meta = new DatabaseLookupMeta();
+  }
+
+  /** id = ?, valid_from &lt;= ?, valid_to &gt;= ? */
+  private DefaultCache createValidityCache(int cacheSize) {
+    data.conditions =
+        new int[] {
+          DatabaseLookupMeta.CONDITION_EQ,
+          DatabaseLookupMeta.CONDITION_LE,
+          DatabaseLookupMeta.CONDITION_GE
+        };
+    keyMeta = new RowMeta();
+    keyMeta.addValueMeta(new ValueMetaInteger("id"));
+    keyMeta.addValueMeta(new ValueMetaInteger("valid_from"));
+    keyMeta.addValueMeta(new ValueMetaInteger("valid_to"));
+    data.lookupMeta = new RowMeta();
+    data.lookupMeta.addValueMeta(new ValueMetaInteger("id"));
+    data.lookupMeta.addValueMeta(new ValueMetaInteger("date"));
+    data.lookupMeta.addValueMeta(new ValueMetaInteger("date"));
+    return DefaultCache.newCache(data, cacheSize);
+  }
+
+  private void store(DefaultCache cache, long id, long from, long to, long value) {
+    cache.storeRowInCache(meta, keyMeta, new Object[] {id, from, to}, new Object[] {value});
+  }
+
+  private Object[] lookup(DefaultCache cache, long id, long date) throws Exception {
+    return cache.getRowFromCache(data.lookupMeta, new Object[] {id, date, date});
+  }
+
+  @Test
+  public void findsValidityInterval() throws Exception {
+    DefaultCache cache = createValidityCache(0);
+    store(cache, 1L, 0L, 99L, 100L);
+    store(cache, 1L, 100L, 199L, 101L);
+    store(cache, 2L, 0L, 149L, 200L);
+
+    assertArrayEquals(new Object[] {100L}, lookup(cache, 1L, 50L));
+    assertArrayEquals(new Object[] {101L}, lookup(cache, 1L, 100L));
+    assertArrayEquals(new Object[] {101L}, lookup(cache, 1L, 199L));
+    assertArrayEquals(new Object[] {200L}, lookup(cache, 2L, 120L));
+    assertNull(lookup(cache, 1L, 200L));
+    assertNull(lookup(cache, 2L, 150L));
+    assertNull(lookup(cache, 3L, 50L));
+
+    // Rows stored after the index is built are indexed as well
+    //
+    store(cache, 1L, 200L, 299L, 102L);
+    assertArrayEquals(new Object[] {102L}, lookup(cache, 1L, 250L));
+  }
+
+  @Test
+  public void evictedRowsAreRemovedFromTheIndex() throws Exception {
+    DefaultCache cache = createValidityCache(2);
+    store(cache, 1L, 0L, 99L, 100L);
+    store(cache, 1L, 100L, 199L, 101L);
+    assertArrayEquals(new Object[] {100L}, lookup(cache, 1L, 50L));
+
+    store(cache, 1L, 200L, 299L, 102L);
+
+    assertEquals(1L, cache.getEvictions());
+    assertNull(lookup(cache, 1L, 150L));
+    assertArrayEquals(new Object[] {100L}, lookup(cache, 1L, 50L));
+    assertArrayEquals(new Object[] {102L}, lookup(cache, 1L, 250L));
+  }
+
+  @Test
+  public void findsExclusiveValidityInterval() throws Exception {
+    // valid_from < ?, valid_to > ?
+    DefaultCache cache = createValidityCache(0);
+    data.conditions[1] = DatabaseLookupMeta.CONDITION_LT;
+    data.conditions[2] = DatabaseLookupMeta.CONDITION_GT;
+    store(cache, 1L, 0L, 100L, 100L);
+    store(cache, 1L, 100L, 200L, 101L);
+
+    assertArrayEquals(new Object[] {100L}, lookup(cache, 1L, 50L));
+    assertNull(lookup(cache, 1L, 0L));
+    assertNull(lookup(cache, 1L, 100L));
+    assertArrayEquals(new Object[] {101L}, lookup(cache, 1L, 150L));
+    assertNull(lookup(cache, 1L, 200L));
+  }
+
+  @Test
+  public void otherConditionsAreNotCached() throws Exception {
+    data.rangeCache = false;
+    DefaultCache cache = createValidityCache(0);
+    store(cache, 1L, 0L, 99L, 100L);
+
+    assertNull(lookup(cache, 1L, 50L));
+  }
+
+  @Test
+  public void recognizesValidityIntervals() {
+    assertTrue(
+        RangeIndex.isValidityInterval(
+            Arrays.asList(
+                new KeyField("id", "", "=", "id"),
+                new KeyField("date", "", "<=", "valid_from"),
+                new KeyField("date", "", ">", "valid_to"))));
+    assertTrue(
+        RangeIndex.isValidityInterval(
+            Arrays.asList(
+                new KeyField("date", "", ">=", "valid_to"),
+                new KeyField("date", "", "<", "valid_from"))));
+
+    // A single range condition can match any number of rows
+    assertFalse(
+        RangeIndex.isValidityInterval(
+            Arrays.asList(
+                new KeyField("id", "", "=", "id"), new KeyField("date", "", "<=", "valid_from"))));
+    // The bounds need to be on the same stream field
+    assertFalse(
+        RangeIndex.isValidityInterval(
+            Arrays.asList(
+                new KeyField("start", "", "<=", "valid_from"),
+                new KeyField("end", "", ">", "valid_to"))));
+    // ... and on different table fields
+    assertFalse(
+        RangeIndex.isValidityInterval(
+            Arrays.asList(
+                new KeyField("date", "", "<=", "valid"), new KeyField("date", "", ">", "valid"))));
+    assertFalse(
+        RangeIndex.isValidityInterval(
+            Arrays.asList(
+                new KeyField("low", "high", "BETWEEN", "key"),
+                new KeyField("date", "", "<=", "valid_from"),
+                new KeyField("date", "", ">", "valid_to"))));
+    assertFalse(
+        RangeIndex.isValidityInterval(
+            Arrays.asList(
+                new KeyField("id", "", "<>", "id"),
+                new KeyField("date", "", "<=", "valid_from"),
+                new KeyField("date", "", ">", "valid_to"))));
+    assertFalse(RangeIndex.isValidityInterval(Arrays.asList(new KeyField("id", "", "=", "id"))));
+  }
+}
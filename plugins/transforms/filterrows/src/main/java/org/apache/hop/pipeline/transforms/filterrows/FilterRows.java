@@ -48,7 +48,7 @@ public class FilterRows extends BaseTransform<FilterRowsMeta, FilterRowsData> {
 
   private synchronized boolean keepRow(IRowMeta rowMeta, Object[] row) throws HopException {
     try {
-      return meta.getCondition().evaluate(rowMeta, row);
+      return data.condition.evaluate(row);
     } catch (Exception e) {
       String message =
           BaseMessages.getString(
@@ -64,8 +64,9 @@ public class FilterRows extends BaseTransform<FilterRowsMeta, FilterRowsData> {
 
   @Override
   public boolean processRow() throws HopException {
-    Object[] r = getRow(); // Get next usable row from input rowset(s)!
-    if (r == null) {
+    long previousLinesRead = getLinesRead();
+    Object[][] rows = getRows(ROW_BATCH_SIZE); // Get next usable rows from input rowset(s)!
+    if (rows == null) {
       setOutputDone();
       return false;
     }
@@ -79,6 +80,10 @@ public class FilterRows extends BaseTransform<FilterRowsMeta, FilterRowsData> {
       // if filter refers to non-existing fields, throw exception
       checkNonExistingFields();
 
+      // Look up the fields and prepare the constants of the condition once for all the rows
+      //
+      data.condition = meta.getCondition().compile(getInputRowMeta());
+
       // Cache the position of the IRowSet for the output.
       //
       if (data.chosesTargetTransforms) {
@@ -119,38 +124,48 @@ public class FilterRows extends BaseTransform<FilterRowsMeta, FilterRowsData> {
       }
     }
 
-    boolean keep = keepRow(getInputRowMeta(), r); // Keep this row?
     if (!data.chosesTargetTransforms) {
-      if (keep) {
-        putRow(data.outputRowMeta, r); // copy row to output rowset(s)
+      // Compact the rows to keep at the start of the batch and pass them on in one go
+      //
+      int kept = 0;
+      for (Object[] r : rows) {
+        if (keepRow(getInputRowMeta(), r)) { // Keep this row?
+          rows[kept++] = r;
+        }
+      }
+      if (kept > 0) {
+        putRows(data.outputRowMeta, rows, kept); // copy rows to output rowset(s)
       }
     } else {
-      if (keep) {
-        if (data.trueRowSet != null) {
-          if (log.isRowLevel()) {
-            logRowlevel(
-                "Sending row to true  :"
-                    + data.trueTransformName
-                    + " : "
-                    + getInputRowMeta().getString(r));
+      for (Object[] r : rows) {
+        boolean keep = keepRow(getInputRowMeta(), r); // Keep this row?
+        if (keep) {
+          if (data.trueRowSet != null) {
+            if (log.isRowLevel()) {
+              logRowlevel(
+                  "Sending row to true  :"
+                      + data.trueTransformName
+                      + " : "
+                      + getInputRowMeta().getString(r));
+            }
+            putRowTo(data.outputRowMeta, r, data.trueRowSet);
           }
-          putRowTo(data.outputRowMeta, r, data.trueRowSet);
-        }
-      } else {
-        if (data.falseRowSet != null) {
-          if (log.isRowLevel()) {
-            logRowlevel(
-                "Sending row to false :"
-                    + data.falseTransformName
-                    + " : "
-                    + getInputRowMeta().getString(r));
+        } else {
+          if (data.falseRowSet != null) {
+            if (log.isRowLevel()) {
+              logRowlevel(
+                  "Sending row to false :"
+                      + data.falseTransformName
+                      + " : "
+                      + getInputRowMeta().getString(r));
+            }
+            putRowTo(data.outputRowMeta, r, data.falseRowSet);
           }
-          putRowTo(data.outputRowMeta, r, data.falseRowSet);
         }
       }
     }
 
-    if (checkFeedback(getLinesRead())) {
+    if (checkFeedback(previousLinesRead, getLinesRead())) {
       if (log.isBasic()) {
         logBasic(BaseMessages.getString(PKG, "FilterRows.Log.LineNumber") + getLinesRead());
       }
@@ -197,4 +212,9 @@ public class FilterRows extends BaseTransform<FilterRowsMeta, FilterRowsData> {
       throw new HopException(errorMsg);
     }
   }
+
+  @Override
+  public boolean isResettable() {
+    return true;
+  }
 }
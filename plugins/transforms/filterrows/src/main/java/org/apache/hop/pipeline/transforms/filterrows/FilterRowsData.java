@@ -17,6 +17,7 @@
 
 package org.apache.hop.pipeline.transforms.filterrows;
 
+import org.apache.hop.core.CompiledCondition;
 import org.apache.hop.core.IRowSet;
 import org.apache.hop.core.row.IRowMeta;
 import org.apache.hop.pipeline.transform.BaseTransformData;
@@ -31,6 +32,9 @@ public class FilterRowsData extends BaseTransformData implements ITransformData
   public String trueTransformName;
   public String falseTransformName;
 
+  /** The filter condition, compiled for the input rows of this copy */
+  public CompiledCondition condition;
+
   public FilterRowsData() {
     super();
   }
@@ -27,11 +27,12 @@ import org.apache.hop.pipeline.PipelineMeta;
 import org.apache.hop.pipeline.transform.BaseTransform;
 import org.apache.hop.pipeline.transform.TransformMeta;
 import org.apache.hop.pipeline.transforms.formula.util.FormulaParser;
+import org.apache.hop.pipeline.transforms.formula.util.FormulaSheet;
+import org.apache.poi.ss.formula.FormulaParseException;
+import org.apache.poi.ss.usermodel.Cell;
 import org.apache.poi.ss.usermodel.CellType;
 import org.apache.poi.ss.usermodel.CellValue;
 import org.apache.poi.ss.usermodel.DateUtil;
-import org.apache.poi.ss.usermodel.Row;
-import org.apache.poi.xssf.usermodel.XSSFSheet;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 
 import java.io.IOException;
@@ -39,16 +40,12 @@ import java.util.Arrays;
 
 public class Formula extends BaseTransform<FormulaMeta, FormulaData> {
 
-  private XSSFWorkbook workBook;
-  private XSSFSheet workSheet;
-  private Row sheetRow;
-
   @Override
   public boolean init() {
 
-    workBook = new XSSFWorkbook();
-    workSheet = workBook.createSheet();
-    sheetRow = workSheet.createRow(0);
+    // The formulas are parsed once into a workbook and evaluated by POI for every row
+    //
+    data.sheet = new FormulaSheet(new XSSFWorkbook());
 
     data.returnType = new int[meta.getFormulas().size()];
     for (int i = 0; i < meta.getFormulas().size(); i++) {
@@ -61,7 +58,9 @@ public class Formula extends BaseTransform<FormulaMeta, FormulaData> {
   @Override
   public void dispose() {
     try {
-      workBook.close();
+      if (data.sheet != null) {
+        data.sheet.close();
+      }
     } catch (IOException e) {
       logError("Unable to close temporary workbook", e);
     }
@@ -102,16 +101,17 @@ public class Formula extends BaseTransform<FormulaMeta, FormulaData> {
           data.replaceIndex[i] = -1;
         }
       }
+
+      compileFormulas();
     }
 
     if (log.isRowLevel()) {
       logRowlevel("Read row #" + getLinesRead() + " : " + Arrays.toString(r));
     }
 
-    if (sheetRow != null) {
-      workSheet.removeRow(sheetRow);
+    if (!data.sheet.isEmpty()) {
+      data.sheet.setValues(getInputRowMeta(), r);
     }
-    sheetRow = workSheet.createRow(0);
 
     Object outputValue = null;
     Object[] outputRowData = RowDataUtil.resizeArray(r, data.outputRowMeta.size());
@@ -119,8 +119,8 @@ public class Formula extends BaseTransform<FormulaMeta, FormulaData> {
     for (int i = 0; i < meta.getFormulas().size(); i++) {
 
       FormulaMetaFunction formula = meta.getFormulas().get(i);
-      FormulaParser parser = new FormulaParser(formula, getInputRowMeta(), r, sheetRow, variables);
-      CellValue cellValue = parser.getFormulaValue();
+      CellValue cellValue = data.sheet.evaluate(data.formulaCells[i]);
+      outputValue = null;
 
       CellType cellType = cellValue.getCellType();
 
@@ -190,6 +190,22 @@ public class Formula extends BaseTransform<FormulaMeta, FormulaData> {
     return true;
   }
 
+  /** Parse all formulas once, binding the fields they reference to cells of the sheet. */
+  private void compileFormulas() throws HopException {
+    int nrFormulas = meta.getFormulas().size();
+    data.formulaCells = new Cell[nrFormulas];
+
+    for (int i = 0; i < nrFormulas; i++) {
+      FormulaMetaFunction formula = meta.getFormulas().get(i);
+      FormulaParser parser = new FormulaParser(formula, getInputRowMeta(), variables);
+      try {
+        data.formulaCells[i] = parser.compile(data.sheet);
+      } catch (FormulaParseException e) {
+        throw new HopException("Unable to parse formula [" + parser.getFormula() + "]", e);
+      }
+    }
+  }
+
   /**
    * This is the base transform that forms that basis for all transforms. You can derive from this
    * class to implement your own transforms.
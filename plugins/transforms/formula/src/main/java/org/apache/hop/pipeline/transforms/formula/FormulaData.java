@@ -20,6 +20,8 @@ package org.apache.hop.pipeline.transforms.formula;
 import org.apache.hop.core.row.IRowMeta;
 import org.apache.hop.pipeline.transform.BaseTransformData;
 import org.apache.hop.pipeline.transform.ITransformData;
+import org.apache.hop.pipeline.transforms.formula.util.FormulaSheet;
+import org.apache.poi.ss.usermodel.Cell;
 
 public class FormulaData extends BaseTransformData implements ITransformData {
 
@@ -37,6 +39,11 @@ public class FormulaData extends BaseTransformData implements ITransformData {
   public int[] returnType;
   public int[] replaceIndex;
 
+  // The sheet in which the formulas are evaluated
+  public FormulaSheet sheet;
+  // The compiled formulas
+  public Cell[] formulaCells;
+
   public FormulaData() {
     super();
   }
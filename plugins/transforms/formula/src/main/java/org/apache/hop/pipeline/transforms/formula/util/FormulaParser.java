@@ -17,91 +17,65 @@
 
 package org.apache.hop.pipeline.transforms.formula.util;
 
-import org.apache.hop.core.exception.HopValueException;
+import org.apache.hop.core.exception.HopException;
 import org.apache.hop.core.row.IRowMeta;
-import org.apache.hop.core.row.IValueMeta;
 import org.apache.hop.core.variables.IVariables;
 import org.apache.hop.pipeline.transforms.formula.FormulaMetaFunction;
-import org.apache.poi.hssf.usermodel.HSSFRichTextString;
+import org.apache.poi.ss.formula.FormulaParseException;
 import org.apache.poi.ss.usermodel.Cell;
-import org.apache.poi.ss.usermodel.CellValue;
-import org.apache.poi.ss.usermodel.FormulaEvaluator;
-import org.apache.poi.ss.usermodel.RichTextString;
-import org.apache.poi.ss.usermodel.Row;
 
-import java.sql.Timestamp;
-import java.util.ArrayList;
-import java.util.Date;
-import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+/**
+ * Parses the formula of a formula function once: the [field] references are bound to the input
+ * cells of a {@link FormulaSheet} and the resulting spreadsheet formula is compiled in that sheet.
+ */
 public class FormulaParser {
 
-  private FormulaMetaFunction formulaMetaFunction;
-  private IRowMeta rowMeta;
-  private String[] fieldNames;
-  private String formula;
-  private List<String> formulaFieldList;
-  private Object[] dataRow;
-  private Row sheetRow;
-  private FormulaEvaluator evaluator;
+  private static final Pattern FIELD_REFERENCE = Pattern.compile("\\[(.*?)\\]");
+
+  private final IRowMeta rowMeta;
+  private final String formula;
 
   public FormulaParser(
-      FormulaMetaFunction formulaMetaFunction, IRowMeta rowMeta, Object[] dataRow, Row sheetRow, IVariables variables) {
-    this.formulaMetaFunction = formulaMetaFunction;
+      FormulaMetaFunction formulaMetaFunction, IRowMeta rowMeta, IVariables variables) {
     this.rowMeta = rowMeta;
-    this.dataRow = dataRow;
-    this.sheetRow = sheetRow;
-    fieldNames = rowMeta.getFieldNames();
-    formula = variables.resolve(formulaMetaFunction.getFormula());
-    evaluator = sheetRow.getSheet().getWorkbook().getCreationHelper().createFormulaEvaluator();
-
-    formulaFieldList = new ArrayList<>();
-    Pattern regex = Pattern.compile("\\[(.*?)\\]");
-    Matcher regexMatcher = regex.matcher(formula);
-
-    while (regexMatcher.find()) {
-      formulaFieldList.add(regexMatcher.group(1));
-    }
+    this.formula = variables.resolve(formulaMetaFunction.getFormula());
   }
 
-  public CellValue getFormulaValue() throws HopValueException {
-    String parsedFormula = formula;
-    int fieldIndex = 65;
-    int colIndex = 0;
-    for (String formulaField : formulaFieldList) {
-      char s = (char) fieldIndex;
-      Cell cell = sheetRow.createCell(colIndex);
+  /**
+   * Bind the fields referenced in the formula to input cells of the sheet and compile the formula.
+   *
+   * @param sheet The sheet to compile the formula in
+   * @return The cell to evaluate for every row
+   * @throws HopException in case a referenced field doesn't exist
+   * @throws FormulaParseException in case the formula can't be parsed for this type of sheet
+   */
+  public Cell compile(FormulaSheet sheet) throws HopException, FormulaParseException {
+    Matcher regexMatcher = FIELD_REFERENCE.matcher(formula);
+    StringBuffer parsedFormula = new StringBuffer();
+    while (regexMatcher.find()) {
+      String formulaField = regexMatcher.group(1);
       int fieldPosition = rowMeta.indexOfValue(formulaField);
-
-      IValueMeta fieldMeta = rowMeta.getValueMeta(fieldPosition);
-      if (dataRow[fieldPosition] != null) {
-        if (fieldMeta.isBoolean()) {
-          cell.setCellValue(rowMeta.getBoolean(dataRow, fieldPosition));
-        } else if (fieldMeta.isBigNumber()) {
-          cell.setCellValue(new HSSFRichTextString(rowMeta.getString(dataRow, fieldPosition)));
-        } else if (fieldMeta.isDate()) {
-          cell.setCellValue(rowMeta.getDate(dataRow, fieldPosition));
-        } else if (fieldMeta.isInteger()) {
-          cell.setCellValue(rowMeta.getInteger(dataRow, fieldPosition));
-        } else if (fieldMeta.isNumber()) {
-          cell.setCellValue(rowMeta.getNumber(dataRow, fieldPosition));
-        } else if (fieldMeta.isString()) {
-          cell.setCellValue(rowMeta.getString(dataRow, fieldPosition));
-        } else {
-          cell.setCellValue(rowMeta.getString(dataRow, fieldPosition));
-        }
+      if (fieldPosition < 0) {
+        throw new HopException(
+            "Unknown field [" + formulaField + "] referenced in formula: " + formula);
       }
-
-      parsedFormula = parsedFormula.replaceAll("\\[" + formulaField + "\\]", s + "1");
-      fieldIndex++;
-      colIndex++;
+      regexMatcher.appendReplacement(
+          parsedFormula, Matcher.quoteReplacement(sheet.getFieldReference(fieldPosition)));
     }
+    regexMatcher.appendTail(parsedFormula);
 
-    Cell formulaCell = sheetRow.createCell(colIndex);
-    formulaCell.setCellFormula(parsedFormula);
+    return sheet.compile(parsedFormula.toString());
+  }
 
-    return evaluator.evaluate(formulaCell);
+  /**
+   * Gets formula
+   *
+   * @return value of formula with the variables resolved
+   */
+  public String getFormula() {
+    return formula;
   }
 }
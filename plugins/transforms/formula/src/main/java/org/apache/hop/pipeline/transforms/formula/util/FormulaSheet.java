@@ -0,0 +1,177 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.pipeline.transforms.formula.util;
+
+import org.apache.hop.core.exception.HopValueException;
+import org.apache.hop.core.row.IRowMeta;
+import org.apache.hop.core.row.IValueMeta;
+import org.apache.poi.ss.formula.FormulaParseException;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellValue;
+import org.apache.poi.ss.usermodel.FormulaEvaluator;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.ss.util.CellReference;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A spreadsheet in which formulas are evaluated on the values of a row. Every field used in a
+ * formula is bound to a cell of the input sheet. The formulas are set once in cells of the formula
+ * sheet, referencing these input cells. For every row we only update the input cells and evaluate
+ * the formula cells again.
+ */
+public class FormulaSheet implements Closeable {
+
+  private static final String INPUT_SHEET_NAME = "input";
+  private static final String FORMULA_SHEET_NAME = "formulas";
+
+  private final Workbook workbook;
+  private final Sheet inputSheet;
+  private final Sheet formulaSheet;
+  private final FormulaEvaluator evaluator;
+  private final int maxColumns;
+
+  /** The input cells by field index */
+  private final Map<Integer, Cell> fieldCells;
+
+  private final List<Integer> fieldIndexes;
+  private final List<Cell> inputCells;
+  private int nrFormulas;
+
+  public FormulaSheet(Workbook workbook) {
+    this.workbook = workbook;
+    this.inputSheet = workbook.createSheet(INPUT_SHEET_NAME);
+    this.formulaSheet = workbook.createSheet(FORMULA_SHEET_NAME);
+    this.evaluator = workbook.getCreationHelper().createFormulaEvaluator();
+    this.maxColumns = workbook.getSpreadsheetVersion().getMaxColumns();
+    this.fieldCells = new HashMap<>();
+    this.fieldIndexes = new ArrayList<>();
+    this.inputCells = new ArrayList<>();
+  }
+
+  /**
+   * Get the reference to use in a formula for a field of the input rows. The first time a field is
+   * referenced it's bound to a new input cell.
+   *
+   * @param fieldIndex The index of the field in the input rows
+   * @return The cell reference, for example input!A1
+   */
+  public String getFieldReference(int fieldIndex) {
+    Cell cell = fieldCells.get(fieldIndex);
+    if (cell == null) {
+      int position = fieldCells.size();
+      int rowNr = position / maxColumns;
+      Row row = inputSheet.getRow(rowNr);
+      if (row == null) {
+        row = inputSheet.createRow(rowNr);
+      }
+      cell = row.createCell(position % maxColumns);
+      fieldCells.put(fieldIndex, cell);
+      fieldIndexes.add(fieldIndex);
+      inputCells.add(cell);
+    }
+    return INPUT_SHEET_NAME
+        + "!"
+        + CellReference.convertNumToColString(cell.getColumnIndex())
+        + (cell.getRowIndex() + 1);
+  }
+
+  /**
+   * Parse a formula and keep it in a cell of the formula sheet.
+   *
+   * @param formula The formula, referencing fields with {@link #getFieldReference(int)}
+   * @return The cell to evaluate for every row
+   * @throws FormulaParseException in case the formula can't be parsed
+   */
+  public Cell compile(String formula) throws FormulaParseException {
+    Row row = formulaSheet.createRow(nrFormulas);
+    Cell cell = row.createCell(0);
+    try {
+      cell.setCellFormula(formula);
+    } catch (FormulaParseException e) {
+      formulaSheet.removeRow(row);
+      throw e;
+    }
+    nrFormulas++;
+    return cell;
+  }
+
+  /**
+   * Copy the values of a row into the input cells.
+   *
+   * @param rowMeta The metadata of the row
+   * @param dataRow The row
+   */
+  public void setValues(IRowMeta rowMeta, Object[] dataRow) throws HopValueException {
+    for (int i = 0; i < inputCells.size(); i++) {
+      int fieldPosition = fieldIndexes.get(i);
+      Cell cell = inputCells.get(i);
+
+      IValueMeta fieldMeta = rowMeta.getValueMeta(fieldPosition);
+      if (dataRow[fieldPosition] == null) {
+        cell.setBlank();
+      } else if (fieldMeta.isBoolean()) {
+        cell.setCellValue(rowMeta.getBoolean(dataRow, fieldPosition));
+      } else if (fieldMeta.isBigNumber()) {
+        cell.setCellValue(
+            workbook
+                .getCreationHelper()
+                .createRichTextString(rowMeta.getString(dataRow, fieldPosition)));
+      } else if (fieldMeta.isDate()) {
+        cell.setCellValue(rowMeta.getDate(dataRow, fieldPosition));
+      } else if (fieldMeta.isInteger()) {
+        cell.setCellValue(rowMeta.getInteger(dataRow, fieldPosition));
+      } else if (fieldMeta.isNumber()) {
+        cell.setCellValue(rowMeta.getNumber(dataRow, fieldPosition));
+      } else {
+        cell.setCellValue(rowMeta.getString(dataRow, fieldPosition));
+      }
+    }
+
+    // The results of the previous row are no longer valid
+    //
+    evaluator.clearAllCachedResultValues();
+  }
+
+  /**
+   * Evaluate a formula on the current input values.
+   *
+   * @param formulaCell The cell returned by {@link #compile(String)}
+   * @return The value of the formula
+   */
+  public CellValue evaluate(Cell formulaCell) {
+    return evaluator.evaluate(formulaCell);
+  }
+
+  /** @return true if no formulas are evaluated in this sheet */
+  public boolean isEmpty() {
+    return nrFormulas == 0;
+  }
+
+  @Override
+  public void close() throws IOException {
+    workbook.close();
+  }
+}
@@ -0,0 +1,106 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.pipeline.transforms.formula.util;
+
+import org.apache.hop.core.exception.HopException;
+import org.apache.hop.core.row.IRowMeta;
+import org.apache.hop.core.row.RowMeta;
+import org.apache.hop.core.row.value.ValueMetaInteger;
+import org.apache.hop.core.row.value.ValueMetaNumber;
+import org.apache.hop.core.row.value.ValueMetaString;
+import org.apache.hop.core.variables.IVariables;
+import org.apache.hop.core.variables.Variables;
+import org.apache.hop.pipeline.transforms.formula.FormulaMetaFunction;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.CellValue;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class FormulaParserTest {
+
+  private IRowMeta rowMeta;
+  private IVariables variables;
+  private FormulaSheet sheet;
+
+  @Before
+  public void setUp() {
+    rowMeta = new RowMeta();
+    rowMeta.addValueMeta(new ValueMetaString("name"));
+    rowMeta.addValueMeta(new ValueMetaInteger("a"));
+    rowMeta.addValueMeta(new ValueMetaNumber("b"));
+    variables = new Variables();
+    sheet = new FormulaSheet(new XSSFWorkbook());
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    sheet.close();
+  }
+
+  private Cell compile(String formula) throws HopException {
+    FormulaMetaFunction function = new FormulaMetaFunction();
+    function.setFormula(formula);
+    return new FormulaParser(function, rowMeta, variables).compile(sheet);
+  }
+
+  @Test
+  public void testFormulasAreEvaluatedForEveryRow() throws Exception {
+    Cell sum = compile("[a]+[b]*2");
+    Cell text = compile("UPPER([name])&[a]");
+
+    sheet.setValues(rowMeta, new Object[] {"x", 1L, 2.5});
+    assertEquals(6.0, sheet.evaluate(sum).getNumberValue(), 0.0);
+    assertEquals("X1", sheet.evaluate(text).getStringValue());
+
+    sheet.setValues(rowMeta, new Object[] {"y", 10L, 0.5});
+    assertEquals(11.0, sheet.evaluate(sum).getNumberValue(), 0.0);
+    assertEquals("Y10", sheet.evaluate(text).getStringValue());
+  }
+
+  @Test
+  public void testNullValuesAreBlank() throws Exception {
+    Cell blank = compile("ISBLANK([a])");
+
+    sheet.setValues(rowMeta, new Object[] {"x", 1L, 2.5});
+    assertEquals(false, sheet.evaluate(blank).getBooleanValue());
+
+    sheet.setValues(rowMeta, new Object[] {"x", null, 2.5});
+    assertEquals(true, sheet.evaluate(blank).getBooleanValue());
+  }
+
+  @Test
+  public void testVariablesAreResolved() throws Exception {
+    variables.setVariable("FACTOR", "3");
+    Cell product = compile("[a]*${FACTOR}");
+
+    sheet.setValues(rowMeta, new Object[] {"x", 7L, 0.0});
+    CellValue value = sheet.evaluate(product);
+    assertEquals(CellType.NUMERIC, value.getCellType());
+    assertEquals(21.0, value.getNumberValue(), 0.0);
+  }
+
+  @Test(expected = HopException.class)
+  public void testUnknownField() throws Exception {
+    compile("[unknown]+1");
+  }
+}
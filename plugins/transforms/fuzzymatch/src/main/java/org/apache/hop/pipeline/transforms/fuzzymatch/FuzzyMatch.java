@@ -20,10 +20,6 @@ package org.apache.hop.pipeline.transforms.fuzzymatch;
 import com.wcohen.ss.Jaro;
 import com.wcohen.ss.JaroWinkler;
 import com.wcohen.ss.NeedlemanWunsch;
-import org.apache.commons.codec.language.DoubleMetaphone;
-import org.apache.commons.codec.language.Metaphone;
-import org.apache.commons.codec.language.RefinedSoundex;
-import org.apache.commons.codec.language.Soundex;
 import org.apache.commons.lang.StringUtils;
 import org.apache.hop.core.Const;
 import org.apache.hop.core.IRowSet;
@@ -34,6 +30,7 @@ import org.apache.hop.core.row.IRowMeta;
 import org.apache.hop.core.row.IValueMeta;
 import org.apache.hop.core.row.RowDataUtil;
 import org.apache.hop.core.row.RowMeta;
+import org.apache.hop.core.util.ExecutorUtil;
 import org.apache.hop.core.util.Utils;
 import org.apache.hop.i18n.BaseMessages;
 import org.apache.hop.pipeline.Pipeline;
@@ -41,7 +38,10 @@ import org.apache.hop.pipeline.PipelineMeta;
 import org.apache.hop.pipeline.transform.BaseTransform;
 import org.apache.hop.pipeline.transform.TransformMeta;
 
-import java.util.Iterator;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 import static org.apache.hop.pipeline.transforms.fuzzymatch.FuzzyMatchMeta.Algorithm;
 import static org.apache.hop.pipeline.transforms.fuzzymatch.FuzzyMatchMeta.FMLookupValue;
@@ -53,6 +53,9 @@ import static org.apache.hop.pipeline.transforms.fuzzymatch.FuzzyMatchMeta.FMLoo
 public class FuzzyMatch extends BaseTransform<FuzzyMatchMeta, FuzzyMatchData> {
   private static final Class<?> PKG = FuzzyMatchMeta.class; // For Translator
 
+  /** The number of rows every thread matches in one go when running multi-threaded */
+  private static final int ROWS_PER_THREAD = 500;
+
   public FuzzyMatch(
       TransformMeta transformMeta,
       FuzzyMatchMeta meta,
@@ -250,19 +253,32 @@ public class FuzzyMatch extends BaseTransform<FuzzyMatchMeta, FuzzyMatchData> {
     return retval;
   }
 
+  /**
+   * The index on the lookup values is built when the first row needs it. It replaces the cached
+   * values, and is only read from then on.
+   */
+  private FuzzyMatchIndex getIndex() {
+    if (data.index == null) {
+      data.index = new FuzzyMatchIndex(data.look, meta.getAlgorithm(), meta.isCaseSensitive());
+      data.look.clear();
+    }
+    return data.index;
+  }
+
   private Object[] doDistance(Object[] row) throws HopValueException {
     // Reserve room
     Object[] rowData = RowDataUtil.allocateRowData(data.outputRowMeta.size());
 
-    Iterator<Object[]> it = data.look.iterator();
-
     long distance = -1;
 
     String lookupValueString = getInputRowMeta().getString(row, data.indexOfMainField);
 
-    while (it.hasNext()) {
+    // Only compare with the lookup values which can be close enough
+    //
+    FuzzyMatchIndex lookupIndex = getIndex();
+    for (int entry : lookupIndex.getDistanceCandidates(lookupValueString, data.maximalDistance)) {
       // Get cached row data
-      Object[] cachedData = it.next();
+      Object[] cachedData = lookupIndex.getEntry(entry);
       // Key value is the first value
       String cacheValue = (String) cachedData[0];
 
@@ -325,38 +341,36 @@ public class FuzzyMatch extends BaseTransform<FuzzyMatchMeta, FuzzyMatchData> {
     // Reserve room
     Object[] rowData = RowDataUtil.allocateRowData(data.outputRowMeta.size());
 
-    Iterator<Object[]> it = data.look.iterator();
-
     Object o = row[data.indexOfMainField];
     String lookupvalue = (String) o;
 
-    String lookupValueMF = getEncodedMF(lookupvalue, meta.getAlgorithm());
+    String lookupValueMF = FuzzyMatchIndex.getEncodedValue(lookupvalue, meta.getAlgorithm());
+
+    FuzzyMatchIndex lookupIndex = getIndex();
+    int[] candidates = lookupIndex.getPhoneticCandidates(lookupValueMF);
 
-    while (it.hasNext()) {
+    // All candidates have the same code, the last lookup value wins
+    //
+    if (candidates.length > 0) {
       // Get cached row data
-      Object[] cachedData = it.next();
+      Object[] cachedData = lookupIndex.getEntry(candidates[candidates.length - 1]);
       // Key value is the first value
       String cacheValue = (String) cachedData[0];
 
-      String cacheValueMF = getEncodedMF(cacheValue, meta.getAlgorithm());
-
-      if (lookupValueMF.equals(cacheValueMF)) {
+      // Add match value
+      int index = 0;
+      rowData[index++] = cacheValue;
 
-        // Add match value
-        int index = 0;
-        rowData[index++] = cacheValue;
-
-        // Add metric value?
-        if (data.addValueFieldName) {
-          rowData[index++] = cacheValueMF;
-        }
-        // Add additional return values?
-        if (data.addAdditionalFields) {
-          for (int i = 0; i < meta.getLookupValues().size(); i++) {
-            int nf = i + index;
-            int nr = i + 1;
-            rowData[nf] = cachedData[nr];
-          }
+      // Add metric value?
+      if (data.addValueFieldName) {
+        rowData[index++] = lookupValueMF;
+      }
+      // Add additional return values?
+      if (data.addAdditionalFields) {
+        for (int i = 0; i < meta.getLookupValues().size(); i++) {
+          int nf = i + index;
+          int nr = i + 1;
+          rowData[nf] = cachedData[nr];
         }
       }
     }
@@ -364,32 +378,9 @@ public class FuzzyMatch extends BaseTransform<FuzzyMatchMeta, FuzzyMatchData> {
     return rowData;
   }
 
-  private String getEncodedMF(String value, Algorithm algorithmType) {
-    String encodedValueMF = "";
-    switch (algorithmType) {
-      case METAPHONE:
-        encodedValueMF = (new Metaphone()).metaphone(value);
-        break;
-      case DOUBLE_METAPHONE:
-        encodedValueMF = ((new DoubleMetaphone()).doubleMetaphone(value));
-        break;
-      case SOUNDEX:
-        encodedValueMF = (new Soundex()).encode(value);
-        break;
-      case REFINED_SOUNDEX:
-        encodedValueMF = (new RefinedSoundex()).encode(value);
-        break;
-      default:
-        break;
-    }
-    return encodedValueMF;
-  }
-
   private Object[] doSimilarity(Object[] row) {
     // Reserve room
     Object[] rowData = RowDataUtil.allocateRowData(data.outputRowMeta.size());
-    // prepare to read from cache ...
-    Iterator<Object[]> it = data.look.iterator();
     double similarity = 0;
 
     // get current value from main stream
@@ -397,9 +388,15 @@ public class FuzzyMatch extends BaseTransform<FuzzyMatchMeta, FuzzyMatchData> {
 
     String lookupValueString = o == null ? "" : (String) o;
 
-    while (it.hasNext()) {
+    // Only compare with the lookup values which can be similar enough
+    //
+    FuzzyMatchIndex lookupIndex = getIndex();
+    int[] candidates =
+        lookupIndex.getSimilarityCandidates(
+            lookupValueString, data.minimalSimilarity, meta.isCloserValue());
+    for (int entry : candidates) {
       // Get cached row data
-      Object[] cachedData = it.next();
+      Object[] cachedData = lookupIndex.getEntry(entry);
       // Key value is the first value
       String cacheValue = (String) cachedData[0];
 
@@ -472,6 +469,10 @@ public class FuzzyMatch extends BaseTransform<FuzzyMatchMeta, FuzzyMatchData> {
       }
     }
 
+    if (data.nrThreads > 1) {
+      return processRowsInParallel();
+    }
+
     Object[] r = getRow(); // Get row from input rowset & set row busy!
     if (r == null) {
       // no more input to be expected...
@@ -498,22 +499,114 @@ public class FuzzyMatch extends BaseTransform<FuzzyMatchMeta, FuzzyMatchData> {
         logBasic(BaseMessages.getString(PKG, "FuzzyMatch.Log.LineNumber") + getLinesRead());
       }
     } catch (HopException e) {
-      if (getTransformMeta().isDoingErrorHandling()) {
-        // Send this row to the error handling transform
-        putError(getInputRowMeta(), r, 1, e.toString(), meta.getMainStreamField(), "FuzzyMatch001");
+      return handleRowError(r, e);
+    }
+
+    return true;
+  }
+
+  /**
+   * Reads a batch of rows and matches them on several threads. The index on the lookup values is
+   * shared read-only by the threads. The rows are passed on in the order in which they were read.
+   */
+  private boolean processRowsInParallel() throws HopException {
+    int batchSize = data.nrThreads * ROWS_PER_THREAD;
+    List<Object[]> rows = new ArrayList<>(batchSize);
+    Object[] r = getRow();
+    while (r != null) {
+      rows.add(r);
+      if (rows.size() >= batchSize) {
+        break;
+      }
+      r = getRow();
+    }
+    if (rows.isEmpty()) {
+      // no more input to be expected...
+      if (isDetailed()) {
+        logDetailed(
+            BaseMessages.getString(
+                PKG, "FuzzyMatch.Log.StoppedProcessingWithEmpty", getLinesRead()));
+      }
+      setOutputDone();
+      return false;
+    }
+
+    Object[][] outputRows = new Object[rows.size()][];
+    HopException[] exceptions = new HopException[rows.size()];
+
+    // The very first row determines the output row layout, match it before starting the threads.
+    //
+    int start = 0;
+    if (first) {
+      matchRows(rows, outputRows, exceptions, 0, 1);
+      start = 1;
+    }
+    getIndex();
+
+    int chunkSize = (rows.size() - start + data.nrThreads - 1) / data.nrThreads;
+    List<Future<?>> futures = new ArrayList<>();
+    while (start + chunkSize < rows.size()) {
+      int from = start;
+      int to = start + chunkSize;
+      futures.add(
+          ExecutorUtil.getExecutor()
+              .submit(() -> matchRows(rows, outputRows, exceptions, from, to)));
+      start = to;
+    }
+    matchRows(rows, outputRows, exceptions, start, rows.size());
+    for (Future<?> future : futures) {
+      try {
+        future.get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new HopException("Interrupted while matching rows", e);
+      } catch (ExecutionException e) {
+        throw new HopException("Error matching rows", e.getCause());
+      }
+    }
+
+    for (int i = 0; i < rows.size(); i++) {
+      if (exceptions[i] != null) {
+        if (!handleRowError(rows.get(i), exceptions[i])) {
+          return false;
+        }
       } else {
-        logError(
-            BaseMessages.getString(PKG, "FuzzyMatch.Log.ErrorInTransformRunning") + e.getMessage());
-        setErrors(1);
-        stopAll();
-        setOutputDone(); // signal end to receiver(s)
-        return false;
+        putRow(data.outputRowMeta, outputRows[i]); // copy row to output rowset(s)
+
+        if (checkFeedback(getLinesRead()) && log.isBasic()) {
+          logBasic(BaseMessages.getString(PKG, "FuzzyMatch.Log.LineNumber") + getLinesRead());
+        }
       }
     }
 
     return true;
   }
 
+  private void matchRows(
+      List<Object[]> rows, Object[][] outputRows, HopException[] exceptions, int from, int to) {
+    for (int i = from; i < to; i++) {
+      try {
+        outputRows[i] = lookupValues(getInputRowMeta(), rows.get(i));
+      } catch (HopException e) {
+        exceptions[i] = e;
+      }
+    }
+  }
+
+  private boolean handleRowError(Object[] r, HopException e) throws HopException {
+    if (getTransformMeta().isDoingErrorHandling()) {
+      // Send this row to the error handling transform
+      putError(getInputRowMeta(), r, 1, e.toString(), meta.getMainStreamField(), "FuzzyMatch001");
+      return true;
+    }
+    logError(
+        BaseMessages.getString(PKG, "FuzzyMatch.Log.ErrorInTransformRunning") + e.getMessage());
+    setErrors(1);
+    stopAll();
+    setOutputDone(); // signal end to receiver(s)
+    return false;
+  }
+
   @Override
   public boolean init() {
     if (!super.init()) {
@@ -610,6 +703,11 @@ public class FuzzyMatch extends BaseTransform<FuzzyMatchMeta, FuzzyMatchData> {
         break;
     }
 
+    data.nrThreads = Math.max(1, Const.toInt(resolve(meta.getNumberOfThreads()), 1));
+    if (data.nrThreads > 1 && isDetailed()) {
+      logDetailed(BaseMessages.getString(PKG, "FuzzyMatch.Log.NumberOfThreads", data.nrThreads));
+    }
+
     data.readLookupValues = true;
 
     return true;
@@ -618,6 +716,7 @@ public class FuzzyMatch extends BaseTransform<FuzzyMatchMeta, FuzzyMatchData> {
   @Override
   public void dispose() {
     data.look.clear();
+    data.index = null;
     super.dispose();
   }
 }
@@ -22,14 +22,21 @@ import org.apache.hop.pipeline.transform.BaseTransformData;
 import org.apache.hop.pipeline.transform.ITransformData;
 import org.apache.hop.pipeline.transform.stream.IStream;
 
-import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Set;
 
 public class FuzzyMatchData extends BaseTransformData implements ITransformData {
   public IRowMeta previousRowMeta;
   public IRowMeta outputRowMeta;
 
   /** used to store values in used to look up things */
-  public HashSet<Object[]> look;
+  public Set<Object[]> look;
+
+  /** index on the lookup values, built from look */
+  public FuzzyMatchIndex index;
+
+  /** the number of threads matching rows */
+  public int nrThreads;
 
   public boolean readLookupValues;
 
@@ -61,7 +68,7 @@ public class FuzzyMatchData extends BaseTransformData implements ITransformData
 
   public FuzzyMatchData() {
     super();
-    this.look = new HashSet<>();
+    this.look = new LinkedHashSet<>();
     this.indexOfMainField = -1;
     this.addValueFieldName = false;
     this.valueSeparator = "";
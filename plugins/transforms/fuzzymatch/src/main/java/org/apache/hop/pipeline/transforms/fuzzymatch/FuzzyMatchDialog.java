@@ -106,6 +106,8 @@ public class FuzzyMatchDialog extends BaseTransformDialog implements ITransformD
   private Label wlSeparator;
   private TextVar wSeparator;
 
+  private TextVar wNumberOfThreads;
+
   private Button wGetLookup;
 
   private final FuzzyMatchMeta input;
@@ -409,6 +411,25 @@ public class FuzzyMatchDialog extends BaseTransformDialog implements ITransformD
     fdSeparator.right = new FormAttachment(100, 0);
     wSeparator.setLayoutData(fdSeparator);
 
+    Label wlNumberOfThreads = new Label(wSettingsGroup, SWT.RIGHT);
+    wlNumberOfThreads.setText(
+        BaseMessages.getString(PKG, "FuzzyMatchDialog.NumberOfThreads.Label"));
+    PropsUi.setLook(wlNumberOfThreads);
+    FormData fdlNumberOfThreads = new FormData();
+    fdlNumberOfThreads.left = new FormAttachment(0, 0);
+    fdlNumberOfThreads.top = new FormAttachment(wSeparator, margin);
+    fdlNumberOfThreads.right = new FormAttachment(middle, -margin);
+    wlNumberOfThreads.setLayoutData(fdlNumberOfThreads);
+    wNumberOfThreads = new TextVar(variables, wSettingsGroup, SWT.SINGLE | SWT.LEFT | SWT.BORDER);
+    PropsUi.setLook(wNumberOfThreads);
+    wNumberOfThreads.setToolTipText(
+        BaseMessages.getString(PKG, "FuzzyMatchDialog.NumberOfThreads.Tooltip"));
+    FormData fdNumberOfThreads = new FormData();
+    fdNumberOfThreads.left = new FormAttachment(middle, 0);
+    fdNumberOfThreads.top = new FormAttachment(wSeparator, margin);
+    fdNumberOfThreads.right = new FormAttachment(100, 0);
+    wNumberOfThreads.setLayoutData(fdNumberOfThreads);
+
     FormData fdSettingsGroup = new FormData();
     fdSettingsGroup.left = new FormAttachment(0, margin);
     fdSettingsGroup.top = new FormAttachment(wMainStreamGroup, margin);
@@ -616,6 +637,7 @@ public class FuzzyMatchDialog extends BaseTransformDialog implements ITransformD
     wMatchField.setText(Const.NVL(input.getOutputMatchField(), ""));
     wValueField.setText(Const.NVL(input.getOutputValueField(), ""));
     wSeparator.setText(Const.NVL(input.getSeparator(), ""));
+    wNumberOfThreads.setText(Const.NVL(input.getNumberOfThreads(), ""));
 
     for (int i = 0; i < input.getLookupValues().size(); i++) {
       FuzzyMatchMeta.FMLookupValue lookupValue = input.getLookupValues().get(i);
@@ -656,6 +678,7 @@ public class FuzzyMatchDialog extends BaseTransformDialog implements ITransformD
     input.setOutputMatchField(wMatchField.getText());
     input.setOutputValueField(wValueField.getText());
     input.setSeparator(wSeparator.getText());
+    input.setNumberOfThreads(wNumberOfThreads.getText());
 
     input.getLookupValues().clear();
     for (TableItem item : wReturn.getNonEmptyItems()) {
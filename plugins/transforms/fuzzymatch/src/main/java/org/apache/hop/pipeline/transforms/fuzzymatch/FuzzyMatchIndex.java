@@ -0,0 +1,479 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.pipeline.transforms.fuzzymatch;
+
+import org.apache.commons.codec.language.DoubleMetaphone;
+import org.apache.commons.codec.language.Metaphone;
+import org.apache.commons.codec.language.RefinedSoundex;
+import org.apache.commons.codec.language.Soundex;
+import org.apache.commons.lang.StringUtils;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import static org.apache.hop.pipeline.transforms.fuzzymatch.FuzzyMatchMeta.Algorithm;
+
+/**
+ * An index on the values of the lookup stream. Rather than comparing a main stream value with
+ * every lookup value, the transform asks the index for the lookup entries which can possibly match:
+ *
+ * <ul>
+ *   <li>Levenshtein and Damerau-Levenshtein: a BK-tree on the Levenshtein distance of the values
+ *   <li>Phonetic algorithms: the entries grouped by phonetic code
+ *   <li>Jaro, Jaro-Winkler and letter pair similarity: an inverted index of the characters or
+ *       letter pairs, which gives an upper bound of the similarity of every entry
+ * </ul>
+ *
+ * Needleman-Wunsch doesn't give a metric, all entries are candidates for that algorithm.
+ *
+ * <p>Candidates are returned in the order in which the lookup values were read. Once built, the
+ * index is read-only and can be queried from several threads at the same time.
+ */
+public class FuzzyMatchIndex {
+
+  private static final int[] NO_ENTRIES = new int[0];
+
+  /** Margin on the similarity bounds, to stay clear of rounding differences */
+  private static final double EPSILON = 1e-9;
+
+  private final Algorithm algorithm;
+  private final boolean caseSensitive;
+
+  /** The cached lookup rows, the key value is the first value */
+  private final Object[][] entries;
+
+  private final int[] allEntries;
+
+  /** BK-tree for the distance algorithms */
+  private BkNode root;
+
+  /** Entries by phonetic code */
+  private Map<String, int[]> phoneticCodes;
+
+  /** Entries by character or letter pair, for the similarity algorithms */
+  private Map<String, Posting> postings;
+
+  /** Number of characters or letter pairs of every entry */
+  private int[] gramTotals;
+
+  /** Entries by value, equal values always are candidates for the similarity algorithms */
+  private Map<String, int[]> values;
+
+  /** Work spaces of finished lookups, re-used by the next lookups on any thread */
+  private final Queue<Scratch> scratchPool = new ConcurrentLinkedQueue<>();
+
+  /**
+   * Build the index for the given algorithm.
+   *
+   * @param lookup The cached lookup rows, the key value (a String) is the first value
+   * @param algorithm The matching algorithm
+   * @param caseSensitive true if the distance algorithms should compare values case sensitively
+   */
+  public FuzzyMatchIndex(Iterable<Object[]> lookup, Algorithm algorithm, boolean caseSensitive) {
+    this.algorithm = algorithm;
+    this.caseSensitive = caseSensitive;
+
+    List<Object[]> list = new ArrayList<>();
+    for (Object[] entry : lookup) {
+      list.add(entry);
+    }
+    entries = list.toArray(new Object[0][]);
+    allEntries = new int[entries.length];
+    for (int i = 0; i < allEntries.length; i++) {
+      allEntries[i] = i;
+    }
+
+    switch (algorithm) {
+      case LEVENSHTEIN:
+      case DAMERAU_LEVENSHTEIN:
+        buildDistanceIndex();
+        break;
+      case DOUBLE_METAPHONE:
+      case METAPHONE:
+      case SOUNDEX:
+      case REFINED_SOUNDEX:
+        buildPhoneticIndex();
+        break;
+      case JARO:
+      case JARO_WINKLER:
+      case PAIR_SIMILARITY:
+        buildSimilarityIndex();
+        break;
+      default:
+        break;
+    }
+  }
+
+  /**
+   * @param entry The number of the entry
+   * @return The cached lookup row
+   */
+  public Object[] getEntry(int entry) {
+    return entries[entry];
+  }
+
+  /** @return The number of entries in the index */
+  public int size() {
+    return entries.length;
+  }
+
+  /**
+   * Find the entries within a distance of a value. For Levenshtein the candidates are exactly the
+   * entries within the distance. Damerau-Levenshtein never is less than half the Levenshtein
+   * distance so that search is done with twice the distance and some candidates can be further
+   * away.
+   *
+   * @param value The main stream value
+   * @param maximalDistance The maximal distance
+   * @return The numbers of the candidate entries, in ascending order
+   */
+  public int[] getDistanceCandidates(String value, int maximalDistance) {
+    if (root == null) {
+      return algorithm == Algorithm.LEVENSHTEIN || algorithm == Algorithm.DAMERAU_LEVENSHTEIN
+          ? NO_ENTRIES
+          : allEntries;
+    }
+    if (maximalDistance < 0) {
+      return NO_ENTRIES;
+    }
+    long radius =
+        algorithm == Algorithm.DAMERAU_LEVENSHTEIN ? 2L * maximalDistance : maximalDistance;
+    String key = caseSensitive ? value : value.toLowerCase();
+
+    IntList candidates = new IntList();
+    Deque<BkNode> nodes = new ArrayDeque<>();
+    nodes.push(root);
+    while (!nodes.isEmpty()) {
+      BkNode node = nodes.pop();
+      int distance = StringUtils.getLevenshteinDistance(key, node.key);
+      if (distance <= radius) {
+        candidates.addAll(node.entries);
+      }
+      if (node.children != null) {
+        // Triangle inequality: only children at a distance in [distance-radius, distance+radius]
+        // of this node can hold values within the radius.
+        //
+        for (Map.Entry<Integer, BkNode> child : node.children.entrySet()) {
+          if (Math.abs(child.getKey() - distance) <= radius) {
+            nodes.push(child.getValue());
+          }
+        }
+      }
+    }
+    return candidates.toSortedArray();
+  }
+
+  /**
+   * @param code The phonetic code of the main stream value
+   * @return The numbers of the entries with the same code, in ascending order
+   */
+  public int[] getPhoneticCandidates(String code) {
+    if (phoneticCodes == null) {
+      return allEntries;
+    }
+    int[] candidates = phoneticCodes.get(code);
+    return candidates == null ? NO_ENTRIES : candidates;
+  }
+
+  /**
+   * Find the entries which can have at least the minimal similarity with a value. When looking for
+   * the closest value only entries sharing a character or letter pair, or equal to the value, can
+   * ever be picked so the minimal similarity doesn't need to be positive.
+   *
+   * @param value The main stream value
+   * @param minimalSimilarity The minimal similarity
+   * @param closerValue true if only the closest value is needed
+   * @return The numbers of the candidate entries, in ascending order
+   */
+  public int[] getSimilarityCandidates(
+      String value, double minimalSimilarity, boolean closerValue) {
+    if (postings == null || (minimalSimilarity <= 0 && !closerValue)) {
+      return allEntries;
+    }
+
+    Scratch work = scratchPool.poll();
+    if (work == null) {
+      work = new Scratch(entries.length);
+    }
+    for (Map.Entry<String, int[]> gram : getGramCounts(value).entrySet()) {
+      Posting posting = postings.get(gram.getKey());
+      if (posting == null) {
+        continue;
+      }
+      int count = gram.getValue()[0];
+      for (int i = 0; i < posting.size; i++) {
+        int entry = posting.entries[i];
+        if (work.shared[entry] == 0) {
+          work.touched[work.nrTouched++] = entry;
+        }
+        work.shared[entry] += Math.min(count, posting.counts[i]);
+      }
+    }
+
+    int gramTotal = getGramTotal(value);
+    IntList candidates = new IntList();
+    for (int i = 0; i < work.nrTouched; i++) {
+      int entry = work.touched[i];
+      if (getUpperBound(work.shared[entry], gramTotal, gramTotals[entry])
+          >= minimalSimilarity - EPSILON) {
+        candidates.add(entry);
+      }
+      work.shared[entry] = 0;
+    }
+    work.nrTouched = 0;
+    scratchPool.offer(work);
+
+    int[] equal = values.get(value);
+    if (equal != null) {
+      candidates.addAll(equal);
+    }
+    return candidates.toSortedArray();
+  }
+
+  /**
+   * Encode a value with a phonetic algorithm.
+   *
+   * @param value The value to encode
+   * @param algorithm The phonetic algorithm
+   * @return The phonetic code, an empty string for other algorithms
+   */
+  public static String getEncodedValue(String value, Algorithm algorithm) {
+    String encodedValueMF = "";
+    switch (algorithm) {
+      case METAPHONE:
+        encodedValueMF = (new Metaphone()).metaphone(value);
+        break;
+      case DOUBLE_METAPHONE:
+        encodedValueMF = ((new DoubleMetaphone()).doubleMetaphone(value));
+        break;
+      case SOUNDEX:
+        encodedValueMF = (new Soundex()).encode(value);
+        break;
+      case REFINED_SOUNDEX:
+        encodedValueMF = (new RefinedSoundex()).encode(value);
+        break;
+      default:
+        break;
+    }
+    return encodedValueMF;
+  }
+
+  private void buildDistanceIndex() {
+    for (int entry = 0; entry < entries.length; entry++) {
+      String value = (String) entries[entry][0];
+      String key = caseSensitive ? value : value.toLowerCase();
+      if (root == null) {
+        root = new BkNode(key);
+        root.entries.add(entry);
+        continue;
+      }
+      BkNode node = root;
+      while (node != null) {
+        int distance = StringUtils.getLevenshteinDistance(key, node.key);
+        if (distance == 0) {
+          node.entries.add(entry);
+          node = null;
+        } else {
+          if (node.children == null) {
+            node.children = new HashMap<>();
+          }
+          BkNode child = node.children.get(distance);
+          if (child == null) {
+            child = new BkNode(key);
+            child.entries.add(entry);
+            node.children.put(distance, child);
+            node = null;
+          } else {
+            node = child;
+          }
+        }
+      }
+    }
+  }
+
+  private void buildPhoneticIndex() {
+    Map<String, IntList> codes = new HashMap<>();
+    for (int entry = 0; entry < entries.length; entry++) {
+      String code = getEncodedValue((String) entries[entry][0], algorithm);
+      if (code != null) {
+        codes.computeIfAbsent(code, k -> new IntList()).add(entry);
+      }
+    }
+    phoneticCodes = toArrays(codes);
+  }
+
+  private void buildSimilarityIndex() {
+    postings = new HashMap<>();
+    gramTotals = new int[entries.length];
+    Map<String, IntList> entriesByValue = new HashMap<>();
+    for (int entry = 0; entry < entries.length; entry++) {
+      String value = (String) entries[entry][0];
+      for (Map.Entry<String, int[]> gram : getGramCounts(value).entrySet()) {
+        postings.computeIfAbsent(gram.getKey(), k -> new Posting()).add(entry, gram.getValue()[0]);
+      }
+      gramTotals[entry] = getGramTotal(value);
+      entriesByValue.computeIfAbsent(value, k -> new IntList()).add(entry);
+    }
+    values = toArrays(entriesByValue);
+  }
+
+  /**
+   * Letter pair similarity works on the upper case letter pairs of the words in a value. The Jaro
+   * algorithms work on characters, these are folded to lower case which can only raise the bound.
+   */
+  private Map<String, int[]> getGramCounts(String value) {
+    Map<String, int[]> counts = new HashMap<>();
+    if (algorithm == Algorithm.PAIR_SIMILARITY) {
+      for (String pair : LetterPairSimilarity.wordLetterPairs(value.toUpperCase())) {
+        counts.computeIfAbsent(pair, k -> new int[1])[0]++;
+      }
+    } else {
+      String lowerCase = value.toLowerCase();
+      for (int i = 0; i < lowerCase.length(); i++) {
+        counts.computeIfAbsent(String.valueOf(lowerCase.charAt(i)), k -> new int[1])[0]++;
+      }
+    }
+    return counts;
+  }
+
+  private int getGramTotal(String value) {
+    if (algorithm == Algorithm.PAIR_SIMILARITY) {
+      return LetterPairSimilarity.wordLetterPairs(value.toUpperCase()).size();
+    }
+    return Math.min(value.length(), value.toLowerCase().length());
+  }
+
+  /**
+   * The highest similarity two values can have given the number of letter pairs or characters they
+   * have in common. For letter pairs this is the similarity itself, Jaro counts at most the shared
+   * characters as matches and assumes no transpositions. Jaro-Winkler adds at most 4 times 0.1 of
+   * the remainder for a common prefix.
+   */
+  private double getUpperBound(int shared, int valueTotal, int entryTotal) {
+    if (valueTotal == 0 || entryTotal == 0) {
+      return 1.0;
+    }
+    if (algorithm == Algorithm.PAIR_SIMILARITY) {
+      return (2.0 * shared) / (valueTotal + entryTotal);
+    }
+    double matches = Math.min(shared, Math.min(valueTotal, entryTotal));
+    double jaro = (matches / valueTotal + matches / entryTotal + 1.0) / 3.0;
+    if (algorithm == Algorithm.JARO_WINKLER) {
+      return jaro + 0.4 * (1.0 - jaro);
+    }
+    return jaro;
+  }
+
+  private static Map<String, int[]> toArrays(Map<String, IntList> lists) {
+    Map<String, int[]> arrays = new HashMap<>();
+    for (Map.Entry<String, IntList> list : lists.entrySet()) {
+      arrays.put(list.getKey(), list.getValue().toArray());
+    }
+    return arrays;
+  }
+
+  /** A node of the BK-tree, holding all entries with the same key */
+  private static final class BkNode {
+    private final String key;
+    private final IntList entries = new IntList();
+
+    /** Children by their distance to this node */
+    private Map<Integer, BkNode> children;
+
+    private BkNode(String key) {
+      this.key = key;
+    }
+  }
+
+  /** The entries holding a character or letter pair and how many times they hold it */
+  private static final class Posting {
+    private int[] entries = new int[4];
+    private int[] counts = new int[4];
+    private int size;
+
+    private void add(int entry, int count) {
+      if (size == entries.length) {
+        entries = Arrays.copyOf(entries, size * 2);
+        counts = Arrays.copyOf(counts, size * 2);
+      }
+      entries[size] = entry;
+      counts[size] = count;
+      size++;
+    }
+  }
+
+  /** Work space of a single lookup to count the shared characters or letter pairs of every entry */
+  private static final class Scratch {
+    private final int[] shared;
+    private final int[] touched;
+    private int nrTouched;
+
+    private Scratch(int size) {
+      shared = new int[size];
+      touched = new int[size];
+    }
+  }
+
+  private static final class IntList {
+    private int[] values = new int[4];
+    private int size;
+
+    private void add(int value) {
+      if (size == values.length) {
+        values = Arrays.copyOf(values, size * 2);
+      }
+      values[size++] = value;
+    }
+
+    private void addAll(IntList list) {
+      for (int i = 0; i < list.size; i++) {
+        add(list.values[i]);
+      }
+    }
+
+    private void addAll(int[] array) {
+      for (int value : array) {
+        add(value);
+      }
+    }
+
+    private int[] toArray() {
+      return Arrays.copyOf(values, size);
+    }
+
+    /** @return The values in ascending order, without duplicates */
+    private int[] toSortedArray() {
+      int[] sorted = toArray();
+      Arrays.sort(sorted);
+      int unique = 0;
+      for (int i = 0; i < sorted.length; i++) {
+        if (unique == 0 || sorted[i] != sorted[unique - 1]) {
+          sorted[unique++] = sorted[i];
+        }
+      }
+      return unique == sorted.length ? sorted : Arrays.copyOf(sorted, unique);
+    }
+  }
+}
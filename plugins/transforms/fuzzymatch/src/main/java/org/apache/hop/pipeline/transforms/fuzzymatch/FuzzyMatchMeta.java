@@ -107,6 +107,10 @@ public class FuzzyMatchMeta extends BaseTransformMeta<FuzzyMatch, FuzzyMatchData
   @HopMetadataProperty(key = "closervalue")
   private boolean closerValue;
 
+  /** the number of threads matching main stream rows against the lookup values */
+  @HopMetadataProperty(key = "numberOfThreads")
+  private String numberOfThreads;
+
   /** return these field values from lookup */
   @HopMetadataProperty(groupKey = "lookup", key = "value")
   private List<FMLookupValue> lookupValues;
@@ -129,6 +133,7 @@ public class FuzzyMatchMeta extends BaseTransformMeta<FuzzyMatch, FuzzyMatchData
     this.maximalValue = m.maximalValue;
     this.separator = m.separator;
     this.closerValue = m.closerValue;
+    this.numberOfThreads = m.numberOfThreads;
     m.lookupValues.forEach(v -> this.lookupValues.add(new FMLookupValue(v)));
   }
 
@@ -145,6 +150,7 @@ public class FuzzyMatchMeta extends BaseTransformMeta<FuzzyMatch, FuzzyMatchData
     minimalValue = "0";
     maximalValue = "1";
     caseSensitive = false;
+    numberOfThreads = "1";
     lookupField = null;
     mainStreamField = null;
     outputMatchField = BaseMessages.getString(PKG, "FuzzyMatchMeta.OutputMatchFieldname");
@@ -625,6 +631,24 @@ public class FuzzyMatchMeta extends BaseTransformMeta<FuzzyMatch, FuzzyMatchData
     this.separator = separator;
   }
 
+  /**
+   * Gets numberOfThreads
+   *
+   * @return value of numberOfThreads
+   */
+  public String getNumberOfThreads() {
+    return numberOfThreads;
+  }
+
+  /**
+   * Sets numberOfThreads
+   *
+   * @param numberOfThreads value of numberOfThreads
+   */
+  public void setNumberOfThreads(String numberOfThreads) {
+    this.numberOfThreads = numberOfThreads;
+  }
+
   /**
    * Gets closerValue
    *
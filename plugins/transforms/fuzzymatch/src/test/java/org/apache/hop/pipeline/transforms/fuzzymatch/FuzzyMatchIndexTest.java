@@ -0,0 +1,205 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.pipeline.transforms.fuzzymatch;
+
+import com.wcohen.ss.Jaro;
+import com.wcohen.ss.JaroWinkler;
+import org.apache.commons.lang.StringUtils;
+import org.apache.hop.core.util.Utils;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.apache.hop.pipeline.transforms.fuzzymatch.FuzzyMatchMeta.Algorithm;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class FuzzyMatchIndexTest {
+
+  private static final String[] NAMES = {
+    "Catrine", "Catriny", "Katrine", "John", "Jon", "Joan", "Johnny", "Mary Ann", "Maryanne",
+    "Marianne", "", "catrine", "Christine", "Kristine"
+  };
+
+  private static List<Object[]> toRows(String... values) {
+    List<Object[]> rows = new ArrayList<>();
+    for (String value : values) {
+      rows.add(new Object[] {value, "extra " + value});
+    }
+    return rows;
+  }
+
+  private static List<String> randomValues(Random random, int count) {
+    List<String> values = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      StringBuilder value = new StringBuilder();
+      int length = random.nextInt(9);
+      for (int j = 0; j < length; j++) {
+        value.append("abcdeAB ".charAt(random.nextInt(8)));
+      }
+      values.add(value.toString());
+    }
+    return values;
+  }
+
+  private static void assertContainsAll(int[] candidates, int[] expected) {
+    for (int entry : expected) {
+      assertTrue(
+          "Entry " + entry + " is missing from " + Arrays.toString(candidates),
+          Arrays.binarySearch(candidates, entry) >= 0);
+    }
+  }
+
+  @Test
+  public void testEntriesKeepLookupOrder() {
+    FuzzyMatchIndex index = new FuzzyMatchIndex(toRows(NAMES), Algorithm.LEVENSHTEIN, true);
+
+    assertEquals(NAMES.length, index.size());
+    for (int i = 0; i < NAMES.length; i++) {
+      assertEquals(NAMES[i], index.getEntry(i)[0]);
+    }
+  }
+
+  @Test
+  public void testLevenshteinCandidatesAreExact() {
+    FuzzyMatchIndex index = new FuzzyMatchIndex(toRows(NAMES), Algorithm.LEVENSHTEIN, false);
+
+    assertArrayEquals(new int[] {0, 1, 2, 11}, index.getDistanceCandidates("CATRINE", 1));
+    assertArrayEquals(new int[] {3, 4, 5}, index.getDistanceCandidates("jon", 1));
+    assertArrayEquals(new int[] {10}, index.getDistanceCandidates("", 0));
+    assertArrayEquals(new int[0], index.getDistanceCandidates("Zzzzzzzzzzzzzz", 3));
+  }
+
+  @Test
+  public void testDistanceCandidatesMatchFullScan() {
+    Random random = new Random(42);
+    List<String> values = randomValues(random, 500);
+    FuzzyMatchIndex levenshtein =
+        new FuzzyMatchIndex(toRows(values.toArray(new String[0])), Algorithm.LEVENSHTEIN, true);
+    FuzzyMatchIndex damerau =
+        new FuzzyMatchIndex(
+            toRows(values.toArray(new String[0])), Algorithm.DAMERAU_LEVENSHTEIN, true);
+
+    for (String lookup : randomValues(random, 50)) {
+      for (int maximalDistance = 0; maximalDistance <= 3; maximalDistance++) {
+        List<Integer> levenshteinMatches = new ArrayList<>();
+        List<Integer> damerauMatches = new ArrayList<>();
+        for (int i = 0; i < values.size(); i++) {
+          if (StringUtils.getLevenshteinDistance(values.get(i), lookup) <= maximalDistance) {
+            levenshteinMatches.add(i);
+          }
+          if (Utils.getDamerauLevenshteinDistance(values.get(i), lookup) <= maximalDistance) {
+            damerauMatches.add(i);
+          }
+        }
+        assertArrayEquals(
+            levenshteinMatches.stream().mapToInt(Integer::intValue).toArray(),
+            levenshtein.getDistanceCandidates(lookup, maximalDistance));
+        assertContainsAll(
+            damerau.getDistanceCandidates(lookup, maximalDistance),
+            damerauMatches.stream().mapToInt(Integer::intValue).toArray());
+      }
+    }
+  }
+
+  @Test
+  public void testNeedlemanWunschScansEverything() {
+    FuzzyMatchIndex index = new FuzzyMatchIndex(toRows(NAMES), Algorithm.NEEDLEMAN_WUNSH, false);
+
+    assertEquals(NAMES.length, index.getDistanceCandidates("John", 0).length);
+  }
+
+  @Test
+  public void testPhoneticCandidates() {
+    FuzzyMatchIndex index =
+        new FuzzyMatchIndex(toRows("John", "Catrine", "Jon", "Catriny"), Algorithm.SOUNDEX, false);
+
+    assertArrayEquals(
+        new int[] {1, 3},
+        index.getPhoneticCandidates(FuzzyMatchIndex.getEncodedValue("Catrine", Algorithm.SOUNDEX)));
+    assertArrayEquals(
+        new int[] {0, 2},
+        index.getPhoneticCandidates(FuzzyMatchIndex.getEncodedValue("Jhon", Algorithm.SOUNDEX)));
+    assertArrayEquals(
+        new int[0],
+        index.getPhoneticCandidates(FuzzyMatchIndex.getEncodedValue("Mary", Algorithm.SOUNDEX)));
+  }
+
+  @Test
+  public void testSimilarityCandidatesMatchFullScan() {
+    Random random = new Random(7);
+    List<String> values = randomValues(random, 300);
+    values.addAll(Arrays.asList(NAMES));
+    String[] lookupValues = values.toArray(new String[0]);
+
+    for (Algorithm algorithm :
+        new Algorithm[] {Algorithm.PAIR_SIMILARITY, Algorithm.JARO, Algorithm.JARO_WINKLER}) {
+      FuzzyMatchIndex index = new FuzzyMatchIndex(toRows(lookupValues), algorithm, false);
+      List<String> mainValues = randomValues(random, 30);
+      mainValues.addAll(Arrays.asList(NAMES));
+
+      for (String lookup : mainValues) {
+        for (double minimalSimilarity : new double[] {0.3, 0.6, 0.9}) {
+          List<Integer> matches = new ArrayList<>();
+          for (int i = 0; i < lookupValues.length; i++) {
+            if (getSimilarity(algorithm, lookupValues[i], lookup) >= minimalSimilarity) {
+              matches.add(i);
+            }
+          }
+          assertContainsAll(
+              index.getSimilarityCandidates(lookup, minimalSimilarity, false),
+              matches.stream().mapToInt(Integer::intValue).toArray());
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testPairSimilarityCandidatesAreExact() {
+    FuzzyMatchIndex index = new FuzzyMatchIndex(toRows(NAMES), Algorithm.PAIR_SIMILARITY, false);
+
+    // Catriny and Katrine share 5 of their 6 letter pairs with Catrine
+    //
+    assertArrayEquals(new int[] {0, 11}, index.getSimilarityCandidates("Catrine", 0.9, false));
+    assertArrayEquals(
+        new int[] {0, 1, 2, 11}, index.getSimilarityCandidates("Catrine", 0.8, false));
+
+    // Equal values are always candidates for the closest value
+    //
+    assertArrayEquals(new int[] {10}, index.getSimilarityCandidates("", 0, true));
+
+    // All values are candidates without a minimal similarity
+    //
+    assertEquals(NAMES.length, index.getSimilarityCandidates("Catrine", 0, false).length);
+  }
+
+  private static double getSimilarity(Algorithm algorithm, String cacheValue, String lookup) {
+    switch (algorithm) {
+      case JARO:
+        return new Jaro().score(cacheValue, lookup);
+      case JARO_WINKLER:
+        return new JaroWinkler().score(cacheValue, lookup);
+      default:
+        return LetterPairSimilarity.getSimiliarity(cacheValue, lookup);
+    }
+  }
+}
@@ -21,6 +21,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Random;
 import org.apache.hop.core.IRowSet;
 import org.apache.hop.core.exception.HopTransformException;
 import org.apache.hop.core.logging.ILoggingObject;
@@ -71,6 +72,7 @@ public class FuzzyMatchTest {
 
   private class FuzzyMatchHandler extends FuzzyMatch {
     private Object[] resultRow = null;
+    private final List<Object[]> resultRows = new ArrayList<>();
     private IRowSet rowset = null;
 
     public FuzzyMatchHandler(
@@ -86,6 +88,7 @@ public class FuzzyMatchTest {
     @Override
     public void putRow(IRowMeta rowMeta, Object[] row) throws HopTransformException {
       resultRow = row;
+      resultRows.add(row);
     }
 
     /**
@@ -215,4 +218,92 @@ public class FuzzyMatchTest {
         Arrays.stream(fuzzyMatch.resultRow, 3, fuzzyMatch.resultRow.length)
             .allMatch(val -> val == null));
   }
+
+  @Test
+  public void testParallelMatchingEqualsSequentialMatching() throws Exception {
+    Random random = new Random(42);
+    List<Object[]> names = new ArrayList<>();
+    for (int i = 0; i < 300; i++) {
+      names.add(new Object[] {randomName(random)});
+    }
+    // Misspelled names, several batches of rows for 4 threads
+    List<Object[]> inputRows = new ArrayList<>();
+    for (int i = 0; i < 5000; i++) {
+      char[] name = ((String) names.get(random.nextInt(names.size()))[0]).toCharArray();
+      name[random.nextInt(name.length)] = (char) ('a' + random.nextInt(26));
+      inputRows.add(new Object[] {new String(name)});
+    }
+
+    assertParallelMatching(FuzzyMatchMeta.Algorithm.LEVENSHTEIN, inputRows, names);
+    assertParallelMatching(FuzzyMatchMeta.Algorithm.JARO_WINKLER, inputRows, names);
+  }
+
+  private void assertParallelMatching(
+      FuzzyMatchMeta.Algorithm algorithm, List<Object[]> inputRows, List<Object[]> lookupRows)
+      throws Exception {
+    List<Object[]> sequential = matchRows(algorithm, "1", inputRows, lookupRows);
+    List<Object[]> parallel = matchRows(algorithm, "4", inputRows, lookupRows);
+
+    Assert.assertEquals(inputRows.size(), sequential.size());
+    Assert.assertEquals(sequential.size(), parallel.size());
+    for (int i = 0; i < sequential.size(); i++) {
+      Assert.assertArrayEquals(algorithm + " row " + i, sequential.get(i), parallel.get(i));
+    }
+  }
+
+  private List<Object[]> matchRows(
+      FuzzyMatchMeta.Algorithm algorithm,
+      String numberOfThreads,
+      List<Object[]> inputRows,
+      List<Object[]> lookupRows)
+      throws Exception {
+    FuzzyMatchMeta meta = spy(new FuzzyMatchMeta());
+    meta.setDefault();
+    meta.setAlgorithm(algorithm);
+    meta.setMainStreamField("name");
+    meta.setLookupField("name");
+    if (algorithm == FuzzyMatchMeta.Algorithm.LEVENSHTEIN) {
+      meta.setMinimalValue("0");
+      meta.setMaximalValue("2");
+    } else {
+      meta.setMinimalValue("0.8");
+      meta.setMaximalValue("1");
+    }
+    meta.setNumberOfThreads(numberOfThreads);
+
+    ITransformIOMeta transformIOMeta = mock(ITransformIOMeta.class);
+    IStream infoStream = mock(IStream.class);
+    when(infoStream.getTransformMeta()).thenReturn(mockHelper.transformMeta);
+    when(transformIOMeta.getInfoStreams()).thenReturn(Arrays.asList(infoStream));
+    when(meta.getTransformIOMeta()).thenReturn(transformIOMeta);
+
+    IRowMeta rowMeta = new RowMeta();
+    rowMeta.addValueMeta(new ValueMetaString("name"));
+
+    FuzzyMatchData data = new FuzzyMatchData();
+    FuzzyMatchHandler handler =
+        new FuzzyMatchHandler(
+            mockHelper.transformMeta, meta, data, 0, mockHelper.pipelineMeta, mockHelper.pipeline);
+    Assert.assertTrue(handler.init());
+
+    IRowSet inputRowSet = mockHelper.getMockInputRowSet(inputRows);
+    when(inputRowSet.getRowMeta()).thenReturn(rowMeta);
+    handler.addRowSetToInputRowSets(inputRowSet);
+    handler.rowset = mockHelper.getMockInputRowSet(lookupRows);
+    when(handler.rowset.getRowMeta()).thenReturn(rowMeta);
+
+    while (handler.processRow()) {
+      // Keep matching
+    }
+    handler.dispose();
+    return handler.resultRows;
+  }
+
+  private static String randomName(Random random) {
+    char[] name = new char[5 + random.nextInt(6)];
+    for (int i = 0; i < name.length; i++) {
+      name[i] = (char) ('a' + random.nextInt(26));
+    }
+    return new String(name);
+  }
 }
@@ -34,6 +34,9 @@ import org.apache.hop.core.row.value.ValueMetaInteger;
 import org.apache.hop.core.row.value.ValueMetaNone;
 import org.apache.hop.core.row.value.ValueMetaNumber;
 import org.apache.hop.core.row.value.ValueMetaString;
+import org.apache.hop.core.spill.SpillCodec;
+import org.apache.hop.core.spill.SpillReader;
+import org.apache.hop.core.spill.SpillWriter;
 import org.apache.hop.core.util.Utils;
 import org.apache.hop.core.vfs.HopVfs;
 import org.apache.hop.i18n.BaseMessages;
@@ -42,13 +45,10 @@ import org.apache.hop.pipeline.PipelineMeta;
 import org.apache.hop.pipeline.transform.BaseTransform;
 import org.apache.hop.pipeline.transform.TransformMeta;
 
-import java.io.DataInputStream;
-import java.io.DataOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
-import java.net.SocketTimeoutException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -269,6 +269,8 @@ public class GroupBy extends BaseTransform<GroupByMeta, GroupByData> {
         calcAggregate(data.previous);
         addToBuffer(data.previous);
       }
+      // Flush the rows spilled to disk before we read them back
+      closeOutput();
       data.groupResult = getAggregateResult();
 
       Object[] row = getRowFromBuffer();
@@ -814,27 +816,36 @@ public class GroupBy extends BaseTransform<GroupByMeta, GroupByData> {
   // Method is defined as package-protected in order to be accessible by unit tests
   void addToBuffer(Object[] row) throws HopFileException {
     data.bufferList.add(row);
-    if (data.bufferList.size() > 5000 && data.rowsOnFile == 0) {
-      String pathToTmp = resolve(getMeta().getDirectory());
-      try {
-        File ioFile = new File(pathToTmp);
-        if (!ioFile.exists()) {
-          // try to resolve as Apache VFS file
-          pathToTmp = retrieveVfsPath(pathToTmp);
+    if (data.bufferList.size() > 5000) {
+      if (data.rowsOnFile == 0) {
+        try {
+          // The temporary file is re-used for every group
+          //
+          if (data.tempFile == null) {
+            String pathToTmp = resolve(getMeta().getDirectory());
+            File ioFile = new File(pathToTmp);
+            if (!ioFile.exists()) {
+              // try to resolve as Apache VFS file
+              pathToTmp = retrieveVfsPath(pathToTmp);
+            }
+            data.tempFile =
+                File.createTempFile(getMeta().getPrefix(), ".tmp", new File(pathToTmp));
+          }
+          data.spillWriter =
+              new SpillWriter(
+                  data.inputRowMeta, new FileOutputStream(data.tempFile), SpillCodec.NONE);
+          data.firstRead = true;
+        } catch (IOException e) {
+          throw new HopFileException(
+              BaseMessages.getString(PKG, "GroupBy.Exception.UnableToCreateTemporaryFile"), e);
         }
-        data.tempFile = File.createTempFile(getMeta().getPrefix(), ".tmp", new File(pathToTmp));
-        data.fosToTempFile = new FileOutputStream(data.tempFile);
-        data.dosToTempFile = new DataOutputStream(data.fosToTempFile);
-        data.firstRead = true;
-      } catch (IOException e) {
-        throw new HopFileException(
-            BaseMessages.getString(PKG, "GroupBy.Exception.UnableToCreateTemporaryFile"), e);
       }
       // OK, save the oldest rows to disk!
-      Object[] oldest = data.bufferList.get(0);
-      data.inputRowMeta.writeData(data.dosToTempFile, oldest);
-      data.bufferList.remove(0);
-      data.rowsOnFile++;
+      for (Object[] oldest : data.bufferList) {
+        data.spillWriter.writeRow(oldest);
+      }
+      data.rowsOnFile += data.bufferList.size();
+      data.bufferList.clear();
     }
   }
 
@@ -850,8 +861,8 @@ public class GroupBy extends BaseTransform<GroupByMeta, GroupByData> {
       if (data.firstRead) {
         // Open the inputstream first...
         try {
-          data.fisToTmpFile = new FileInputStream(data.tempFile);
-          data.disToTmpFile = new DataInputStream(data.fisToTmpFile);
+          data.spillReader =
+              new SpillReader(data.inputRowMeta, new FileInputStream(data.tempFile), true);
           data.firstRead = false;
         } catch (IOException e) {
           throw new HopFileException(
@@ -861,12 +872,7 @@ public class GroupBy extends BaseTransform<GroupByMeta, GroupByData> {
       }
 
       // Read one row from the file!
-      Object[] row;
-      try {
-        row = data.inputRowMeta.readData(data.disToTmpFile);
-      } catch (SocketTimeoutException e) {
-        throw new HopFileException(e); // Shouldn't happen on files
-      }
+      Object[] row = data.spillReader.readRow();
       data.rowsOnFile--;
 
       return row;
@@ -883,16 +889,12 @@ public class GroupBy extends BaseTransform<GroupByMeta, GroupByData> {
 
   private void closeOutput() throws HopFileException {
     try {
-      if (data.dosToTempFile != null) {
-        data.dosToTempFile.close();
-        data.dosToTempFile = null;
-      }
-      if (data.fosToTempFile != null) {
-        data.fosToTempFile.close();
-        data.fosToTempFile = null;
+      if (data.spillWriter != null) {
+        data.spillWriter.close();
+        data.spillWriter = null;
       }
       data.firstRead = true;
-    } catch (IOException e) {
+    } catch (HopFileException e) {
       throw new HopFileException(
           BaseMessages.getString(
               PKG, "GroupBy.Exception.UnableToCloseInputStream", data.tempFile.getPath()),
@@ -902,15 +904,11 @@ public class GroupBy extends BaseTransform<GroupByMeta, GroupByData> {
 
   private void closeInput() throws HopFileException {
     try {
-      if (data.fisToTmpFile != null) {
-        data.fisToTmpFile.close();
-        data.fisToTmpFile = null;
-      }
-      if (data.disToTmpFile != null) {
-        data.disToTmpFile.close();
-        data.disToTmpFile = null;
+      if (data.spillReader != null) {
+        data.spillReader.close();
+        data.spillReader = null;
       }
-    } catch (IOException e) {
+    } catch (HopFileException e) {
       throw new HopFileException(
           BaseMessages.getString(
               PKG, "GroupBy.Exception.UnableToCloseInputStream", data.tempFile.getPath()),
@@ -19,14 +19,12 @@ package org.apache.hop.pipeline.transforms.groupby;
 
 import org.apache.hop.core.row.IRowMeta;
 import org.apache.hop.core.row.IValueMeta;
+import org.apache.hop.core.spill.SpillReader;
+import org.apache.hop.core.spill.SpillWriter;
 import org.apache.hop.pipeline.transform.BaseTransformData;
 import org.apache.hop.pipeline.transform.ITransformData;
 
-import java.io.DataInputStream;
-import java.io.DataOutputStream;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
@@ -55,16 +53,13 @@ public class GroupByData extends BaseTransformData implements ITransformData {
 
   public File tempFile;
 
-  public FileOutputStream fosToTempFile;
-
-  public DataOutputStream dosToTempFile;
+  public SpillWriter spillWriter;
 
   public int rowsOnFile;
 
   public boolean firstRead;
 
-  public FileInputStream fisToTmpFile;
-  public DataInputStream disToTmpFile;
+  public SpillReader spillReader;
 
   public Object[] groupResult;
 
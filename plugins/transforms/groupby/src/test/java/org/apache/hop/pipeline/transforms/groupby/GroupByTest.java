@@ -0,0 +1,178 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.pipeline.transforms.groupby;
+
+import org.apache.hop.core.exception.HopException;
+import org.apache.hop.core.exception.HopTransformException;
+import org.apache.hop.core.logging.ILoggingObject;
+import org.apache.hop.core.row.IRowMeta;
+import org.apache.hop.core.row.RowMetaBuilder;
+import org.apache.hop.junit.rules.RestoreHopEngineEnvironment;
+import org.apache.hop.pipeline.Pipeline;
+import org.apache.hop.pipeline.PipelineMeta;
+import org.apache.hop.pipeline.transform.TransformMeta;
+import org.apache.hop.pipeline.transforms.mock.TransformMockHelper;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.ClassRule;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+public class GroupByTest {
+  @ClassRule public static RestoreHopEngineEnvironment env = new RestoreHopEngineEnvironment();
+
+  @Rule public TemporaryFolder tempFolder = new TemporaryFolder();
+
+  private TransformMockHelper<GroupByMeta, GroupByData> mockHelper;
+
+  private final IRowMeta inputRowMeta =
+      new RowMetaBuilder().addString("grp").addInteger("seq").build();
+
+  /** Reads the rows from a list and collects the output rows. */
+  private class GroupByHandler extends GroupBy {
+    private final Iterator<Object[]> inputRows;
+    private final List<Object[]> outputRows = new ArrayList<>();
+
+    GroupByHandler(
+        TransformMeta transformMeta,
+        GroupByMeta meta,
+        GroupByData data,
+        PipelineMeta pipelineMeta,
+        Pipeline pipeline,
+        List<Object[]> inputRows) {
+      super(transformMeta, meta, data, 0, pipelineMeta, pipeline);
+      this.inputRows = inputRows.iterator();
+    }
+
+    @Override
+    public Object[] getRow() throws HopException {
+      setInputRowMeta(inputRowMeta);
+      return inputRows.hasNext() ? inputRows.next() : null;
+    }
+
+    @Override
+    public void putRow(IRowMeta rowMeta, Object[] row) throws HopTransformException {
+      outputRows.add(row);
+    }
+  }
+
+  @Before
+  public void setUp() {
+    mockHelper = new TransformMockHelper<>("Group By", GroupByMeta.class, GroupByData.class);
+    when(mockHelper.logChannelFactory.create(any(), any(ILoggingObject.class)))
+        .thenReturn(mockHelper.iLogChannel);
+    when(mockHelper.pipeline.isRunning()).thenReturn(true);
+  }
+
+  @After
+  public void tearDown() {
+    mockHelper.cleanUp();
+  }
+
+  /** Passes all rows and adds the number of rows in the group to every row. */
+  private List<Object[]> groupPassingAllRows(List<Object[]> inputRows) throws HopException {
+    GroupByMeta meta = new GroupByMeta();
+    meta.setDefault();
+    meta.setPassAllRows(true);
+    meta.setDirectory(tempFolder.getRoot().getAbsolutePath());
+    meta.getGroupingFields().add(new GroupingField("grp"));
+    Aggregation count = new Aggregation();
+    count.setField("cnt");
+    count.setSubject("seq");
+    count.setType(Aggregation.TYPE_GROUP_COUNT_ALL);
+    meta.getAggregations().add(count);
+
+    GroupByHandler groupBy =
+        new GroupByHandler(
+            mockHelper.transformMeta,
+            meta,
+            new GroupByData(),
+            mockHelper.pipelineMeta,
+            mockHelper.pipeline,
+            inputRows);
+    assertTrue(groupBy.init());
+    while (groupBy.processRow()) {
+      // Keep grouping
+    }
+    groupBy.dispose();
+    return groupBy.outputRows;
+  }
+
+  private static void addGroup(List<Object[]> rows, String group, int nrRows) {
+    for (int i = 0; i < nrRows; i++) {
+      rows.add(new Object[] {group, (long) rows.size()});
+    }
+  }
+
+  /** Checks that the output has all the rows in the input order with the right group count. */
+  private static void assertGroups(List<Object[]> inputRows, List<Object[]> outputRows) {
+    Map<Object, Long> groupSizes = new HashMap<>();
+    for (Object[] inputRow : inputRows) {
+      groupSizes.merge(inputRow[0], 1L, Long::sum);
+    }
+
+    assertEquals(inputRows.size(), outputRows.size());
+    for (int i = 0; i < inputRows.size(); i++) {
+      Object[] inputRow = inputRows.get(i);
+      Object[] outputRow = outputRows.get(i);
+      assertEquals(inputRow[0], outputRow[0]);
+      assertEquals(inputRow[1], outputRow[1]);
+      assertEquals(groupSizes.get(inputRow[0]).longValue(), ((Number) outputRow[2]).longValue());
+    }
+  }
+
+  private void assertNoTempFilesLeft() {
+    File[] files = tempFolder.getRoot().listFiles();
+    assertEquals(0, files == null ? 0 : files.length);
+  }
+
+  @Test
+  public void testLastGroupSpilledToDisk() throws Exception {
+    List<Object[]> inputRows = new ArrayList<>();
+    addGroup(inputRows, "a", 10);
+    addGroup(inputRows, "b", 12000);
+
+    assertGroups(inputRows, groupPassingAllRows(inputRows));
+    assertNoTempFilesLeft();
+  }
+
+  @Test
+  public void testEveryGroupSpilledToDisk() throws Exception {
+    // The temp file is re-used for every group
+    List<Object[]> inputRows = new ArrayList<>();
+    addGroup(inputRows, "a", 7000);
+    addGroup(inputRows, "b", 3);
+    addGroup(inputRows, "c", 11000);
+
+    assertGroups(inputRows, groupPassingAllRows(inputRows));
+    assertNoTempFilesLeft();
+  }
+}
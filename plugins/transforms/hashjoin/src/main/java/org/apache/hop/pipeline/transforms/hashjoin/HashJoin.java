@@ -0,0 +1,494 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.pipeline.transforms.hashjoin;
+
+import org.apache.commons.vfs2.FileObject;
+import org.apache.hop.core.Const;
+import org.apache.hop.core.exception.HopException;
+import org.apache.hop.core.exception.HopFileException;
+import org.apache.hop.core.exception.HopTransformException;
+import org.apache.hop.core.row.IRowMeta;
+import org.apache.hop.core.row.IValueMeta;
+import org.apache.hop.core.row.RowDataUtil;
+import org.apache.hop.core.row.RowMeta;
+import org.apache.hop.core.spill.SpillCodec;
+import org.apache.hop.core.spill.SpillReader;
+import org.apache.hop.core.vfs.HopVfs;
+import org.apache.hop.i18n.BaseMessages;
+import org.apache.hop.pipeline.Pipeline;
+import org.apache.hop.pipeline.PipelineMeta;
+import org.apache.hop.pipeline.transform.BaseTransform;
+import org.apache.hop.pipeline.transform.TransformMeta;
+import org.apache.hop.pipeline.transform.stream.IStream;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Join the rows of the main (probe) stream with those of the info (build) stream on equal key
+ * values. The build stream is read into a hash table first, after which every probe row is looked
+ * up in it. Neither stream needs to be sorted.
+ *
+ * <p>When the build stream holds more rows than the configured maximum, both streams are split
+ * into partitions on disk by the hash code of their keys, and the partitions are joined one by
+ * one (grace hash join). A partition which still doesn't fit in memory is split again, up to
+ * {@link #MAX_PARTITION_LEVEL} times.
+ */
+public class HashJoin extends BaseTransform<HashJoinMeta, HashJoinData> {
+  private static final Class<?> PKG = HashJoinMeta.class; // For Translator
+
+  /** The number of times a partition which doesn't fit in memory is split again */
+  public static final int MAX_PARTITION_LEVEL = 4;
+
+  public HashJoin(
+      TransformMeta transformMeta,
+      HashJoinMeta meta,
+      HashJoinData data,
+      int copyNr,
+      PipelineMeta pipelineMeta,
+      Pipeline pipeline) {
+    super(transformMeta, meta, data, copyNr, pipelineMeta, pipeline);
+  }
+
+  @Override
+  public boolean processRow() throws HopException {
+    if (first) {
+      first = false;
+      readBuildStream();
+    }
+
+    Object[] row = getRow();
+    if (row == null) {
+      finishProbeStream();
+      setOutputDone();
+      return false;
+    }
+
+    if (data.probeRowMeta == null) {
+      prepareProbeStream(getInputRowMeta());
+      findProbeKeys();
+    }
+
+    HashJoinKey key = getProbeKey(row);
+    if (key.isNullKey()) {
+      // A null key never matches
+      //
+      if (data.probeOptional) {
+        putRow(data.outputRowMeta, joinRows(row, null));
+      }
+    } else if (data.partitions != null) {
+      data.partitions.addProbeRow(key, row);
+    } else {
+      joinProbeRow(data.table, key, row);
+    }
+
+    if (checkFeedback(getLinesRead())) {
+      logBasic(BaseMessages.getString(PKG, "HashJoin.LineNumber") + getLinesRead());
+    }
+    return true;
+  }
+
+  /** Read all the rows of the build stream into the hash table or the partitions on disk. */
+  private void readBuildStream() throws HopException {
+    IStream infoStream = meta.getTransformIOMeta().getInfoStreams().get(0);
+    String buildTransformName = infoStream.getTransformName();
+
+    data.buildRowSet = findInputRowSet(buildTransformName);
+    if (data.buildRowSet == null) {
+      throw new HopException(
+          BaseMessages.getString(
+              PKG, "HashJoin.Exception.UnableToFindSpecifiedTransform", buildTransformName));
+    }
+
+    Object[] buildRow = getRowFrom(data.buildRowSet);
+    if (buildRow != null) {
+      data.buildRowMeta = data.buildRowSet.getRowMeta();
+    } else {
+      data.buildRowMeta = getPipelineMeta().getTransformFields(this, buildTransformName);
+    }
+
+    // Find the key indexes, all keys are compared with the type of the build key fields
+    //
+    List<HashJoinKeyField> keyFields = meta.getKeyFields();
+    data.buildKeyNrs = new int[keyFields.size()];
+    data.buildKeyMetas = new IValueMeta[keyFields.size()];
+    data.keyMetas = new IValueMeta[keyFields.size()];
+    for (int i = 0; i < keyFields.size(); i++) {
+      String buildField = keyFields.get(i).getBuildField();
+      data.buildKeyNrs[i] = data.buildRowMeta.indexOfValue(buildField);
+      if (data.buildKeyNrs[i] < 0) {
+        String message =
+            BaseMessages.getString(
+                PKG, "HashJoin.Exception.UnableToFindFieldInBuildStream", buildField);
+        logError(message);
+        throw new HopTransformException(message);
+      }
+      data.buildKeyMetas[i] = data.buildRowMeta.getValueMeta(data.buildKeyNrs[i]);
+      data.keyMetas[i] = data.buildKeyMetas[i].clone();
+      data.keyMetas[i].setStorageType(IValueMeta.STORAGE_TYPE_NORMAL);
+    }
+
+    data.table = new HashJoinTable();
+    while (buildRow != null && !isStopped()) {
+      addBuildRow(buildRow);
+      buildRow = getRowFrom(data.buildRowSet);
+    }
+
+    if (log.isDetailed()) {
+      logDetailed(
+          BaseMessages.getString(
+              PKG,
+              "HashJoin.Log.BuildStreamRead",
+              Long.toString(getLinesRead()),
+              Boolean.toString(data.partitions != null)));
+    }
+  }
+
+  private void addBuildRow(Object[] row) throws HopException {
+    HashJoinKey key = getBuildKey(row);
+    if (key.isNullKey() && !data.buildOptional) {
+      // Can't match anything and isn't passed on either
+      return;
+    }
+    if (data.partitions != null) {
+      data.partitions.addBuildRow(key, row);
+      return;
+    }
+    data.table.add(key, row);
+    if (data.maxBuildRows > 0 && data.table.getNrRows() > data.maxBuildRows) {
+      spillBuildTable();
+    }
+  }
+
+  /** Move all the build rows in memory to partitions on disk. */
+  private void spillBuildTable() throws HopException {
+    if (log.isDetailed()) {
+      logDetailed(
+          BaseMessages.getString(
+              PKG, "HashJoin.Log.SpillingBuildRows", Long.toString(data.table.getNrRows())));
+    }
+    data.partitions = createPartitions(0);
+    for (HashJoinTable.Bucket bucket : data.table.getBuckets()) {
+      for (Object[] row : bucket.getRows()) {
+        data.partitions.addBuildRow(bucket.getKey(), row);
+      }
+    }
+    for (Object[] row : data.table.getNullKeyRows()) {
+      data.partitions.addUnmatchableBuildRow(row);
+    }
+    data.table.clear();
+  }
+
+  private HashJoinPartitions createPartitions(int level) {
+    HashJoinPartitions partitions =
+        new HashJoinPartitions(
+            level,
+            data.buildRowMeta,
+            data.probeRowMeta,
+            data.directory,
+            data.prefix,
+            data.spillCodec);
+    data.openPartitions.add(partitions);
+    return partitions;
+  }
+
+  /** Determine the layout of the output rows once the layout of the probe rows is known. */
+  private void prepareProbeStream(IRowMeta probeRowMeta) throws HopTransformException {
+    data.probeRowMeta = probeRowMeta;
+    data.outputRowMeta = probeRowMeta.clone();
+    meta.getFields(
+        data.outputRowMeta,
+        getTransformName(),
+        new IRowMeta[] {data.buildRowMeta.clone()},
+        null,
+        this,
+        metadataProvider);
+
+    if (data.partitions != null) {
+      data.partitions.setProbeRowMeta(probeRowMeta);
+    }
+  }
+
+  private void findProbeKeys() throws HopTransformException {
+    List<HashJoinKeyField> keyFields = meta.getKeyFields();
+    data.probeKeyNrs = new int[keyFields.size()];
+    data.probeKeyMetas = new IValueMeta[keyFields.size()];
+    data.probeNormalKeyMetas = new IValueMeta[keyFields.size()];
+    for (int i = 0; i < keyFields.size(); i++) {
+      String probeField = keyFields.get(i).getProbeField();
+      data.probeKeyNrs[i] = data.probeRowMeta.indexOfValue(probeField);
+      if (data.probeKeyNrs[i] < 0) {
+        String message =
+            BaseMessages.getString(
+                PKG, "HashJoin.Exception.UnableToFindFieldInProbeStream", probeField);
+        logError(message);
+        throw new HopTransformException(message);
+      }
+      data.probeKeyMetas[i] = data.probeRowMeta.getValueMeta(data.probeKeyNrs[i]);
+      data.probeNormalKeyMetas[i] = data.probeKeyMetas[i].clone();
+      data.probeNormalKeyMetas[i].setStorageType(IValueMeta.STORAGE_TYPE_NORMAL);
+    }
+  }
+
+  private HashJoinKey getBuildKey(Object[] row) throws HopException {
+    Object[] values = new Object[data.buildKeyNrs.length];
+    for (int i = 0; i < values.length; i++) {
+      values[i] = data.buildKeyMetas[i].convertToNormalStorageType(row[data.buildKeyNrs[i]]);
+    }
+    return new HashJoinKey(data.keyMetas, values);
+  }
+
+  private HashJoinKey getProbeKey(Object[] row) throws HopException {
+    Object[] values = new Object[data.probeKeyNrs.length];
+    for (int i = 0; i < values.length; i++) {
+      Object value = data.probeKeyMetas[i].convertToNormalStorageType(row[data.probeKeyNrs[i]]);
+      if (data.probeNormalKeyMetas[i].getType() != data.keyMetas[i].getType()) {
+        value = data.keyMetas[i].convertData(data.probeNormalKeyMetas[i], value);
+      }
+      values[i] = value;
+    }
+    return new HashJoinKey(data.keyMetas, values);
+  }
+
+  /** Output the joined rows for a probe row, or the probe row alone if nothing matches. */
+  private void joinProbeRow(HashJoinTable table, HashJoinKey key, Object[] row)
+      throws HopException {
+    HashJoinTable.Bucket bucket = table.find(key);
+    if (bucket == null) {
+      if (data.probeOptional) {
+        putRow(data.outputRowMeta, joinRows(row, null));
+      }
+      return;
+    }
+    bucket.setMatched(true);
+    for (Object[] buildRow : bucket.getRows()) {
+      putRow(data.outputRowMeta, joinRows(row, buildRow));
+    }
+  }
+
+  /** Output the build rows which didn't match any probe row. */
+  private void putUnmatchedBuildRows(HashJoinTable table) throws HopException {
+    for (HashJoinTable.Bucket bucket : table.getBuckets()) {
+      if (!bucket.isMatched()) {
+        for (Object[] buildRow : bucket.getRows()) {
+          putRow(data.outputRowMeta, joinRows(null, buildRow));
+        }
+      }
+    }
+    for (Object[] buildRow : table.getNullKeyRows()) {
+      putRow(data.outputRowMeta, joinRows(null, buildRow));
+    }
+  }
+
+  private Object[] joinRows(Object[] probeRow, Object[] buildRow) {
+    Object[] outputRow = RowDataUtil.allocateRowData(data.outputRowMeta.size());
+    int probeSize = data.probeRowMeta.size();
+    if (probeRow != null) {
+      System.arraycopy(probeRow, 0, outputRow, 0, probeSize);
+    }
+    if (buildRow != null) {
+      System.arraycopy(buildRow, 0, outputRow, probeSize, data.buildRowMeta.size());
+    }
+    return outputRow;
+  }
+
+  /** All probe rows are read: join the partitions on disk and pass the unmatched build rows on. */
+  private void finishProbeStream() throws HopException {
+    if (data.probeRowMeta == null) {
+      // No probe rows at all: we still need the output layout for the unmatched build rows
+      //
+      prepareProbeStream(getProbeRowMetaFromPipeline());
+    }
+
+    if (data.partitions == null) {
+      if (data.buildOptional) {
+        putUnmatchedBuildRows(data.table);
+      }
+      data.table.clear();
+    } else {
+      HashJoinPartitions partitions = data.partitions;
+      data.partitions = null;
+      partitions.closeWriters();
+      joinPartitions(partitions);
+    }
+  }
+
+  private IRowMeta getProbeRowMetaFromPipeline() throws HopTransformException {
+    String buildTransformName =
+        meta.getTransformIOMeta().getInfoStreams().get(0).getTransformName();
+    List<TransformMeta> previous =
+        getPipelineMeta().findPreviousTransforms(getTransformMeta(), false);
+    for (TransformMeta transformMeta : previous) {
+      if (!transformMeta.getName().equalsIgnoreCase(buildTransformName)) {
+        return getPipelineMeta().getTransformFields(this, transformMeta.getName());
+      }
+    }
+    return new RowMeta();
+  }
+
+  private void joinPartitions(HashJoinPartitions partitions) throws HopException {
+    for (int p = 0; p < HashJoinPartitions.NR_PARTITIONS && !isStopped(); p++) {
+      joinPartition(partitions, partitions.getBuildFile(p), partitions.getProbeFile(p));
+      partitions.deletePartition(p);
+    }
+
+    FileObject unmatchableFile = partitions.getUnmatchableBuildFile();
+    if (unmatchableFile != null && !isStopped()) {
+      try (SpillReader reader = openReader(partitions.getBuildRowMeta(), unmatchableFile)) {
+        Object[] buildRow;
+        while ((buildRow = reader.readRow()) != null) {
+          putRow(data.outputRowMeta, joinRows(null, buildRow));
+        }
+      }
+    }
+
+    partitions.deleteFiles();
+    data.openPartitions.remove(partitions);
+  }
+
+  private void joinPartition(
+      HashJoinPartitions partitions, FileObject buildFile, FileObject probeFile)
+      throws HopException {
+    if (buildFile == null) {
+      // Nothing to match with
+      //
+      if (probeFile != null && data.probeOptional) {
+        try (SpillReader reader = openReader(partitions.getProbeRowMeta(), probeFile)) {
+          Object[] probeRow;
+          while ((probeRow = reader.readRow()) != null) {
+            putRow(data.outputRowMeta, joinRows(probeRow, null));
+          }
+        }
+      }
+      return;
+    }
+    if (probeFile == null && !data.buildOptional) {
+      return;
+    }
+
+    HashJoinTable table = new HashJoinTable();
+    boolean tooLarge = false;
+    try (SpillReader reader = openReader(partitions.getBuildRowMeta(), buildFile)) {
+      Object[] buildRow;
+      while ((buildRow = reader.readRow()) != null) {
+        table.add(getBuildKey(buildRow), buildRow);
+        if (data.maxBuildRows > 0
+            && table.getNrRows() > data.maxBuildRows
+            && partitions.getLevel() < MAX_PARTITION_LEVEL) {
+          tooLarge = true;
+          break;
+        }
+      }
+    }
+
+    if (tooLarge) {
+      table.clear();
+      repartition(partitions, buildFile, probeFile);
+      return;
+    }
+
+    if (probeFile != null) {
+      try (SpillReader reader = openReader(partitions.getProbeRowMeta(), probeFile)) {
+        Object[] probeRow;
+        while ((probeRow = reader.readRow()) != null) {
+          joinProbeRow(table, getProbeKey(probeRow), probeRow);
+        }
+      }
+    }
+    if (data.buildOptional) {
+      putUnmatchedBuildRows(table);
+    }
+    table.clear();
+  }
+
+  /** Split a partition which doesn't fit in memory at the next level and join the parts. */
+  private void repartition(
+      HashJoinPartitions partitions, FileObject buildFile, FileObject probeFile)
+      throws HopException {
+    int level = partitions.getLevel() + 1;
+    if (log.isDetailed()) {
+      logDetailed(
+          BaseMessages.getString(PKG, "HashJoin.Log.Repartitioning", Integer.toString(level)));
+    }
+
+    HashJoinPartitions children = createPartitions(level);
+    try (SpillReader reader = openReader(partitions.getBuildRowMeta(), buildFile)) {
+      Object[] buildRow;
+      while ((buildRow = reader.readRow()) != null) {
+        children.addBuildRow(getBuildKey(buildRow), buildRow);
+      }
+    }
+    if (probeFile != null) {
+      try (SpillReader reader = openReader(partitions.getProbeRowMeta(), probeFile)) {
+        Object[] probeRow;
+        while ((probeRow = reader.readRow()) != null) {
+          children.addProbeRow(getProbeKey(probeRow), probeRow);
+        }
+      }
+    }
+    children.closeWriters();
+    joinPartitions(children);
+  }
+
+  private SpillReader openReader(IRowMeta rowMeta, FileObject fileObject) throws HopException {
+    return new SpillReader(rowMeta, HopVfs.getInputStream(fileObject), false);
+  }
+
+  @Override
+  public boolean init() {
+    if (super.init()) {
+      IStream infoStream = meta.getTransformIOMeta().getInfoStreams().get(0);
+      if (infoStream.getTransformMeta() == null) {
+        logError(BaseMessages.getString(PKG, "HashJoin.Log.BuildTransformNeeded"));
+        return false;
+      }
+      int joinType = Const.indexOfString(meta.getJoinType(), HashJoinMeta.joinTypes);
+      if (joinType < 0) {
+        logError(BaseMessages.getString(PKG, "HashJoin.Log.InvalidJoinType", meta.getJoinType()));
+        return false;
+      }
+      data.probeOptional = HashJoinMeta.probeOptionals[joinType];
+      data.buildOptional = HashJoinMeta.buildOptionals[joinType];
+
+      data.maxBuildRows = Const.toLong(resolve(meta.getMaxBuildRows()), 0L);
+      data.directory = resolve(meta.getDirectory());
+      data.prefix = resolve(meta.getPrefix());
+      data.spillCodec = meta.isCompressFiles() ? SpillCodec.SNAPPY : SpillCodec.NONE;
+      return true;
+    }
+    return false;
+  }
+
+  @Override
+  public void dispose() {
+    // Remove the files of a join which didn't finish
+    //
+    for (HashJoinPartitions partitions : new ArrayList<>(data.openPartitions)) {
+      try {
+        partitions.deleteFiles();
+      } catch (HopFileException e) {
+        logError(e.getLocalizedMessage(), e);
+      }
+    }
+    data.openPartitions.clear();
+    if (data.table != null) {
+      data.table.clear();
+    }
+    super.dispose();
+  }
+}
@@ -0,0 +1,73 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.pipeline.transforms.hashjoin;
+
+import org.apache.hop.core.IRowSet;
+import org.apache.hop.core.row.IRowMeta;
+import org.apache.hop.core.row.IValueMeta;
+import org.apache.hop.core.spill.SpillCodec;
+import org.apache.hop.pipeline.transform.BaseTransformData;
+import org.apache.hop.pipeline.transform.ITransformData;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class HashJoinData extends BaseTransformData implements ITransformData {
+  public IRowSet buildRowSet;
+  public IRowMeta buildRowMeta;
+  public IRowMeta probeRowMeta;
+  public IRowMeta outputRowMeta; // just for speed: probeRowMeta+buildRowMeta
+
+  public int[] buildKeyNrs;
+  public int[] probeKeyNrs;
+
+  /** The build key fields as they are in the build rows */
+  public IValueMeta[] buildKeyMetas;
+
+  /** The build key fields in normal storage: the layout of every key */
+  public IValueMeta[] keyMetas;
+
+  /** The probe key fields as they are in the probe rows */
+  public IValueMeta[] probeKeyMetas;
+
+  /** The probe key fields in normal storage, to convert probe keys to the build key types */
+  public IValueMeta[] probeNormalKeyMetas;
+
+  public boolean probeOptional;
+  public boolean buildOptional;
+
+  public long maxBuildRows;
+  public String directory;
+  public String prefix;
+  public SpillCodec spillCodec;
+
+  /** The build rows held in memory */
+  public HashJoinTable table;
+
+  /** The partitions of both streams on disk, null as long as the build rows fit in memory */
+  public HashJoinPartitions partitions;
+
+  /** All the partitions with files on disk, to clean up */
+  public List<HashJoinPartitions> openPartitions;
+
+  /** Default initializer */
+  public HashJoinData() {
+    super();
+    openPartitions = new ArrayList<>();
+  }
+}
@@ -0,0 +1,395 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.pipeline.transforms.hashjoin;
+
+import org.apache.hop.core.Const;
+import org.apache.hop.core.exception.HopException;
+import org.apache.hop.core.row.IRowMeta;
+import org.apache.hop.core.util.Utils;
+import org.apache.hop.core.variables.IVariables;
+import org.apache.hop.i18n.BaseMessages;
+import org.apache.hop.pipeline.PipelineMeta;
+import org.apache.hop.pipeline.transform.BaseTransformMeta;
+import org.apache.hop.pipeline.transform.ITransformDialog;
+import org.apache.hop.pipeline.transform.TransformMeta;
+import org.apache.hop.ui.core.PropsUi;
+import org.apache.hop.ui.core.dialog.BaseDialog;
+import org.apache.hop.ui.core.dialog.ErrorDialog;
+import org.apache.hop.ui.core.widget.ColumnInfo;
+import org.apache.hop.ui.core.widget.TableView;
+import org.apache.hop.ui.core.widget.TextVar;
+import org.apache.hop.ui.pipeline.transform.BaseTransformDialog;
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.custom.CCombo;
+import org.eclipse.swt.events.ModifyListener;
+import org.eclipse.swt.layout.FormAttachment;
+import org.eclipse.swt.layout.FormData;
+import org.eclipse.swt.layout.FormLayout;
+import org.eclipse.swt.widgets.Button;
+import org.eclipse.swt.widgets.Label;
+import org.eclipse.swt.widgets.Shell;
+import org.eclipse.swt.widgets.TableItem;
+import org.eclipse.swt.widgets.Text;
+
+public class HashJoinDialog extends BaseTransformDialog implements ITransformDialog {
+  private static final Class<?> PKG = HashJoinMeta.class; // For Translator
+
+  private CCombo wBuildTransform;
+
+  private CCombo wType;
+
+  private TextVar wMaxBuildRows;
+
+  private TextVar wDirectory;
+
+  private TextVar wPrefix;
+
+  private Button wCompress;
+
+  private TableView wKeys;
+
+  private final HashJoinMeta input;
+
+  public HashJoinDialog(
+      Shell parent, IVariables variables, Object in, PipelineMeta tr, String sname) {
+    super(parent, variables, (BaseTransformMeta) in, tr, sname);
+    input = (HashJoinMeta) in;
+  }
+
+  @Override
+  public String open() {
+    Shell parent = getParent();
+
+    shell = new Shell(parent, SWT.DIALOG_TRIM | SWT.RESIZE | SWT.MIN | SWT.MAX);
+    PropsUi.setLook(shell);
+    setShellImage(shell, input);
+
+    ModifyListener lsMod = e -> input.setChanged();
+    backupChanged = input.hasChanged();
+
+    FormLayout formLayout = new FormLayout();
+    formLayout.marginWidth = PropsUi.getFormMargin();
+    formLayout.marginHeight = PropsUi.getFormMargin();
+
+    shell.setLayout(formLayout);
+    shell.setText(BaseMessages.getString(PKG, "HashJoinDialog.Shell.Label"));
+
+    int middle = props.getMiddlePct();
+    int margin = props.getMargin();
+
+    // TransformName line
+    wlTransformName = new Label(shell, SWT.RIGHT);
+    wlTransformName.setText(BaseMessages.getString(PKG, "HashJoinDialog.TransformName.Label"));
+    PropsUi.setLook(wlTransformName);
+    fdlTransformName = new FormData();
+    fdlTransformName.left = new FormAttachment(0, 0);
+    fdlTransformName.right = new FormAttachment(middle, -margin);
+    fdlTransformName.top = new FormAttachment(0, margin);
+    wlTransformName.setLayoutData(fdlTransformName);
+    wTransformName = new Text(shell, SWT.SINGLE | SWT.LEFT | SWT.BORDER);
+    wTransformName.setText(transformName);
+    PropsUi.setLook(wTransformName);
+    wTransformName.addModifyListener(lsMod);
+    fdTransformName = new FormData();
+    fdTransformName.left = new FormAttachment(middle, 0);
+    fdTransformName.top = new FormAttachment(0, margin);
+    fdTransformName.right = new FormAttachment(100, 0);
+    wTransformName.setLayoutData(fdTransformName);
+
+    // Get the previous transforms...
+    String[] previousTransforms = pipelineMeta.getPrevTransformNames(transformName);
+
+    // The build transform
+    Label wlBuildTransform = new Label(shell, SWT.RIGHT);
+    wlBuildTransform.setText(BaseMessages.getString(PKG, "HashJoinDialog.BuildTransform.Label"));
+    PropsUi.setLook(wlBuildTransform);
+    FormData fdlBuildTransform = new FormData();
+    fdlBuildTransform.left = new FormAttachment(0, 0);
+    fdlBuildTransform.right = new FormAttachment(middle, -margin);
+    fdlBuildTransform.top = new FormAttachment(wTransformName, margin);
+    wlBuildTransform.setLayoutData(fdlBuildTransform);
+    wBuildTransform = new CCombo(shell, SWT.BORDER);
+    PropsUi.setLook(wBuildTransform);
+
+    if (previousTransforms != null) {
+      wBuildTransform.setItems(previousTransforms);
+    }
+
+    wBuildTransform.addModifyListener(lsMod);
+    FormData fdBuildTransform = new FormData();
+    fdBuildTransform.left = new FormAttachment(middle, 0);
+    fdBuildTransform.top = new FormAttachment(wTransformName, margin);
+    fdBuildTransform.right = new FormAttachment(100, 0);
+    wBuildTransform.setLayoutData(fdBuildTransform);
+
+    // Join type
+    Label wlType = new Label(shell, SWT.RIGHT);
+    wlType.setText(BaseMessages.getString(PKG, "HashJoinDialog.Type.Label"));
+    PropsUi.setLook(wlType);
+    FormData fdlType = new FormData();
+    fdlType.left = new FormAttachment(0, 0);
+    fdlType.right = new FormAttachment(middle, -margin);
+    fdlType.top = new FormAttachment(wBuildTransform, margin);
+    wlType.setLayoutData(fdlType);
+    wType = new CCombo(shell, SWT.BORDER);
+    PropsUi.setLook(wType);
+
+    wType.setItems(HashJoinMeta.joinTypes);
+
+    wType.addModifyListener(lsMod);
+    FormData fdType = new FormData();
+    fdType.top = new FormAttachment(wBuildTransform, margin);
+    fdType.left = new FormAttachment(middle, 0);
+    fdType.right = new FormAttachment(100, 0);
+    wType.setLayoutData(fdType);
+
+    // The maximum number of build rows in memory
+    Label wlMaxBuildRows = new Label(shell, SWT.RIGHT);
+    wlMaxBuildRows.setText(BaseMessages.getString(PKG, "HashJoinDialog.MaxBuildRows.Label"));
+    PropsUi.setLook(wlMaxBuildRows);
+    FormData fdlMaxBuildRows = new FormData();
+    fdlMaxBuildRows.left = new FormAttachment(0, 0);
+    fdlMaxBuildRows.right = new FormAttachment(middle, -margin);
+    fdlMaxBuildRows.top = new FormAttachment(wType, margin);
+    wlMaxBuildRows.setLayoutData(fdlMaxBuildRows);
+    wMaxBuildRows = new TextVar(variables, shell, SWT.SINGLE | SWT.LEFT | SWT.BORDER);
+    wMaxBuildRows.setToolTipText(
+        BaseMessages.getString(PKG, "HashJoinDialog.MaxBuildRows.Tooltip"));
+    PropsUi.setLook(wMaxBuildRows);
+    wMaxBuildRows.addModifyListener(lsMod);
+    FormData fdMaxBuildRows = new FormData();
+    fdMaxBuildRows.left = new FormAttachment(middle, 0);
+    fdMaxBuildRows.top = new FormAttachment(wType, margin);
+    fdMaxBuildRows.right = new FormAttachment(100, 0);
+    wMaxBuildRows.setLayoutData(fdMaxBuildRows);
+
+    // Temp directory for the partitions
+    Label wlDirectory = new Label(shell, SWT.RIGHT);
+    wlDirectory.setText(BaseMessages.getString(PKG, "HashJoinDialog.Directory.Label"));
+    PropsUi.setLook(wlDirectory);
+    FormData fdlDirectory = new FormData();
+    fdlDirectory.left = new FormAttachment(0, 0);
+    fdlDirectory.right = new FormAttachment(middle, -margin);
+    fdlDirectory.top = new FormAttachment(wMaxBuildRows, margin);
+    wlDirectory.setLayoutData(fdlDirectory);
+
+    Button wbDirectory = new Button(shell, SWT.PUSH | SWT.CENTER);
+    PropsUi.setLook(wbDirectory);
+    wbDirectory.setText(BaseMessages.getString(PKG, "System.Button.Browse"));
+    FormData fdbDirectory = new FormData();
+    fdbDirectory.right = new FormAttachment(100, 0);
+    fdbDirectory.top = new FormAttachment(wMaxBuildRows, margin);
+    wbDirectory.setLayoutData(fdbDirectory);
+
+    wDirectory = new TextVar(variables, shell, SWT.SINGLE | SWT.LEFT | SWT.BORDER);
+    PropsUi.setLook(wDirectory);
+    wDirectory.addModifyListener(lsMod);
+    FormData fdDirectory = new FormData();
+    fdDirectory.left = new FormAttachment(middle, 0);
+    fdDirectory.top = new FormAttachment(wMaxBuildRows, margin);
+    fdDirectory.right = new FormAttachment(wbDirectory, -margin);
+    wDirectory.setLayoutData(fdDirectory);
+
+    wbDirectory.addListener(
+        SWT.Selection, e -> BaseDialog.presentDirectoryDialog(shell, wDirectory, variables));
+
+    // Prefix of the temp files
+    Label wlPrefix = new Label(shell, SWT.RIGHT);
+    wlPrefix.setText(BaseMessages.getString(PKG, "HashJoinDialog.Prefix.Label"));
+    PropsUi.setLook(wlPrefix);
+    FormData fdlPrefix = new FormData();
+    fdlPrefix.left = new FormAttachment(0, 0);
+    fdlPrefix.right = new FormAttachment(middle, -margin);
+    fdlPrefix.top = new FormAttachment(wbDirectory, margin);
+    wlPrefix.setLayoutData(fdlPrefix);
+    wPrefix = new TextVar(variables, shell, SWT.SINGLE | SWT.LEFT | SWT.BORDER);
+    PropsUi.setLook(wPrefix);
+    wPrefix.addModifyListener(lsMod);
+    FormData fdPrefix = new FormData();
+    fdPrefix.left = new FormAttachment(middle, 0);
+    fdPrefix.top = new FormAttachment(wbDirectory, margin);
+    fdPrefix.right = new FormAttachment(100, 0);
+    wPrefix.setLayoutData(fdPrefix);
+
+    // Compress the temp files?
+    Label wlCompress = new Label(shell, SWT.RIGHT);
+    wlCompress.setText(BaseMessages.getString(PKG, "HashJoinDialog.Compress.Label"));
+    PropsUi.setLook(wlCompress);
+    FormData fdlCompress = new FormData();
+    fdlCompress.left = new FormAttachment(0, 0);
+    fdlCompress.right = new FormAttachment(middle, -margin);
+    fdlCompress.top = new FormAttachment(wPrefix, margin);
+    wlCompress.setLayoutData(fdlCompress);
+    wCompress = new Button(shell, SWT.CHECK);
+    PropsUi.setLook(wCompress);
+    FormData fdCompress = new FormData();
+    fdCompress.left = new FormAttachment(middle, 0);
+    fdCompress.top = new FormAttachment(wlCompress, 0, SWT.CENTER);
+    fdCompress.right = new FormAttachment(100, 0);
+    wCompress.setLayoutData(fdCompress);
+    wCompress.addListener(SWT.Selection, e -> input.setChanged());
+
+    // Some buttons at the bottom
+    //
+    wOk = new Button(shell, SWT.PUSH);
+    wOk.setText(BaseMessages.getString(PKG, "System.Button.OK"));
+    wOk.addListener(SWT.Selection, e -> ok());
+    wGet = new Button(shell, SWT.PUSH);
+    wGet.setText(BaseMessages.getString(PKG, "HashJoinDialog.GetFields.Button"));
+    wGet.addListener(SWT.Selection, e -> getKeys());
+    wCancel = new Button(shell, SWT.PUSH);
+    wCancel.setText(BaseMessages.getString(PKG, "System.Button.Cancel"));
+    wCancel.addListener(SWT.Selection, e -> cancel());
+    setButtonPositions(new Button[] {wOk, wGet, wCancel}, margin, null);
+
+    // The keys to match, between the options and the buttons
+    //
+    Label wlKeys = new Label(shell, SWT.NONE);
+    wlKeys.setText(BaseMessages.getString(PKG, "HashJoinDialog.Keys.Label"));
+    PropsUi.setLook(wlKeys);
+    FormData fdlKeys = new FormData();
+    fdlKeys.left = new FormAttachment(0, 0);
+    fdlKeys.top = new FormAttachment(wCompress, margin);
+    wlKeys.setLayoutData(fdlKeys);
+
+    int nrKeyRows = input.getKeyFields().size();
+
+    ColumnInfo[] ciKeys =
+        new ColumnInfo[] {
+          new ColumnInfo(
+              BaseMessages.getString(PKG, "HashJoinDialog.ColumnInfo.ProbeField"),
+              ColumnInfo.COLUMN_TYPE_TEXT,
+              false),
+          new ColumnInfo(
+              BaseMessages.getString(PKG, "HashJoinDialog.ColumnInfo.BuildField"),
+              ColumnInfo.COLUMN_TYPE_TEXT,
+              false),
+        };
+
+    wKeys =
+        new TableView(
+            variables,
+            shell,
+            SWT.BORDER | SWT.FULL_SELECTION | SWT.MULTI | SWT.V_SCROLL | SWT.H_SCROLL,
+            ciKeys,
+            nrKeyRows,
+            lsMod,
+            props);
+    FormData fdKeys = new FormData();
+    fdKeys.top = new FormAttachment(wlKeys, margin);
+    fdKeys.left = new FormAttachment(0, 0);
+    fdKeys.bottom = new FormAttachment(wOk, -2 * margin);
+    fdKeys.right = new FormAttachment(100, 0);
+    wKeys.setLayoutData(fdKeys);
+
+    getData();
+    input.setChanged(backupChanged);
+
+    BaseDialog.defaultShellHandling(shell, c -> ok(), c -> cancel());
+
+    return transformName;
+  }
+
+  /** Copy information from the meta-data input to the dialog fields. */
+  public void getData() {
+    wBuildTransform.setText(
+        Const.NVL(input.getTransformIOMeta().getInfoStreams().get(0).getTransformName(), ""));
+    String joinType = input.getJoinType();
+    if (joinType != null && joinType.length() > 0) {
+      wType.setText(joinType);
+    } else {
+      wType.setText(HashJoinMeta.joinTypes[0]);
+    }
+    wMaxBuildRows.setText(Const.NVL(input.getMaxBuildRows(), ""));
+    wDirectory.setText(Const.NVL(input.getDirectory(), ""));
+    wPrefix.setText(Const.NVL(input.getPrefix(), ""));
+    wCompress.setSelection(input.isCompressFiles());
+
+    for (int i = 0; i < input.getKeyFields().size(); i++) {
+      HashJoinKeyField keyField = input.getKeyFields().get(i);
+      TableItem item = wKeys.table.getItem(i);
+      item.setText(1, Const.NVL(keyField.getProbeField(), ""));
+      item.setText(2, Const.NVL(keyField.getBuildField(), ""));
+    }
+    wKeys.optimizeTableView();
+
+    wTransformName.selectAll();
+    wTransformName.setFocus();
+  }
+
+  private void cancel() {
+    transformName = null;
+    input.setChanged(backupChanged);
+    dispose();
+  }
+
+  private void getMeta(HashJoinMeta meta) {
+    meta.setBuildTransformName(wBuildTransform.getText());
+    meta.getTransformIOMeta()
+        .getInfoStreams()
+        .get(0)
+        .setTransformMeta(pipelineMeta.findTransform(wBuildTransform.getText()));
+    meta.setJoinType(wType.getText());
+    meta.setMaxBuildRows(wMaxBuildRows.getText());
+    meta.setDirectory(wDirectory.getText());
+    meta.setPrefix(wPrefix.getText());
+    meta.setCompressFiles(wCompress.getSelection());
+
+    meta.getKeyFields().clear();
+    for (TableItem item : wKeys.getNonEmptyItems()) {
+      meta.getKeyFields().add(new HashJoinKeyField(item.getText(1), item.getText(2)));
+    }
+  }
+
+  private void ok() {
+    if (Utils.isEmpty(wTransformName.getText())) {
+      return;
+    }
+
+    getMeta(input);
+
+    transformName = wTransformName.getText(); // return value
+
+    dispose();
+  }
+
+  /** Fill the keys with the probe stream fields, using the same names for the build stream. */
+  private void getKeys() {
+    try {
+      IRowMeta probeRowMeta = null;
+      String buildTransformName = wBuildTransform.getText();
+      for (TransformMeta previous :
+          pipelineMeta.findPreviousTransforms(pipelineMeta.findTransform(transformName), false)) {
+        if (!previous.getName().equalsIgnoreCase(buildTransformName)) {
+          probeRowMeta = pipelineMeta.getTransformFields(variables, previous);
+          break;
+        }
+      }
+      if (probeRowMeta != null) {
+        BaseTransformDialog.getFieldsFromPrevious(
+            probeRowMeta, wKeys, 1, new int[] {1, 2}, new int[] {}, -1, -1, null);
+      }
+    } catch (HopException e) {
+      new ErrorDialog(
+          shell,
+          BaseMessages.getString(PKG, "HashJoinDialog.ErrorGettingFields.DialogTitle"),
+          BaseMessages.getString(PKG, "HashJoinDialog.ErrorGettingFields.DialogMessage"),
+          e);
+    }
+  }
+}
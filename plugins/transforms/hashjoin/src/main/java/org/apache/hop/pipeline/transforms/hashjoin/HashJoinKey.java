@@ -0,0 +1,123 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.pipeline.transforms.hashjoin;
+
+import org.apache.hop.core.exception.HopValueException;
+import org.apache.hop.core.row.IValueMeta;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * The key values of a row of the build or the probe stream. The values are in normal storage and
+ * of the type of the build stream key fields, so keys of both streams can be compared and produce
+ * the same hash code.
+ *
+ * <p>As in SQL, a key with a null value doesn't match any other key, not even itself.
+ */
+public final class HashJoinKey {
+  private final IValueMeta[] valueMetas;
+  private final Object[] values;
+  private final boolean nullKey;
+  private final int hash;
+
+  /**
+   * @param valueMetas The metadata of the key values, in normal storage
+   * @param values The key values
+   */
+  public HashJoinKey(IValueMeta[] valueMetas, Object[] values) throws HopValueException {
+    this.valueMetas = valueMetas;
+    this.values = values;
+
+    boolean anyNull = false;
+    int h = 1;
+    for (int i = 0; i < values.length; i++) {
+      if (valueMetas[i].isNull(values[i])) {
+        anyNull = true;
+        break;
+      }
+      h = 31 * h + hashValue(valueMetas[i], values[i]);
+    }
+    this.nullKey = anyNull;
+    this.hash = anyNull ? 0 : h;
+  }
+
+  /**
+   * Calculate a hash code which is consistent with {@link IValueMeta#compare(Object, Object)}: the
+   * comparison ignores the scale of big numbers, and depending on the metadata the case and
+   * surrounding whitespace of strings.
+   */
+  private static int hashValue(IValueMeta valueMeta, Object value) throws HopValueException {
+    if (value instanceof String) {
+      String string = (String) value;
+      if (valueMeta.isIgnoreWhitespace()) {
+        string = string.trim();
+      }
+      if (valueMeta.isCaseInsensitive()) {
+        string = string.toLowerCase(Locale.ROOT);
+      }
+      return string.hashCode();
+    }
+    if (value instanceof BigDecimal) {
+      BigDecimal number = (BigDecimal) value;
+      return number.signum() == 0 ? 0 : number.stripTrailingZeros().hashCode();
+    }
+    if (value instanceof byte[]) {
+      return Arrays.hashCode((byte[]) value);
+    }
+    return valueMeta.hashCode(value);
+  }
+
+  /** @return true if one of the key values is null: the key can't match anything */
+  public boolean isNullKey() {
+    return nullKey;
+  }
+
+  /** @return The key values */
+  public Object[] getValues() {
+    return values;
+  }
+
+  @Override
+  public int hashCode() {
+    return hash;
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (!(obj instanceof HashJoinKey)) {
+      return false;
+    }
+    HashJoinKey other = (HashJoinKey) obj;
+    if (nullKey || other.nullKey || hash != other.hash) {
+      return false;
+    }
+    try {
+      for (int i = 0; i < values.length; i++) {
+        if (valueMetas[i].compare(values[i], other.values[i]) != 0) {
+          return false;
+        }
+      }
+      return true;
+    } catch (HopValueException e) {
+      throw new RuntimeException(
+          "Hash join: unable to compare keys because of a data conversion problem", e);
+    }
+  }
+}
@@ -0,0 +1,81 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.pipeline.transforms.hashjoin;
+
+import org.apache.hop.metadata.api.HopMetadataProperty;
+
+/** A pair of fields to join on: one of the probe (main) stream and one of the build stream. */
+public class HashJoinKeyField implements Cloneable {
+
+  @HopMetadataProperty(
+      key = "probe_field",
+      injectionKey = "PROBE_FIELD",
+      injectionKeyDescription = "HashJoin.Injection.PROBE_FIELD")
+  private String probeField;
+
+  @HopMetadataProperty(
+      key = "build_field",
+      injectionKey = "BUILD_FIELD",
+      injectionKeyDescription = "HashJoin.Injection.BUILD_FIELD")
+  private String buildField;
+
+  public HashJoinKeyField() {}
+
+  public HashJoinKeyField(HashJoinKeyField f) {
+    this.probeField = f.probeField;
+    this.buildField = f.buildField;
+  }
+
+  public HashJoinKeyField(String probeField, String buildField) {
+    this.probeField = probeField;
+    this.buildField = buildField;
+  }
+
+  @Override
+  public HashJoinKeyField clone() {
+    return new HashJoinKeyField(this);
+  }
+
+  /**
+   * Gets probeField
+   *
+   * @return value of probeField
+   */
+  public String getProbeField() {
+    return probeField;
+  }
+
+  /** @param probeField The probeField to set */
+  public void setProbeField(String probeField) {
+    this.probeField = probeField;
+  }
+
+  /**
+   * Gets buildField
+   *
+   * @return value of buildField
+   */
+  public String getBuildField() {
+    return buildField;
+  }
+
+  /** @param buildField The buildField to set */
+  public void setBuildField(String buildField) {
+    this.buildField = buildField;
+  }
+}
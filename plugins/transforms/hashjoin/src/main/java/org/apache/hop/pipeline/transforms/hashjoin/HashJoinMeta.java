@@ -0,0 +1,370 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.pipeline.transforms.hashjoin;
+
+import org.apache.hop.core.CheckResult;
+import org.apache.hop.core.Const;
+import org.apache.hop.core.ICheckResult;
+import org.apache.hop.core.annotations.Transform;
+import org.apache.hop.core.exception.HopTransformException;
+import org.apache.hop.core.row.IRowMeta;
+import org.apache.hop.core.row.IValueMeta;
+import org.apache.hop.core.util.Utils;
+import org.apache.hop.core.variables.IVariables;
+import org.apache.hop.i18n.BaseMessages;
+import org.apache.hop.metadata.api.HopMetadataProperty;
+import org.apache.hop.metadata.api.IHopMetadataProvider;
+import org.apache.hop.pipeline.PipelineMeta;
+import org.apache.hop.pipeline.PipelineMeta.PipelineType;
+import org.apache.hop.pipeline.transform.BaseTransformMeta;
+import org.apache.hop.pipeline.transform.ITransformIOMeta;
+import org.apache.hop.pipeline.transform.TransformIOMeta;
+import org.apache.hop.pipeline.transform.TransformMeta;
+import org.apache.hop.pipeline.transform.stream.IStream;
+import org.apache.hop.pipeline.transform.stream.IStream.StreamType;
+import org.apache.hop.pipeline.transform.stream.Stream;
+import org.apache.hop.pipeline.transform.stream.StreamIcon;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Transform(
+    id = "HashJoin",
+    image = "hashjoin.svg",
+    name = "i18n::HashJoin.Name",
+    description = "i18n::HashJoin.Description",
+    categoryDescription = "i18n:org.apache.hop.pipeline.transform:BaseTransform.Category.Joins",
+    keywords = "i18n::HashJoinMeta.keyword",
+    documentationUrl = "/pipeline/transforms/hashjoin.html")
+public class HashJoinMeta extends BaseTransformMeta<HashJoin, HashJoinData> {
+  private static final Class<?> PKG = HashJoinMeta.class; // For Translator
+
+  public static final String[] joinTypes = {"INNER", "LEFT OUTER", "RIGHT OUTER", "FULL OUTER"};
+
+  /** Per join type: pass the rows of the probe (main) stream without a match */
+  public static final boolean[] probeOptionals = {false, true, false, true};
+
+  /** Per join type: pass the rows of the build stream without a match */
+  public static final boolean[] buildOptionals = {false, false, true, true};
+
+  @HopMetadataProperty(
+      key = "join_type",
+      injectionKey = "JOIN_TYPE",
+      injectionKeyDescription = "HashJoin.Injection.JOIN_TYPE")
+  private String joinType;
+
+  @HopMetadataProperty(
+      key = "build_transform",
+      injectionKey = "BUILD_TRANSFORM",
+      injectionKeyDescription = "HashJoin.Injection.BUILD_TRANSFORM")
+  private String buildTransformName;
+
+  @HopMetadataProperty(
+      groupKey = "keys",
+      key = "key",
+      injectionGroupKey = "KEYS",
+      injectionGroupDescription = "HashJoin.Injection.KEYS")
+  private List<HashJoinKeyField> keyFields;
+
+  @HopMetadataProperty(
+      key = "max_build_rows",
+      injectionKey = "MAX_BUILD_ROWS",
+      injectionKeyDescription = "HashJoin.Injection.MAX_BUILD_ROWS")
+  private String maxBuildRows;
+
+  @HopMetadataProperty(
+      key = "directory",
+      injectionKey = "DIRECTORY",
+      injectionKeyDescription = "HashJoin.Injection.DIRECTORY")
+  private String directory;
+
+  @HopMetadataProperty(
+      key = "prefix",
+      injectionKey = "PREFIX",
+      injectionKeyDescription = "HashJoin.Injection.PREFIX")
+  private String prefix;
+
+  @HopMetadataProperty(
+      key = "compress",
+      injectionKey = "COMPRESS",
+      injectionKeyDescription = "HashJoin.Injection.COMPRESS")
+  private boolean compressFiles;
+
+  public HashJoinMeta() {
+    keyFields = new ArrayList<>();
+  }
+
+  @Override
+  public HashJoinMeta clone() {
+    // Keeps a copy of the info stream
+    HashJoinMeta meta = (HashJoinMeta) super.clone();
+    meta.keyFields = new ArrayList<>();
+    for (HashJoinKeyField keyField : keyFields) {
+      meta.keyFields.add(new HashJoinKeyField(keyField));
+    }
+    return meta;
+  }
+
+  @Override
+  public void setDefault() {
+    joinType = joinTypes[0];
+    keyFields = new ArrayList<>();
+    maxBuildRows = "1000000";
+    directory = "${java.io.tmpdir}";
+    prefix = "hashjoin";
+    compressFiles = false;
+  }
+
+  @Override
+  public boolean excludeFromRowLayoutVerification() {
+    return true;
+  }
+
+  @Override
+  public void searchInfoAndTargetTransforms(List<TransformMeta> transforms) {
+    IStream infoStream = getTransformIOMeta().getInfoStreams().get(0);
+    infoStream.setTransformMeta(TransformMeta.findTransform(transforms, buildTransformName));
+  }
+
+  @Override
+  public void getFields(
+      IRowMeta r,
+      String name,
+      IRowMeta[] info,
+      TransformMeta nextTransform,
+      IVariables variables,
+      IHopMetadataProvider metadataProvider)
+      throws HopTransformException {
+    // The rows of the probe (main) stream followed by those of the build stream
+    //
+    if (info != null && info.length > 0 && info[0] != null) {
+      r.mergeRowMeta(info[0], name);
+    }
+
+    for (int i = 0; i < r.size(); i++) {
+      IValueMeta vmi = r.getValueMeta(i);
+      if (vmi != null && Utils.isEmpty(vmi.getName())) {
+        vmi.setOrigin(name);
+      }
+    }
+  }
+
+  @Override
+  public void check(
+      List<ICheckResult> remarks,
+      PipelineMeta pipelineMeta,
+      TransformMeta transformMeta,
+      IRowMeta prev,
+      String[] input,
+      String[] output,
+      IRowMeta info,
+      IVariables variables,
+      IHopMetadataProvider metadataProvider) {
+    CheckResult cr;
+
+    IStream infoStream = getTransformIOMeta().getInfoStreams().get(0);
+    if (infoStream.getTransformMeta() == null) {
+      cr =
+          new CheckResult(
+              ICheckResult.TYPE_RESULT_ERROR,
+              BaseMessages.getString(PKG, "HashJoinMeta.CheckResult.BuildTransformMissing"),
+              transformMeta);
+    } else {
+      cr =
+          new CheckResult(
+              ICheckResult.TYPE_RESULT_OK,
+              BaseMessages.getString(
+                  PKG,
+                  "HashJoinMeta.CheckResult.BuildTransformFound",
+                  infoStream.getTransformName()),
+              transformMeta);
+    }
+    remarks.add(cr);
+
+    if (Const.indexOfString(joinType, joinTypes) < 0) {
+      cr =
+          new CheckResult(
+              ICheckResult.TYPE_RESULT_ERROR,
+              BaseMessages.getString(PKG, "HashJoinMeta.CheckResult.InvalidJoinType", joinType),
+              transformMeta);
+      remarks.add(cr);
+    }
+
+    if (keyFields.isEmpty()) {
+      cr =
+          new CheckResult(
+              ICheckResult.TYPE_RESULT_ERROR,
+              BaseMessages.getString(PKG, "HashJoinMeta.CheckResult.NoKeys"),
+              transformMeta);
+      remarks.add(cr);
+      return;
+    }
+
+    for (HashJoinKeyField keyField : keyFields) {
+      if (prev != null && prev.indexOfValue(keyField.getProbeField()) < 0) {
+        cr =
+            new CheckResult(
+                ICheckResult.TYPE_RESULT_ERROR,
+                BaseMessages.getString(
+                    PKG, "HashJoinMeta.CheckResult.ProbeFieldMissing", keyField.getProbeField()),
+                transformMeta);
+        remarks.add(cr);
+      }
+      if (info != null && info.indexOfValue(keyField.getBuildField()) < 0) {
+        cr =
+            new CheckResult(
+                ICheckResult.TYPE_RESULT_ERROR,
+                BaseMessages.getString(
+                    PKG, "HashJoinMeta.CheckResult.BuildFieldMissing", keyField.getBuildField()),
+                transformMeta);
+        remarks.add(cr);
+      }
+    }
+  }
+
+  /** Returns the Input/Output metadata for this transform: the build stream is an info stream. */
+  @Override
+  public ITransformIOMeta getTransformIOMeta() {
+    ITransformIOMeta ioMeta = super.getTransformIOMeta(false);
+    if (ioMeta == null) {
+
+      ioMeta = new TransformIOMeta(true, true, false, false, false, false);
+
+      ioMeta.addStream(
+          new Stream(
+              StreamType.INFO,
+              null,
+              BaseMessages.getString(PKG, "HashJoinMeta.InfoStream.Description"),
+              StreamIcon.INFO,
+              null));
+      setTransformIOMeta(ioMeta);
+    }
+
+    return ioMeta;
+  }
+
+  @Override
+  public void resetTransformIoMeta() {
+    // Don't reset!
+  }
+
+  @Override
+  public PipelineType[] getSupportedPipelineTypes() {
+    return new PipelineType[] {
+      PipelineType.Normal,
+    };
+  }
+
+  /**
+   * Gets joinType
+   *
+   * @return value of joinType
+   */
+  public String getJoinType() {
+    return joinType;
+  }
+
+  /** @param joinType The joinType to set */
+  public void setJoinType(String joinType) {
+    this.joinType = joinType;
+  }
+
+  /**
+   * Gets buildTransformName
+   *
+   * @return value of buildTransformName
+   */
+  public String getBuildTransformName() {
+    return buildTransformName;
+  }
+
+  /** @param buildTransformName The buildTransformName to set */
+  public void setBuildTransformName(String buildTransformName) {
+    this.buildTransformName = buildTransformName;
+  }
+
+  /**
+   * Gets keyFields
+   *
+   * @return value of keyFields
+   */
+  public List<HashJoinKeyField> getKeyFields() {
+    return keyFields;
+  }
+
+  /** @param keyFields The keyFields to set */
+  public void setKeyFields(List<HashJoinKeyField> keyFields) {
+    this.keyFields = keyFields;
+  }
+
+  /**
+   * Gets maxBuildRows
+   *
+   * @return value of maxBuildRows
+   */
+  public String getMaxBuildRows() {
+    return maxBuildRows;
+  }
+
+  /** @param maxBuildRows The maxBuildRows to set */
+  public void setMaxBuildRows(String maxBuildRows) {
+    this.maxBuildRows = maxBuildRows;
+  }
+
+  /**
+   * Gets directory
+   *
+   * @return value of directory
+   */
+  public String getDirectory() {
+    return directory;
+  }
+
+  /** @param directory The directory to set */
+  public void setDirectory(String directory) {
+    this.directory = directory;
+  }
+
+  /**
+   * Gets prefix
+   *
+   * @return value of prefix
+   */
+  public String getPrefix() {
+    return prefix;
+  }
+
+  /** @param prefix The prefix to set */
+  public void setPrefix(String prefix) {
+    this.prefix = prefix;
+  }
+
+  /**
+   * Gets compressFiles
+   *
+   * @return value of compressFiles
+   */
+  public boolean isCompressFiles() {
+    return compressFiles;
+  }
+
+  /** @param compressFiles The compressFiles to set */
+  public void setCompressFiles(boolean compressFiles) {
+    this.compressFiles = compressFiles;
+  }
+}
@@ -0,0 +1,234 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.pipeline.transforms.hashjoin;
+
+import org.apache.commons.vfs2.FileObject;
+import org.apache.commons.vfs2.FileSystemException;
+import org.apache.hop.core.exception.HopException;
+import org.apache.hop.core.exception.HopFileException;
+import org.apache.hop.core.row.IRowMeta;
+import org.apache.hop.core.spill.SpillCodec;
+import org.apache.hop.core.spill.SpillWriter;
+import org.apache.hop.core.vfs.HopVfs;
+
+/**
+ * The partitions of the build and the probe stream written to disk when the build stream doesn't
+ * fit in memory (grace hash join). A row goes to the partition picked by the hash code of its key,
+ * so matching rows of both streams always end up in the same partition, and every partition can
+ * be joined on its own.
+ *
+ * <p>Every level of partitioning mixes the hash code differently, so that a partition which is
+ * still too large can be split again at the next level.
+ *
+ * <p>Build rows with a null key value can't match anything. They're kept in an extra file which is
+ * passed on without joining it.
+ */
+public class HashJoinPartitions {
+  public static final int NR_PARTITIONS = 32;
+
+  private final int level;
+  private final IRowMeta buildRowMeta;
+  private IRowMeta probeRowMeta;
+  private final String directory;
+  private final String prefix;
+  private final SpillCodec codec;
+
+  private final FileObject[] buildFiles = new FileObject[NR_PARTITIONS];
+  private final SpillWriter[] buildWriters = new SpillWriter[NR_PARTITIONS];
+  private final FileObject[] probeFiles = new FileObject[NR_PARTITIONS];
+  private final SpillWriter[] probeWriters = new SpillWriter[NR_PARTITIONS];
+  private FileObject unmatchableFile;
+  private SpillWriter unmatchableWriter;
+
+  /**
+   * @param level The level of partitioning, 0 for the partitions of the input streams
+   * @param buildRowMeta The layout of the build rows
+   * @param probeRowMeta The layout of the probe rows or null if it isn't known yet
+   * @param directory The directory to create the files in
+   * @param prefix The prefix of the file names
+   * @param codec The compression of the files
+   */
+  public HashJoinPartitions(
+      int level,
+      IRowMeta buildRowMeta,
+      IRowMeta probeRowMeta,
+      String directory,
+      String prefix,
+      SpillCodec codec) {
+    this.level = level;
+    this.buildRowMeta = buildRowMeta;
+    this.probeRowMeta = probeRowMeta;
+    this.directory = directory;
+    this.prefix = prefix;
+    this.codec = codec;
+  }
+
+  /**
+   * Pick the partition of a key hash code at the given level of partitioning.
+   *
+   * @param hash The hash code of the key
+   * @param level The level of partitioning
+   * @return The partition number
+   */
+  public static int getPartition(int hash, int level) {
+    // Mix the hash code with a different seed per level (MurmurHash3 finalizer)
+    //
+    int h = hash + level * 0x9E3779B9;
+    h ^= h >>> 16;
+    h *= 0x85EBCA6B;
+    h ^= h >>> 13;
+    h *= 0xC2B2AE35;
+    h ^= h >>> 16;
+    return (h & Integer.MAX_VALUE) % NR_PARTITIONS;
+  }
+
+  public void addBuildRow(HashJoinKey key, Object[] row) throws HopException {
+    if (key.isNullKey()) {
+      addUnmatchableBuildRow(row);
+      return;
+    }
+    int partition = getPartition(key.hashCode(), level);
+    if (buildWriters[partition] == null) {
+      buildFiles[partition] = createFile();
+      buildWriters[partition] = openWriter(buildRowMeta, buildFiles[partition]);
+    }
+    buildWriters[partition].writeRow(row);
+  }
+
+  /** Add a build row which can't match any probe row. */
+  public void addUnmatchableBuildRow(Object[] row) throws HopException {
+    if (unmatchableWriter == null) {
+      unmatchableFile = createFile();
+      unmatchableWriter = openWriter(buildRowMeta, unmatchableFile);
+    }
+    unmatchableWriter.writeRow(row);
+  }
+
+  /**
+   * Add a probe row. Probe rows with a null key value can't match anything and should be handled
+   * by the caller.
+   */
+  public void addProbeRow(HashJoinKey key, Object[] row) throws HopException {
+    int partition = getPartition(key.hashCode(), level);
+    if (probeWriters[partition] == null) {
+      probeFiles[partition] = createFile();
+      probeWriters[partition] = openWriter(probeRowMeta, probeFiles[partition]);
+    }
+    probeWriters[partition].writeRow(row);
+  }
+
+  private FileObject createFile() throws HopFileException {
+    return HopVfs.createTempFile(prefix, ".tmp", directory);
+  }
+
+  private SpillWriter openWriter(IRowMeta rowMeta, FileObject fileObject) throws HopException {
+    return new SpillWriter(rowMeta, HopVfs.getOutputStream(fileObject, false), codec);
+  }
+
+  /** Finish writing all the files, they can be read afterwards. */
+  public void closeWriters() throws HopFileException {
+    for (int i = 0; i < NR_PARTITIONS; i++) {
+      if (buildWriters[i] != null) {
+        buildWriters[i].close();
+        buildWriters[i] = null;
+      }
+      if (probeWriters[i] != null) {
+        probeWriters[i].close();
+        probeWriters[i] = null;
+      }
+    }
+    if (unmatchableWriter != null) {
+      unmatchableWriter.close();
+      unmatchableWriter = null;
+    }
+  }
+
+  /**
+   * Delete the files of a partition.
+   *
+   * @param partition The partition number
+   */
+  public void deletePartition(int partition) throws HopFileException {
+    buildFiles[partition] = delete(buildWriters[partition], buildFiles[partition]);
+    buildWriters[partition] = null;
+    probeFiles[partition] = delete(probeWriters[partition], probeFiles[partition]);
+    probeWriters[partition] = null;
+  }
+
+  /** Close and delete all the files which are left. */
+  public void deleteFiles() throws HopFileException {
+    for (int i = 0; i < NR_PARTITIONS; i++) {
+      deletePartition(i);
+    }
+    unmatchableFile = delete(unmatchableWriter, unmatchableFile);
+    unmatchableWriter = null;
+  }
+
+  private static FileObject delete(SpillWriter writer, FileObject fileObject)
+      throws HopFileException {
+    try {
+      if (writer != null) {
+        writer.close();
+      }
+    } finally {
+      if (fileObject != null) {
+        try {
+          fileObject.delete();
+        } catch (FileSystemException e) {
+          throw new HopFileException("Unable to delete hash join file " + fileObject, e);
+        }
+      }
+    }
+    return null;
+  }
+
+  /** @return The level of partitioning */
+  public int getLevel() {
+    return level;
+  }
+
+  /** @return The layout of the build rows */
+  public IRowMeta getBuildRowMeta() {
+    return buildRowMeta;
+  }
+
+  /** @return The layout of the probe rows */
+  public IRowMeta getProbeRowMeta() {
+    return probeRowMeta;
+  }
+
+  /** @param probeRowMeta The layout of the probe rows, set before adding the first probe row */
+  public void setProbeRowMeta(IRowMeta probeRowMeta) {
+    this.probeRowMeta = probeRowMeta;
+  }
+
+  /** @return The file with the build rows of a partition or null if it has none */
+  public FileObject getBuildFile(int partition) {
+    return buildFiles[partition];
+  }
+
+  /** @return The file with the probe rows of a partition or null if it has none */
+  public FileObject getProbeFile(int partition) {
+    return probeFiles[partition];
+  }
+
+  /** @return The file with the build rows with a null key value or null if there are none */
+  public FileObject getUnmatchableBuildFile() {
+    return unmatchableFile;
+  }
+}
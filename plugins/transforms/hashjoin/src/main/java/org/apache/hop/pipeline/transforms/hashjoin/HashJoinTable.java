@@ -0,0 +1,112 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.pipeline.transforms.hashjoin;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The in-memory hash table of the build stream rows. The rows are grouped per key, every group
+ * remembers whether a probe row matched it so that the unmatched build rows can be passed on for
+ * right and full outer joins. Rows with a null key value never match and are kept aside.
+ */
+public class HashJoinTable {
+
+  /** The build rows sharing the same key */
+  public static class Bucket {
+    private final HashJoinKey key;
+    private final List<Object[]> rows = new ArrayList<>(1);
+    private boolean matched;
+
+    public Bucket(HashJoinKey key) {
+      this.key = key;
+    }
+
+    public HashJoinKey getKey() {
+      return key;
+    }
+
+    public List<Object[]> getRows() {
+      return rows;
+    }
+
+    public boolean isMatched() {
+      return matched;
+    }
+
+    public void setMatched(boolean matched) {
+      this.matched = matched;
+    }
+  }
+
+  private final Map<HashJoinKey, Bucket> buckets = new HashMap<>();
+  private final List<Object[]> nullKeyRows = new ArrayList<>();
+  private long nrRows;
+
+  /**
+   * Add a row of the build stream.
+   *
+   * @param key The key of the row
+   * @param row The row
+   */
+  public void add(HashJoinKey key, Object[] row) {
+    if (key.isNullKey()) {
+      nullKeyRows.add(row);
+    } else {
+      buckets.computeIfAbsent(key, Bucket::new).rows.add(row);
+    }
+    nrRows++;
+  }
+
+  /**
+   * Find the build rows for the key of a probe row.
+   *
+   * @param key The key to look up
+   * @return The build rows with the same key or null if there are none
+   */
+  public Bucket find(HashJoinKey key) {
+    if (key.isNullKey()) {
+      return null;
+    }
+    return buckets.get(key);
+  }
+
+  /** @return The buckets of build rows with a key, to pass the unmatched rows on */
+  public Iterable<Bucket> getBuckets() {
+    return buckets.values();
+  }
+
+  /** @return The build rows with a null key value, they never match */
+  public List<Object[]> getNullKeyRows() {
+    return nullKeyRows;
+  }
+
+  /** @return The number of build rows in the table */
+  public long getNrRows() {
+    return nrRows;
+  }
+
+  /** Remove all the rows from the table */
+  public void clear() {
+    buckets.clear();
+    nullKeyRows.clear();
+    nrRows = 0;
+  }
+}
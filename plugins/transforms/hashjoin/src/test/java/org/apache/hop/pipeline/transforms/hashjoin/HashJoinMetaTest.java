@@ -0,0 +1,167 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.pipeline.transforms.hashjoin;
+
+import org.apache.hop.core.exception.HopException;
+import org.apache.hop.core.row.IRowMeta;
+import org.apache.hop.core.row.RowMetaBuilder;
+import org.apache.hop.core.xml.XmlHandler;
+import org.apache.hop.junit.rules.RestoreHopEngineEnvironment;
+import org.apache.hop.pipeline.transform.stream.IStream;
+import org.apache.hop.pipeline.transforms.loadsave.LoadSaveTester;
+import org.apache.hop.pipeline.transforms.loadsave.validator.IFieldLoadSaveValidator;
+import org.apache.hop.pipeline.transforms.loadsave.validator.ListLoadSaveValidator;
+import org.junit.ClassRule;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+
+public class HashJoinMetaTest {
+  @ClassRule public static RestoreHopEngineEnvironment env = new RestoreHopEngineEnvironment();
+
+  @Test
+  public void testSerialization() throws HopException {
+    List<String> attributes =
+        Arrays.asList(
+            "joinType",
+            "buildTransformName",
+            "keyFields",
+            "maxBuildRows",
+            "directory",
+            "prefix",
+            "compressFiles");
+
+    Map<String, IFieldLoadSaveValidator<?>> attrValidatorMap = new HashMap<>();
+    attrValidatorMap.put(
+        "keyFields", new ListLoadSaveValidator<>(new HashJoinKeyFieldLoadSaveValidator(), 3));
+
+    LoadSaveTester<HashJoinMeta> loadSaveTester =
+        new LoadSaveTester<>(
+            HashJoinMeta.class,
+            attributes,
+            new HashMap<>(),
+            new HashMap<>(),
+            attrValidatorMap,
+            new HashMap<>());
+    loadSaveTester.testSerialization();
+  }
+
+  @Test
+  public void testGetFields() throws Exception {
+    HashJoinMeta meta = new HashJoinMeta();
+    meta.setDefault();
+    meta.getKeyFields().add(new HashJoinKeyField("id", "id"));
+
+    IRowMeta rowMeta = new RowMetaBuilder().addInteger("id").addString("name").build();
+    IRowMeta[] info = {new RowMetaBuilder().addInteger("id").addString("value").build()};
+
+    meta.getFields(rowMeta, "Hash Join", info, null, null, null);
+
+    assertEquals(4, rowMeta.size());
+    assertEquals("id", rowMeta.getValueMeta(0).getName());
+    assertEquals("name", rowMeta.getValueMeta(1).getName());
+    assertEquals("id_1", rowMeta.getValueMeta(2).getName());
+    assertEquals("value", rowMeta.getValueMeta(3).getName());
+  }
+
+  @Test
+  public void testGetFieldsWithoutBuildStream() throws Exception {
+    HashJoinMeta meta = new HashJoinMeta();
+    meta.setDefault();
+
+    IRowMeta rowMeta = new RowMetaBuilder().addInteger("id").build();
+    meta.getFields(rowMeta, "Hash Join", new IRowMeta[] {null}, null, null, null);
+
+    assertEquals(1, rowMeta.size());
+  }
+
+  @Test
+  public void cloneTest() throws Exception {
+    HashJoinMeta meta = new HashJoinMeta();
+    meta.setDefault();
+    meta.setJoinType("LEFT OUTER");
+    meta.setBuildTransformName("Build");
+    meta.getKeyFields().add(new HashJoinKeyField("id", "key"));
+
+    HashJoinMeta aClone = meta.clone();
+    assertNotSame(meta, aClone);
+    assertEquals(meta.getJoinType(), aClone.getJoinType());
+    assertEquals(meta.getBuildTransformName(), aClone.getBuildTransformName());
+    assertEquals(meta.getMaxBuildRows(), aClone.getMaxBuildRows());
+    assertEquals(1, aClone.getKeyFields().size());
+    assertNotSame(meta.getKeyFields().get(0), aClone.getKeyFields().get(0));
+    assertEquals("id", aClone.getKeyFields().get(0).getProbeField());
+    assertEquals("key", aClone.getKeyFields().get(0).getBuildField());
+
+    List<IStream> infoStreams = meta.getTransformIOMeta().getInfoStreams();
+    List<IStream> cloneInfoStreams = aClone.getTransformIOMeta().getInfoStreams();
+    assertEquals(infoStreams.size(), cloneInfoStreams.size());
+    assertNotSame(infoStreams.get(0), cloneInfoStreams.get(0));
+  }
+
+  @Test
+  public void testXmlRoundTrip() throws Exception {
+    HashJoinMeta meta = new HashJoinMeta();
+    meta.setDefault();
+    meta.setJoinType("FULL OUTER");
+    meta.setBuildTransformName("Build");
+    meta.setMaxBuildRows("5000");
+    meta.setCompressFiles(true);
+    meta.getKeyFields().add(new HashJoinKeyField("id", "key"));
+    meta.getKeyFields().add(new HashJoinKeyField("code", "code"));
+
+    HashJoinMeta meta2 = new HashJoinMeta();
+    meta2.loadXml(XmlHandler.wrapLoadXmlString(meta.getXml()), null);
+
+    assertEquals(meta.getJoinType(), meta2.getJoinType());
+    assertEquals(meta.getBuildTransformName(), meta2.getBuildTransformName());
+    assertEquals(meta.getMaxBuildRows(), meta2.getMaxBuildRows());
+    assertEquals(meta.getDirectory(), meta2.getDirectory());
+    assertEquals(meta.getPrefix(), meta2.getPrefix());
+    assertEquals(meta.isCompressFiles(), meta2.isCompressFiles());
+    assertEquals(2, meta2.getKeyFields().size());
+    assertEquals("code", meta2.getKeyFields().get(1).getProbeField());
+    assertEquals("code", meta2.getKeyFields().get(1).getBuildField());
+  }
+
+  public static class HashJoinKeyFieldLoadSaveValidator
+      implements IFieldLoadSaveValidator<HashJoinKeyField> {
+    @Override
+    public HashJoinKeyField getTestObject() {
+      return new HashJoinKeyField(UUID.randomUUID().toString(), UUID.randomUUID().toString());
+    }
+
+    @Override
+    public boolean validateTestObject(HashJoinKeyField testObject, Object actual) {
+      if (!(actual instanceof HashJoinKeyField)) {
+        return false;
+      }
+      HashJoinKeyField other = (HashJoinKeyField) actual;
+      return Objects.equals(testObject.getProbeField(), other.getProbeField())
+          && Objects.equals(testObject.getBuildField(), other.getBuildField());
+    }
+  }
+}
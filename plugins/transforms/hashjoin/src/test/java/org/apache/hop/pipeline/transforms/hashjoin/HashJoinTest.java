@@ -0,0 +1,248 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.pipeline.transforms.hashjoin;
+
+import org.apache.hop.core.IRowSet;
+import org.apache.hop.core.exception.HopException;
+import org.apache.hop.core.exception.HopTransformException;
+import org.apache.hop.core.logging.ILoggingObject;
+import org.apache.hop.core.row.IRowMeta;
+import org.apache.hop.core.row.RowMetaBuilder;
+import org.apache.hop.junit.rules.RestoreHopEngineEnvironment;
+import org.apache.hop.pipeline.Pipeline;
+import org.apache.hop.pipeline.PipelineMeta;
+import org.apache.hop.pipeline.transform.TransformMeta;
+import org.apache.hop.pipeline.transforms.mock.TransformMockHelper;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.ClassRule;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class HashJoinTest {
+  @ClassRule public static RestoreHopEngineEnvironment env = new RestoreHopEngineEnvironment();
+
+  @Rule public TemporaryFolder tempFolder = new TemporaryFolder();
+
+  private TransformMockHelper<HashJoinMeta, HashJoinData> mockHelper;
+
+  private final IRowMeta probeRowMeta =
+      new RowMetaBuilder().addInteger("id").addString("name").build();
+  private final IRowMeta buildRowMeta =
+      new RowMetaBuilder().addInteger("key").addString("value").build();
+
+  /** Reads the rows from lists and collects the output rows. */
+  private class HashJoinHandler extends HashJoin {
+    private final Iterator<Object[]> probeRows;
+    private final Iterator<Object[]> buildRows;
+    private final IRowSet buildRowSet = mock(IRowSet.class);
+    private final List<Object[]> outputRows = new ArrayList<>();
+
+    HashJoinHandler(
+        TransformMeta transformMeta,
+        HashJoinMeta meta,
+        HashJoinData data,
+        PipelineMeta pipelineMeta,
+        Pipeline pipeline,
+        List<Object[]> probeRows,
+        List<Object[]> buildRows) {
+      super(transformMeta, meta, data, 0, pipelineMeta, pipeline);
+      this.probeRows = probeRows.iterator();
+      this.buildRows = buildRows.iterator();
+      when(buildRowSet.getRowMeta()).thenReturn(buildRowMeta);
+    }
+
+    @Override
+    public IRowSet findInputRowSet(String sourceTransformName) throws HopTransformException {
+      return "Build".equals(sourceTransformName) ? buildRowSet : null;
+    }
+
+    @Override
+    public Object[] getRowFrom(IRowSet rowSet) throws HopTransformException {
+      return buildRows.hasNext() ? buildRows.next() : null;
+    }
+
+    @Override
+    public Object[] getRow() throws HopException {
+      setInputRowMeta(probeRowMeta);
+      return probeRows.hasNext() ? probeRows.next() : null;
+    }
+
+    @Override
+    public void putRow(IRowMeta rowMeta, Object[] row) throws HopTransformException {
+      outputRows.add(row);
+    }
+  }
+
+  @Before
+  public void setUp() {
+    mockHelper = new TransformMockHelper<>("Hash Join", HashJoinMeta.class, HashJoinData.class);
+    when(mockHelper.logChannelFactory.create(any(), any(ILoggingObject.class)))
+        .thenReturn(mockHelper.iLogChannel);
+    when(mockHelper.pipeline.isRunning()).thenReturn(true);
+  }
+
+  @After
+  public void tearDown() {
+    mockHelper.cleanUp();
+  }
+
+  private List<Object[]> join(
+      String joinType, String maxBuildRows, List<Object[]> probeRows, List<Object[]> buildRows)
+      throws HopException {
+    TransformMeta buildTransformMeta = mock(TransformMeta.class);
+    when(buildTransformMeta.getName()).thenReturn("Build");
+
+    HashJoinMeta meta = new HashJoinMeta();
+    meta.setDefault();
+    meta.setJoinType(joinType);
+    meta.setMaxBuildRows(maxBuildRows);
+    meta.setDirectory(tempFolder.getRoot().getAbsolutePath());
+    meta.getKeyFields().add(new HashJoinKeyField("id", "key"));
+    meta.getTransformIOMeta().getInfoStreams().get(0).setTransformMeta(buildTransformMeta);
+
+    HashJoinHandler hashJoin =
+        new HashJoinHandler(
+            mockHelper.transformMeta,
+            meta,
+            new HashJoinData(),
+            mockHelper.pipelineMeta,
+            mockHelper.pipeline,
+            probeRows,
+            buildRows);
+    assertTrue(hashJoin.init());
+    while (hashJoin.processRow()) {
+      // Keep joining
+    }
+    hashJoin.dispose();
+    return hashJoin.outputRows;
+  }
+
+  private static List<Object[]> probeRows() {
+    return Arrays.asList(
+        new Object[] {1L, "one"},
+        new Object[] {2L, "two"},
+        new Object[] {null, "none"},
+        new Object[] {4L, "four"});
+  }
+
+  private static List<Object[]> buildRows() {
+    return Arrays.asList(
+        new Object[] {1L, "a"},
+        new Object[] {2L, "b"},
+        new Object[] {2L, "c"},
+        new Object[] {3L, "d"},
+        new Object[] {null, "e"});
+  }
+
+  /** Output rows as "id:name:key:value" strings, sorted to ignore the order of spilled joins. */
+  private static List<String> toStrings(List<Object[]> rows) {
+    List<String> strings = new ArrayList<>();
+    for (Object[] row : rows) {
+      strings.add(row[0] + ":" + row[1] + ":" + row[2] + ":" + row[3]);
+    }
+    strings.sort(null);
+    return strings;
+  }
+
+  @Test
+  public void testInnerJoin() throws Exception {
+    List<Object[]> rows = join("INNER", "", probeRows(), buildRows());
+    assertEquals(Arrays.asList("1:one:1:a", "2:two:2:b", "2:two:2:c"), toStrings(rows));
+  }
+
+  @Test
+  public void testLeftOuterJoin() throws Exception {
+    List<Object[]> rows = join("LEFT OUTER", "", probeRows(), buildRows());
+    assertEquals(
+        Arrays.asList(
+            "1:one:1:a", "2:two:2:b", "2:two:2:c", "4:four:null:null", "null:none:null:null"),
+        toStrings(rows));
+  }
+
+  @Test
+  public void testRightOuterJoin() throws Exception {
+    List<Object[]> rows = join("RIGHT OUTER", "", probeRows(), buildRows());
+    assertEquals(
+        Arrays.asList(
+            "1:one:1:a", "2:two:2:b", "2:two:2:c", "null:null:3:d", "null:null:null:e"),
+        toStrings(rows));
+  }
+
+  @Test
+  public void testFullOuterJoin() throws Exception {
+    List<Object[]> rows = join("FULL OUTER", "", probeRows(), buildRows());
+    assertEquals(
+        Arrays.asList(
+            "1:one:1:a",
+            "2:two:2:b",
+            "2:two:2:c",
+            "4:four:null:null",
+            "null:none:null:null",
+            "null:null:3:d",
+            "null:null:null:e"),
+        toStrings(rows));
+  }
+
+  @Test
+  public void testInnerJoinKeepsProbeOrderInMemory() throws Exception {
+    List<Object[]> rows = join("INNER", "0", probeRows(), buildRows());
+    assertEquals(3, rows.size());
+    assertEquals(1L, rows.get(0)[0]);
+    assertEquals(2L, rows.get(1)[0]);
+    assertEquals(2L, rows.get(2)[0]);
+  }
+
+  @Test
+  public void testSpillToDisk() throws Exception {
+    List<Object[]> probeRows = new ArrayList<>();
+    List<Object[]> buildRows = new ArrayList<>();
+    for (long i = 0; i < 200; i++) {
+      probeRows.add(new Object[] {i, "p" + i});
+      if (i % 2 == 0) {
+        buildRows.add(new Object[] {i, "b" + i});
+      }
+    }
+    buildRows.add(new Object[] {1000L, "unmatched"});
+
+    List<String> inMemory = toStrings(join("FULL OUTER", "", probeRows, buildRows));
+    List<String> spilled = toStrings(join("FULL OUTER", "2", probeRows, buildRows));
+
+    assertEquals(201, spilled.size());
+    assertEquals(inMemory, spilled);
+
+    // All the partition files are removed
+    //
+    File[] files = tempFolder.getRoot().listFiles();
+    assertFalse(files != null && files.length > 0);
+  }
+}
@@ -17,6 +17,7 @@
 
 package org.apache.hop.pipeline.transforms.joinrows;
 
+import org.apache.hop.core.CompiledCondition;
 import org.apache.hop.core.IRowSet;
 import org.apache.hop.core.row.IRowMeta;
 import org.apache.hop.pipeline.transform.BaseTransformData;
@@ -53,6 +54,9 @@ public class JoinRowsData extends BaseTransformData implements ITransformData {
 
   public IRowMeta outputRowMeta;
 
+  /** The join condition, compiled for the output rows */
+  public CompiledCondition condition;
+
   public JoinRowsData() {
     super();
   }
@@ -33,11 +33,13 @@ import org.apache.hop.core.util.Utils;
 import org.apache.hop.i18n.BaseMessages;
 import org.apache.hop.pipeline.Pipeline;
 import org.apache.hop.pipeline.PipelineMeta;
+import org.apache.hop.pipeline.SingleThreadedPipelineExecutor;
 import org.apache.hop.pipeline.TransformWithMappingMeta;
 import org.apache.hop.pipeline.engine.IPipelineEngine;
 import org.apache.hop.pipeline.engine.PipelineEngineFactory;
 import org.apache.hop.pipeline.transform.BaseTransform;
 import org.apache.hop.pipeline.transform.TransformMeta;
+import org.apache.hop.pipeline.transform.TransformMetaDataCombi;
 
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -227,21 +229,28 @@ public class PipelineExecutor extends BaseTransform<PipelineExecutorMeta, Pipeli
       discardLogLines(pipelineExecutorData);
     }
 
+    Result result = null;
+    if (meta.isReusingPipeline() && !pipelineExecutorData.reuseImpossible) {
+      result = executeReusedPipeline(incomingFieldValues);
+    }
+    if (result == null) {
+      result = executeNewPipeline(incomingFieldValues);
+    }
+
+    collectPipelineResults(result);
+    collectExecutionResults(result);
+    collectExecutionResultFiles(result);
+
+    pipelineExecutorData.groupBuffer.clear();
+  }
+
+  /** Start a new pipeline for the group of rows and wait until it's finished. */
+  private Result executeNewPipeline(List<String> incomingFieldValues) throws HopException {
+    PipelineExecutorData pipelineExecutorData = getData();
+
     IPipelineEngine<PipelineMeta> executorPipeline = createInternalPipeline();
     pipelineExecutorData.setExecutorPipeline(executorPipeline);
-    if (incomingFieldValues != null) {
-      // Pass parameter values
-      passParametersToPipeline(incomingFieldValues);
-    } else {
-      List<String> lastIncomingFieldValues = getLastIncomingFieldValues();
-      // incomingFieldValues == null-  There are no more rows - Last Case - pass previous values if
-      // exists
-      // If not still pass the null parameter values
-      passParametersToPipeline(
-              lastIncomingFieldValues != null && !lastIncomingFieldValues.isEmpty()
-                      ? lastIncomingFieldValues
-                      : incomingFieldValues);
-    }
+    passGroupParameters(incomingFieldValues);
 
     // keep track for drill down in HopGui...
     getPipeline().addActiveSubPipeline(getTransformName(), executorPipeline);
@@ -265,12 +274,133 @@ public class PipelineExecutor extends BaseTransform<PipelineExecutorMeta, Pipeli
       result.setResult(false);
       result.setNrErrors(1);
     }
+    return result;
+  }
 
-    collectPipelineResults(result);
-    collectExecutionResults(result);
-    collectExecutionResultFiles(result);
+  /**
+   * Run the group of rows through the pipeline which is kept prepared between groups, on the single
+   * threaded engine. The pipeline is prepared for the first group and reset for the next ones.
+   *
+   * @return The result of the execution or null if the pipeline can't be reused.
+   */
+  private Result executeReusedPipeline(List<String> incomingFieldValues) throws HopException {
+    PipelineExecutorData pipelineExecutorData = getData();
 
-    pipelineExecutorData.groupBuffer.clear();
+    SingleThreadedPipelineExecutor executor = pipelineExecutorData.reusedExecutor;
+    if (executor == null) {
+      executor = prepareReusedPipeline(incomingFieldValues);
+      if (executor == null) {
+        return null;
+      }
+    } else {
+      // Only keep the logging of the current group, like a new pipeline would.
+      //
+      HopLogStore.discardLines(executor.getPipeline().getLogChannelId(), false);
+      executor.reset();
+      passGroupParameters(incomingFieldValues);
+    }
+
+    Result result = new Result();
+    result.setRows(pipelineExecutorData.groupBuffer);
+    executor.getPipeline().setPreviousResult(result);
+
+    try {
+      executor.processAllRows();
+      result = executor.getResult();
+    } catch (HopException e) {
+      log.logError("An error occurred executing the pipeline: ", e);
+      // Report what the pipeline did so far, not the rows of the group as its result rows
+      //
+      result = executor.getResult();
+      result.setResult(false);
+      result.setNrErrors(result.getNrErrors() + 1);
+    }
+
+    // Don't run a pipeline which failed or was stopped again, start over with the next group.
+    //
+    if (result.getNrErrors() > 0 || result.isStopped()) {
+      disposeReusedPipeline();
+    }
+    return result;
+  }
+
+  /**
+   * Prepare the execution of the pipeline on the single threaded engine so that it can be run for
+   * every group of rows.
+   *
+   * @return The executor of the pipeline or null if the pipeline can't be reused.
+   */
+  private SingleThreadedPipelineExecutor prepareReusedPipeline(List<String> incomingFieldValues)
+          throws HopException {
+    PipelineExecutorData pipelineExecutorData = getData();
+
+    PipelineMeta reusedPipelineMeta =
+            (PipelineMeta) pipelineExecutorData.getExecutorPipelineMeta().clone();
+    reusedPipelineMeta.setPipelineType(PipelineMeta.PipelineType.SingleThreaded);
+
+    IPipelineEngine<PipelineMeta> executorPipeline = createInternalPipeline(reusedPipelineMeta);
+    if (!(executorPipeline instanceof Pipeline)) {
+      logBasic(BaseMessages.getString(PKG, "PipelineExecutor.Log.CanNotReuseEngine"));
+      pipelineExecutorData.reuseImpossible = true;
+      return null;
+    }
+    pipelineExecutorData.setExecutorPipeline(executorPipeline);
+    passGroupParameters(incomingFieldValues);
+
+    // keep track for drill down in HopGui...
+    getPipeline().addActiveSubPipeline(getTransformName(), executorPipeline);
+
+    executorPipeline.prepareExecution();
+    SingleThreadedPipelineExecutor executor =
+            new SingleThreadedPipelineExecutor((Pipeline) executorPipeline);
+    if (!executor.isResettable()) {
+      List<String> transformNames = new ArrayList<>();
+      for (TransformMetaDataCombi combi : ((Pipeline) executorPipeline).getTransforms()) {
+        if (!combi.transform.isResettable()) {
+          transformNames.add(combi.transformName);
+        }
+      }
+      logBasic(
+              BaseMessages.getString(
+                      PKG,
+                      "PipelineExecutor.Log.CanNotResetTransforms",
+                      String.join(", ", transformNames)));
+      executor.dispose();
+      pipelineExecutorData.reuseImpossible = true;
+      return null;
+    }
+    executorPipeline.startThreads();
+
+    pipelineExecutorData.reusedExecutor = executor;
+    return executor;
+  }
+
+  private void disposeReusedPipeline() {
+    SingleThreadedPipelineExecutor executor = getData().reusedExecutor;
+    if (executor != null) {
+      getData().reusedExecutor = null;
+      try {
+        executor.dispose();
+      } catch (HopException e) {
+        logError("Error disposing of the reused pipeline", e);
+      }
+    }
+  }
+
+  private void passGroupParameters(List<String> incomingFieldValues) throws HopException {
+    if (incomingFieldValues != null) {
+      // Pass parameter values
+      passParametersToPipeline(incomingFieldValues);
+    } else {
+      List<String> lastIncomingFieldValues = getLastIncomingFieldValues();
+      // incomingFieldValues == null-  There are no more rows - Last Case - pass previous values if
+      // exists
+      // If not still pass the null parameter values
+      passParametersToPipeline(
+              lastIncomingFieldValues != null && !lastIncomingFieldValues.isEmpty()
+                      ? lastIncomingFieldValues
+                      : incomingFieldValues);
+    }
   }
 
   @VisibleForTesting
@@ -286,11 +416,16 @@ public class PipelineExecutor extends BaseTransform<PipelineExecutorMeta, Pipeli
 
   @VisibleForTesting
   IPipelineEngine<PipelineMeta> createInternalPipeline() throws HopException {
+    return createInternalPipeline(getData().getExecutorPipelineMeta());
+  }
+
+  private IPipelineEngine<PipelineMeta> createInternalPipeline(PipelineMeta executorPipelineMeta)
+          throws HopException {
 
     String runConfigurationName = resolve(meta.getRunConfigurationName());
     IPipelineEngine<PipelineMeta> executorPipeline =
             PipelineEngineFactory.createPipelineEngine(
-                    this, runConfigurationName, metadataProvider, getData().getExecutorPipelineMeta());
+                    this, runConfigurationName, metadataProvider, executorPipelineMeta);
     executorPipeline.setParentPipeline(getPipeline());
     executorPipeline.setParent(this);
     executorPipeline.setLogLevel(getLogLevel());
@@ -549,6 +684,11 @@ public class PipelineExecutor extends BaseTransform<PipelineExecutorMeta, Pipeli
 
   private boolean initPipeline(PipelineExecutorData pipelineExecutorData) throws HopException {
 
+    // A pipeline which is kept for reuse belongs to the previous pipeline file
+    //
+    disposeReusedPipeline();
+    pipelineExecutorData.reuseImpossible = false;
+
     pipelineExecutorData.setExecutorPipelineMeta(loadExecutorPipelineMeta());
 
     // Do we have a pipeline at all?
@@ -571,6 +711,7 @@ public class PipelineExecutor extends BaseTransform<PipelineExecutorMeta, Pipeli
   @Override
   public void dispose() {
     PipelineExecutorData pipelineExecutorData = getData();
+    disposeReusedPipeline();
     pipelineExecutorData.groupBuffer = null;
     super.dispose();
   }
@@ -22,6 +22,7 @@ import org.apache.hop.core.RowMetaAndData;
 import org.apache.hop.core.row.IRowMeta;
 import org.apache.hop.core.row.IValueMeta;
 import org.apache.hop.pipeline.PipelineMeta;
+import org.apache.hop.pipeline.SingleThreadedPipelineExecutor;
 import org.apache.hop.pipeline.engine.IPipelineEngine;
 import org.apache.hop.pipeline.transform.BaseTransformData;
 import org.apache.hop.pipeline.transform.ITransformData;
@@ -50,6 +51,12 @@ public class PipelineExecutorData extends BaseTransformData implements ITransfor
 
   public Object prevGroupFieldData;
 
+  /** The prepared pipeline which is run for every group when the pipeline is reused */
+  public SingleThreadedPipelineExecutor reusedExecutor;
+
+  /** Set when the pipeline can't be reused: a new pipeline is started for every group */
+  public boolean reuseImpossible;
+
   private IRowSet executorTransformOutputRowSet;
   private IRowSet resultRowsRowSet;
   private IRowSet resultFilesRowSet;
@@ -113,6 +113,8 @@ public class PipelineExecutorDialog extends BaseTransformDialog implements ITran
   private Label wlGroupTime;
   private TextVar wGroupTime;
 
+  private Button wReusePipeline;
+
   private CCombo wExecutionResultTarget;
   private TableItem tiExecutionTimeField;
   private TableItem tiExecutionResultField;
@@ -505,6 +507,7 @@ public class PipelineExecutorDialog extends BaseTransformDialog implements ITran
     wGroupSize.setText(Const.NVL(pipelineExecutorMeta.getGroupSize(), ""));
     wGroupTime.setText(Const.NVL(pipelineExecutorMeta.getGroupTime(), ""));
     wGroupField.setText(Const.NVL(pipelineExecutorMeta.getGroupField(), ""));
+    wReusePipeline.setSelection(pipelineExecutorMeta.isReusingPipeline());
 
     wExecutionResultTarget.setText(
         pipelineExecutorMeta.getExecutionResultTargetTransformMeta() == null
@@ -866,6 +869,29 @@ public class PipelineExecutorDialog extends BaseTransformDialog implements ITran
     fdGroupTime.left = new FormAttachment(wlGroupTime, margin);
     wGroupTime.setLayoutData(fdGroupTime);
 
+    // Reuse the pipeline for every group
+    //
+    Label wlReusePipeline = new Label(wInputComposite, SWT.RIGHT);
+    PropsUi.setLook(wlReusePipeline);
+    wlReusePipeline.setText(
+        BaseMessages.getString(PKG, "PipelineExecutorDialog.ReusePipeline.Label"));
+    wlReusePipeline.setToolTipText(
+        BaseMessages.getString(PKG, "PipelineExecutorDialog.ReusePipeline.Tooltip"));
+    FormData fdlReusePipeline = new FormData();
+    fdlReusePipeline.top = new FormAttachment(wGroupTime, 10);
+    fdlReusePipeline.left = new FormAttachment(0, 0);
+    fdlReusePipeline.right = new FormAttachment(middle, -margin);
+    wlReusePipeline.setLayoutData(fdlReusePipeline);
+
+    wReusePipeline = new Button(wInputComposite, SWT.CHECK);
+    PropsUi.setLook(wReusePipeline);
+    wReusePipeline.setToolTipText(
+        BaseMessages.getString(PKG, "PipelineExecutorDialog.ReusePipeline.Tooltip"));
+    FormData fdReusePipeline = new FormData();
+    fdReusePipeline.top = new FormAttachment(wlReusePipeline, 0, SWT.CENTER);
+    fdReusePipeline.left = new FormAttachment(middle, margin);
+    wReusePipeline.setLayoutData(fdReusePipeline);
+
     wTab.setControl(wInputComposite);
     wTabFolder.setSelection(wTab);
   }
@@ -1283,6 +1309,7 @@ public class PipelineExecutorDialog extends BaseTransformDialog implements ITran
     pipelineExecutorMeta.setGroupSize(wGroupSize.getText());
     pipelineExecutorMeta.setGroupField(wGroupField.getText());
     pipelineExecutorMeta.setGroupTime(wGroupTime.getText());
+    pipelineExecutorMeta.setReusingPipeline(wReusePipeline.getSelection());
 
     pipelineExecutorMeta.setExecutionResultTargetTransform(wExecutionResultTarget.getText());
     pipelineExecutorMeta.setExecutionResultTargetTransformMeta(
@@ -100,6 +100,12 @@ public class PipelineExecutorMeta
    */
   private String groupTime;
 
+  /**
+   * Prepare the pipeline once and run it again for every group of rows, instead of starting a new
+   * pipeline for every group. Only possible when all transforms of the pipeline can be reset.
+   */
+  private boolean reusingPipeline;
+
   private PipelineExecutorParameters parameters;
 
   private String executionResultTargetTransform;
@@ -238,6 +244,7 @@ public class PipelineExecutorMeta
     retval.append("    ").append(XmlHandler.addTagValue("group_size", groupSize));
     retval.append("    ").append(XmlHandler.addTagValue("group_field", groupField));
     retval.append("    ").append(XmlHandler.addTagValue("group_time", groupTime));
+    retval.append("    ").append(XmlHandler.addTagValue("reuse_pipeline", reusingPipeline));
 
     // Add the mapping parameters too
     //
@@ -359,6 +366,8 @@ public class PipelineExecutorMeta
       groupSize = XmlHandler.getTagValue(transformNode, "group_size");
       groupField = XmlHandler.getTagValue(transformNode, "group_field");
       groupTime = XmlHandler.getTagValue(transformNode, "group_time");
+      reusingPipeline =
+              "Y".equalsIgnoreCase(XmlHandler.getTagValue(transformNode, "reuse_pipeline"));
 
       // Load the mapping parameters too..
       //
@@ -434,6 +443,7 @@ public class PipelineExecutorMeta
     groupSize = "1";
     groupField = "";
     groupTime = "";
+    reusingPipeline = false;
 
     executionTimeField = "ExecutionTime";
     executionResultField = "ExecutionResult";
@@ -891,6 +901,16 @@ public class PipelineExecutorMeta
     this.groupTime = groupTime;
   }
 
+  /** @return true if the pipeline is prepared once and run again for every group of rows */
+  public boolean isReusingPipeline() {
+    return reusingPipeline;
+  }
+
+  /** @param reusingPipeline true to prepare the pipeline once and run it for every group of rows */
+  public void setReusingPipeline(boolean reusingPipeline) {
+    this.reusingPipeline = reusingPipeline;
+  }
+
   @Override
   public boolean excludeFromCopyDistributeVerification() {
     return true;
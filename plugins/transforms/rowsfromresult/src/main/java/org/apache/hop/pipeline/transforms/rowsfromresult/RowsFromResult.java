@@ -68,4 +68,9 @@ public class RowsFromResult extends BaseTransform<RowsFromResultMeta, RowsFromRe
 
     return true;
   }
+
+  @Override
+  public boolean isResettable() {
+    return true;
+  }
 }
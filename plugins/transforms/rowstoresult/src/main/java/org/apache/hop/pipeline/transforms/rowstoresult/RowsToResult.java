@@ -75,4 +75,15 @@ public class RowsToResult extends BaseTransform<RowsToResultMeta, RowsToResultDa
     }
     return false;
   }
+
+  @Override
+  public boolean isResettable() {
+    return true;
+  }
+
+  @Override
+  public void reset() throws HopException {
+    super.reset();
+    data.rows.clear();
+  }
 }
@@ -357,24 +357,15 @@ public class SelectValues extends BaseTransform<SelectValuesMeta, SelectValuesDa
 
   @Override
   public boolean processRow() throws HopException {
-    Object[] rowData = getRow(); // get row from rowset, wait for our turn, indicate busy!
-    if (rowData == null) { // no more input to be expected...
+    long previousLinesRead = getLinesRead();
+    // get rows from rowset, wait for our turn, indicate busy!
+    Object[][] rows = getRows(ROW_BATCH_SIZE);
+    if (rows == null) { // no more input to be expected...
 
       setOutputDone();
       return false;
     }
 
-    Object[] rowCopy = null;
-    if (getTransformMeta().isDoingErrorHandling()) {
-      rowCopy = getInputRowMeta().cloneRow(rowData);
-    }
-
-    if (log.isRowLevel()) {
-      logRowlevel(
-          BaseMessages.getString(PKG, "SelectValues.Log.GotRowFromPreviousTransform")
-              + getInputRowMeta().getString(rowData));
-    }
-
     if (first) {
       first = false;
 
@@ -386,49 +377,79 @@ public class SelectValues extends BaseTransform<SelectValuesMeta, SelectValuesDa
       meta.getMetadataFields(data.metadataRowMeta, getTransformName(), this);
     }
 
-    try {
-      Object[] outputData = rowData;
-
-      if (data.select) {
-        outputData = selectValues(getInputRowMeta(), outputData);
-      }
-      if (data.deselect) {
-        outputData = removeValues(data.selectRowMeta, outputData);
-      }
-      if (data.metadata) {
-        outputData = metadataValues(data.deselectRowMeta, outputData);
-      }
+    Object[][] outputRows = new Object[rows.length][];
+    int written = 0;
+    boolean stop = false;
 
-      if (outputData == null) {
-        setOutputDone(); // signal end to receiver(s)
-        return false;
+    for (Object[] rowData : rows) {
+      Object[] rowCopy = null;
+      if (getTransformMeta().isDoingErrorHandling()) {
+        rowCopy = getInputRowMeta().cloneRow(rowData);
       }
 
-      // Send the row on its way
-      //
-      putRow(data.metadataRowMeta, outputData);
       if (log.isRowLevel()) {
         logRowlevel(
-            BaseMessages.getString(PKG, "SelectValues.Log.WroteRowToNextTransform")
-                + data.metadataRowMeta.getString(outputData));
+            BaseMessages.getString(PKG, "SelectValues.Log.GotRowFromPreviousTransform")
+                + getInputRowMeta().getString(rowData));
       }
 
-    } catch (HopException e) {
-      if (getTransformMeta().isDoingErrorHandling()) {
-        String field;
-        if (e instanceof HopConversionException) {
-          List<IValueMeta> fields = ((HopConversionException) e).getFields();
-          field = fields.isEmpty() ? null : fields.get(0).getName();
+      try {
+        Object[] outputData = rowData;
+
+        if (data.select) {
+          outputData = selectValues(getInputRowMeta(), outputData);
+        }
+        if (data.deselect) {
+          outputData = removeValues(data.selectRowMeta, outputData);
+        }
+        if (data.metadata) {
+          outputData = metadataValues(data.deselectRowMeta, outputData);
+        }
+
+        if (outputData == null) {
+          stop = true;
+          break;
+        }
+
+        // Keep the row to send it on its way together with the rest of the batch
+        //
+        outputRows[written++] = outputData;
+        if (log.isRowLevel()) {
+          logRowlevel(
+              BaseMessages.getString(PKG, "SelectValues.Log.WroteRowToNextTransform")
+                  + data.metadataRowMeta.getString(outputData));
+        }
+
+      } catch (HopException e) {
+        if (getTransformMeta().isDoingErrorHandling()) {
+          String field;
+          if (e instanceof HopConversionException) {
+            List<IValueMeta> fields = ((HopConversionException) e).getFields();
+            field = fields.isEmpty() ? null : fields.get(0).getName();
+          } else {
+            field = null;
+          }
+          // Keep the order of the correct rows written before the error row
+          //
+          putRows(data.metadataRowMeta, outputRows, written);
+          written = 0;
+          putError(getInputRowMeta(), rowCopy, 1, e.getMessage(), field, "SELECT001");
         } else {
-          field = null;
+          throw e;
         }
-        putError(getInputRowMeta(), rowCopy, 1, e.getMessage(), field, "SELECT001");
-      } else {
-        throw e;
       }
     }
 
-    if (checkFeedback(getLinesRead())) {
+    if (written > 0) {
+      putRows(data.metadataRowMeta, outputRows, written);
+    }
+
+    if (stop) {
+      setOutputDone(); // signal end to receiver(s)
+      return false;
+    }
+
+    if (checkFeedback(previousLinesRead, getLinesRead())) {
       logBasic(BaseMessages.getString(PKG, "SelectValues.Log.LineNumber") + getLinesRead());
     }
 
@@ -362,6 +362,13 @@ public class SelectValuesTest {
       rowMeta = rm;
     }
 
+    @Override
+    public void putRows(IRowMeta rm, Object[][] rows, int count) throws HopTransformException {
+      for (int i = 0; i < count; i++) {
+        putRow(rm, rows[i]);
+      }
+    }
+
     /**
      * Find input row set.
      *
@@ -26,6 +26,10 @@ import org.apache.hop.core.exception.HopFileException;
 import org.apache.hop.core.exception.HopValueException;
 import org.apache.hop.core.row.IRowMeta;
 import org.apache.hop.core.row.IValueMeta;
+import org.apache.hop.core.spill.SpillCodec;
+import org.apache.hop.core.spill.SpillReader;
+import org.apache.hop.core.spill.SpillWriter;
+import org.apache.hop.core.util.ExecutorUtil;
 import org.apache.hop.core.vfs.HopVfs;
 import org.apache.hop.i18n.BaseMessages;
 import org.apache.hop.pipeline.Pipeline;
@@ -33,26 +37,23 @@ import org.apache.hop.pipeline.PipelineMeta;
 import org.apache.hop.pipeline.transform.BaseTransform;
 import org.apache.hop.pipeline.transform.TransformMeta;
 
-import java.io.BufferedInputStream;
-import java.io.BufferedOutputStream;
-import java.io.DataInputStream;
-import java.io.DataOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.OutputStream;
-import java.net.SocketTimeoutException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
-import java.util.zip.GZIPInputStream;
-import java.util.zip.GZIPOutputStream;
+import java.util.PriorityQueue;
+import java.util.concurrent.ExecutionException;
 
 /** Sort the rows in the input-streams based on certain criteria */
 public class SortRows extends BaseTransform<SortRowsMeta, SortRowsData> {
 
   private static final Class<?> PKG = SortRows.class; // For Translator
 
+  /** Below this number of rows a parallel sort isn't worth the overhead */
+  private static final int PARALLEL_SORT_THRESHOLD = 10000;
+
   public SortRows(
       TransformMeta transformMeta,
       SortRowsMeta meta,
@@ -120,109 +121,150 @@ public class SortRows extends BaseTransform<SortRowsMeta, SortRowsData> {
       return;
     }
 
-    // First sort the rows in buffer[]
-    quickSort(data.buffer);
-
-    // Then write them to disk...
-    DataOutputStream dos;
-    GZIPOutputStream gzos;
-    int p;
+    if (data.parallelSort) {
+      spillInBackground();
+    } else {
+      // First sort the rows in buffer[]
+      quickSort(data.buffer);
 
-    try {
+      // Then write them to disk...
       FileObject fileObject =
           HopVfs.createTempFile(meta.getPrefix(), ".tmp", resolve(meta.getDirectory()));
-
       data.files.add(fileObject); // Remember the files!
-      OutputStream outputStream = HopVfs.getOutputStream(fileObject, false);
-      if (data.compressFiles) {
-        gzos = new GZIPOutputStream(new BufferedOutputStream(outputStream));
-        dos = new DataOutputStream(gzos);
-      } else {
-        dos = new DataOutputStream(new BufferedOutputStream(outputStream, 500000));
-        gzos = null;
-      }
 
-      // Just write the data, nothing else
-      List<Integer> duplicates = new ArrayList<>();
-      Object[] previousRow = null;
-      if (meta.isOnlyPassingUniqueRows()) {
-        int index = 0;
-        while (index < data.buffer.size()) {
-          Object[] row = data.buffer.get(index);
-          if (previousRow != null) {
-            int result = data.outputRowMeta.compare(row, previousRow, data.fieldnrs);
-            if (result == 0) {
-              duplicates.add(index);
-              if (log.isRowLevel()) {
-                logRowlevel(
-                    BaseMessages.getString(
-                        PKG,
-                        "SortRows.RowLevel.DuplicateRowRemoved",
-                        data.outputRowMeta.getString(row)));
-              }
+      // How many records do we have left?
+      data.bufferSizes.add(writeSortedRows(data.buffer, fileObject));
+
+      adjustMinSortSize(data.buffer.size());
+
+      // Clear the list
+      data.buffer.clear();
+    }
+
+    // How much memory do we have left?
+    //
+    data.freeMemoryPct = Const.getPercentageFreeMemory();
+    data.freeCounter = 0;
+    if (data.sortSize <= 0 && log.isDetailed()) {
+      logDetailed(
+          BaseMessages.getString(PKG, "SortRows.Detailed.AvailableMemory", data.freeMemoryPct));
+    }
+
+    data.getBufferIndex = 0;
+  }
+
+  /**
+   * Hand the full buffer over to a background thread which sorts it and writes it to a temp file.
+   * The transform continues reading rows into a fresh buffer. Only one buffer is sorted and written
+   * at a time: if the previous one isn't written yet we wait for it first.
+   */
+  private void spillInBackground() throws HopException {
+    waitForPendingSpill();
+
+    final List<Object[]> rows = data.buffer;
+    final FileObject fileObject =
+        HopVfs.createTempFile(meta.getPrefix(), ".tmp", resolve(meta.getDirectory()));
+    data.files.add(fileObject); // Remember the files!
+
+    // The size is filled in when the file is written
+    //
+    final int fileNr = data.bufferSizes.size();
+    data.bufferSizes.add(0);
+
+    adjustMinSortSize(rows.size());
+    data.buffer = new ArrayList<>(rows.size());
+
+    data.pendingSpill =
+        ExecutorUtil.getExecutor()
+            .submit(
+                () -> {
+                  quickSort(rows);
+                  int nrRows = writeSortedRows(rows, fileObject);
+                  rows.clear();
+                  return nrRows;
+                });
+    data.pendingSpillFileNr = fileNr;
+  }
+
+  /** Wait until the temp file being written in the background, if any, is complete. */
+  void waitForPendingSpill() throws HopException {
+    if (data.pendingSpill == null) {
+      return;
+    }
+    try {
+      data.bufferSizes.set(data.pendingSpillFileNr, data.pendingSpill.get());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new HopException("Interrupted while writing temp-file!", e);
+    } catch (ExecutionException e) {
+      throw new HopException("Error processing temp-file!", e.getCause());
+    } finally {
+      data.pendingSpill = null;
+    }
+  }
+
+  /**
+   * Write the sorted rows to a temp file, skipping duplicates if we only pass unique rows.
+   *
+   * @return the number of rows written to the file.
+   */
+  private int writeSortedRows(List<Object[]> rows, FileObject fileObject) throws HopException {
+    // Just write the data, nothing else
+    List<Integer> duplicates = new ArrayList<>();
+    Object[] previousRow = null;
+    if (meta.isOnlyPassingUniqueRows()) {
+      int index = 0;
+      while (index < rows.size()) {
+        Object[] row = rows.get(index);
+        if (previousRow != null) {
+          int result = data.outputRowMeta.compare(row, previousRow, data.fieldnrs);
+          if (result == 0) {
+            duplicates.add(index);
+            if (log.isRowLevel()) {
+              logRowlevel(
+                  BaseMessages.getString(
+                      PKG,
+                      "SortRows.RowLevel.DuplicateRowRemoved",
+                      data.outputRowMeta.getString(row)));
             }
           }
-          index++;
-          previousRow = row;
         }
+        index++;
+        previousRow = row;
       }
+    }
 
-      // How many records do we have left?
-      data.bufferSizes.add(data.buffer.size() - duplicates.size());
-
+    try (SpillWriter writer = openSpillWriter(fileObject)) {
       int duplicatesIndex = 0;
-      for (p = 0; p < data.buffer.size(); p++) {
+      for (int p = 0; p < rows.size(); p++) {
         boolean skip = false;
         if (duplicatesIndex < duplicates.size() && p == duplicates.get(duplicatesIndex)) {
           skip = true;
           duplicatesIndex++;
         }
         if (!skip) {
-          data.outputRowMeta.writeData(dos, data.buffer.get(p));
+          writer.writeRow(rows.get(p));
         }
       }
-
-      if (data.sortSize < 0 && data.buffer.size() > data.minSortSize) {
-        data.minSortSize = data.buffer.size(); // if we did it once, we can do
-        // it again.
-
-        // Memory usage goes up over time, even with garbage collection
-        // We need pointers, file handles, etc.
-        // As such, we're going to lower the min sort size a bit
-        //
-        data.minSortSize = (int) Math.round(data.minSortSize * 0.90);
-      }
-
-      // Clear the list
-      data.buffer.clear();
-
-      // Close temp-file
-      dos.close(); // close data stream
-      if (gzos != null) {
-        gzos.close(); // close gzip stream
-      }
-      outputStream.close(); // close file stream
-
-      // How much memory do we have left?
-      //
-      data.freeMemoryPct = Const.getPercentageFreeMemory();
-      data.freeCounter = 0;
-      if (data.sortSize <= 0 && log.isDetailed()) {
-        logDetailed(
-            BaseMessages.getString(PKG, "SortRows.Detailed.AvailableMemory", data.freeMemoryPct));
-      }
-
     } catch (Exception e) {
       throw new HopException("Error processing temp-file!", e);
     }
 
-    data.getBufferIndex = 0;
+    // How many records do we have left?
+    return rows.size() - duplicates.size();
   }
 
-  private DataInputStream getDataInputStream(GZIPInputStream gzipInputStream) {
-    DataInputStream result = new DataInputStream(gzipInputStream);
-    data.gzis.add(gzipInputStream);
-    return result;
+  private void adjustMinSortSize(int bufferSize) {
+    if (data.sortSize < 0 && bufferSize > data.minSortSize) {
+      data.minSortSize = bufferSize; // if we did it once, we can do
+      // it again.
+
+      // Memory usage goes up over time, even with garbage collection
+      // We need pointers, file handles, etc.
+      // As such, we're going to lower the min sort size a bit
+      //
+      data.minSortSize = (int) Math.round(data.minSortSize * 0.90);
+    }
   }
 
   // get sorted rows from available files in iterative manner.
@@ -232,7 +274,16 @@ public class SortRows extends BaseTransform<SortRowsMeta, SortRowsData> {
     Object[] retval;
 
     // Open all files at once and read one row from each file...
-    if (CollectionUtils.isNotEmpty(data.files) && (data.dis.isEmpty() || data.fis.isEmpty())) {
+    if (CollectionUtils.isNotEmpty(data.files) && data.readers.isEmpty()) {
+      try {
+        // With too many files we first merge groups of files into larger ones.
+        //
+        mergeIntermediateFiles();
+      } catch (HopException e) {
+        throw new HopValueException(
+            BaseMessages.getString(PKG, "SortRows.Error.ErrorReadingBackTempFiles"), e);
+      }
+
       if (log.isBasic()) {
         logBasic(BaseMessages.getString(PKG, "SortRows.Basic.OpeningTempFiles", data.files.size()));
       }
@@ -244,15 +295,8 @@ public class SortRows extends BaseTransform<SortRowsMeta, SortRowsData> {
           if (log.isDetailed()) {
             logDetailed(BaseMessages.getString(PKG, "SortRows.Detailed.OpeningTempFile", filename));
           }
-          InputStream fi = HopVfs.getInputStream(fileObject);
-          DataInputStream di;
-          data.fis.add(fi);
-          if (data.compressFiles) {
-            di = getDataInputStream(new GZIPInputStream(new BufferedInputStream(fi)));
-          } else {
-            di = new DataInputStream(new BufferedInputStream(fi, 50000));
-          }
-          data.dis.add(di);
+          SpillReader reader = openSpillReader(fileObject);
+          data.readers.add(reader);
 
           // How long is the buffer?
           int buffersize = data.bufferSizes.get(f);
@@ -264,14 +308,10 @@ public class SortRows extends BaseTransform<SortRowsMeta, SortRowsData> {
           }
 
           if (buffersize > 0) {
-            Object[] row = data.outputRowMeta.readData(di);
-            data.rowbuffer.add(row); // new row from input stream
+            Object[] row = reader.readRow();
             data.tempRows.add(new RowTempFile(row, f));
           }
         }
-
-        // Sort the data row buffer
-        Collections.sort(data.tempRows, data.comparator);
       } catch (Exception e) {
         logError(BaseMessages.getString(PKG, "SortRows.Error.ErrorReadingBackTempFiles"), e);
       }
@@ -289,80 +329,166 @@ public class SortRows extends BaseTransform<SortRowsMeta, SortRowsData> {
     } else {
       // read from disk processing
 
-      if (data.rowbuffer.isEmpty()) {
+      if (data.tempRows.isEmpty()) {
         retval = null;
       } else {
-        // We now have "filenr" rows waiting: which one is the smallest?
+        // The heap keeps the smallest of the current rows of all the files on top
         //
-        if (log.isRowLevel()) {
-          for (int i = 0; i < data.rowbuffer.size() && !isStopped(); i++) {
-            Object[] b = data.rowbuffer.get(i);
-            logRowlevel(
-                BaseMessages.getString(
-                    PKG, "SortRows.RowLevel.PrintRow", i, data.outputRowMeta.getString(b)));
-          }
-        }
-
-        RowTempFile rowTempFile = data.tempRows.remove(0);
+        RowTempFile rowTempFile = data.tempRows.poll();
         retval = rowTempFile.row;
         int smallest = rowTempFile.fileNumber;
 
+        if (log.isRowLevel()) {
+          logRowlevel(
+              BaseMessages.getString(
+                  PKG, "SortRows.RowLevel.PrintRow", smallest, data.outputRowMeta.getString(retval)));
+        }
+
         // now get another Row for position smallest
+        //
+        try {
+          rowTempFile.row = data.readers.get(smallest).readRow();
+        } catch (HopFileException e) {
+          throw new HopValueException(
+              BaseMessages.getString(PKG, "SortRows.Error.ErrorReadingBackTempFiles"), e);
+        }
+        if (rowTempFile.row != null) {
+          data.tempRows.add(rowTempFile);
+        } else if (!closeTempFile(smallest)) {
+          setErrors(1);
+          stopAll();
+          return null;
+        }
+      }
+    }
+    return retval;
+  }
 
-        FileObject file = data.files.get(smallest);
-        DataInputStream di = data.dis.get(smallest);
-        InputStream fi = data.fis.get(smallest);
+  /**
+   * Closes and deletes a temp file which was completely read. The file keeps its position in the
+   * lists so that the file numbers of the other rows in the heap stay valid.
+   *
+   * @param fileNr the number of the file to close
+   * @return false if the file could not be closed or deleted
+   */
+  private boolean closeTempFile(int fileNr) {
+    FileObject file = data.files.get(fileNr);
+    try {
+      data.readers.get(fileNr).close();
+      file.delete();
+    } catch (HopFileException | IOException e) {
+      logError(
+          BaseMessages.getString(PKG, "SortRows.Error.UnableToCloseFile", fileNr, file.toString()));
+      return false;
+    }
 
-        try {
-          Object[] row2 = data.outputRowMeta.readData(di);
-          RowTempFile extra = new RowTempFile(row2, smallest);
-
-          int index = Collections.binarySearch(data.tempRows, extra, data.comparator);
-          if (index < 0) {
-            data.tempRows.add(index * (-1) - 1, extra);
-          } else {
-            data.tempRows.add(index, extra);
-          }
-        } catch (HopFileException fe) { // empty file or EOF mostly
-          GZIPInputStream gzfi = (data.compressFiles) ? data.gzis.get(smallest) : null;
-          try {
-            di.close();
-            fi.close();
-            if (gzfi != null) {
-              gzfi.close();
-            }
-            file.delete();
-          } catch (IOException e) {
-            logError(
+    data.files.set(fileNr, null);
+    data.readers.set(fileNr, null);
+    return true;
+  }
+
+  /**
+   * As long as there are more temp files than the merge fan-in, merge groups of consecutive files
+   * into intermediate temp files. This keeps the number of open files and the size of the merge
+   * heap bounded during the final merge. Every group is replaced by its merged file at the same
+   * position so that rows with equal keys keep their order.
+   */
+  void mergeIntermediateFiles() throws HopException {
+    if (data.mergeFanIn < 2) {
+      return;
+    }
+    while (data.files.size() > data.mergeFanIn && !isStopped()) {
+      List<FileObject> files = new ArrayList<>(data.files);
+      List<Integer> sizes = new ArrayList<>(data.bufferSizes);
+      data.files.clear();
+      data.bufferSizes.clear();
+
+      for (int start = 0; start < files.size(); start += data.mergeFanIn) {
+        int end = Math.min(start + data.mergeFanIn, files.size());
+        if (end - start == 1) {
+          data.files.add(files.get(start));
+          data.bufferSizes.add(sizes.get(start));
+        } else {
+          if (log.isDetailed()) {
+            logDetailed(
                 BaseMessages.getString(
-                    PKG, "SortRows.Error.UnableToCloseFile", smallest, file.toString()));
-            setErrors(1);
-            stopAll();
-            return null;
+                    PKG,
+                    "SortRows.Detailed.MergingIntermediateFiles",
+                    end - start,
+                    files.size() - end));
           }
+          FileObject merged =
+              HopVfs.createTempFile(meta.getPrefix(), ".tmp", resolve(meta.getDirectory()));
+          data.files.add(merged);
+          data.bufferSizes.add(
+              mergeTempFiles(files.subList(start, end), sizes.subList(start, end), merged));
+        }
+      }
+    }
+  }
 
-          data.files.remove(smallest);
-          data.dis.remove(smallest);
-          data.fis.remove(smallest);
+  /**
+   * Merge a number of sorted temp files into a single sorted temp file. The source files are
+   * deleted afterwards.
+   *
+   * @return the number of rows written to the target file
+   */
+  private int mergeTempFiles(List<FileObject> sources, List<Integer> sizes, FileObject target)
+      throws HopException {
+    SpillReader[] inputs = new SpillReader[sources.size()];
+    PriorityQueue<RowTempFile> heap = new PriorityQueue<>(sources.size(), data.comparator);
+    int nrRows = 0;
+    try (SpillWriter writer = openSpillWriter(target)) {
+      for (int f = 0; f < sources.size(); f++) {
+        inputs[f] = openSpillReader(sources.get(f));
+        if (sizes.get(f) > 0) {
+          heap.add(new RowTempFile(inputs[f].readRow(), f));
+        }
+      }
+      while (!heap.isEmpty() && !isStopped()) {
+        RowTempFile smallest = heap.poll();
+        writer.writeRow(smallest.row);
+        nrRows++;
+        smallest.row = inputs[smallest.fileNumber].readRow();
+        if (smallest.row != null) {
+          heap.add(smallest);
+        }
+      }
+    } catch (HopFileException e) {
+      throw new HopException("Error merging temp-files!", e);
+    } finally {
+      for (int f = 0; f < sources.size(); f++) {
+        closeQuietly(inputs[f]);
+        try {
+          sources.get(f).delete();
+        } catch (FileSystemException e) {
+          logError(e.getLocalizedMessage(), e);
+        }
+      }
+    }
+    return nrRows;
+  }
 
-          if (gzfi != null) {
-            data.gzis.remove(smallest);
-          }
+  private SpillWriter openSpillWriter(FileObject fileObject) throws HopException {
+    return new SpillWriter(
+        data.outputRowMeta, HopVfs.getOutputStream(fileObject, false), data.spillCodec);
+  }
 
-          // Also update all file numbers in in data.tempRows if they are larger
-          // than smallest.
-          //
-          for (RowTempFile rtf : data.tempRows) {
-            if (rtf.fileNumber > smallest) {
-              rtf.fileNumber--;
-            }
-          }
-        } catch (SocketTimeoutException e) {
-          throw new HopValueException(e); // should never happen on local files
-        }
+  private SpillReader openSpillReader(FileObject fileObject) throws HopException {
+    // Read the next block in the background if we're allowed to use more threads
+    //
+    return new SpillReader(
+        data.outputRowMeta, HopVfs.getInputStream(fileObject), data.parallelSort);
+  }
+
+  private void closeQuietly(SpillReader reader) {
+    if (reader != null) {
+      try {
+        reader.close();
+      } catch (HopFileException e) {
+        // Ignore
       }
     }
-    return retval;
   }
 
   @Override
@@ -414,6 +540,7 @@ public class SortRows extends BaseTransform<SortRowsMeta, SortRowsData> {
       data.outputRowMeta = inputRowMeta.clone();
       meta.getFields(data.outputRowMeta, getTransformName(), null, null, this, metadataProvider);
       data.comparator = new RowTemapFileComparator(data.outputRowMeta, data.fieldnrs);
+      data.tempRows = new PriorityQueue<>(data.comparator);
 
       for (int i = 0; i < fieldNames.length; i++) {
         data.fieldnrs[i] = inputRowMeta.indexOfValue(fieldNames[i]);
@@ -562,14 +689,12 @@ public class SortRows extends BaseTransform<SortRowsMeta, SortRowsData> {
     //
     data.buffer = new ArrayList<>(5000);
 
-    // Buffer for reading from disk
-    //
-    data.rowbuffer = new ArrayList<>(5000);
-
     data.compressFiles =
         getVariableBoolean(meta.getCompressFilesVariable(), meta.getCompressFiles());
+    data.parallelSort = meta.isParallelSort();
+    data.spillCodec = data.compressFiles ? SpillCodec.SNAPPY : SpillCodec.NONE;
 
-    data.tempRows = new ArrayList<>();
+    data.mergeFanIn = Const.toInt(resolve(meta.getMergeFanIn()), 100);
 
     data.minSortSize = 5000;
 
@@ -578,6 +703,13 @@ public class SortRows extends BaseTransform<SortRowsMeta, SortRowsData> {
 
   @Override
   public void dispose() {
+    if (data.pendingSpill != null) {
+      try {
+        waitForPendingSpill();
+      } catch (HopException e) {
+        logError(e.getLocalizedMessage(), e);
+      }
+    }
     clearBuffers();
     super.dispose();
   }
@@ -587,18 +719,14 @@ public class SortRows extends BaseTransform<SortRowsMeta, SortRowsData> {
     // Clean out the sort buffer
     data.buffer.clear();
     data.getBufferIndex = 0;
-    data.rowbuffer.clear();
-
-    // close any open DataInputStream objects
-    if (CollectionUtils.isNotEmpty(data.dis)) {
-      for (DataInputStream dis : data.dis) {
-        BaseTransform.closeQuietly(dis);
-      }
+    if (data.tempRows != null) {
+      data.tempRows.clear();
     }
-    // close any open InputStream objects
-    if (CollectionUtils.isNotEmpty(data.fis)) {
-      for (InputStream is : data.fis) {
-        BaseTransform.closeQuietly(is);
+
+    // close any open temp-file readers
+    if (CollectionUtils.isNotEmpty(data.readers)) {
+      for (SpillReader reader : data.readers) {
+        closeQuietly(reader);
       }
     }
     // remove temp files
@@ -612,12 +740,25 @@ public class SortRows extends BaseTransform<SortRowsMeta, SortRowsData> {
         logError(e.getLocalizedMessage(), e);
       }
     }
+    data.files.clear();
+    data.readers.clear();
+    data.bufferSizes.clear();
   }
 
   /** Sort the entire vector, if it is not empty. */
   void quickSort(List<Object[]> elements) {
     if (CollectionUtils.isNotEmpty(elements)) {
-      Collections.sort(elements, data.rowComparator);
+      if (data.parallelSort && elements.size() >= PARALLEL_SORT_THRESHOLD) {
+        // Fork/join sort over all available cores
+        //
+        Object[][] array = elements.toArray(new Object[0][]);
+        Arrays.parallelSort(array, data.rowComparator);
+        for (int i = 0; i < array.length; i++) {
+          elements.set(i, array[i]);
+        }
+      } else {
+        Collections.sort(elements, data.rowComparator);
+      }
 
       long nrConversions = 0L;
       for (IValueMeta valueMeta : data.outputRowMeta.getValueMetaList()) {
@@ -661,6 +802,7 @@ public class SortRows extends BaseTransform<SortRowsMeta, SortRowsData> {
     if (data.files.size() > 0) {
       // dump to dist and then read from disk
       sortExternalRows();
+      waitForPendingSpill();
     } else {
       // sort in memory
       quickSort(data.buffer);
@@ -703,7 +845,12 @@ public class SortRows extends BaseTransform<SortRowsMeta, SortRowsData> {
     @Override
     public int compare(RowTempFile o1, RowTempFile o2) {
       try {
-        return rowMeta.compare(o1.row, o2.row, fieldNrs);
+        int cmp = rowMeta.compare(o1.row, o2.row, fieldNrs);
+        if (cmp == 0) {
+          // Equal keys: take the row from the oldest file first, that keeps the merge stable
+          cmp = Integer.compare(o1.fileNumber, o2.fileNumber);
+        }
+        return cmp;
       } catch (HopValueException e) {
         logError("Error comparing rows: " + e.toString());
         return 0;
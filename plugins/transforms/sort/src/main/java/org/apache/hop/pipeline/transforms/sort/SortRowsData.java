@@ -19,35 +19,42 @@ package org.apache.hop.pipeline.transforms.sort;
 
 import org.apache.commons.vfs2.FileObject;
 import org.apache.hop.core.row.IRowMeta;
+import org.apache.hop.core.spill.SpillCodec;
+import org.apache.hop.core.spill.SpillReader;
 import org.apache.hop.pipeline.transform.BaseTransformData;
 import org.apache.hop.pipeline.transform.ITransformData;
 
-import java.io.DataInputStream;
-import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
-import java.util.zip.GZIPInputStream;
+import java.util.PriorityQueue;
+import java.util.concurrent.Future;
 
 public class SortRowsData extends BaseTransformData implements ITransformData {
   public List<FileObject> files;
   public List<Object[]> buffer;
   public int getBufferIndex;
 
-  public List<InputStream> fis;
-  public List<GZIPInputStream> gzis;
-  public List<DataInputStream> dis;
-  public List<Object[]> rowbuffer;
+  public List<SpillReader> readers;
   public List<Integer> bufferSizes;
 
-  // To store rows and file references
-  public List<RowTempFile> tempRows;
+  // The current row of every temp file being merged, smallest row first
+  public PriorityQueue<RowTempFile> tempRows;
+
+  // The maximum number of temp files to merge at once
+  public int mergeFanIn;
 
   public int[] fieldnrs; // the corresponding field numbers
   public FileObject fil;
   public IRowMeta outputRowMeta;
   public int sortSize;
   public boolean compressFiles;
+  public SpillCodec spillCodec;
+
+  // Sort in parallel and write the temp files in the background
+  public boolean parallelSort;
+  public Future<Integer> pendingSpill;
+  public int pendingSpillFileNr;
   public int[] convertKeysToNative;
   public boolean convertAnyKeysToNative;
 
@@ -71,9 +78,7 @@ public class SortRowsData extends BaseTransformData implements ITransformData {
     super();
 
     files = new ArrayList<>();
-    fis = new ArrayList<>();
-    gzis = new ArrayList<>();
-    dis = new ArrayList<>();
+    readers = new ArrayList<>();
     bufferSizes = new ArrayList<>();
 
     previous = null; // Heroic
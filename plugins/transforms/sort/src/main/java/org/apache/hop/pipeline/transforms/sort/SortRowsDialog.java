@@ -69,10 +69,14 @@ public class SortRowsDialog extends BaseTransformDialog implements ITransformDia
 
   private TextVar wFreeMemory;
 
+  private TextVar wMergeFanIn;
+
   private CheckBoxVar wCompress;
 
   private Button wUniqueRows;
 
+  private Button wParallelSort;
+
   private TableView wFields;
 
   private final SortRowsMeta input;
@@ -216,6 +220,26 @@ public class SortRowsDialog extends BaseTransformDialog implements ITransformDia
     fdFreeMemory.right = new FormAttachment(100, 0);
     wFreeMemory.setLayoutData(fdFreeMemory);
 
+    // Maximum number of temporary files to merge at once
+    Label wlMergeFanIn = new Label(shell, SWT.RIGHT);
+    wlMergeFanIn.setText(BaseMessages.getString(PKG, "SortRowsDialog.MergeFanIn.Label"));
+    wlMergeFanIn.setToolTipText(BaseMessages.getString(PKG, "SortRowsDialog.MergeFanIn.ToolTip"));
+    PropsUi.setLook(wlMergeFanIn);
+    FormData fdlMergeFanIn = new FormData();
+    fdlMergeFanIn.left = new FormAttachment(0, 0);
+    fdlMergeFanIn.right = new FormAttachment(middle, -margin);
+    fdlMergeFanIn.top = new FormAttachment(wFreeMemory, margin * 2);
+    wlMergeFanIn.setLayoutData(fdlMergeFanIn);
+    wMergeFanIn = new TextVar(variables, shell, SWT.SINGLE | SWT.LEFT | SWT.BORDER);
+    wMergeFanIn.setToolTipText(BaseMessages.getString(PKG, "SortRowsDialog.MergeFanIn.ToolTip"));
+    PropsUi.setLook(wMergeFanIn);
+    wMergeFanIn.addModifyListener(lsMod);
+    FormData fdMergeFanIn = new FormData();
+    fdMergeFanIn.left = new FormAttachment(middle, 0);
+    fdMergeFanIn.top = new FormAttachment(wFreeMemory, margin * 2);
+    fdMergeFanIn.right = new FormAttachment(100, 0);
+    wMergeFanIn.setLayoutData(fdMergeFanIn);
+
     // Using compression for temporary files?
     Label wlCompress = new Label(shell, SWT.RIGHT);
     wlCompress.setText(BaseMessages.getString(PKG, "SortRowsDialog.Compress.Label"));
@@ -223,7 +247,7 @@ public class SortRowsDialog extends BaseTransformDialog implements ITransformDia
     FormData fdlCompress = new FormData();
     fdlCompress.left = new FormAttachment(0, 0);
     fdlCompress.right = new FormAttachment(middle, -margin);
-    fdlCompress.top = new FormAttachment(wFreeMemory, margin * 2);
+    fdlCompress.top = new FormAttachment(wMergeFanIn, margin * 2);
     wlCompress.setLayoutData(fdlCompress);
     wCompress = new CheckBoxVar(variables, shell, SWT.CHECK, "");
     PropsUi.setLook(wCompress);
@@ -261,6 +285,26 @@ public class SortRowsDialog extends BaseTransformDialog implements ITransformDia
     wUniqueRows.setLayoutData(fdUniqueRows);
     wUniqueRows.addSelectionListener(new ComponentSelectionListener(input));
 
+    // Sort in parallel and write temporary files in the background?
+    Label wlParallelSort = new Label(shell, SWT.RIGHT);
+    wlParallelSort.setText(BaseMessages.getString(PKG, "SortRowsDialog.ParallelSort.Label"));
+    PropsUi.setLook(wlParallelSort);
+    FormData fdlParallelSort = new FormData();
+    fdlParallelSort.left = new FormAttachment(0, 0);
+    fdlParallelSort.right = new FormAttachment(middle, -margin);
+    fdlParallelSort.top = new FormAttachment(wUniqueRows, margin);
+    wlParallelSort.setLayoutData(fdlParallelSort);
+    wParallelSort = new Button(shell, SWT.CHECK);
+    wParallelSort.setToolTipText(
+        BaseMessages.getString(PKG, "SortRowsDialog.ParallelSort.Tooltip"));
+    PropsUi.setLook(wParallelSort);
+    FormData fdParallelSort = new FormData();
+    fdParallelSort.left = new FormAttachment(middle, 0);
+    fdParallelSort.top = new FormAttachment(wlParallelSort, 0, SWT.CENTER);
+    fdParallelSort.right = new FormAttachment(100, 0);
+    wParallelSort.setLayoutData(fdParallelSort);
+    wParallelSort.addSelectionListener(new ComponentSelectionListener(input));
+
     wOk = new Button(shell, SWT.PUSH);
     wOk.setText(BaseMessages.getString(PKG, "System.Button.OK"));
     wOk.addListener(SWT.Selection, e -> ok());
@@ -278,7 +322,7 @@ public class SortRowsDialog extends BaseTransformDialog implements ITransformDia
     PropsUi.setLook(wlFields);
     FormData fdlFields = new FormData();
     fdlFields.left = new FormAttachment(0, 0);
-    fdlFields.top = new FormAttachment(wUniqueRows, margin);
+    fdlFields.top = new FormAttachment(wParallelSort, margin);
     wlFields.setLayoutData(fdlFields);
 
     final int FieldsRows = input.getFieldName().length;
@@ -413,9 +457,11 @@ public class SortRowsDialog extends BaseTransformDialog implements ITransformDia
     }
     wSortSize.setText(Const.NVL(input.getSortSize(), ""));
     wFreeMemory.setText(Const.NVL(input.getFreeMemoryLimit(), ""));
+    wMergeFanIn.setText(Const.NVL(input.getMergeFanIn(), ""));
     wCompress.setSelection(input.getCompressFiles());
     wCompress.setVariableName(input.getCompressFilesVariable());
     wUniqueRows.setSelection(input.isOnlyPassingUniqueRows());
+    wParallelSort.setSelection(input.isParallelSort());
 
     Table table = wFields.table;
     if (input.getFieldName().length > 0) {
@@ -477,10 +523,12 @@ public class SortRowsDialog extends BaseTransformDialog implements ITransformDia
     input.setDirectory(wSortDir.getText());
     input.setSortSize(wSortSize.getText());
     input.setFreeMemoryLimit(wFreeMemory.getText());
+    input.setMergeFanIn(wMergeFanIn.getText());
     log.logDetailed("Sort rows", "Compression is set to " + wCompress.getSelection());
     input.setCompressFiles(wCompress.getSelection());
     input.setCompressFilesVariable(wCompress.getVariableName());
     input.setOnlyPassingUniqueRows(wUniqueRows.getSelection());
+    input.setParallelSort(wParallelSort.getSelection());
 
     int nrFields = wFields.nrNonEmpty();
 
@@ -102,6 +102,13 @@ public class SortRowsMeta extends BaseTransformMeta<SortRows, SortRowsData> impl
   @Injection(name = "FREE_MEMORY_TRESHOLD")
   private String freeMemoryLimit;
 
+  /**
+   * The maximum number of temporary files merged at once. If more files are written, they are first
+   * merged into larger intermediate files.
+   */
+  @Injection(name = "MERGE_FAN_IN")
+  private String mergeFanIn;
+
   /** only pass unique rows to the output stream(s) */
   @Injection(name = "ONLY_PASS_UNIQUE_ROWS")
   private boolean onlyPassingUniqueRows;
@@ -116,6 +123,13 @@ public class SortRowsMeta extends BaseTransformMeta<SortRows, SortRowsData> impl
   /** The variable to use to set the compressFiles option boolean */
   private String compressFilesVariable;
 
+  /**
+   * Sort blocks of rows with a parallel sort and write temporary files in the background while the
+   * next block of rows is read.
+   */
+  @Injection(name = "PARALLEL_SORT")
+  private boolean parallelSort;
+
   public SortRowsMeta() {
     super(); // allocate BaseTransformMeta
   }
@@ -199,10 +213,12 @@ public class SortRowsMeta extends BaseTransformMeta<SortRows, SortRowsData> impl
       prefix = XmlHandler.getTagValue(transformNode, "prefix");
       sortSize = XmlHandler.getTagValue(transformNode, "sort_size");
       freeMemoryLimit = XmlHandler.getTagValue(transformNode, "free_memory");
+      mergeFanIn = XmlHandler.getTagValue(transformNode, "merge_fan_in");
       compressFiles = "Y".equalsIgnoreCase(XmlHandler.getTagValue(transformNode, "compress"));
       compressFilesVariable = XmlHandler.getTagValue(transformNode, "compress_variable");
       onlyPassingUniqueRows =
           "Y".equalsIgnoreCase(XmlHandler.getTagValue(transformNode, "unique_rows"));
+      parallelSort = "Y".equalsIgnoreCase(XmlHandler.getTagValue(transformNode, "parallel_sort"));
 
       Node fields = XmlHandler.getSubNode(transformNode, "fields");
       int nrFields = XmlHandler.countNodes(fields, "field");
@@ -237,9 +253,11 @@ public class SortRowsMeta extends BaseTransformMeta<SortRows, SortRowsData> impl
     prefix = "out";
     sortSize = "1000000";
     freeMemoryLimit = null;
+    mergeFanIn = "100";
     compressFiles = false;
     compressFilesVariable = null;
     onlyPassingUniqueRows = false;
+    parallelSort = false;
 
     int nrFields = 0;
 
@@ -261,11 +279,13 @@ public class SortRowsMeta extends BaseTransformMeta<SortRows, SortRowsData> impl
     retval.append("      ").append(XmlHandler.addTagValue("prefix", prefix));
     retval.append("      ").append(XmlHandler.addTagValue("sort_size", sortSize));
     retval.append("      ").append(XmlHandler.addTagValue("free_memory", freeMemoryLimit));
+    retval.append("      ").append(XmlHandler.addTagValue("merge_fan_in", mergeFanIn));
     retval.append("      ").append(XmlHandler.addTagValue("compress", compressFiles));
     retval
         .append("      ")
         .append(XmlHandler.addTagValue("compress_variable", compressFilesVariable));
     retval.append("      ").append(XmlHandler.addTagValue("unique_rows", onlyPassingUniqueRows));
+    retval.append("      ").append(XmlHandler.addTagValue("parallel_sort", parallelSort));
 
     retval.append("    <fields>").append(Const.CR);
     for (int i = 0; i < fieldName.length; i++) {
@@ -494,6 +514,16 @@ public class SortRowsMeta extends BaseTransformMeta<SortRows, SortRowsData> impl
     this.onlyPassingUniqueRows = onlyPassingUniqueRows;
   }
 
+  /** @return true if rows are sorted in parallel and temporary files are written in the background */
+  public boolean isParallelSort() {
+    return parallelSort;
+  }
+
+  /** @param parallelSort true to sort in parallel and write temporary files in the background */
+  public void setParallelSort(boolean parallelSort) {
+    this.parallelSort = parallelSort;
+  }
+
   /** @return the compressFilesVariable */
   public String getCompressFilesVariable() {
     return compressFilesVariable;
@@ -544,6 +574,16 @@ public class SortRowsMeta extends BaseTransformMeta<SortRows, SortRowsData> impl
     this.freeMemoryLimit = freeMemoryLimit;
   }
 
+  /** @return the maximum number of temporary files to merge at once */
+  public String getMergeFanIn() {
+    return mergeFanIn;
+  }
+
+  /** @param mergeFanIn the maximum number of temporary files to merge at once */
+  public void setMergeFanIn(String mergeFanIn) {
+    this.mergeFanIn = mergeFanIn;
+  }
+
   /** @return the preSortedField */
   public boolean[] getPreSortedField() {
     return preSortedField;
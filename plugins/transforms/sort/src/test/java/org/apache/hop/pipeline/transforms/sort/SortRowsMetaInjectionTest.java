@@ -37,7 +37,9 @@ public class SortRowsMetaInjectionTest extends BaseMetadataInjectionTest<SortRow
     check("SORT_FILE_PREFIX", () -> meta.getPrefix());
     check("SORT_SIZE_ROWS", () -> meta.getSortSize());
     check("FREE_MEMORY_TRESHOLD", () -> meta.getFreeMemoryLimit());
+    check("MERGE_FAN_IN", () -> meta.getMergeFanIn());
     check("ONLY_PASS_UNIQUE_ROWS", () -> meta.isOnlyPassingUniqueRows());
+    check("PARALLEL_SORT", () -> meta.isParallelSort());
     check("COMPRESS_TEMP_FILES", () -> meta.getCompressFiles());
     check("NAME", () -> meta.getFieldName()[0]);
     check("SORT_ASCENDING", () -> meta.getAscending()[0]);
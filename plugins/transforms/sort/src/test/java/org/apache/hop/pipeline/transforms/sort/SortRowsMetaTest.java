@@ -53,9 +53,11 @@ public class SortRowsMetaTest {
             "Prefix",
             "SortSize",
             "FreeMemoryLimit",
+            "MergeFanIn",
             "CompressFiles",
             "CompressFilesVariable",
             "OnlyPassingUniqueRows",
+            "ParallelSort",
             "FieldName",
             "Ascending",
             "CaseSensitive",
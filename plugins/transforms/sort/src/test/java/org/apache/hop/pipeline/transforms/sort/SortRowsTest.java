@@ -0,0 +1,225 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.pipeline.transforms.sort;
+
+import org.apache.hop.core.exception.HopException;
+import org.apache.hop.core.exception.HopTransformException;
+import org.apache.hop.core.logging.ILoggingObject;
+import org.apache.hop.core.row.IRowMeta;
+import org.apache.hop.core.row.RowMetaBuilder;
+import org.apache.hop.junit.rules.RestoreHopEngineEnvironment;
+import org.apache.hop.pipeline.Pipeline;
+import org.apache.hop.pipeline.PipelineMeta;
+import org.apache.hop.pipeline.transform.TransformMeta;
+import org.apache.hop.pipeline.transforms.mock.TransformMockHelper;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.ClassRule;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+public class SortRowsTest {
+  @ClassRule public static RestoreHopEngineEnvironment env = new RestoreHopEngineEnvironment();
+
+  @Rule public TemporaryFolder tempFolder = new TemporaryFolder();
+
+  private TransformMockHelper<SortRowsMeta, SortRowsData> mockHelper;
+
+  private final IRowMeta inputRowMeta =
+      new RowMetaBuilder().addInteger("key").addInteger("seq").build();
+
+  /** Reads the rows from a list, collects the output rows and counts the temp files. */
+  private class SortRowsHandler extends SortRows {
+    private final Iterator<Object[]> inputRows;
+    private final List<Object[]> outputRows = new ArrayList<>();
+    private int maxFiles;
+
+    SortRowsHandler(
+        TransformMeta transformMeta,
+        SortRowsMeta meta,
+        SortRowsData data,
+        PipelineMeta pipelineMeta,
+        Pipeline pipeline,
+        List<Object[]> inputRows) {
+      super(transformMeta, meta, data, 0, pipelineMeta, pipeline);
+      this.inputRows = inputRows.iterator();
+    }
+
+    @Override
+    public Object[] getRow() throws HopException {
+      setInputRowMeta(inputRowMeta);
+      return inputRows.hasNext() ? inputRows.next() : null;
+    }
+
+    @Override
+    public void putRow(IRowMeta rowMeta, Object[] row) throws HopTransformException {
+      outputRows.add(row);
+    }
+
+    @Override
+    void mergeIntermediateFiles() throws HopException {
+      maxFiles = Math.max(maxFiles, getData().files.size());
+      super.mergeIntermediateFiles();
+    }
+  }
+
+  @Before
+  public void setUp() {
+    mockHelper = new TransformMockHelper<>("Sort Rows", SortRowsMeta.class, SortRowsData.class);
+    when(mockHelper.logChannelFactory.create(any(), any(ILoggingObject.class)))
+        .thenReturn(mockHelper.iLogChannel);
+    when(mockHelper.pipeline.isRunning()).thenReturn(true);
+  }
+
+  @After
+  public void tearDown() {
+    mockHelper.cleanUp();
+  }
+
+  private SortRowsHandler sort(
+      String sortSize, String mergeFanIn, boolean parallelSort, List<Object[]> inputRows)
+      throws HopException {
+    SortRowsMeta meta = new SortRowsMeta();
+    meta.setDefault();
+    meta.allocate(1);
+    meta.setFieldName(new String[] {"key"});
+    meta.setAscending(new boolean[] {true});
+    meta.setCaseSensitive(new boolean[] {true});
+    meta.setSortSize(sortSize);
+    meta.setMergeFanIn(mergeFanIn);
+    meta.setParallelSort(parallelSort);
+    meta.setDirectory(tempFolder.getRoot().getAbsolutePath());
+
+    SortRowsHandler sortRows =
+        new SortRowsHandler(
+            mockHelper.transformMeta,
+            meta,
+            new SortRowsData(),
+            mockHelper.pipelineMeta,
+            mockHelper.pipeline,
+            inputRows);
+    assertTrue(sortRows.init());
+    while (sortRows.processRow()) {
+      // Keep sorting
+    }
+    sortRows.dispose();
+    return sortRows;
+  }
+
+  /** Random keys with a lot of duplicates, the sequence number shows the input order. */
+  private static List<Object[]> inputRows(int nrRows) {
+    Random random = new Random(42);
+    List<Object[]> rows = new ArrayList<>(nrRows);
+    for (int i = 0; i < nrRows; i++) {
+      rows.add(new Object[] {(long) random.nextInt(100), (long) i});
+    }
+    return rows;
+  }
+
+  /** The rows have to be sorted on the key and rows with equal keys keep their input order. */
+  private static void assertSorted(int nrRows, List<Object[]> outputRows) {
+    assertEquals(nrRows, outputRows.size());
+    for (int i = 1; i < outputRows.size(); i++) {
+      long previousKey = (Long) outputRows.get(i - 1)[0];
+      long key = (Long) outputRows.get(i)[0];
+      assertTrue("Row " + i + " is out of order", previousKey <= key);
+      if (previousKey == key) {
+        assertTrue(
+            "Row " + i + " with equal key moved",
+            (Long) outputRows.get(i - 1)[1] < (Long) outputRows.get(i)[1]);
+      }
+    }
+  }
+
+  private void assertNoTempFilesLeft() {
+    File[] files = tempFolder.getRoot().listFiles();
+    assertEquals(0, files == null ? 0 : files.length);
+  }
+
+  @Test
+  public void testInMemorySort() throws Exception {
+    SortRowsHandler sortRows = sort("1000000", "100", false, inputRows(1000));
+
+    assertSorted(1000, sortRows.outputRows);
+    assertEquals(0, sortRows.maxFiles);
+    assertNoTempFilesLeft();
+  }
+
+  @Test
+  public void testMergeSpilledFilesWithHeap() throws Exception {
+    // 10 temp files of 100 rows, merged at once
+    SortRowsHandler sortRows = sort("100", "100", false, inputRows(1000));
+
+    assertSorted(1000, sortRows.outputRows);
+    assertEquals(10, sortRows.maxFiles);
+    assertNoTempFilesLeft();
+  }
+
+  @Test
+  public void testMultiPassMerge() throws Exception {
+    // 100 temp files of 10 rows, merged 3 at a time: several intermediate passes
+    SortRowsHandler sortRows = sort("10", "3", false, inputRows(1000));
+
+    assertSorted(1000, sortRows.outputRows);
+    assertEquals(100, sortRows.maxFiles);
+    assertTrue(sortRows.getData().files.isEmpty());
+    assertNoTempFilesLeft();
+  }
+
+  @Test
+  public void testMultiPassMergeWithRemainder() throws Exception {
+    // 7 files with a fan-in of 2 leaves a single file in a group on every pass
+    SortRowsHandler sortRows = sort("150", "2", false, inputRows(1001));
+
+    assertSorted(1001, sortRows.outputRows);
+    assertEquals(7, sortRows.maxFiles);
+    assertNoTempFilesLeft();
+  }
+
+  @Test
+  public void testParallelInMemorySort() throws Exception {
+    // Enough rows to go over the threshold for a parallel sort
+    SortRowsHandler sortRows = sort("1000000", "100", true, inputRows(50000));
+
+    assertSorted(50000, sortRows.outputRows);
+    assertEquals(0, sortRows.maxFiles);
+    assertNoTempFilesLeft();
+  }
+
+  @Test
+  public void testBackgroundSpill() throws Exception {
+    // Every full buffer is sorted and written in the background while the next one fills up
+    SortRowsHandler sortRows = sort("12000", "4", true, inputRows(100000));
+
+    assertSorted(100000, sortRows.outputRows);
+    assertEquals(9, sortRows.maxFiles);
+    assertNoTempFilesLeft();
+  }
+}
@@ -0,0 +1,239 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.pipeline.transforms.streamlookup;
+
+import org.apache.hop.core.exception.HopException;
+import org.apache.hop.core.hash.OffHeapHashIndex;
+import org.apache.hop.core.row.IRowMeta;
+import org.apache.hop.core.row.RowMeta;
+import org.apache.hop.pipeline.engine.IPipelineEngine;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The lookup values of a Stream Lookup transform, kept in an off-heap hash index which is built
+ * once and shared read-only by all copies of the transform.
+ *
+ * <p>Every copy feeds the rows of its info row set and then waits for the other copies to finish
+ * before doing lookups. The store is kept in the extension data map of the pipeline and closed when
+ * the last copy releases it.
+ */
+public class SharedLookupStore {
+
+  private static final String EXTENSION_DATA_PREFIX = "StreamLookup.SharedStore.";
+
+  private final long memoryBudget;
+  private final String spillDirectory;
+  private final CountDownLatch feeding;
+  private int users;
+  private volatile boolean failed;
+
+  private IRowMeta infoMeta;
+  private IRowMeta keyTypes;
+  private IRowMeta cacheKeyMeta;
+  private IRowMeta cacheValueMeta;
+  private OffHeapHashIndex index;
+
+  /** Integer keys are kept in the index as longs, the value of a null key is kept here. */
+  private byte[] nullKeyValue;
+
+  private SharedLookupStore(int nrCopies, long memoryBudget, String spillDirectory) {
+    this.memoryBudget = memoryBudget;
+    this.spillDirectory = spillDirectory;
+    this.feeding = new CountDownLatch(nrCopies);
+  }
+
+  /**
+   * Get the store of a transform, creating it for the first copy asking for it.
+   *
+   * @param pipeline The running pipeline
+   * @param transformName The name of the Stream Lookup transform
+   * @param nrCopies The number of copies of the transform, all of them need to feed the store
+   * @param memoryBudget The number of bytes to keep in direct memory before spilling to disk, 0 or
+   *     less to never spill
+   * @param spillDirectory The directory of the spill file, the system temporary folder if empty
+   * @return The shared store
+   */
+  public static SharedLookupStore acquire(
+      IPipelineEngine<?> pipeline,
+      String transformName,
+      int nrCopies,
+      long memoryBudget,
+      String spillDirectory) {
+    Map<String, Object> extensionDataMap = pipeline.getExtensionDataMap();
+    synchronized (extensionDataMap) {
+      String key = EXTENSION_DATA_PREFIX + transformName;
+      SharedLookupStore store = (SharedLookupStore) extensionDataMap.get(key);
+      if (store == null) {
+        store = new SharedLookupStore(nrCopies, memoryBudget, spillDirectory);
+        extensionDataMap.put(key, store);
+      }
+      store.users++;
+      return store;
+    }
+  }
+
+  /**
+   * Release the store for one copy. The last copy closes it.
+   *
+   * @param pipeline The running pipeline
+   * @param transformName The name of the Stream Lookup transform
+   */
+  public void release(IPipelineEngine<?> pipeline, String transformName) throws IOException {
+    Map<String, Object> extensionDataMap = pipeline.getExtensionDataMap();
+    synchronized (extensionDataMap) {
+      users--;
+      if (users > 0) {
+        return;
+      }
+      extensionDataMap.remove(EXTENSION_DATA_PREFIX + transformName);
+    }
+    OffHeapHashIndex closing;
+    synchronized (this) {
+      closing = index;
+      index = null;
+    }
+    if (closing != null) {
+      closing.close();
+    }
+  }
+
+  /**
+   * Set up the store with the layout of the lookup rows. The first copy reading a lookup row
+   * decides, the others are ignored.
+   */
+  public synchronized void initialize(
+      IRowMeta infoMeta, IRowMeta keyTypes, IRowMeta cacheKeyMeta, IRowMeta cacheValueMeta) {
+    if (index != null) {
+      return;
+    }
+    this.infoMeta = infoMeta;
+    this.keyTypes = keyTypes;
+    this.cacheKeyMeta = cacheKeyMeta;
+    this.cacheValueMeta = cacheValueMeta;
+
+    boolean longKeys = cacheKeyMeta.size() == 1 && cacheKeyMeta.getValueMeta(0).isInteger();
+    index =
+        new OffHeapHashIndex(
+            longKeys, OffHeapHashIndex.DEFAULT_MAX_CHUNK_SIZE, memoryBudget, spillDirectory);
+  }
+
+  /** @return true if at least one copy read a lookup row */
+  public synchronized boolean isInitialized() {
+    return index != null;
+  }
+
+  /**
+   * Add a lookup row, replacing the values of an existing key.
+   *
+   * @param keyData The key values, in normal storage
+   * @param valueData The values to return
+   */
+  public synchronized void put(Object[] keyData, Object[] valueData) throws HopException {
+    byte[] value = RowMeta.extractData(cacheValueMeta, valueData);
+    if (index.isLongKeys()) {
+      Long key = cacheKeyMeta.getInteger(keyData, 0);
+      if (key == null) {
+        nullKeyValue = value;
+      } else {
+        index.put(key.longValue(), value);
+      }
+    } else {
+      index.put(RowMeta.extractData(cacheKeyMeta, keyData), value);
+    }
+  }
+
+  /**
+   * Look up the values of a key. Only call this once {@link #waitForCopies(long)} returned true.
+   *
+   * @param keyData The key values, converted to the key types of the lookup rows
+   * @return The values or null if the key isn't found
+   */
+  public Object[] get(Object[] keyData) throws HopException {
+    byte[] value;
+    if (index.isLongKeys()) {
+      Long key = cacheKeyMeta.getInteger(keyData, 0);
+      value = key == null ? nullKeyValue : index.get(key.longValue());
+    } else {
+      value = index.get(RowMeta.extractData(cacheKeyMeta, keyData));
+    }
+    return value == null ? null : RowMeta.getRow(cacheValueMeta, value);
+  }
+
+  /**
+   * Signal that a copy read all of its lookup rows.
+   *
+   * @param success false if the copy failed to read its rows, the store can't be used
+   */
+  public void doneFeeding(boolean success) {
+    if (!success) {
+      failed = true;
+    }
+    feeding.countDown();
+  }
+
+  /**
+   * Wait until all copies fed their lookup rows.
+   *
+   * @param timeout The maximum time to wait in milliseconds
+   * @return true if all copies are done, false if the wait timed out
+   * @throws HopException if a copy failed to read its lookup rows
+   */
+  public boolean waitForCopies(long timeout) throws HopException {
+    try {
+      if (!feeding.await(timeout, TimeUnit.MILLISECONDS)) {
+        return false;
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new HopException("Interrupted while waiting for the shared lookup store", e);
+    }
+    if (failed) {
+      throw new HopException("Another copy failed to read the lookup rows");
+    }
+    return true;
+  }
+
+  /** @return The metadata of the lookup rows */
+  public synchronized IRowMeta getInfoMeta() {
+    return infoMeta;
+  }
+
+  /** @return The data types of the keys of the lookup rows */
+  public synchronized IRowMeta getKeyTypes() {
+    return keyTypes;
+  }
+
+  /** @return The metadata of the keys in the store */
+  public synchronized IRowMeta getCacheKeyMeta() {
+    return cacheKeyMeta;
+  }
+
+  /** @return The metadata of the values in the store */
+  public synchronized IRowMeta getCacheValueMeta() {
+    return cacheValueMeta;
+  }
+
+  /** @return The number of keys in the store */
+  public synchronized long getSize() {
+    return index == null ? 0L : index.getSize() + (nullKeyValue == null ? 0 : 1);
+  }
+}
@@ -17,6 +17,7 @@
 
 package org.apache.hop.pipeline.transforms.streamlookup;
 
+import org.apache.hop.core.Const;
 import org.apache.hop.core.IRowSet;
 import org.apache.hop.core.RowMetaAndData;
 import org.apache.hop.core.exception.HopException;
@@ -35,6 +36,7 @@ import org.apache.hop.pipeline.PipelineMeta;
 import org.apache.hop.pipeline.transform.BaseTransform;
 import org.apache.hop.pipeline.transform.TransformMeta;
 
+import java.io.IOException;
 import java.math.BigDecimal;
 import java.text.DateFormat;
 import java.util.Collections;
@@ -140,6 +142,49 @@ public class StreamLookup extends BaseTransform<StreamLookupMeta, StreamLookupDa
               + "]");
     }
 
+    if (data.sharedStore == null) {
+      readLookupRows();
+      return true;
+    }
+
+    // All copies share the lookup values. When the info transform copies its rows to every copy
+    // only the first copy feeds the store, the others just drain their row set.
+    //
+    TransformMeta infoTransformMeta =
+        getPipelineMeta().findTransform(data.infoStream.getTransformName());
+    data.feedSharedStore = infoTransformMeta.isDistributes() || getCopy() == 0;
+    boolean success = false;
+    try {
+      readLookupRows();
+      success = true;
+    } finally {
+      data.sharedStore.doneFeeding(success);
+    }
+
+    while (!data.sharedStore.waitForCopies(100)) {
+      if (isStopped()) {
+        return true;
+      }
+    }
+    if (data.infoMeta == null) {
+      data.infoMeta = data.sharedStore.getInfoMeta();
+    }
+    if (data.keyTypes == null) {
+      data.keyTypes = data.sharedStore.getKeyTypes();
+    }
+    data.cacheKeyMeta = data.sharedStore.getCacheKeyMeta();
+    data.cacheValueMeta = data.sharedStore.getCacheValueMeta();
+    data.hasLookupRows = data.sharedStore.isInitialized();
+    if (log.isDetailed()) {
+      logDetailed(
+          BaseMessages.getString(
+              PKG, "StreamLookup.Log.SharedStoreSize", Long.toString(data.sharedStore.getSize())));
+    }
+
+    return true;
+  }
+
+  private void readLookupRows() throws HopException {
     int[] keyNrs = new int[meta.getKeylookup().length];
     int[] valueNrs = new int[meta.getValue().length];
     boolean firstRun = true;
@@ -149,6 +194,11 @@ public class StreamLookup extends BaseTransform<StreamLookupMeta, StreamLookupDa
     IRowSet rowSet = findInputRowSet(data.infoStream.getTransformName());
     Object[] rowData = getRowFrom(rowSet); // rows are originating from "lookup_from"
     while (rowData != null) {
+      if (data.sharedStore != null && !data.feedSharedStore) {
+        rowData = getRowFrom(rowSet);
+        continue;
+      }
+
       if (log.isRowLevel()) {
         logRowlevel(
             BaseMessages.getString(PKG, "StreamLookup.Log.ReadLookupRow")
@@ -195,6 +245,10 @@ public class StreamLookup extends BaseTransform<StreamLookupMeta, StreamLookupDa
 
         data.cacheKeyMeta = cacheKeyMeta;
         data.cacheValueMeta = cacheValueMeta;
+
+        if (data.sharedStore != null) {
+          data.sharedStore.initialize(data.infoMeta, data.keyTypes, cacheKeyMeta, cacheValueMeta);
+        }
       }
 
       Object[] keyData = new Object[keyNrs.length];
@@ -210,12 +264,14 @@ public class StreamLookup extends BaseTransform<StreamLookupMeta, StreamLookupDa
         valueData[i] = rowData[valueNrs[i]];
       }
 
-      addToCache(data.cacheKeyMeta, keyData, data.cacheValueMeta, valueData);
+      if (data.sharedStore != null) {
+        data.sharedStore.put(keyData, valueData);
+      } else {
+        addToCache(data.cacheKeyMeta, keyData, data.cacheValueMeta, valueData);
+      }
 
       rowData = getRowFrom(rowSet);
     }
-
-    return true;
   }
 
   private Object[] lookupValues(IRowMeta rowMeta, Object[] row) throws HopException {
@@ -340,7 +396,10 @@ public class StreamLookup extends BaseTransform<StreamLookupMeta, StreamLookupDa
     }
   }
 
-  private Object[] getFromCache(IRowMeta keyMeta, Object[] keyData) throws HopValueException {
+  private Object[] getFromCache(IRowMeta keyMeta, Object[] keyData) throws HopException {
+    if (data.sharedStore != null) {
+      return data.sharedStore.get(keyData);
+    }
     if (meta.isMemoryPreservationActive()) {
       if (meta.isUsingSortedList()) {
         KeyValue keyValue = new KeyValue(keyData, null);
@@ -485,6 +544,17 @@ public class StreamLookup extends BaseTransform<StreamLookupMeta, StreamLookupDa
     if (super.init()) {
       data.readLookupValues = true;
 
+      if (meta.isUsingOffHeapStore()) {
+        long budgetMb = Const.toLong(resolve(meta.getOffHeapMemoryBudget()), 0L);
+        data.sharedStore =
+            SharedLookupStore.acquire(
+                getPipeline(),
+                getTransformName(),
+                getTransformMeta().getCopies(this),
+                budgetMb * 1024 * 1024,
+                resolve(meta.getOffHeapSpillDirectory()));
+      }
+
       return true;
     }
 
@@ -500,6 +570,15 @@ public class StreamLookup extends BaseTransform<StreamLookupMeta, StreamLookupDa
     data.hashIndex = null;
     data.longIndex = null;
 
+    if (data.sharedStore != null) {
+      try {
+        data.sharedStore.release(getPipeline(), getTransformName());
+      } catch (IOException e) {
+        logError("Error closing the shared lookup store", e);
+      }
+      data.sharedStore = null;
+    }
+
     super.dispose();
   }
 }
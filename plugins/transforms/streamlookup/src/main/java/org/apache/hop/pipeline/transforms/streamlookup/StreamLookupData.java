@@ -81,6 +81,12 @@ public class StreamLookupData extends BaseTransformData implements ITransformDat
 
   public IStream infoStream;
 
+  /** The off-heap lookup values shared by all copies, null if every copy keeps its own */
+  public SharedLookupStore sharedStore;
+
+  /** False if another copy adds the lookup rows to the shared store */
+  public boolean feedSharedStore;
+
   public StreamLookupData() {
     super();
     look = new HashMap<>();
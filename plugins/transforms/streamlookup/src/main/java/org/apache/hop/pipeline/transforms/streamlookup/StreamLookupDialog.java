@@ -35,6 +35,7 @@ import org.apache.hop.ui.core.dialog.ErrorDialog;
 import org.apache.hop.ui.core.dialog.MessageBox;
 import org.apache.hop.ui.core.widget.ColumnInfo;
 import org.apache.hop.ui.core.widget.TableView;
+import org.apache.hop.ui.core.widget.TextVar;
 import org.apache.hop.ui.pipeline.transform.BaseTransformDialog;
 import org.eclipse.swt.SWT;
 import org.eclipse.swt.custom.CCombo;
@@ -72,6 +73,12 @@ public class StreamLookupDialog extends BaseTransformDialog implements ITransfor
 
   private Button wIntegerPair;
 
+  private Button wOffHeapStore;
+
+  private TextVar wOffHeapMemoryBudget;
+
+  private TextVar wOffHeapSpillDirectory;
+
   private final StreamLookupMeta input;
 
   private ColumnInfo[] ciKey;
@@ -299,6 +306,70 @@ public class StreamLookupDialog extends BaseTransformDialog implements ITransfor
           wIntegerPair.setEnabled(selection);
         });
 
+    Label wlOffHeapSpillDirectory = new Label(shell, SWT.RIGHT);
+    wlOffHeapSpillDirectory.setText(
+        BaseMessages.getString(PKG, "StreamLookupDialog.OffHeapSpillDirectory.Label"));
+    PropsUi.setLook(wlOffHeapSpillDirectory);
+    FormData fdlOffHeapSpillDirectory = new FormData();
+    fdlOffHeapSpillDirectory.left = new FormAttachment(0, 0);
+    fdlOffHeapSpillDirectory.bottom = new FormAttachment(wlPreserveMemory, -margin);
+    fdlOffHeapSpillDirectory.right = new FormAttachment(middle, -margin);
+    wlOffHeapSpillDirectory.setLayoutData(fdlOffHeapSpillDirectory);
+    wOffHeapSpillDirectory = new TextVar(variables, shell, SWT.SINGLE | SWT.LEFT | SWT.BORDER);
+    wOffHeapSpillDirectory.setToolTipText(
+        BaseMessages.getString(PKG, "StreamLookupDialog.OffHeapSpillDirectory.Tooltip"));
+    PropsUi.setLook(wOffHeapSpillDirectory);
+    wOffHeapSpillDirectory.addModifyListener(lsMod);
+    FormData fdOffHeapSpillDirectory = new FormData();
+    fdOffHeapSpillDirectory.left = new FormAttachment(middle, 0);
+    fdOffHeapSpillDirectory.top = new FormAttachment(wlOffHeapSpillDirectory, 0, SWT.CENTER);
+    fdOffHeapSpillDirectory.right = new FormAttachment(100, 0);
+    wOffHeapSpillDirectory.setLayoutData(fdOffHeapSpillDirectory);
+
+    Label wlOffHeapMemoryBudget = new Label(shell, SWT.RIGHT);
+    wlOffHeapMemoryBudget.setText(
+        BaseMessages.getString(PKG, "StreamLookupDialog.OffHeapMemoryBudget.Label"));
+    PropsUi.setLook(wlOffHeapMemoryBudget);
+    FormData fdlOffHeapMemoryBudget = new FormData();
+    fdlOffHeapMemoryBudget.left = new FormAttachment(0, 0);
+    fdlOffHeapMemoryBudget.bottom = new FormAttachment(wOffHeapSpillDirectory, -margin);
+    fdlOffHeapMemoryBudget.right = new FormAttachment(middle, -margin);
+    wlOffHeapMemoryBudget.setLayoutData(fdlOffHeapMemoryBudget);
+    wOffHeapMemoryBudget = new TextVar(variables, shell, SWT.SINGLE | SWT.LEFT | SWT.BORDER);
+    wOffHeapMemoryBudget.setToolTipText(
+        BaseMessages.getString(PKG, "StreamLookupDialog.OffHeapMemoryBudget.Tooltip"));
+    PropsUi.setLook(wOffHeapMemoryBudget);
+    wOffHeapMemoryBudget.addModifyListener(lsMod);
+    FormData fdOffHeapMemoryBudget = new FormData();
+    fdOffHeapMemoryBudget.left = new FormAttachment(middle, 0);
+    fdOffHeapMemoryBudget.top = new FormAttachment(wlOffHeapMemoryBudget, 0, SWT.CENTER);
+    fdOffHeapMemoryBudget.right = new FormAttachment(100, 0);
+    wOffHeapMemoryBudget.setLayoutData(fdOffHeapMemoryBudget);
+
+    Label wlOffHeapStore = new Label(shell, SWT.RIGHT);
+    wlOffHeapStore.setText(BaseMessages.getString(PKG, "StreamLookupDialog.OffHeapStore.Label"));
+    PropsUi.setLook(wlOffHeapStore);
+    FormData fdlOffHeapStore = new FormData();
+    fdlOffHeapStore.left = new FormAttachment(0, 0);
+    fdlOffHeapStore.bottom = new FormAttachment(wOffHeapMemoryBudget, -margin);
+    fdlOffHeapStore.right = new FormAttachment(middle, -margin);
+    wlOffHeapStore.setLayoutData(fdlOffHeapStore);
+    wOffHeapStore = new Button(shell, SWT.CHECK);
+    wOffHeapStore.setToolTipText(
+        BaseMessages.getString(PKG, "StreamLookupDialog.OffHeapStore.Tooltip"));
+    PropsUi.setLook(wOffHeapStore);
+    FormData fdOffHeapStore = new FormData();
+    fdOffHeapStore.left = new FormAttachment(middle, 0);
+    fdOffHeapStore.top = new FormAttachment(wlOffHeapStore, 0, SWT.CENTER);
+    fdOffHeapStore.right = new FormAttachment(100, 0);
+    wOffHeapStore.setLayoutData(fdOffHeapStore);
+    wOffHeapStore.addListener(
+        SWT.Selection,
+        event -> {
+          input.setChanged();
+          enableOffHeapFields();
+        });
+
     // THE UPDATE/INSERT TABLE
     Label wlReturn = new Label(shell, SWT.NONE);
     wlReturn.setText(BaseMessages.getString(PKG, "StreamLookupDialog.ReturnFields.Label"));
@@ -348,7 +419,7 @@ public class StreamLookupDialog extends BaseTransformDialog implements ITransfor
     fdReturn.left = new FormAttachment(0, 0);
     fdReturn.top = new FormAttachment(wlReturn, margin);
     fdReturn.right = new FormAttachment(100, 0);
-    fdReturn.bottom = new FormAttachment(wlPreserveMemory, -2 * margin);
+    fdReturn.bottom = new FormAttachment(wlOffHeapStore, -2 * margin);
     wReturn.setLayoutData(fdReturn);
 
     getData();
@@ -490,6 +561,11 @@ public class StreamLookupDialog extends BaseTransformDialog implements ITransfor
     wSortedList.setSelection(input.isUsingSortedList());
     wIntegerPair.setSelection(input.isUsingIntegerPair());
 
+    wOffHeapStore.setSelection(input.isUsingOffHeapStore());
+    wOffHeapMemoryBudget.setText(Const.NVL(input.getOffHeapMemoryBudget(), ""));
+    wOffHeapSpillDirectory.setText(Const.NVL(input.getOffHeapSpillDirectory(), ""));
+    enableOffHeapFields();
+
     wKey.setRowNums();
     wKey.optWidth(true);
     wReturn.setRowNums();
@@ -499,6 +575,12 @@ public class StreamLookupDialog extends BaseTransformDialog implements ITransfor
     wTransformName.setFocus();
   }
 
+  private void enableOffHeapFields() {
+    boolean offHeap = wOffHeapStore.getSelection();
+    wOffHeapMemoryBudget.setEnabled(offHeap);
+    wOffHeapSpillDirectory.setEnabled(offHeap);
+  }
+
   private void cancel() {
     transformName = null;
     input.setChanged(changed);
@@ -516,6 +598,9 @@ public class StreamLookupDialog extends BaseTransformDialog implements ITransfor
     input.setMemoryPreservationActive(wPreserveMemory.getSelection());
     input.setUsingSortedList(wSortedList.getSelection());
     input.setUsingIntegerPair(wIntegerPair.getSelection());
+    input.setUsingOffHeapStore(wOffHeapStore.getSelection());
+    input.setOffHeapMemoryBudget(wOffHeapMemoryBudget.getText());
+    input.setOffHeapSpillDirectory(wOffHeapSpillDirectory.getText());
 
     if (log.isDebug()) {
       logDebug(BaseMessages.getString(PKG, "StreamLookupDialog.Log.FoundKeys", nrkeys + ""));
@@ -97,6 +97,18 @@ public class StreamLookupMeta extends BaseTransformMeta<StreamLookup, StreamLook
   @Injection(name = "INTEGER_PAIR")
   private boolean usingIntegerPair;
 
+  /** Keep the lookup values in an off-heap store shared by all copies of the transform */
+  @Injection(name = "OFF_HEAP_STORE")
+  private boolean usingOffHeapStore;
+
+  /** The size in MB of the off-heap store to keep in memory before spilling to disk */
+  @Injection(name = "OFF_HEAP_MEMORY_BUDGET")
+  private String offHeapMemoryBudget;
+
+  /** The directory of the file the off-heap store spills to */
+  @Injection(name = "OFF_HEAP_SPILL_DIRECTORY")
+  private String offHeapSpillDirectory;
+
   public StreamLookupMeta() {
     super(); // allocate BaseTransformMeta
   }
@@ -164,6 +176,10 @@ public class StreamLookupMeta extends BaseTransformMeta<StreamLookup, StreamLook
           "Y".equalsIgnoreCase(XmlHandler.getTagValue(transformNode, "sorted_list")));
       setUsingIntegerPair(
           "Y".equalsIgnoreCase(XmlHandler.getTagValue(transformNode, "integer_pair")));
+      setUsingOffHeapStore(
+          "Y".equalsIgnoreCase(XmlHandler.getTagValue(transformNode, "off_heap_store")));
+      setOffHeapMemoryBudget(XmlHandler.getTagValue(transformNode, "off_heap_memory_budget"));
+      setOffHeapSpillDirectory(XmlHandler.getTagValue(transformNode, "off_heap_spill_directory"));
 
       Node lookup = XmlHandler.getSubNode(transformNode, "lookup");
       nrkeys = XmlHandler.countNodes(lookup, "key");
@@ -214,6 +230,9 @@ public class StreamLookupMeta extends BaseTransformMeta<StreamLookup, StreamLook
     setMemoryPreservationActive(true);
     setUsingSortedList(false);
     setUsingIntegerPair(false);
+    setUsingOffHeapStore(false);
+    setOffHeapMemoryBudget(null);
+    setOffHeapSpillDirectory(null);
 
     allocate(0, 0);
   }
@@ -267,6 +286,13 @@ public class StreamLookupMeta extends BaseTransformMeta<StreamLookup, StreamLook
         .append(XmlHandler.addTagValue("preserve_memory", isMemoryPreservationActive()));
     retval.append("    ").append(XmlHandler.addTagValue("sorted_list", isUsingSortedList()));
     retval.append("    ").append(XmlHandler.addTagValue("integer_pair", isUsingIntegerPair()));
+    retval.append("    ").append(XmlHandler.addTagValue("off_heap_store", isUsingOffHeapStore()));
+    retval
+        .append("    ")
+        .append(XmlHandler.addTagValue("off_heap_memory_budget", getOffHeapMemoryBudget()));
+    retval
+        .append("    ")
+        .append(XmlHandler.addTagValue("off_heap_spill_directory", getOffHeapSpillDirectory()));
 
     retval.append("    <lookup>").append(Const.CR);
     for (int i = 0; i < getKeystream().length; i++) {
@@ -628,6 +654,36 @@ public class StreamLookupMeta extends BaseTransformMeta<StreamLookup, StreamLook
     this.usingIntegerPair = usingIntegerPair;
   }
 
+  /** @return true if the lookup values are kept off-heap and shared by all copies */
+  public boolean isUsingOffHeapStore() {
+    return usingOffHeapStore;
+  }
+
+  /** @param usingOffHeapStore true to keep the lookup values off-heap, shared by all copies */
+  public void setUsingOffHeapStore(boolean usingOffHeapStore) {
+    this.usingOffHeapStore = usingOffHeapStore;
+  }
+
+  /** @return the size in MB of the off-heap store to keep in memory before spilling to disk */
+  public String getOffHeapMemoryBudget() {
+    return offHeapMemoryBudget;
+  }
+
+  /** @param offHeapMemoryBudget the size in MB to keep in memory, empty to never spill */
+  public void setOffHeapMemoryBudget(String offHeapMemoryBudget) {
+    this.offHeapMemoryBudget = offHeapMemoryBudget;
+  }
+
+  /** @return the directory of the file the off-heap store spills to */
+  public String getOffHeapSpillDirectory() {
+    return offHeapSpillDirectory;
+  }
+
+  /** @param offHeapSpillDirectory the directory to spill to, empty for the temporary folder */
+  public void setOffHeapSpillDirectory(String offHeapSpillDirectory) {
+    this.offHeapSpillDirectory = offHeapSpillDirectory;
+  }
+
   /**
    * If we use injection we can have different arrays lengths. We need synchronize them for
    * consistency behavior with UI
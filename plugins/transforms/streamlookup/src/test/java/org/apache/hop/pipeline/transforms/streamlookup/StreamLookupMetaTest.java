@@ -60,6 +60,9 @@ public class StreamLookupMetaTest implements IInitializer<ITransformMeta> {
             "memoryPreservationActive",
             "usingSortedList",
             "usingIntegerPair",
+            "usingOffHeapStore",
+            "offHeapMemoryBudget",
+            "offHeapSpillDirectory",
             "keystream",
             "keylookup",
             "value",
@@ -39,7 +39,11 @@ import org.junit.Before;
 import org.junit.Ignore;
 import org.junit.Test;
 
+import java.util.HashMap;
+import java.util.Map;
+
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.doCallRealMethod;
 import static org.mockito.Mockito.doReturn;
@@ -169,6 +173,23 @@ public class StreamLookupTest {
   private void doTest(
       boolean memoryPreservationActive, boolean binaryLookupStream, boolean binaryDataStream)
       throws HopException {
+    doTest(memoryPreservationActive, binaryLookupStream, binaryDataStream, false);
+  }
+
+  private void doTest(
+      boolean memoryPreservationActive,
+      boolean binaryLookupStream,
+      boolean binaryDataStream,
+      boolean offHeapStore)
+      throws HopException {
+    Map<String, Object> extensionDataMap = new HashMap<>();
+    if (offHeapStore) {
+      when(smh.iTransformMeta.isUsingOffHeapStore()).thenReturn(true);
+      when(smh.iTransformMeta.getOffHeapMemoryBudget()).thenReturn("0");
+      when(smh.transformMeta.getCopies(any())).thenReturn(1);
+      when(smh.pipeline.getExtensionDataMap()).thenReturn(extensionDataMap);
+    }
+
     StreamLookup transform =
         new StreamLookup(
             smh.transformMeta,
@@ -211,6 +232,12 @@ public class StreamLookupTest {
     }
 
     assertEquals("Incorrect output row number", 2, rowNumber);
+
+    if (offHeapStore) {
+      assertEquals(1, extensionDataMap.size());
+      transform.dispose();
+      assertTrue("The shared store should be released", extensionDataMap.isEmpty());
+    }
   }
 
   @Test
@@ -256,4 +283,19 @@ public class StreamLookupTest {
   public void testMemoryPreservationWithBinaryStreams() throws HopException {
     doTest(true, false, true);
   }
+
+  @Test
+  public void testOffHeapStoreWithNormalStreams() throws HopException {
+    doTest(true, false, false, true);
+  }
+
+  @Test
+  public void testOffHeapStoreWithBinaryLookupStream() throws HopException {
+    doTest(true, true, false, true);
+  }
+
+  @Test
+  public void testOffHeapStoreWithBinaryDataStream() throws HopException {
+    doTest(true, false, true, true);
+  }
 }
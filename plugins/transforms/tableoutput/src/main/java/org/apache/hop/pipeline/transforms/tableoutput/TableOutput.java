@@ -60,8 +60,10 @@ public class TableOutput extends BaseTransform<TableOutputMeta, TableOutputData>
   @Override
   public boolean processRow() throws HopException {
 
-    Object[] r = getRow(); // this also waits for a previous transform to be finished.
-    if (r == null) { // no more input to be expected...
+    long previousLinesRead = getLinesRead();
+    // this also waits for a previous transform to be finished.
+    Object[][] rows = getRows(ROW_BATCH_SIZE);
+    if (rows == null) { // no more input to be expected...
       if (first && meta.isTruncateTable() && !meta.isOnlyWhenHaveRows()) {
         truncateTable();
       }
@@ -113,27 +115,46 @@ public class TableOutput extends BaseTransform<TableOutputMeta, TableOutputData>
       }
     }
 
+    // Without batch mode the written rows come back right away, in batch mode writeToTable() sends
+    // them on itself once they are committed.
+    //
+    Object[][] outputRows = new Object[rows.length][];
+    int written = 0;
     try {
-      Object[] outputRowData = writeToTable(getInputRowMeta(), r);
-      if (outputRowData != null) {
-        putRow(data.outputRowMeta, outputRowData); // in case we want it go further...
-        incrementLinesOutput();
-      }
-
-      if (checkFeedback(getLinesRead()) && log.isBasic()) {
-        logBasic("linenr " + getLinesRead());
+      for (Object[] r : rows) {
+        Object[] outputRowData = writeToTable(getInputRowMeta(), r);
+        if (outputRowData != null) {
+          outputRows[written++] = outputRowData;
+        }
       }
     } catch (HopException e) {
+      putWrittenRows(outputRows, written); // the rows before the error did make it to the table
       logError("Because of an error, this transform can't continue: ", e);
       setErrors(1);
       stopAll();
       setOutputDone(); // signal end to receiver(s)
       return false;
     }
+    putWrittenRows(outputRows, written); // in case we want it go further...
+
+    if (checkFeedback(previousLinesRead, getLinesRead()) && log.isBasic()) {
+      logBasic("linenr " + getLinesRead());
+    }
 
     return true;
   }
 
+  private void putWrittenRows(Object[][] rows, int count) throws HopTransformException {
+    putRows(data.outputRowMeta, rows, count);
+    for (int i = 0; i < count; i++) {
+      incrementLinesOutput();
+    }
+  }
+
+  private void putBatchBuffer() throws HopTransformException {
+    putWrittenRows(data.batchBuffer.toArray(new Object[0][]), data.batchBuffer.size());
+  }
+
   protected Object[] writeToTable(IRowMeta rowMeta, Object[] r) throws HopException {
 
     if (r == null) { // Stop: last line or error encountered
@@ -408,11 +429,7 @@ public class TableOutput extends BaseTransform<TableOutputMeta, TableOutputData>
         outputRowData = null;
 
         if (rowIsSafe) { // A commit was done and the rows are all safe (no error)
-          for (int i = 0; i < data.batchBuffer.size(); i++) {
-            Object[] row = data.batchBuffer.get(i);
-            putRow(data.outputRowMeta, row);
-            incrementLinesOutput();
-          }
+          putBatchBuffer();
           // Clear the buffer
           data.batchBuffer.clear();
         }
@@ -607,11 +624,7 @@ public class TableOutput extends BaseTransform<TableOutputMeta, TableOutputData>
         data.db.emptyAndCommit(insertStatement, data.batchMode, batchCounter, dispose);
         data.commitCounterMap.put(schemaTable, 0);
       }
-      for (int i = 0; i < data.batchBuffer.size(); i++) {
-        Object[] row = data.batchBuffer.get(i);
-        putRow(data.outputRowMeta, row);
-        incrementLinesOutput();
-      }
+      putBatchBuffer();
       // Clear the buffer
       data.batchBuffer.clear();
     } catch (HopDatabaseBatchException be) {
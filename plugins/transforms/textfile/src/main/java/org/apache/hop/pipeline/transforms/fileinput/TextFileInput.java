@@ -1435,9 +1435,12 @@ public class TextFileInput extends BaseTransform<TextFileInputMeta, TextFileInpu
   private void rejectCurrentFile(String errorMsg) {
     if (StringUtils.isNotBlank(meta.getFileErrorField())
         || StringUtils.isNotBlank(meta.getFileErrorMessageField())) {
+      // Add the error fields to a copy, the input row metadata belongs to the input row set
       IRowMeta rowMeta = getInputRowMeta();
       if (rowMeta == null) {
         rowMeta = new RowMeta();
+      } else {
+        rowMeta = rowMeta.clone();
       }
 
       int errorFileIndex =